@@ -294,34 +294,33 @@ public class Graph<V> {
 	 */
 	@Override
 	public String toString() {
-		String out = "";
-		out += oriented ? "Oriented Graph" : "Not Oriented Graph";
-		out += "\n";
-		out += "Vertex count: " + this.vertexCount() + "\n";
-		out += "Edge count: " + this.edgeCount() + "\n";
-		out += "Total weight: " + this.weight() + "\n";
-		out += "Vertex list: [ ";
+		StringBuilder out = new StringBuilder();
+		out.append(oriented ? "Oriented Graph" : "Not Oriented Graph").append('\n');
+		out.append("Vertex count: ").append(this.vertexCount()).append('\n');
+		out.append("Edge count: ").append(this.edgeCount()).append('\n');
+		out.append("Total weight: ").append(this.weight()).append('\n');
+		out.append("Vertex list: [ ");
 		for (V v : adjs.keySet()) {
-			out += v.toString() + ", ";
+			out.append(v.toString()).append(", ");
 		}
 		if (this.vertexCount() > 0) {
-			out = out.substring(0, out.length() - 2);
+			out.setLength(out.length() - 2);
 		}
-		out += " ]\n";
-		out += "Adjacencies: {\n";
+		out.append(" ]\n");
+		out.append("Adjacencies: {\n");
 		for (Map.Entry<V, LinkedList<Edge>> entry : adjs.entrySet()) {
-			out += "\t" + entry.getKey().toString() + ": [ ";
+			out.append('\t').append(entry.getKey().toString()).append(": [ ");
 			LinkedList<Edge> dest = entry.getValue();
 			for (Edge e : dest) {
-				out += e.toString() + ", ";
+				out.append(e.toString()).append(", ");
 			}
 			if (dest.size() > 0) {
-				out = out.substring(0, out.length() - 2);
+				out.setLength(out.length() - 2);
 			}
-			out += " ]\n";
+			out.append(" ]\n");
 		}
-		out += "}";
-		return out;
+		out.append('}');
+		return out.toString();
 	}
 
 	/**
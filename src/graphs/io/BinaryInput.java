@@ -0,0 +1,146 @@
+package graphs.io;
+
+import java.io.EOFException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class reading the little endian values written by BinaryOutput from a byte
+ * array
+ */
+class BinaryInput {
+
+	private final byte[] bytes;
+	private final int limit;
+	private int position;
+
+	/**
+	 * Constructor for an input over a range of an array
+	 *
+	 * @param bytes the array
+	 * @param from  the position of the first byte
+	 * @param to    the position following the last byte
+	 */
+	BinaryInput(byte[] bytes, int from, int to) {
+		this.bytes = bytes;
+		this.position = from;
+		this.limit = to;
+	}
+
+	/**
+	 * Method reading a byte
+	 *
+	 * @return the value, between 0 and 255
+	 * @throws EOFException if the input is exhausted
+	 */
+	int getByte() throws EOFException {
+		require(1);
+		return bytes[position++] & 0xff;
+	}
+
+	/**
+	 * Method reading an int
+	 *
+	 * @return the value
+	 * @throws EOFException if the input is exhausted
+	 */
+	int getInt() throws EOFException {
+		return (int) getFixed(4);
+	}
+
+	/**
+	 * Method reading a long
+	 *
+	 * @return the value
+	 * @throws EOFException if the input is exhausted
+	 */
+	long getLong() throws EOFException {
+		return getFixed(8);
+	}
+
+	/**
+	 * Method reading a double
+	 *
+	 * @return the value
+	 * @throws EOFException if the input is exhausted
+	 */
+	double getDouble() throws EOFException {
+		return Double.longBitsToDouble(getFixed(8));
+	}
+
+	/**
+	 * Method reading a varint
+	 *
+	 * @return the value
+	 * @throws EOFException if the input is exhausted
+	 */
+	int getVarint() throws EOFException {
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			require(1);
+			byte b = bytes[position++];
+			value |= (b & 0x7f) << shift;
+			if (b >= 0)
+				return value;
+		}
+	}
+
+	/**
+	 * Method reading a string written as its UTF-8 length and bytes
+	 *
+	 * @return the string
+	 * @throws EOFException if the input is exhausted
+	 */
+	String getUtf8() throws EOFException {
+		int length = getVarint();
+		require(length);
+		String text = new String(bytes, position, length, StandardCharsets.UTF_8);
+		position += length;
+		return text;
+	}
+
+	/**
+	 * Method returning the current position
+	 *
+	 * @return the position in the array
+	 */
+	int position() {
+		return position;
+	}
+
+	/**
+	 * Method telling if there are bytes left
+	 *
+	 * @return true if the input is not exhausted, false if it is
+	 */
+	boolean hasRemaining() {
+		return position < limit;
+	}
+
+	/**
+	 * Method reading a little endian fixed size value
+	 *
+	 * @param size the number of bytes
+	 * @return the value
+	 * @throws EOFException if the input is exhausted
+	 */
+	private long getFixed(int size) throws EOFException {
+		require(size);
+		long value = 0;
+		for (int i = 0; i < size; i++) {
+			value |= (bytes[position++] & 0xffL) << (8 * i);
+		}
+		return value;
+	}
+
+	/**
+	 * Method checking that enough bytes are left
+	 *
+	 * @param size the number of bytes about to be read
+	 * @throws EOFException if fewer bytes are left
+	 */
+	private void require(int size) throws EOFException {
+		if (size < 0 || limit - position < size)
+			throw new EOFException("Unexpected end of data at byte " + position);
+	}
+
+}
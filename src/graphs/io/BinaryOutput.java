@@ -0,0 +1,289 @@
+package graphs.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Class writing little endian values through a reusable buffer, either to a
+ * channel, flushing when the buffer is full, or to memory, growing the buffer;
+ * strings are encoded to UTF-8 straight into the buffer, without intermediate
+ * arrays
+ */
+class BinaryOutput {
+
+	private final FileChannel channel;
+	private ByteBuffer buffer;
+	private long written;
+
+	/**
+	 * Constructor for an output on a given channel
+	 *
+	 * @param channel the file channel, positioned where writing starts
+	 */
+	BinaryOutput(FileChannel channel) {
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Constructor for an output in memory
+	 */
+	BinaryOutput() {
+		this.channel = null;
+		this.buffer = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Method writing a byte
+	 *
+	 * @param value the value to write
+	 * @throws IOException if the channel cannot be written
+	 */
+	void putByte(int value) throws IOException {
+		ensure(1);
+		buffer.put((byte) value);
+		written++;
+	}
+
+	/**
+	 * Method writing an int
+	 *
+	 * @param value the value to write
+	 * @throws IOException if the channel cannot be written
+	 */
+	void putInt(int value) throws IOException {
+		ensure(4);
+		buffer.putInt(value);
+		written += 4;
+	}
+
+	/**
+	 * Method writing a long
+	 *
+	 * @param value the value to write
+	 * @throws IOException if the channel cannot be written
+	 */
+	void putLong(long value) throws IOException {
+		ensure(8);
+		buffer.putLong(value);
+		written += 8;
+	}
+
+	/**
+	 * Method writing a double
+	 *
+	 * @param value the value to write
+	 * @throws IOException if the channel cannot be written
+	 */
+	void putDouble(double value) throws IOException {
+		ensure(8);
+		buffer.putDouble(value);
+		written += 8;
+	}
+
+	/**
+	 * Method writing a varint, 7 bits per byte with the high bit telling that
+	 * more bytes follow
+	 *
+	 * @param value the value to write, read as unsigned
+	 * @throws IOException if the channel cannot be written
+	 */
+	void putVarint(int value) throws IOException {
+		ensure(5);
+		while ((value & ~0x7f) != 0) {
+			buffer.put((byte) ((value & 0x7f) | 0x80));
+			value >>>= 7;
+			written++;
+		}
+		buffer.put((byte) value);
+		written++;
+	}
+
+	/**
+	 * Method writing some bytes
+	 *
+	 * @param bytes  the buffer holding the bytes
+	 * @param from   the position of the first byte
+	 * @param length the number of bytes
+	 * @throws IOException if the channel cannot be written
+	 */
+	void putBytes(byte[] bytes, int from, int length) throws IOException {
+		int i = 0;
+		while (i < length) {
+			ensure(channel == null ? length - i : 1);
+			int count = Math.min(buffer.remaining(), length - i);
+			buffer.put(bytes, from + i, count);
+			i += count;
+		}
+		written += length;
+	}
+
+	/**
+	 * Method writing a string as its UTF-8 length followed by its UTF-8 bytes;
+	 * unpaired surrogates are written as '?', as String.getBytes does
+	 *
+	 * @param text the string to write
+	 * @throws IOException if the channel cannot be written
+	 */
+	void putUtf8(String text) throws IOException {
+		int length = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c < 0x80)
+				length++;
+			else if (c < 0x800)
+				length += 2;
+			else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+					&& Character.isLowSurrogate(text.charAt(i + 1))) {
+				length += 4;
+				i++;
+			} else if (Character.isSurrogate(c))
+				length++;
+			else
+				length += 3;
+		}
+		putVarint(length);
+		putText(text);
+	}
+
+	/**
+	 * Method writing the UTF-8 bytes of a string, without its length; unpaired
+	 * surrogates are written as '?', as String.getBytes does
+	 *
+	 * @param text the string to write
+	 * @throws IOException if the channel cannot be written
+	 */
+	void putText(String text) throws IOException {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			ensure(4);
+			int position = buffer.position();
+			if (c < 0x80) {
+				buffer.put((byte) c);
+			} else if (c < 0x800) {
+				buffer.put((byte) (0xc0 | (c >> 6)));
+				buffer.put((byte) (0x80 | (c & 0x3f)));
+			} else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+					&& Character.isLowSurrogate(text.charAt(i + 1))) {
+				int code = Character.toCodePoint(c, text.charAt(++i));
+				buffer.put((byte) (0xf0 | (code >> 18)));
+				buffer.put((byte) (0x80 | ((code >> 12) & 0x3f)));
+				buffer.put((byte) (0x80 | ((code >> 6) & 0x3f)));
+				buffer.put((byte) (0x80 | (code & 0x3f)));
+			} else if (Character.isSurrogate(c)) {
+				buffer.put((byte) '?');
+			} else {
+				buffer.put((byte) (0xe0 | (c >> 12)));
+				buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+				buffer.put((byte) (0x80 | (c & 0x3f)));
+			}
+			written += buffer.position() - position;
+		}
+	}
+
+	/**
+	 * Method writing the decimal digits of a long value
+	 *
+	 * @param value the value to write
+	 * @throws IOException if the channel cannot be written
+	 */
+	void putDecimal(long value) throws IOException {
+		if (value == Long.MIN_VALUE) {
+			putText(Long.toString(value));
+			return;
+		}
+		ensure(20);
+		if (value < 0) {
+			buffer.put((byte) '-');
+			written++;
+			value = -value;
+		}
+		int digits = 1;
+		for (long rest = value / 10; rest > 0; rest /= 10) {
+			digits++;
+		}
+		int position = buffer.position();
+		for (int i = digits - 1; i >= 0; i--) {
+			buffer.put(position + i, (byte) ('0' + value % 10));
+			value /= 10;
+		}
+		buffer.position(position + digits);
+		written += digits;
+	}
+
+	/**
+	 * Method padding with zeros up to a multiple of 8 bytes
+	 *
+	 * @throws IOException if the channel cannot be written
+	 */
+	void align() throws IOException {
+		while (written % 8 != 0) {
+			putByte(0);
+		}
+	}
+
+	/**
+	 * Method returning the number of bytes written so far
+	 *
+	 * @return a long value of the bytes count
+	 */
+	long size() {
+		return written;
+	}
+
+	/**
+	 * Method returning the array holding the bytes written in memory
+	 *
+	 * @return the array, whose first size() bytes are the written ones
+	 */
+	byte[] array() {
+		return buffer.array();
+	}
+
+	/**
+	 * Method discarding the bytes written in memory, keeping the buffer
+	 */
+	void reset() {
+		buffer.clear();
+		written = 0;
+	}
+
+	/**
+	 * Method writing the buffered bytes to the channel
+	 *
+	 * @throws IOException if the channel cannot be written
+	 */
+	void flush() throws IOException {
+		if (channel == null)
+			return;
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Method making room for some bytes, flushing to the channel or growing the
+	 * memory buffer
+	 *
+	 * @param size the number of bytes about to be written
+	 * @throws IOException if the channel cannot be written
+	 */
+	private void ensure(int size) throws IOException {
+		if (buffer.remaining() >= size)
+			return;
+		if (channel != null) {
+			flush();
+		} else {
+			int position = buffer.position();
+			buffer = ByteBuffer.wrap(Arrays.copyOf(buffer.array(), Math.max(2 * buffer.capacity(), position + size)))
+					.order(ByteOrder.LITTLE_ENDIAN);
+			buffer.position(position);
+		}
+	}
+
+}
@@ -0,0 +1,577 @@
+package graphs.io;
+
+import graphs.secondversion.IntList;
+import graphs.secondversion.UnionFind;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class computing the minimum spanning forest of a not oriented graph split
+ * into shard files, with one worker process per shard connected to the
+ * coordinator over a loopback socket. Every worker first contracts its owned
+ * vertexes along the internal edges that are the lightest outgoing edge of
+ * their component, which by the cut property belong to the forest, since a
+ * worker sees every edge of the vertexes it owns; then the forest is completed
+ * with Boruvka rounds, in which every worker sends only the lightest outgoing
+ * edge of each component touching its vertexes, and the coordinator keeps the
+ * lightest one per component and merges the components in a union find. The
+ * coordinator thus holds a union find and a few ints per vertex, the labels in
+ * a label dictionary and the forest, but never the cut edges, and the rounds
+ * are at most logarithmic in the number of contracted components
+ */
+public class DistributedMst {
+
+	private static final int MAGIC = 0x44534d32;
+	private static final int ROUND = 1;
+	private static final int DONE = 0;
+
+	private final long timeout;
+
+	/**
+	 * Constructor specifying how long the coordinator waits for the workers
+	 *
+	 * @param timeout the greatest time to wait for a worker to connect or send
+	 *                data, in milliseconds
+	 * @throws IllegalArgumentException if the timeout is not positive
+	 */
+	public DistributedMst(long timeout) throws IllegalArgumentException {
+		if (timeout < 1)
+			throw new IllegalArgumentException("Timeout must be positive");
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Method computing the minimum spanning forest of a sharded graph, launching
+	 * a worker JVM per shard with the classpath of the current one
+	 *
+	 * @param shards the paths of the shard files, one per shard of the graph
+	 * @return the edges of the forest, with the vertex ids of the whole graph
+	 * @throws IllegalArgumentException when the list, passed as param, is null or
+	 *                                  empty
+	 * @throws IOException              if a worker cannot be launched or fails,
+	 *                                  or the shards do not form a not oriented
+	 *                                  graph
+	 */
+	public EdgeList compute(List<Path> shards) throws IllegalArgumentException, IOException {
+		if (shards == null || shards.isEmpty())
+			throw new IllegalArgumentException("Shards must be not null nor empty");
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		List<Process> workers = new ArrayList<Process>(shards.size());
+		try (ServerSocket server = new ServerSocket(0, shards.size(), InetAddress.getLoopbackAddress())) {
+			server.setSoTimeout((int) Math.min(Integer.MAX_VALUE, timeout));
+			for (Path shard : shards) {
+				ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+						DistributedMst.class.getName(), Integer.toString(server.getLocalPort()),
+						shard.toAbsolutePath().toString());
+				builder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+				builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+				workers.add(builder.start());
+			}
+			return coordinate(server, shards.size());
+		} finally {
+			for (Process worker : workers) {
+				worker.destroy();
+			}
+			for (Process worker : workers) {
+				try {
+					if (!worker.waitFor(timeout, TimeUnit.MILLISECONDS))
+						worker.destroyForcibly();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while stopping the workers");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Method collecting the labels and the contracted edges of every worker, then
+	 * running the Boruvka rounds until no component has an outgoing edge
+	 *
+	 * @param server the socket the workers connect to
+	 * @param k      the number of workers
+	 * @return the edges of the forest
+	 * @throws IOException if a worker fails or sends inconsistent data
+	 */
+	private EdgeList coordinate(ServerSocket server, int k) throws IOException {
+		Socket[] sockets = new Socket[k];
+		DataInputStream[] ins = new DataInputStream[k];
+		DataOutputStream[] outs = new DataOutputStream[k];
+		LabelDictionary dictionary = new LabelDictionary();
+		int[] ids = null;
+		UnionFind sets = null;
+		Forest forest = new Forest();
+		try {
+			for (int c = 0; c < k; c++) {
+				try {
+					sockets[c] = server.accept();
+				} catch (SocketTimeoutException e) {
+					throw new IOException("Only " + c + " of " + k + " workers connected", e);
+				}
+				sockets[c].setSoTimeout((int) Math.min(Integer.MAX_VALUE, timeout));
+				ins[c] = new DataInputStream(new BufferedInputStream(sockets[c].getInputStream(), 1 << 16));
+				outs[c] = new DataOutputStream(new BufferedOutputStream(sockets[c].getOutputStream(), 1 << 16));
+				DataInputStream in = ins[c];
+				if (in.readInt() != MAGIC)
+					throw new IOException("Unexpected worker protocol");
+				int shard = in.readInt();
+				int shardCount = in.readInt();
+				int n = in.readInt();
+				if (shardCount != k || shard < 0 || shard >= k || n < 0)
+					throw new IOException("Unexpected shard " + shard + " of " + shardCount);
+				if (ids == null) {
+					ids = new int[n];
+					Arrays.fill(ids, -1);
+					sets = new UnionFind(n);
+				} else if (ids.length != n) {
+					throw new IOException("Shards of different graphs");
+				}
+				int owned = in.readInt();
+				byte[] buffer = new byte[64];
+				for (int i = 0; i < owned; i++) {
+					int v = readVertex(in, n);
+					int length = in.readInt();
+					if (length < 0)
+						throw new IOException("Unexpected label length " + length);
+					if (length > buffer.length)
+						buffer = new byte[Math.max(length, 2 * buffer.length)];
+					in.readFully(buffer, 0, length);
+					int id = dictionary.intern(buffer, 0, length);
+					if (ids[v] >= 0 || id != dictionary.size() - 1)
+						throw new IOException("Vertex " + v + " owned by more than one shard");
+					ids[v] = id;
+				}
+				int contracted = in.readInt();
+				for (int i = 0; i < contracted; i++) {
+					int u = readVertex(in, n);
+					int v = readVertex(in, n);
+					double weight = in.readDouble();
+					if (sets.union(u, v))
+						forest.add(u, v, weight);
+				}
+			}
+			for (int v = 0; v < ids.length; v++) {
+				if (ids[v] < 0)
+					throw new IOException("Vertex " + v + " not owned by any shard");
+			}
+
+			int[] best = new int[ids.length];
+			Arrays.fill(best, -1);
+			IntList touched = new IntList(16);
+			Candidates candidates = new Candidates();
+			int[] known = new int[1024];
+			while (true) {
+				for (DataOutputStream out : outs) {
+					out.writeInt(ROUND);
+					out.flush();
+				}
+				// telling every worker the current components of the ones it knows, and
+				// how to renumber them densely; the whole request is read first, since
+				// the worker only reads once it is sent
+				for (int c = 0; c < k; c++) {
+					int count = ins[c].readInt();
+					if (count < 0 || count > ids.length)
+						throw new IOException("Unexpected component count " + count);
+					if (count > known.length)
+						known = new int[Math.max(count, 2 * known.length)];
+					int merged = 0;
+					for (int i = 0; i < count; i++) {
+						int root = sets.find(readVertex(ins[c], ids.length));
+						if (best[root] < 0) {
+							best[root] = merged++;
+							touched.add(root);
+						}
+						known[i] = best[root];
+					}
+					outs[c].writeInt(merged);
+					for (int i = 0; i < touched.size(); i++) {
+						outs[c].writeInt(touched.get(i));
+						best[touched.get(i)] = -1;
+					}
+					touched.clear();
+					for (int i = 0; i < count; i++) {
+						outs[c].writeInt(known[i]);
+					}
+					outs[c].flush();
+				}
+				// keeping the lightest outgoing edge of every component
+				candidates.clear();
+				for (int c = 0; c < k; c++) {
+					int count = ins[c].readInt();
+					for (int i = 0; i < count; i++) {
+						int component = readVertex(ins[c], ids.length);
+						int proposed = candidates.add(readVertex(ins[c], ids.length), readVertex(ins[c], ids.length),
+								readVertex(ins[c], ids.length), ins[c].readDouble());
+						if (best[component] < 0) {
+							best[component] = proposed;
+							touched.add(component);
+						} else if (candidates.lighter(proposed, best[component])) {
+							best[component] = proposed;
+						}
+					}
+				}
+				if (touched.isEmpty())
+					break;
+				while (!touched.isEmpty()) {
+					int component = touched.removeLast();
+					int i = best[component];
+					best[component] = -1;
+					if (sets.union(component, candidates.other[i]))
+						forest.add(candidates.src[i], candidates.dest[i], candidates.weights[i]);
+				}
+			}
+			for (DataOutputStream out : outs) {
+				out.writeInt(DONE);
+				out.flush();
+			}
+		} catch (EOFException e) {
+			throw new IOException("Worker failed before completing the forest", e);
+		} finally {
+			for (Socket socket : sockets) {
+				if (socket != null)
+					socket.close();
+			}
+		}
+		for (int i = 0; i < forest.size; i++) {
+			forest.src[i] = ids[forest.src[i]];
+			forest.dest[i] = ids[forest.dest[i]];
+		}
+		return new EdgeList(dictionary, forest.src, forest.dest, forest.weights, forest.size);
+	}
+
+	/**
+	 * Method reading a vertex id of the whole graph
+	 *
+	 * @param in the stream
+	 * @param n  the number of vertexes of the graph
+	 * @return the vertex id
+	 * @throws IOException if the id is out of range or the stream fails
+	 */
+	private static int readVertex(DataInputStream in, int n) throws IOException {
+		int v = in.readInt();
+		if (v < 0 || v >= n)
+			throw new IOException("Vertex " + v + " out of range");
+		return v;
+	}
+
+	/**
+	 * Method telling if an edge comes before another one in the order the rounds
+	 * agree on: by weight, then by smaller and by greater endpoint, so that the
+	 * edges picked in a round never close a cycle
+	 *
+	 * @param weight      the cost of the first edge
+	 * @param u           an endpoint of the first edge
+	 * @param v           the other endpoint of the first edge
+	 * @param otherWeight the cost of the second edge
+	 * @param otherU      an endpoint of the second edge
+	 * @param otherV      the other endpoint of the second edge
+	 * @return true if the first edge is lighter, false if it is not
+	 */
+	static boolean lighter(double weight, int u, int v, double otherWeight, int otherU, int otherV) {
+		int compare = Double.compare(weight, otherWeight);
+		if (compare == 0)
+			compare = Integer.compare(Math.min(u, v), Math.min(otherU, otherV));
+		if (compare == 0)
+			compare = Integer.compare(Math.max(u, v), Math.max(otherU, otherV));
+		return compare < 0;
+	}
+
+	/**
+	 * Method run by a worker: loading a shard, contracting its locally safe
+	 * edges and then answering the rounds of the coordinator on the contracted
+	 * components
+	 *
+	 * @param shardFile the path of the shard file
+	 * @param port      the loopback port of the coordinator
+	 * @throws IOException if the shard cannot be read, is oriented, or the
+	 *                     coordinator cannot be reached
+	 */
+	static void work(Path shardFile, int port) throws IOException {
+		GraphShard shard = GraphShard.read(shardFile);
+		if (shard.isOriented())
+			throw new IOException("Spanning forests need a not oriented graph");
+		EdgeList edges = shard.getEdges();
+		int owned = shard.ownedCount();
+		int local = owned + shard.boundaryCount();
+		int size = edges.size();
+		int[] src = new int[size];
+		int[] dest = new int[size];
+		double[] weights = new double[size];
+		for (int i = 0; i < size; i++) {
+			src[i] = edges.getSource(i);
+			dest[i] = edges.getDestination(i);
+			weights[i] = edges.getWeight(i);
+		}
+		EdgeList.sortByWeight(src, dest, weights, size);
+
+		// the first outgoing edge met by a component is its lightest one, and so
+		// belongs to the forest, since every edge of an owned vertex is in the
+		// shard; an internal one is contracted, while a cut edge blocks the
+		// component, whose later edges are left to the rounds
+		UnionFind sets = new UnionFind(local);
+		boolean[] blocked = new boolean[local];
+		Forest safe = new Forest();
+		for (int i = 0; i < size; i++) {
+			int u = sets.find(src[i]);
+			int v = sets.find(dest[i]);
+			if (u == v || (blocked[u] && (dest[i] >= owned || blocked[v])))
+				continue;
+			safe.add(shard.getGlobalId(src[i]), shard.getGlobalId(dest[i]), weights[i]);
+			if (dest[i] >= owned) {
+				blocked[u] = true;
+			} else {
+				boolean merged = blocked[u] || blocked[v];
+				sets.union(u, v);
+				blocked[sets.find(u)] = merged;
+			}
+		}
+
+		// numbering the contracted components, whose slots replace the vertexes
+		int[] slots = new int[local];
+		Arrays.fill(slots, -1);
+		IntList roots = new IntList(16);
+		for (int v = 0; v < local; v++) {
+			int root = sets.find(v);
+			if (slots[root] < 0) {
+				slots[root] = roots.size();
+				roots.add(root);
+			}
+			slots[v] = slots[root];
+		}
+		int count = roots.size();
+		int[] components = new int[count];
+		boolean[] reached = new boolean[count];
+		for (int c = 0; c < count; c++) {
+			components[c] = shard.getGlobalId(roots.get(c));
+			reached[c] = roots.get(c) < owned;
+		}
+
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+				DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(socket.getOutputStream(), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(shard.getShard());
+			out.writeInt(shard.getShardCount());
+			out.writeInt(shard.getVertexCount());
+			out.writeInt(owned);
+			for (int v = 0; v < owned; v++) {
+				// length prefixed, since writeUTF is limited to 64KB
+				byte[] label = edges.getLabel(v).getBytes(StandardCharsets.UTF_8);
+				out.writeInt(shard.getGlobalId(v));
+				out.writeInt(label.length);
+				out.write(label);
+			}
+			out.writeInt(safe.size);
+			for (int i = 0; i < safe.size; i++) {
+				out.writeInt(safe.src[i]);
+				out.writeInt(safe.dest[i]);
+				out.writeDouble(safe.weights[i]);
+			}
+			out.flush();
+
+			// from now on edges join slots, and keep their global endpoints
+			int[] globalSrc = new int[size];
+			int[] globalDest = new int[size];
+			int kept = 0;
+			for (int i = 0; i < size; i++) {
+				if (slots[src[i]] != slots[dest[i]]) {
+					globalSrc[kept] = shard.getGlobalId(src[i]);
+					globalDest[kept] = shard.getGlobalId(dest[i]);
+					src[kept] = slots[src[i]];
+					dest[kept] = slots[dest[i]];
+					weights[kept] = weights[i];
+					kept++;
+				}
+			}
+			size = kept;
+
+			while (in.readInt() == ROUND) {
+				// asking for the components other shards may have merged, and
+				// renumbering the slots accordingly
+				out.writeInt(count);
+				for (int c = 0; c < count; c++) {
+					out.writeInt(components[c]);
+				}
+				out.flush();
+				int[] merged = new int[in.readInt()];
+				for (int c = 0; c < merged.length; c++) {
+					merged[c] = in.readInt();
+				}
+				boolean[] mergedReached = new boolean[merged.length];
+				int[] renumber = new int[count];
+				for (int c = 0; c < count; c++) {
+					renumber[c] = in.readInt();
+					mergedReached[renumber[c]] |= reached[c];
+				}
+				components = merged;
+				reached = mergedReached;
+				count = merged.length;
+
+				// dropping the edges inside a component, which no later round needs
+				kept = 0;
+				for (int i = 0; i < size; i++) {
+					int u = renumber[src[i]];
+					int v = renumber[dest[i]];
+					if (u != v) {
+						src[kept] = u;
+						dest[kept] = v;
+						globalSrc[kept] = globalSrc[i];
+						globalDest[kept] = globalDest[i];
+						weights[kept] = weights[i];
+						kept++;
+					}
+				}
+				size = kept;
+
+				// finding the lightest outgoing edge of every component with an owned
+				// vertex, whose outgoing edges all have a copy in this shard
+				int[] best = new int[count];
+				Arrays.fill(best, -1);
+				int proposed = 0;
+				for (int i = 0; i < size; i++) {
+					for (int end = 0; end < 2; end++) {
+						int c = end == 0 ? src[i] : dest[i];
+						if (!reached[c])
+							continue;
+						int b = best[c];
+						if (b < 0)
+							proposed++;
+						if (b < 0 || lighter(weights[i], globalSrc[i], globalDest[i], weights[b], globalSrc[b],
+								globalDest[b]))
+							best[c] = i;
+					}
+				}
+				out.writeInt(proposed);
+				for (int c = 0; c < count; c++) {
+					int i = best[c];
+					if (i < 0)
+						continue;
+					out.writeInt(components[c]);
+					out.writeInt(components[src[i] == c ? dest[i] : src[i]]);
+					out.writeInt(globalSrc[i]);
+					out.writeInt(globalDest[i]);
+					out.writeDouble(weights[i]);
+				}
+				out.flush();
+			}
+		}
+	}
+
+	/**
+	 * Inner class accumulating the edges of the forest, between vertex ids of the
+	 * whole graph
+	 */
+	protected static class Forest {
+
+		private int[] src = new int[1024];
+		private int[] dest = new int[1024];
+		private double[] weights = new double[1024];
+		private int size;
+
+		/**
+		 * Method appending an edge
+		 *
+		 * @param u      the starting vertex id
+		 * @param v      the ending vertex id
+		 * @param weight the cost of the edge
+		 */
+		public void add(int u, int v, double weight) {
+			if (size == src.length) {
+				src = Arrays.copyOf(src, 2 * size);
+				dest = Arrays.copyOf(dest, 2 * size);
+				weights = Arrays.copyOf(weights, 2 * size);
+			}
+			src[size] = u;
+			dest[size] = v;
+			weights[size] = weight;
+			size++;
+		}
+
+	}
+
+	/**
+	 * Inner class holding the edges proposed in a round, each one with the
+	 * component on its other side
+	 */
+	protected static class Candidates {
+
+		private int[] other = new int[1024];
+		private int[] src = new int[1024];
+		private int[] dest = new int[1024];
+		private double[] weights = new double[1024];
+		private int size;
+
+		/**
+		 * Method appending a proposed edge
+		 *
+		 * @param other  the component on the other side of the edge
+		 * @param u      the starting vertex id
+		 * @param v      the ending vertex id
+		 * @param weight the cost of the edge
+		 * @return the index of the edge
+		 */
+		public int add(int other, int u, int v, double weight) {
+			if (size == src.length) {
+				this.other = Arrays.copyOf(this.other, 2 * size);
+				src = Arrays.copyOf(src, 2 * size);
+				dest = Arrays.copyOf(dest, 2 * size);
+				weights = Arrays.copyOf(weights, 2 * size);
+			}
+			this.other[size] = other;
+			src[size] = u;
+			dest[size] = v;
+			weights[size] = weight;
+			return size++;
+		}
+
+		/**
+		 * Method telling if a proposed edge comes before another one
+		 *
+		 * @param i the index of the first edge
+		 * @param j the index of the second edge
+		 * @return true if the first edge is lighter, false if it is not
+		 */
+		public boolean lighter(int i, int j) {
+			return DistributedMst.lighter(weights[i], src[i], dest[i], weights[j], src[j], dest[j]);
+		}
+
+		/**
+		 * Method discarding every proposed edge
+		 */
+		public void clear() {
+			size = 0;
+		}
+
+	}
+
+	/**
+	 * Worker entry point
+	 *
+	 * @param args the loopback port of the coordinator and the path of the shard
+	 *             file
+	 * @throws Exception if the shard cannot be processed
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2)
+			throw new Exception("Usage: java " + DistributedMst.class.getName() + " <port> <shard file>");
+		work(Paths.get(args[1]), Integer.parseInt(args[0]));
+	}
+
+}
@@ -0,0 +1,278 @@
+package graphs.io;
+
+import graphs.secondversion.CsrGraph;
+import graphs.secondversion.Graph;
+import graphs.secondversion.UnionFind;
+import java.util.Arrays;
+
+/**
+ * Class representing a list of weighted edges stored in primitive arrays, with
+ * vertexes encoded as dense integer ids and a dictionary decoding them back to
+ * their labels
+ */
+public class EdgeList {
+
+	private final LabelDictionary labels;
+	private final int[] src;
+	private final int[] dest;
+	private final double[] weights;
+	private final int size;
+
+	/**
+	 * Constructor accepting the label dictionary and the edge arrays, which are
+	 * not copied
+	 *
+	 * @param labels  the vertex labels, interned with the vertex ids
+	 * @param src     the starting vertex id of every edge
+	 * @param dest    the ending vertex id of every edge
+	 * @param weights the cost of every edge
+	 * @param size    the number of edges, the arrays may be longer
+	 */
+	public EdgeList(LabelDictionary labels, int[] src, int[] dest, double[] weights, int size) {
+		this.labels = labels;
+		this.src = src;
+		this.dest = dest;
+		this.weights = weights;
+		this.size = size;
+	}
+
+	/**
+	 * Method returning the number of edges
+	 *
+	 * @return an integer value of the edges count
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Method returning the number of distinct vertexes
+	 *
+	 * @return an integer value of the vertexes count
+	 */
+	public int vertexCount() {
+		return labels.size();
+	}
+
+	/**
+	 * Method returning the label of a vertex id, decoded at every call
+	 *
+	 * @param id the vertex id
+	 * @return the label of the vertex
+	 */
+	public String getLabel(int id) {
+		return labels.get(id);
+	}
+
+	/**
+	 * Method returning the dictionary of the vertex labels
+	 *
+	 * @return the label dictionary
+	 */
+	public LabelDictionary getLabels() {
+		return labels;
+	}
+
+	/**
+	 * Method returning the starting vertex id of an edge
+	 *
+	 * @param i the edge index
+	 * @return the starting vertex id
+	 */
+	public int getSource(int i) {
+		return src[i];
+	}
+
+	/**
+	 * Method returning the ending vertex id of an edge
+	 *
+	 * @param i the edge index
+	 * @return the ending vertex id
+	 */
+	public int getDestination(int i) {
+		return dest[i];
+	}
+
+	/**
+	 * Method returning the cost of an edge
+	 *
+	 * @param i the edge index
+	 * @return a double value for the edge weight
+	 */
+	public double getWeight(int i) {
+		return weights[i];
+	}
+
+	/**
+	 * Method that calculates the total cost of the edges
+	 *
+	 * @return a double value counting the cost of all edges
+	 */
+	public double weight() {
+		double total = 0;
+		for (int i = 0; i < size; i++) {
+			total += weights[i];
+		}
+		return total;
+	}
+
+	/**
+	 * Method building a graph containing every vertex and edge of the list
+	 *
+	 * @param oriented boolean value specifying the graph orientation: true if
+	 *                 oriented, false if not
+	 * @return the built graph
+	 */
+	public Graph<String> toGraph(boolean oriented) {
+		Graph<String> g = new Graph<String>(oriented);
+		String[] names = labels.toArray();
+		for (String label : names) {
+			g.addVertex(label);
+		}
+		for (int i = 0; i < size; i++) {
+			g.addEdge(names[src[i]], names[dest[i]], weights[i]);
+		}
+		return g;
+	}
+
+	/**
+	 * Method building the compressed sparse row layout of the edges in bulk,
+	 * without going through a graph; unlike toGraph, parallel edges are all kept
+	 *
+	 * @param oriented boolean value specifying the graph orientation: true if
+	 *                 oriented, false if not, in which case every edge is stored
+	 *                 in both directions
+	 * @return the built indexed graph
+	 */
+	public CsrGraph<String> toIndexedGraph(boolean oriented) {
+		return toIndexedGraph(labels.toArray(), src, dest, weights, size, oriented);
+	}
+
+	/**
+	 * Method building the compressed sparse row layout of edges held in arrays,
+	 * with labels already decoded
+	 *
+	 * @param labels   the vertex labels, indexed by vertex id
+	 * @param src      the starting vertex id of every edge
+	 * @param dest     the ending vertex id of every edge
+	 * @param weights  the cost of every edge
+	 * @param size     the number of edges, the arrays may be longer
+	 * @param oriented boolean value specifying the graph orientation: true if
+	 *                 oriented, false if not
+	 * @return the built indexed graph
+	 */
+	static CsrGraph<String> toIndexedGraph(String[] labels, int[] src, int[] dest, double[] weights, int size,
+			boolean oriented) {
+		int n = labels.length;
+		int[] offsets = new int[n + 1];
+		for (int i = 0; i < size; i++) {
+			offsets[src[i] + 1]++;
+			if (!oriented)
+				offsets[dest[i] + 1]++;
+		}
+		for (int v = 0; v < n; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+		int[] fill = Arrays.copyOf(offsets, n);
+		int[] targets = new int[offsets[n]];
+		double[] adjacencyWeights = new double[offsets[n]];
+		for (int i = 0; i < size; i++) {
+			int e = fill[src[i]]++;
+			targets[e] = dest[i];
+			adjacencyWeights[e] = weights[i];
+			if (!oriented) {
+				e = fill[dest[i]]++;
+				targets[e] = src[i];
+				adjacencyWeights[e] = weights[i];
+			}
+		}
+		return new CsrGraph<String>(labels, offsets, targets, adjacencyWeights, oriented);
+	}
+
+	/**
+	 * Method computing the minimum spanning forest of the edges with Kruskal,
+	 * over a sorted copy of the arrays
+	 *
+	 * @return the edges of the forest, sharing the label dictionary of the list
+	 */
+	public EdgeList minimumSpanningForest() {
+		int[] sortedSrc = Arrays.copyOf(src, size);
+		int[] sortedDest = Arrays.copyOf(dest, size);
+		double[] sortedWeights = Arrays.copyOf(weights, size);
+		sortByWeight(sortedSrc, sortedDest, sortedWeights, size);
+		UnionFind sets = new UnionFind(labels.size());
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			if (sets.union(sortedSrc[i], sortedDest[i])) {
+				sortedSrc[kept] = sortedSrc[i];
+				sortedDest[kept] = sortedDest[i];
+				sortedWeights[kept] = sortedWeights[i];
+				kept++;
+			}
+		}
+		return new EdgeList(labels, Arrays.copyOf(sortedSrc, kept), Arrays.copyOf(sortedDest, kept),
+				Arrays.copyOf(sortedWeights, kept), kept);
+	}
+
+	/**
+	 * Method sorting the first n edges of parallel arrays by weight with an in
+	 * place heapsort
+	 *
+	 * @param src     the starting vertex id of every edge
+	 * @param dest    the ending vertex id of every edge
+	 * @param weights the cost of every edge
+	 * @param n       the number of edges to sort
+	 */
+	static void sortByWeight(int[] src, int[] dest, double[] weights, int n) {
+		for (int i = n / 2 - 1; i >= 0; i--) {
+			siftDown(src, dest, weights, i, n);
+		}
+		for (int end = n - 1; end > 0; end--) {
+			swap(src, dest, weights, 0, end);
+			siftDown(src, dest, weights, 0, end);
+		}
+	}
+
+	/**
+	 * Method restoring the max-heap property from a given index downwards
+	 *
+	 * @param src     the starting vertex id of every edge
+	 * @param dest    the ending vertex id of every edge
+	 * @param weights the cost of every edge
+	 * @param i       the index to sift
+	 * @param n       the heap size
+	 */
+	private static void siftDown(int[] src, int[] dest, double[] weights, int i, int n) {
+		while (2 * i + 1 < n) {
+			int child = 2 * i + 1;
+			if (child + 1 < n && weights[child + 1] > weights[child])
+				child++;
+			if (weights[i] >= weights[child])
+				return;
+			swap(src, dest, weights, i, child);
+			i = child;
+		}
+	}
+
+	/**
+	 * Method that swaps two edges of the parallel arrays
+	 *
+	 * @param src     the starting vertex id of every edge
+	 * @param dest    the ending vertex id of every edge
+	 * @param weights the cost of every edge
+	 * @param i       index of the first edge
+	 * @param j       index of the second edge
+	 */
+	private static void swap(int[] src, int[] dest, double[] weights, int i, int j) {
+		int t = src[i];
+		src[i] = src[j];
+		src[j] = t;
+		t = dest[i];
+		dest[i] = dest[j];
+		dest[j] = t;
+		double w = weights[i];
+		weights[i] = weights[j];
+		weights[j] = w;
+	}
+
+}
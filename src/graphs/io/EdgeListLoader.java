@@ -0,0 +1,510 @@
+package graphs.io;
+
+import graphs.secondversion.ParallelRange;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Class loading an edge list from a CSV file of "source,destination,weight"
+ * lines: the file is memory mapped in newline aligned chunks, parsed in
+ * parallel straight from bytes into primitive arrays, with labels interned as
+ * bytes into a dictionary per chunk, and the chunk results are finally merged
+ * into a single edge list; gzip compressed files and other streams are instead
+ * decompressed, parsed and merged in a pipeline running on separate threads
+ */
+public class EdgeListLoader {
+
+	private static final int MIN_CHUNK = 1 << 20;
+	private static final int MAX_CHUNK = 1 << 26;
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	private static final Future<Chunk> END = CompletableFuture.completedFuture(null);
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Constructor for a loader parsing on a given pool
+	 *
+	 * @param pool the pool running the chunk parsers
+	 * @throws IllegalArgumentException when the pool, passed as param, is null
+	 */
+	public EdgeListLoader(ForkJoinPool pool) throws IllegalArgumentException {
+		if (pool == null)
+			throw new IllegalArgumentException("Pool must be not null");
+		this.pool = pool;
+	}
+
+	/**
+	 * Method loading the edges of a CSV file, plain or gzip compressed; blank
+	 * lines are skipped
+	 *
+	 * @param filepath the path of the CSV file
+	 * @return the loaded edges, in file order, with vertex ids numbered in order
+	 *         of first appearance
+	 * @throws IOException if the file cannot be read or a line is malformed
+	 */
+	public EdgeList load(Path filepath) throws IOException {
+		try (FileChannel channel = FileChannel.open(filepath, StandardOpenOption.READ)) {
+			ByteBuffer magic = ByteBuffer.allocate(2);
+			channel.read(magic, 0);
+			if (magic.position() == 2 && (magic.get(0) & 0xff) == 0x1f && (magic.get(1) & 0xff) == 0x8b) {
+				try (InputStream in = new GZIPInputStream(Channels.newInputStream(channel.position(0)), 1 << 16)) {
+					return load(in);
+				}
+			}
+			long length = channel.size();
+			long chunkSize = Math.min(MAX_CHUNK, Math.max(MIN_CHUNK, length / (4L * pool.getParallelism()) + 1));
+			ArrayList<Long> bounds = new ArrayList<Long>();
+			bounds.add(0L);
+			long position = 0;
+			while (position < length) {
+				position = alignToLine(channel, Math.min(length, position + chunkSize));
+				bounds.add(position);
+			}
+			Chunk[] chunks = new Chunk[bounds.size() - 1];
+			try {
+				ParallelRange.run(pool, 0, chunks.length, 1, (from, to) -> {
+					for (int i = from; i < to; i++) {
+						try {
+							long start = bounds.get(i);
+							MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start,
+									bounds.get(i + 1) - start);
+							// one bulk copy per chunk, much cheaper to scan than the mapped buffer
+							byte[] bytes = new byte[buffer.remaining()];
+							buffer.get(bytes);
+							chunks[i] = new Chunk(start);
+							chunks[i].parse(bytes);
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			return merge(chunks);
+		}
+	}
+
+	/**
+	 * Method loading the edges from a stream of CSV lines, such as a decompressing
+	 * one, through a pipeline: a reader thread cuts the stream into blocks of
+	 * whole lines, the pool parses the blocks, and the calling thread merges them
+	 * in order as they are parsed; a bounded number of blocks is in flight, so
+	 * that memory stays bounded and no temporary copy of the stream is needed
+	 *
+	 * @param in the stream, which is read to the end but not closed
+	 * @return the loaded edges, in stream order, with vertex ids numbered in
+	 *         order of first appearance
+	 * @throws IllegalArgumentException when the stream, passed as param, is null
+	 * @throws IOException              if the stream cannot be read or a line is
+	 *                                  malformed
+	 */
+	public EdgeList load(InputStream in) throws IllegalArgumentException, IOException {
+		if (in == null)
+			throw new IllegalArgumentException("Stream must be not null");
+		ArrayBlockingQueue<Future<Chunk>> parsed = new ArrayBlockingQueue<Future<Chunk>>(
+				2 * pool.getParallelism());
+		AtomicBoolean cancelled = new AtomicBoolean();
+		AtomicReference<IOException> failure = new AtomicReference<IOException>();
+		Thread reader = new Thread(() -> {
+			try {
+				split(in, parsed, cancelled);
+			} catch (IOException e) {
+				failure.set(e);
+			} catch (InterruptedException e) {
+				cancelled.set(true);
+			} finally {
+				try {
+					while (!cancelled.get() && !parsed.offer(END, 10, TimeUnit.MILLISECONDS)) {
+					}
+				} catch (InterruptedException e) {
+					cancelled.set(true);
+				}
+			}
+		}, "edge-list-reader");
+		reader.setDaemon(true);
+		reader.start();
+		Assembly assembly = new Assembly();
+		try {
+			Future<Chunk> next;
+			while ((next = parsed.take()) != END) {
+				assembly.add(next.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while loading edges");
+		} catch (ExecutionException e) {
+			// the pool may wrap the exception again when rethrowing it to another thread
+			for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+				if (cause instanceof IOException)
+					throw (IOException) cause;
+			}
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IOException(e.getCause());
+		} finally {
+			// stopping the reader, which may be waiting for room in the queue
+			cancelled.set(true);
+			parsed.clear();
+		}
+		if (failure.get() != null)
+			throw failure.get();
+		return assembly.toEdgeList();
+	}
+
+	/**
+	 * Method cutting a stream into blocks of whole lines and handing each one to
+	 * the pool to be parsed
+	 *
+	 * @param in        the stream
+	 * @param parsed    the queue receiving the pending parsed blocks, in stream
+	 *                  order
+	 * @param cancelled the flag telling to stop reading
+	 * @throws IOException          if the stream cannot be read
+	 * @throws InterruptedException if interrupted while waiting for room in the
+	 *                              queue
+	 */
+	private void split(InputStream in, ArrayBlockingQueue<Future<Chunk>> parsed, AtomicBoolean cancelled)
+			throws IOException, InterruptedException {
+		byte[] buffer = new byte[MIN_CHUNK];
+		int filled = 0;
+		long position = 0;
+		while (!cancelled.get()) {
+			int read = in.read(buffer, filled, buffer.length - filled);
+			if (read < 0)
+				break;
+			filled += read;
+			if (filled < buffer.length)
+				continue;
+			int cut = filled;
+			while (cut > 0 && buffer[cut - 1] != '\n') {
+				cut--;
+			}
+			if (cut == 0) {
+				// a line longer than the buffer
+				buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+				continue;
+			}
+			submit(Arrays.copyOf(buffer, cut), position, parsed, cancelled);
+			position += cut;
+			System.arraycopy(buffer, cut, buffer, 0, filled - cut);
+			filled -= cut;
+		}
+		if (filled > 0)
+			submit(Arrays.copyOf(buffer, filled), position, parsed, cancelled);
+	}
+
+	/**
+	 * Method handing a block to the pool, waiting while too many blocks are in
+	 * flight
+	 *
+	 * @param bytes     the bytes of the block, made of whole lines
+	 * @param start     the position of the block in the stream
+	 * @param parsed    the queue receiving the pending parsed block
+	 * @param cancelled the flag telling to stop waiting
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	private void submit(byte[] bytes, long start, ArrayBlockingQueue<Future<Chunk>> parsed, AtomicBoolean cancelled)
+			throws InterruptedException {
+		Future<Chunk> chunk = pool.submit(() -> {
+			try {
+				Chunk parsing = new Chunk(start);
+				parsing.parse(bytes);
+				return parsing;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		while (!cancelled.get() && !parsed.offer(chunk, 10, TimeUnit.MILLISECONDS)) {
+		}
+	}
+
+	/**
+	 * Method moving a position forward to the start of the next line
+	 *
+	 * @param channel  the file channel
+	 * @param position the position to align
+	 * @return the position following the first newline at or after position - 1,
+	 *         or the file length
+	 * @throws IOException if the file cannot be read
+	 */
+	private long alignToLine(FileChannel channel, long position) throws IOException {
+		long length = channel.size();
+		if (position >= length)
+			return length;
+		ByteBuffer window = ByteBuffer.allocate(4096);
+		long p = position - 1;
+		while (p < length) {
+			window.clear();
+			int read = channel.read(window, p);
+			if (read <= 0)
+				break;
+			for (int i = 0; i < read; i++) {
+				if (window.get(i) == '\n')
+					return p + i + 1;
+			}
+			p += read;
+		}
+		return length;
+	}
+
+	/**
+	 * Method merging the chunk results, translating the chunk vertex ids to
+	 * global ones
+	 *
+	 * @param chunks the parsed chunks, in file order
+	 * @return the merged edge list
+	 */
+	private EdgeList merge(Chunk[] chunks) {
+		LabelDictionary labels = new LabelDictionary();
+		int[] offsets = new int[chunks.length + 1];
+		int[][] translations = new int[chunks.length][];
+		for (int c = 0; c < chunks.length; c++) {
+			Chunk chunk = chunks[c];
+			offsets[c + 1] = offsets[c] + chunk.size;
+			translations[c] = new int[chunk.labels.size()];
+			for (int local = 0; local < chunk.labels.size(); local++) {
+				translations[c][local] = labels.intern(chunk.labels, local);
+			}
+		}
+		int size = offsets[chunks.length];
+		int[] src = new int[size];
+		int[] dest = new int[size];
+		double[] weights = new double[size];
+		ParallelRange.run(pool, 0, chunks.length, 1, (from, to) -> {
+			for (int c = from; c < to; c++) {
+				Chunk chunk = chunks[c];
+				int[] translation = translations[c];
+				for (int i = 0; i < chunk.size; i++) {
+					src[offsets[c] + i] = translation[chunk.src[i]];
+					dest[offsets[c] + i] = translation[chunk.dest[i]];
+				}
+				System.arraycopy(chunk.weights, 0, weights, offsets[c], chunk.size);
+			}
+		});
+		return new EdgeList(labels, src, dest, weights, size);
+	}
+
+	/**
+	 * Method parsing a decimal number from bytes; plain numbers whose digits fit
+	 * in 53 bits are computed exactly with a single division, the others are
+	 * handed to Double.parseDouble
+	 *
+	 * @param bytes the buffer
+	 * @param from  the position of the first byte
+	 * @param to    the position following the last byte
+	 * @return the parsed value
+	 * @throws NumberFormatException if the bytes are not a number
+	 */
+	static double parseDouble(byte[] bytes, int from, int to) throws NumberFormatException {
+		int i = from;
+		boolean negative = false;
+		if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+			negative = bytes[i] == '-';
+			i++;
+		}
+		long mantissa = 0;
+		boolean anyDigit = false;
+		int digits = 0;
+		int decimals = 0;
+		boolean point = false;
+		boolean simple = i < to;
+		for (; i < to && simple; i++) {
+			byte b = bytes[i];
+			if (b >= '0' && b <= '9') {
+				mantissa = 10 * mantissa + (b - '0');
+				anyDigit = true;
+				if (mantissa != 0)
+					digits++;
+				if (point)
+					decimals++;
+			} else if (b == '.' && !point) {
+				point = true;
+			} else {
+				simple = false;
+			}
+		}
+		if (simple && anyDigit && digits <= 15 && decimals < POWERS_OF_TEN.length) {
+			double value = mantissa / POWERS_OF_TEN[decimals];
+			return negative ? -value : value;
+		}
+		return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Inner class merging parsed chunks one at a time, in order, translating
+	 * their vertex ids to global ones
+	 */
+	protected static class Assembly {
+
+		private final LabelDictionary labels;
+		private int[] src;
+		private int[] dest;
+		private double[] weights;
+		private int size;
+
+		/**
+		 * Simple constructor
+		 */
+		public Assembly() {
+			this.labels = new LabelDictionary();
+			this.src = new int[1024];
+			this.dest = new int[1024];
+			this.weights = new double[1024];
+		}
+
+		/**
+		 * Method appending the edges of a chunk
+		 *
+		 * @param chunk the parsed chunk
+		 */
+		public void add(Chunk chunk) {
+			int[] translation = new int[chunk.labels.size()];
+			for (int local = 0; local < translation.length; local++) {
+				translation[local] = labels.intern(chunk.labels, local);
+			}
+			if (size + chunk.size > src.length) {
+				int capacity = Math.max(2 * src.length, size + chunk.size);
+				src = Arrays.copyOf(src, capacity);
+				dest = Arrays.copyOf(dest, capacity);
+				weights = Arrays.copyOf(weights, capacity);
+			}
+			for (int i = 0; i < chunk.size; i++) {
+				src[size + i] = translation[chunk.src[i]];
+				dest[size + i] = translation[chunk.dest[i]];
+			}
+			System.arraycopy(chunk.weights, 0, weights, size, chunk.size);
+			size += chunk.size;
+		}
+
+		/**
+		 * Method returning the merged edges
+		 *
+		 * @return the edge list
+		 */
+		public EdgeList toEdgeList() {
+			return new EdgeList(labels, src, dest, weights, size);
+		}
+
+	}
+
+	/**
+	 * Inner class holding the edges parsed from a chunk, with vertex ids local
+	 * to the chunk; labels are interned straight from the chunk bytes, without
+	 * creating any string
+	 */
+	protected static class Chunk {
+
+		private final long start;
+		private final LabelDictionary labels;
+		private int[] src;
+		private int[] dest;
+		private double[] weights;
+		private int size;
+		private byte[] buffer;
+
+		/**
+		 * Constructor for an empty chunk
+		 *
+		 * @param start the position of the chunk in the file, used in error
+		 *              messages
+		 */
+		public Chunk(long start) {
+			this.start = start;
+			this.labels = new LabelDictionary();
+			this.src = new int[1024];
+			this.dest = new int[1024];
+			this.weights = new double[1024];
+		}
+
+		/**
+		 * Method parsing every line of the chunk
+		 *
+		 * @param buffer the bytes of the chunk
+		 * @throws IOException if a line is malformed
+		 */
+		public void parse(byte[] buffer) throws IOException {
+			this.buffer = buffer;
+			int limit = buffer.length;
+			int position = 0;
+			while (position < limit) {
+				int end = position;
+				while (end < limit && buffer[end] != '\n') {
+					end++;
+				}
+				int lineEnd = end > position && buffer[end - 1] == '\r' ? end - 1 : end;
+				if (lineEnd > position)
+					parseLine(position, lineEnd);
+				position = end + 1;
+			}
+			this.buffer = null;
+		}
+
+		/**
+		 * Method parsing a line into an edge
+		 *
+		 * @param from the position of the first byte of the line
+		 * @param to   the position following the last byte of the line
+		 * @throws IOException if the line is malformed
+		 */
+		private void parseLine(int from, int to) throws IOException {
+			int first = indexOf(',', from, to);
+			int second = first < 0 ? -1 : indexOf(',', first + 1, to);
+			if (second < 0)
+				throw new IOException("Malformed line at byte " + (start + from) + ": three fields expected");
+			if (size == src.length) {
+				src = Arrays.copyOf(src, 2 * size);
+				dest = Arrays.copyOf(dest, 2 * size);
+				weights = Arrays.copyOf(weights, 2 * size);
+			}
+			src[size] = labels.intern(buffer, from, first);
+			dest[size] = labels.intern(buffer, first + 1, second);
+			try {
+				weights[size] = parseDouble(buffer, second + 1, to);
+			} catch (NumberFormatException e) {
+				throw new IOException("Malformed weight at byte " + (start + second + 1), e);
+			}
+			size++;
+		}
+
+		/**
+		 * Method finding a byte in a range
+		 *
+		 * @param b    the byte to find
+		 * @param from the position of the first byte of the range
+		 * @param to   the position following the last byte of the range
+		 * @return the position of the byte, -1 if not found
+		 */
+		private int indexOf(char b, int from, int to) {
+			for (int i = from; i < to; i++) {
+				if (buffer[i] == b)
+					return i;
+			}
+			return -1;
+		}
+
+	}
+
+}
@@ -0,0 +1,460 @@
+package graphs.io;
+
+import graphs.secondversion.CsrGraph;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Class building a graph from edges that arrive continuously: producers submit
+ * batches into a bounded queue, and block when it is full, while a dedicated
+ * thread interns the labels, drops the duplicated edges and accumulates the
+ * rest into primitive arrays; at fixed intervals the edges accumulated so far
+ * are published as an immutable snapshot, so that algorithms can run on a
+ * snapshot while ingestion goes on. The ingestion thread only decodes the
+ * labels interned since the previous snapshot and hands the arrays over, and a
+ * second thread lays out the snapshot and calls the listener, so that neither
+ * delays ingestion; when that thread falls behind, only the latest pending
+ * snapshot is built. As in Graph, an edge already present keeps its first
+ * weight
+ */
+public class GraphBuilder {
+
+	private static final Batch END = new Batch();
+
+	private final boolean oriented;
+	private final long interval;
+	private final Consumer<CsrGraph<String>> listener;
+	private final ArrayBlockingQueue<Batch> queue;
+	private final Thread worker;
+	private final Thread publisher;
+	private final ReentrantReadWriteLock gate;
+	private final Object handoff;
+	private final LabelDictionary labels;
+	private final EdgeSet seen;
+	private int[] src;
+	private int[] dest;
+	private double[] weights;
+	private int size;
+	private int published;
+	private String[] decoded;
+	private int decodedCount;
+	private Frame pending;
+	private boolean closed;
+	private volatile CsrGraph<String> snapshot;
+	private volatile boolean finished;
+	private volatile RuntimeException failure;
+
+	/**
+	 * Constructor starting the ingestion and publishing threads
+	 *
+	 * @param oriented boolean value specifying the graph orientation: true if
+	 *                 oriented, false if not
+	 * @param capacity the number of batches the queue holds before producers
+	 *                 block
+	 * @param interval the time between two snapshots, in milliseconds
+	 * @param listener the function receiving every published snapshot on the
+	 *                 publishing thread, null if none
+	 * @throws IllegalArgumentException if the capacity or the interval is not
+	 *                                  positive
+	 */
+	public GraphBuilder(boolean oriented, int capacity, long interval, Consumer<CsrGraph<String>> listener)
+			throws IllegalArgumentException {
+		if (capacity < 1 || interval < 1)
+			throw new IllegalArgumentException("Capacity and interval must be positive");
+		this.oriented = oriented;
+		this.interval = interval;
+		this.listener = listener;
+		this.queue = new ArrayBlockingQueue<Batch>(capacity);
+		this.gate = new ReentrantReadWriteLock();
+		this.handoff = new Object();
+		this.labels = new LabelDictionary();
+		this.seen = new EdgeSet();
+		this.src = new int[1024];
+		this.dest = new int[1024];
+		this.weights = new double[1024];
+		this.decoded = new String[1024];
+		this.snapshot = EdgeList.toIndexedGraph(new String[0], src, dest, weights, 0, oriented);
+		this.worker = new Thread(this::ingest, "graph-builder");
+		worker.setDaemon(true);
+		this.publisher = new Thread(this::layOut, "graph-builder-publisher");
+		publisher.setDaemon(true);
+		worker.start();
+		publisher.start();
+	}
+
+	/**
+	 * Method submitting a batch of edges, waiting while the queue is full; the
+	 * batch must not be modified afterwards
+	 *
+	 * @param batch the batch of edges
+	 * @throws IllegalArgumentException when the batch, passed as param, is null
+	 * @throws IllegalStateException    if the builder has been finished
+	 * @throws RuntimeException         if the ingestion of an earlier batch failed
+	 * @throws InterruptedException     if interrupted while waiting
+	 */
+	public void submit(Batch batch) throws IllegalArgumentException, IllegalStateException, InterruptedException {
+		if (batch == null)
+			throw new IllegalArgumentException("Batch must be not null");
+		// holding the read lock while waiting, so that finish cannot queue the end behind the batch
+		gate.readLock().lockInterruptibly();
+		try {
+			if (finished)
+				throw new IllegalStateException("Builder already finished");
+			if (failure != null)
+				throw failure;
+			queue.put(batch);
+		} finally {
+			gate.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Method submitting a batch of edges, waiting at most a given time while the
+	 * queue is full; the batch must not be modified afterwards
+	 *
+	 * @param batch   the batch of edges
+	 * @param timeout the greatest time to wait
+	 * @param unit    the unit of the timeout
+	 * @return true if the batch has been queued, false if the time elapsed first
+	 * @throws IllegalArgumentException when the batch, passed as param, is null
+	 * @throws IllegalStateException    if the builder has been finished
+	 * @throws RuntimeException         if the ingestion of an earlier batch failed
+	 * @throws InterruptedException     if interrupted while waiting
+	 */
+	public boolean offer(Batch batch, long timeout, TimeUnit unit)
+			throws IllegalArgumentException, IllegalStateException, InterruptedException {
+		if (batch == null)
+			throw new IllegalArgumentException("Batch must be not null");
+		gate.readLock().lockInterruptibly();
+		try {
+			if (finished)
+				throw new IllegalStateException("Builder already finished");
+			if (failure != null)
+				throw failure;
+			return queue.offer(batch, timeout, unit);
+		} finally {
+			gate.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Method returning the last published snapshot, which never changes
+	 *
+	 * @return the graph of the edges ingested up to the snapshot
+	 */
+	public CsrGraph<String> getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Method waiting for every submitted batch to be ingested and stopping the
+	 * ingestion and publishing threads; a batch submitted concurrently is either
+	 * ingested or rejected
+	 *
+	 * @return the final snapshot, containing every submitted edge
+	 * @throws IllegalStateException if the builder has already been finished
+	 * @throws RuntimeException      if the ingestion of a batch failed
+	 * @throws InterruptedException  if interrupted while waiting
+	 */
+	public CsrGraph<String> finish() throws IllegalStateException, InterruptedException {
+		gate.writeLock().lockInterruptibly();
+		try {
+			if (finished)
+				throw new IllegalStateException("Builder already finished");
+			finished = true;
+		} finally {
+			gate.writeLock().unlock();
+		}
+		queue.put(END);
+		worker.join();
+		publisher.join();
+		if (failure != null)
+			throw failure;
+		return snapshot;
+	}
+
+	/**
+	 * Method run by the ingestion thread, draining the queue and publishing a
+	 * snapshot whenever the interval elapses and new edges have been accepted
+	 */
+	private void ingest() {
+		try {
+			long next = System.currentTimeMillis() + interval;
+			while (true) {
+				Batch batch = queue.poll(Math.max(0, next - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+				if (batch == END)
+					break;
+				if (failure != null)
+					throw failure;
+				if (batch != null)
+					accept(batch);
+				if (System.currentTimeMillis() >= next) {
+					publish();
+					next = System.currentTimeMillis() + interval;
+				}
+			}
+			publish();
+			close();
+			return;
+		} catch (InterruptedException e) {
+			failure = new IllegalStateException("Ingestion interrupted", e);
+		} catch (RuntimeException e) {
+			failure = e;
+		}
+		close();
+		// discarding the batches until finish, so that no producer stays blocked
+		while (true) {
+			try {
+				if (queue.take() == END)
+					return;
+			} catch (InterruptedException e) {
+			}
+		}
+	}
+
+	/**
+	 * Method accumulating the new edges of a batch
+	 *
+	 * @param batch the batch of edges
+	 */
+	private void accept(Batch batch) {
+		for (int i = 0; i < batch.size; i++) {
+			int u = labels.intern(batch.src[i]);
+			int v = labels.intern(batch.dest[i]);
+			if (!seen.add(oriented || u <= v ? u : v, oriented || u <= v ? v : u))
+				continue;
+			if (size == src.length) {
+				src = Arrays.copyOf(src, 2 * size);
+				dest = Arrays.copyOf(dest, 2 * size);
+				weights = Arrays.copyOf(weights, 2 * size);
+			}
+			src[size] = u;
+			dest[size] = v;
+			weights[size] = batch.weights[i];
+			size++;
+		}
+	}
+
+	/**
+	 * Method handing the accumulated edges to the publishing thread, if any has
+	 * been accepted since the last snapshot; only the labels interned since then
+	 * are decoded, and the arrays are shared since ingestion only writes past
+	 * their handed prefix
+	 */
+	private void publish() {
+		if (published == size)
+			return;
+		int n = labels.size();
+		if (n > decoded.length)
+			decoded = Arrays.copyOf(decoded, Math.max(n, 2 * decoded.length));
+		for (; decodedCount < n; decodedCount++) {
+			decoded[decodedCount] = labels.get(decodedCount);
+		}
+		published = size;
+		synchronized (handoff) {
+			pending = new Frame(decoded, n, src, dest, weights, size);
+			handoff.notifyAll();
+		}
+	}
+
+	/**
+	 * Method telling the publishing thread that no more snapshots will come
+	 */
+	private void close() {
+		synchronized (handoff) {
+			closed = true;
+			handoff.notifyAll();
+		}
+	}
+
+	/**
+	 * Method run by the publishing thread, laying out the latest pending
+	 * snapshot and passing it to the listener, until the ingestion thread closes
+	 */
+	private void layOut() {
+		try {
+			while (true) {
+				Frame frame;
+				synchronized (handoff) {
+					while (pending == null && !closed) {
+						handoff.wait();
+					}
+					if (pending == null)
+						return;
+					frame = pending;
+					pending = null;
+				}
+				CsrGraph<String> next = EdgeList.toIndexedGraph(Arrays.copyOf(frame.labels, frame.vertexes),
+						frame.src, frame.dest, frame.weights, frame.size, oriented);
+				snapshot = next;
+				if (listener != null)
+					listener.accept(next);
+			}
+		} catch (InterruptedException e) {
+			failure = new IllegalStateException("Publishing interrupted", e);
+		} catch (RuntimeException e) {
+			failure = e;
+		}
+	}
+
+	/**
+	 * Class representing the state handed from the ingestion thread to the
+	 * publishing one
+	 */
+	protected static class Frame {
+
+		private final String[] labels;
+		private final int vertexes;
+		private final int[] src;
+		private final int[] dest;
+		private final double[] weights;
+		private final int size;
+
+		/**
+		 * Constructor accepting the prefixes of the arrays forming a snapshot
+		 *
+		 * @param labels   the decoded labels
+		 * @param vertexes the number of labels
+		 * @param src      the starting vertex id of every edge
+		 * @param dest     the ending vertex id of every edge
+		 * @param weights  the cost of every edge
+		 * @param size     the number of edges
+		 */
+		protected Frame(String[] labels, int vertexes, int[] src, int[] dest, double[] weights, int size) {
+			this.labels = labels;
+			this.vertexes = vertexes;
+			this.src = src;
+			this.dest = dest;
+			this.weights = weights;
+			this.size = size;
+		}
+
+	}
+
+	/**
+	 * Class representing a batch of edges to submit, filled by a single producer
+	 */
+	public static class Batch {
+
+		private String[] src;
+		private String[] dest;
+		private double[] weights;
+		private int size;
+
+		/**
+		 * Simple constructor
+		 */
+		public Batch() {
+			this.src = new String[16];
+			this.dest = new String[16];
+			this.weights = new double[16];
+		}
+
+		/**
+		 * Method adding an edge to the batch
+		 *
+		 * @param src    the label of the connection starting vertex
+		 * @param dest   the label of the connection ending vertex
+		 * @param weight the cost of the connection
+		 * @throws IllegalArgumentException when a label, passed as param, is null
+		 */
+		public void add(String src, String dest, double weight) throws IllegalArgumentException {
+			if (src == null || dest == null)
+				throw new IllegalArgumentException("Labels must be not null");
+			if (size == this.src.length) {
+				this.src = Arrays.copyOf(this.src, 2 * size);
+				this.dest = Arrays.copyOf(this.dest, 2 * size);
+				this.weights = Arrays.copyOf(weights, 2 * size);
+			}
+			this.src[size] = src;
+			this.dest[size] = dest;
+			weights[size] = weight;
+			size++;
+		}
+
+		/**
+		 * Method returning the number of edges of the batch
+		 *
+		 * @return an integer value of the edges count
+		 */
+		public int size() {
+			return size;
+		}
+
+	}
+
+	/**
+	 * Inner class implementing an open addressing set of edges, each one packed
+	 * into a long key
+	 */
+	protected static class EdgeSet {
+
+		private long[] keys;
+		private int size;
+
+		/**
+		 * Simple constructor
+		 */
+		public EdgeSet() {
+			keys = new long[1024];
+			Arrays.fill(keys, -1);
+		}
+
+		/**
+		 * Method adding an edge
+		 *
+		 * @param u the starting vertex id
+		 * @param v the ending vertex id
+		 * @return true if the edge is new, false if it was already contained
+		 */
+		public boolean add(int u, int v) {
+			long key = ((long) u << 32) | (v & 0xffffffffL);
+			int mask = keys.length - 1;
+			int slot = slotOf(key, mask);
+			while (keys[slot] != -1) {
+				if (keys[slot] == key)
+					return false;
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = key;
+			if (2 * ++size > keys.length)
+				rehash();
+			return true;
+		}
+
+		/**
+		 * Method returning the home slot of a key
+		 *
+		 * @param key  the packed edge
+		 * @param mask the table size minus one
+		 * @return the slot index
+		 */
+		private static int slotOf(long key, int mask) {
+			return (int) ((key * 0x9e3779b97f4a7c15L) >>> 32) & mask;
+		}
+
+		/**
+		 * Method doubling the table
+		 */
+		private void rehash() {
+			long[] old = keys;
+			keys = new long[2 * old.length];
+			Arrays.fill(keys, -1);
+			int mask = keys.length - 1;
+			for (long key : old) {
+				if (key != -1) {
+					int slot = slotOf(key, mask);
+					while (keys[slot] != -1) {
+						slot = (slot + 1) & mask;
+					}
+					keys[slot] = key;
+				}
+			}
+		}
+
+	}
+
+}
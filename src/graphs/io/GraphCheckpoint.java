@@ -0,0 +1,611 @@
+package graphs.io;
+
+import graphs.secondversion.CsrGraph;
+import graphs.secondversion.Graph;
+import graphs.secondversion.ParallelRange;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+
+/**
+ * Class keeping a graph checkpointed in a directory, as a binary snapshot plus
+ * an append-only log of the mutations done after it: restarting reads the
+ * snapshot, decoding its blocks of vertexes in parallel, and replays the log
+ * only; when the log grows past a threshold the graph is compacted into a new
+ * snapshot and the log starts over. Snapshot and log carry a generation
+ * number, so that a log already folded into a snapshot is never replayed, and
+ * every log record carries a checksum, so that a record torn by a crash is
+ * dropped with everything after it
+ */
+public class GraphCheckpoint implements Closeable {
+
+	private static final int MAGIC = 0x47434b31;
+	private static final int LOG_MAGIC = 0x474c4f31;
+	private static final int VERSION = 1;
+	private static final int HEADER = 32;
+	private static final int BLOCK = 4096;
+	private static final int ORIENTED = 1;
+	private static final int ADD_VERTEX = 1;
+	private static final int ADD_EDGE = 2;
+	private static final int REMOVE_VERTEX = 3;
+	private static final int REMOVE_EDGE = 4;
+
+	private final Path snapshotFile;
+	private final Path logFile;
+	private final ForkJoinPool pool;
+	private final int threshold;
+	private final BinaryOutput record;
+	private final CRC32 crc;
+	private Graph<String> g;
+	private long generation;
+	private FileChannel log;
+	private BinaryOutput logOut;
+	private int logRecords;
+
+	/**
+	 * Constructor for a checkpoint kept in a given directory
+	 *
+	 * @param directory the directory holding the snapshot and the log
+	 * @param pool      the pool restoring the snapshot
+	 * @param threshold the number of logged mutations triggering a compaction
+	 * @throws IllegalArgumentException when the directory or the pool, passed as
+	 *                                  params, is null or the threshold is not
+	 *                                  positive
+	 */
+	public GraphCheckpoint(Path directory, ForkJoinPool pool, int threshold) throws IllegalArgumentException {
+		if (directory == null || pool == null)
+			throw new IllegalArgumentException("Directory and pool must be not null");
+		if (threshold < 1)
+			throw new IllegalArgumentException("Threshold must be positive");
+		this.snapshotFile = directory.resolve("graph.snapshot");
+		this.logFile = directory.resolve("graph.log");
+		this.pool = pool;
+		this.threshold = threshold;
+		this.record = new BinaryOutput();
+		this.crc = new CRC32();
+	}
+
+	/**
+	 * Method restoring the checkpointed graph, from the snapshot and the log, and
+	 * opening the log for the next mutations
+	 *
+	 * @param oriented the orientation of the graph, used only when no snapshot
+	 *                 exists yet
+	 * @return the restored graph, empty if nothing has been checkpointed
+	 * @throws IllegalStateException if the checkpoint is already open
+	 * @throws IOException           if the files cannot be read or written, or the
+	 *                               snapshot is corrupted
+	 */
+	public Graph<String> open(boolean oriented) throws IllegalStateException, IOException {
+		if (log != null)
+			throw new IllegalStateException("Checkpoint already open");
+		byte[] logBytes = Files.exists(logFile) ? Files.readAllBytes(logFile) : new byte[0];
+		BinaryInput header = new BinaryInput(logBytes, 0, logBytes.length);
+		boolean logged = false;
+		long logGeneration = -1;
+		try {
+			if (header.getInt() == LOG_MAGIC && header.getInt() == VERSION) {
+				logged = (header.getInt() & ORIENTED) != 0;
+				header.getInt();
+				logGeneration = header.getLong();
+			}
+		} catch (EOFException e) {
+			logGeneration = -1;
+		}
+		if (Files.exists(snapshotFile)) {
+			g = read(snapshotFile, pool);
+			generation = readGeneration(snapshotFile);
+		} else {
+			// without a snapshot, the orientation is the one the log was started with
+			g = new Graph<String>(logGeneration == 0 ? logged : oriented);
+			generation = 0;
+		}
+		logRecords = 0;
+		long end = logGeneration == generation ? replay(logBytes, header.position()) : -1;
+		log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		logOut = new BinaryOutput(log);
+		if (end < 0) {
+			startLog();
+		} else {
+			log.truncate(end);
+			log.position(end);
+		}
+		if (logRecords >= threshold)
+			compact();
+		return g;
+	}
+
+	/**
+	 * Method returning the checkpointed graph; mutations done on it directly are
+	 * not logged
+	 *
+	 * @return the graph
+	 * @throws IllegalStateException if the checkpoint is not open
+	 */
+	public Graph<String> getGraph() throws IllegalStateException {
+		checkOpen();
+		return g;
+	}
+
+	/**
+	 * Method adding a vertex to the graph and logging it
+	 *
+	 * @param vertexName the label of the vertex to add
+	 * @throws IllegalStateException if the checkpoint is not open
+	 * @throws IOException           if the log cannot be written
+	 */
+	public void addVertex(String vertexName) throws IllegalStateException, IOException {
+		checkOpen();
+		long version = g.getVersion();
+		g.addVertex(vertexName);
+		if (g.getVersion() != version)
+			append(ADD_VERTEX, vertexName, null, 0);
+	}
+
+	/**
+	 * Method adding a connection to the graph, creating its vertexes if needed,
+	 * and logging it
+	 *
+	 * @param src    the label of the connection starting vertex
+	 * @param dest   the label of the connection ending vertex
+	 * @param weight the cost of the connection
+	 * @throws IllegalStateException if the checkpoint is not open
+	 * @throws IOException           if the log cannot be written
+	 */
+	public void addEdge(String src, String dest, double weight) throws IllegalStateException, IOException {
+		checkOpen();
+		long version = g.getVersion();
+		g.addEdgeForced(src, dest, weight);
+		if (g.getVersion() != version)
+			append(ADD_EDGE, src, dest, weight);
+	}
+
+	/**
+	 * Method removing a vertex and its connections from the graph and logging it
+	 *
+	 * @param vertexName the label of the vertex to remove
+	 * @throws IllegalStateException  if the checkpoint is not open
+	 * @throws NoSuchElementException if the vertex is not contained in the graph
+	 * @throws IOException            if the log cannot be written
+	 */
+	public void removeVertex(String vertexName) throws IllegalStateException, NoSuchElementException, IOException {
+		checkOpen();
+		g.removeVertex(vertexName);
+		append(REMOVE_VERTEX, vertexName, null, 0);
+	}
+
+	/**
+	 * Method removing a connection from the graph and logging it
+	 *
+	 * @param src  the label of the connection starting vertex
+	 * @param dest the label of the connection ending vertex
+	 * @throws IllegalStateException  if the checkpoint is not open
+	 * @throws NoSuchElementException if the connection is not contained in the
+	 *                                graph
+	 * @throws IOException            if the log cannot be written
+	 */
+	public void removeEdge(String src, String dest) throws IllegalStateException, NoSuchElementException, IOException {
+		checkOpen();
+		g.removeEdge(src, dest);
+		append(REMOVE_EDGE, src, dest, 0);
+	}
+
+	/**
+	 * Method making the logged mutations durable; until then they may be
+	 * buffered in memory
+	 *
+	 * @throws IllegalStateException if the checkpoint is not open
+	 * @throws IOException           if the log cannot be written
+	 */
+	public void sync() throws IllegalStateException, IOException {
+		checkOpen();
+		logOut.flush();
+		log.force(false);
+	}
+
+	/**
+	 * Method writing the graph as a new snapshot, which atomically replaces the
+	 * old one, and emptying the log
+	 *
+	 * @throws IllegalStateException if the checkpoint is not open
+	 * @throws IOException           if the files cannot be written
+	 */
+	public void compact() throws IllegalStateException, IOException {
+		checkOpen();
+		logOut.flush();
+		Path temporary = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+		write(g, temporary, generation + 1);
+		Files.move(temporary, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		generation++;
+		startLog();
+	}
+
+	/**
+	 * Method returning the number of mutations logged since the last snapshot
+	 *
+	 * @return an integer value of the log records count
+	 */
+	public int getLogSize() {
+		return logRecords;
+	}
+
+	/**
+	 * Method syncing and closing the log
+	 *
+	 * @throws IOException if the log cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if (log == null)
+			return;
+		try {
+			sync();
+		} finally {
+			log.close();
+			log = null;
+		}
+	}
+
+	/**
+	 * Method writing a graph as a standalone snapshot
+	 *
+	 * @param g        the graph to write
+	 * @param filepath the path of the file, replaced if it exists
+	 * @throws IllegalArgumentException when the graph, passed as param, is null
+	 * @throws IOException              if the file cannot be written
+	 */
+	public static void write(Graph<String> g, Path filepath) throws IllegalArgumentException, IOException {
+		if (g == null)
+			throw new IllegalArgumentException("Graph must be not null");
+		write(g, filepath, 0);
+	}
+
+	/**
+	 * Method reading a snapshot, decoding its blocks and building the adjacencies
+	 * in parallel
+	 *
+	 * @param filepath the path of the file
+	 * @param pool     the pool decoding the blocks
+	 * @return the restored graph
+	 * @throws IllegalArgumentException when the pool, passed as param, is null
+	 * @throws IOException              if the file cannot be read or is not a
+	 *                                  valid snapshot
+	 */
+	public static Graph<String> read(Path filepath, ForkJoinPool pool) throws IllegalArgumentException, IOException {
+		if (pool == null)
+			throw new IllegalArgumentException("Pool must be not null");
+		try (FileChannel channel = FileChannel.open(filepath, StandardOpenOption.READ)) {
+			ByteBuffer header = readFully(channel, 0, HEADER);
+			if (header.getInt(0) != MAGIC)
+				throw new IOException("Not a graph snapshot: " + filepath);
+			if (header.getInt(4) != VERSION)
+				throw new IOException("Unsupported graph snapshot version " + header.getInt(4));
+			boolean oriented = (header.getInt(8) & ORIENTED) != 0;
+			int n = header.getInt(12);
+			long indexPosition = header.getLong(24);
+			int blocks = (n + BLOCK - 1) / BLOCK;
+			ByteBuffer index = readFully(channel, indexPosition, 8L * (blocks + 1));
+			long[] positions = new long[blocks + 1];
+			for (int b = 0; b <= blocks; b++) {
+				positions[b] = index.getLong(8 * b);
+			}
+
+			String[] labels = new String[n];
+			Block[] decoded = new Block[blocks];
+			try {
+				ParallelRange.run(pool, 0, blocks, 1, (from, to) -> {
+					for (int b = from; b < to; b++) {
+						try {
+							ByteBuffer bytes = readFully(channel, positions[b], positions[b + 1] - positions[b]);
+							decoded[b] = new Block(b * BLOCK, Math.min(n, (b + 1) * BLOCK));
+							decoded[b].decode(bytes.array(), labels, n);
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+
+			int[] offsets = new int[n + 1];
+			for (Block block : decoded) {
+				for (int v = block.from; v < block.to; v++) {
+					offsets[v + 1] = offsets[v] + block.degrees[v - block.from];
+				}
+			}
+			int[] targets = new int[offsets[n]];
+			double[] weights = new double[offsets[n]];
+			ParallelRange.run(pool, 0, blocks, 1, (from, to) -> {
+				for (int b = from; b < to; b++) {
+					Block block = decoded[b];
+					System.arraycopy(block.targets, 0, targets, offsets[block.from], block.size);
+					System.arraycopy(block.weights, 0, weights, offsets[block.from], block.size);
+				}
+			});
+			return new Graph<String>(new CsrGraph<String>(labels, offsets, targets, weights, oriented), pool);
+		}
+	}
+
+	/**
+	 * Method writing a snapshot: a header, then the vertexes in blocks, each one
+	 * with its label and its adjacencies as target ids and weights, then the
+	 * positions of the blocks, found through the header
+	 *
+	 * @param g          the graph to write
+	 * @param filepath   the path of the file, replaced if it exists
+	 * @param generation the generation of the snapshot
+	 * @throws IOException if the file cannot be written
+	 */
+	private static void write(Graph<String> g, Path filepath, long generation) throws IOException {
+		LinkedList<String> allVertex = g.getAllVertex();
+		int n = allVertex.size();
+		String[] labels = allVertex.toArray(new String[n]);
+		HashMap<String, Integer> ids = new HashMap<String, Integer>(2 * n);
+		for (int v = 0; v < n; v++) {
+			ids.put(labels[v], v);
+		}
+		int blocks = (n + BLOCK - 1) / BLOCK;
+		long[] positions = new long[blocks + 1];
+		try (FileChannel channel = FileChannel.open(filepath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			BinaryOutput out = new BinaryOutput(channel);
+			out.putInt(MAGIC);
+			out.putInt(VERSION);
+			out.putInt(g.isOriented() ? ORIENTED : 0);
+			out.putInt(n);
+			out.putLong(generation);
+			out.putLong(0);
+			for (int b = 0; b < blocks; b++) {
+				positions[b] = out.size();
+				for (int v = b * BLOCK; v < Math.min(n, (b + 1) * BLOCK); v++) {
+					out.putUtf8(labels[v]);
+					LinkedList<String> adjs = g.getVertexAdjs(labels[v]);
+					out.putVarint(adjs.size());
+					for (String adiacent : adjs) {
+						out.putVarint(ids.get(adiacent));
+						out.putDouble(g.getEdgeWeight(labels[v], adiacent));
+					}
+				}
+			}
+			positions[blocks] = out.size();
+			for (long position : positions) {
+				out.putLong(position);
+			}
+			out.flush();
+			ByteBuffer indexPosition = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+			indexPosition.putLong(0, positions[blocks]);
+			channel.write(indexPosition, 24);
+			channel.force(true);
+		}
+	}
+
+	/**
+	 * Method reading the generation of a snapshot
+	 *
+	 * @param filepath the path of the file
+	 * @return the generation number
+	 * @throws IOException if the file cannot be read
+	 */
+	private static long readGeneration(Path filepath) throws IOException {
+		try (FileChannel channel = FileChannel.open(filepath, StandardOpenOption.READ)) {
+			return readFully(channel, 0, HEADER).getLong(16);
+		}
+	}
+
+	/**
+	 * Method reading a range of a file into a new little endian heap buffer
+	 *
+	 * @param channel  the file channel
+	 * @param position the position of the range
+	 * @param size     the length of the range
+	 * @return the buffer holding the range
+	 * @throws IOException if the file cannot be read or is too short
+	 */
+	private static ByteBuffer readFully(FileChannel channel, long position, long size) throws IOException {
+		if (position < 0 || size < 0 || size > Integer.MAX_VALUE || position + size > channel.size())
+			throw new EOFException("Truncated graph snapshot");
+		ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0)
+				throw new EOFException("Truncated graph snapshot");
+		}
+		buffer.clear();
+		return buffer;
+	}
+
+	/**
+	 * Method replaying the records of a log over the graph
+	 *
+	 * @param bytes the content of the log
+	 * @param start the position of the first record
+	 * @return the position following the last valid record
+	 */
+	private long replay(byte[] bytes, int start) {
+		BinaryInput in = new BinaryInput(bytes, start, bytes.length);
+		int end = start;
+		try {
+			while (in.hasRemaining()) {
+				int length = in.getInt();
+				int from = in.position();
+				if (length < 0 || length > bytes.length - from - 4)
+					break;
+				crc.reset();
+				crc.update(bytes, from, length);
+				BinaryInput checksum = new BinaryInput(bytes, from + length, from + length + 4);
+				if ((int) crc.getValue() != checksum.getInt())
+					break;
+				apply(new BinaryInput(bytes, from, from + length));
+				logRecords++;
+				end = from + length + 4;
+				in = new BinaryInput(bytes, end, bytes.length);
+			}
+		} catch (IOException e) {
+			// a torn or unreadable record, dropped with everything after it
+		}
+		return end;
+	}
+
+	/**
+	 * Method applying a logged mutation to the graph, tolerating mutations that
+	 * are no longer applicable
+	 *
+	 * @param in the input holding the record
+	 * @throws IOException if the record is truncated or of an unknown type
+	 */
+	private void apply(BinaryInput in) throws IOException {
+		int op = in.getByte();
+		String src = in.getUtf8();
+		switch (op) {
+		case ADD_VERTEX:
+			g.addVertex(src);
+			break;
+		case ADD_EDGE:
+			String dest = in.getUtf8();
+			g.addEdgeForced(src, dest, in.getDouble());
+			break;
+		case REMOVE_VERTEX:
+			if (g.containsVertex(src))
+				g.removeVertex(src);
+			break;
+		case REMOVE_EDGE:
+			String end = in.getUtf8();
+			if (g.containsVertex(src) && g.containsVertex(end) && g.containsEdge(src, end))
+				g.removeEdge(src, end);
+			break;
+		default:
+			throw new IOException("Unknown log record type " + op);
+		}
+	}
+
+	/**
+	 * Method appending a mutation to the log, compacting when the log is full
+	 *
+	 * @param op     the mutation type
+	 * @param src    the first label
+	 * @param dest   the second label, null if none
+	 * @param weight the weight, for added connections
+	 * @throws IOException if the log cannot be written
+	 */
+	private void append(int op, String src, String dest, double weight) throws IOException {
+		record.reset();
+		record.putByte(op);
+		record.putUtf8(src);
+		if (dest != null)
+			record.putUtf8(dest);
+		if (op == ADD_EDGE)
+			record.putDouble(weight);
+		int length = (int) record.size();
+		crc.reset();
+		crc.update(record.array(), 0, length);
+		logOut.putInt(length);
+		logOut.putBytes(record.array(), 0, length);
+		logOut.putInt((int) crc.getValue());
+		if (++logRecords >= threshold)
+			compact();
+	}
+
+	/**
+	 * Method writing the log header of the current generation
+	 *
+	 * @throws IOException if the log cannot be written
+	 */
+	private void startLog() throws IOException {
+		// records of an older generation must not survive after the new header
+		log.truncate(0);
+		log.position(0);
+		logOut.putInt(LOG_MAGIC);
+		logOut.putInt(VERSION);
+		logOut.putInt(g.isOriented() ? ORIENTED : 0);
+		logOut.putInt(0);
+		logOut.putLong(generation);
+		logOut.flush();
+		log.force(false);
+		logRecords = 0;
+	}
+
+	/**
+	 * Method checking that the checkpoint is open
+	 *
+	 * @throws IllegalStateException if the checkpoint is not open
+	 */
+	private void checkOpen() throws IllegalStateException {
+		if (log == null)
+			throw new IllegalStateException("Checkpoint not open");
+	}
+
+	/**
+	 * Inner class holding the vertexes of a snapshot block, decoded on their own
+	 */
+	protected static class Block {
+
+		private final int from;
+		private final int to;
+		private final int[] degrees;
+		private int[] targets;
+		private double[] weights;
+		private int size;
+
+		/**
+		 * Constructor for a block of vertexes
+		 *
+		 * @param from the first vertex id of the block
+		 * @param to   the vertex id following the last one of the block
+		 */
+		public Block(int from, int to) {
+			this.from = from;
+			this.to = to;
+			this.degrees = new int[to - from];
+			this.targets = new int[16];
+			this.weights = new double[16];
+		}
+
+		/**
+		 * Method decoding the block
+		 *
+		 * @param bytes  the bytes of the block
+		 * @param labels the labels of the whole graph, whose slice of the block is
+		 *               filled
+		 * @param n      the number of vertexes of the graph
+		 * @throws IOException if the block is corrupted
+		 */
+		public void decode(byte[] bytes, String[] labels, int n) throws IOException {
+			BinaryInput in = new BinaryInput(bytes, 0, bytes.length);
+			for (int v = from; v < to; v++) {
+				labels[v] = in.getUtf8();
+				int degree = in.getVarint();
+				if (degree < 0)
+					throw new IOException("Corrupted graph snapshot: negative degree");
+				degrees[v - from] = degree;
+				if (size + degree > targets.length) {
+					int capacity = Math.max(2 * targets.length, size + degree);
+					targets = Arrays.copyOf(targets, capacity);
+					weights = Arrays.copyOf(weights, capacity);
+				}
+				for (int i = 0; i < degree; i++) {
+					int target = in.getVarint();
+					if (target < 0 || target >= n)
+						throw new IOException("Corrupted graph snapshot: vertex id " + target + " out of range");
+					targets[size] = target;
+					weights[size++] = in.getDouble();
+				}
+			}
+		}
+
+	}
+
+}
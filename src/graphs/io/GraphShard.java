@@ -0,0 +1,344 @@
+package graphs.io;
+
+import graphs.secondversion.IndexedGraph;
+import graphs.secondversion.IntList;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class representing one shard of a partitioned graph, as stored in its own
+ * binary file so that it can be loaded alone by a separate process: the shard
+ * holds the vertexes it owns, a boundary table of the vertexes of other shards
+ * they are connected to, with their owner, and every edge with at least one
+ * owned endpoint. Locally, vertexes are numbered with the owned ones first and
+ * the boundary ones after them; edges between owned vertexes come first, and
+ * in a not oriented graph they are stored once, while every cut edge is stored
+ * by both of its shards
+ */
+public class GraphShard {
+
+	/**
+	 * The extension of the shard files
+	 */
+	public static final String EXTENSION = ".shard";
+
+	private static final int MAGIC = 0x47534831;
+	private static final int VERSION = 1;
+	private static final int ORIENTED = 1;
+	private static final int HEADER = 48;
+
+	private final int shard;
+	private final int shardCount;
+	private final int vertexCount;
+	private final boolean oriented;
+	private final int owned;
+	private final int[] globalIds;
+	private final int[] owners;
+	private final EdgeList edges;
+	private final int internal;
+
+	/**
+	 * Constructor accepting the decoded content of a shard file
+	 *
+	 * @param shard       the shard id
+	 * @param shardCount  the number of shards
+	 * @param vertexCount the number of vertexes of the whole graph
+	 * @param oriented    the orientation of the graph
+	 * @param owned       the number of owned vertexes
+	 * @param globalIds   the global id of every local vertex
+	 * @param owners      the shard owning every local vertex
+	 * @param edges       the edges, between local vertex ids
+	 * @param internal    the number of edges between owned vertexes
+	 */
+	private GraphShard(int shard, int shardCount, int vertexCount, boolean oriented, int owned, int[] globalIds,
+			int[] owners, EdgeList edges, int internal) {
+		this.shard = shard;
+		this.shardCount = shardCount;
+		this.vertexCount = vertexCount;
+		this.oriented = oriented;
+		this.owned = owned;
+		this.globalIds = globalIds;
+		this.owners = owners;
+		this.edges = edges;
+		this.internal = internal;
+	}
+
+	/**
+	 * Method writing one file per shard of a partitioned graph into a directory,
+	 * named by the shard id
+	 *
+	 * @param           <V> type of elements used as identifier for graph vertexes
+	 * @param g         the partitioned graph
+	 * @param parts     the shard of every vertex, indexed by vertex id
+	 * @param k         the number of shards
+	 * @param directory the directory receiving the files
+	 * @return the paths of the written files, indexed by shard id
+	 * @throws IllegalArgumentException when the graph or the assignment, passed as
+	 *                                  params, is null, or the assignment has not
+	 *                                  one shard between 0 and k-1 per vertex
+	 * @throws IOException              if a file cannot be written
+	 */
+	public static <V> List<Path> write(IndexedGraph<V> g, int[] parts, int k, Path directory)
+			throws IllegalArgumentException, IOException {
+		if (g == null || parts == null)
+			throw new IllegalArgumentException("Graph and assignment must be not null");
+		int n = g.vertexCount();
+		if (parts.length != n || k < 1)
+			throw new IllegalArgumentException("Assignment must hold one shard per vertex");
+
+		// grouping the vertexes by shard, keeping the id order inside every shard
+		int[] starts = new int[k + 1];
+		for (int v = 0; v < n; v++) {
+			if (parts[v] < 0 || parts[v] >= k)
+				throw new IllegalArgumentException("Shard of vertex " + v + " out of range");
+			starts[parts[v] + 1]++;
+		}
+		for (int s = 0; s < k; s++) {
+			starts[s + 1] += starts[s];
+		}
+		int[] members = new int[n];
+		int[] local = new int[n];
+		int[] fill = Arrays.copyOf(starts, k);
+		for (int v = 0; v < n; v++) {
+			local[v] = fill[parts[v]] - starts[parts[v]];
+			members[fill[parts[v]]++] = v;
+		}
+
+		Files.createDirectories(directory);
+		List<Path> files = new ArrayList<Path>(k);
+		int[] boundaryIndex = new int[n];
+		Arrays.fill(boundaryIndex, -1);
+		IndexedGraph.Cursor cursor = g.cursor();
+		for (int s = 0; s < k; s++) {
+			int owned = starts[s + 1] - starts[s];
+
+			// collecting the boundary table and counting the edges
+			IntList boundary = new IntList(16);
+			long internalCount = 0;
+			long cutCount = 0;
+			for (int i = starts[s]; i < starts[s + 1]; i++) {
+				int v = members[i];
+				cursor.reset(v);
+				while (cursor.next()) {
+					int w = cursor.target();
+					if (parts[w] == s) {
+						if (g.isOriented() || v <= w)
+							internalCount++;
+					} else {
+						cutCount++;
+						if (boundaryIndex[w] < 0) {
+							boundaryIndex[w] = boundary.size();
+							boundary.add(w);
+						}
+					}
+				}
+			}
+
+			Path file = directory.resolve("shard-" + s + EXTENSION);
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				BinaryOutput out = new BinaryOutput(channel);
+				out.putInt(MAGIC);
+				out.putInt(VERSION);
+				out.putInt(g.isOriented() ? ORIENTED : 0);
+				out.putInt(s);
+				out.putInt(k);
+				out.putInt(n);
+				out.putInt(owned);
+				out.putInt(boundary.size());
+				out.putLong(internalCount);
+				out.putLong(cutCount);
+				for (int i = starts[s]; i < starts[s + 1]; i++) {
+					out.putVarint(members[i]);
+					out.putUtf8(String.valueOf(g.getLabel(members[i])));
+				}
+				for (int j = 0; j < boundary.size(); j++) {
+					int w = boundary.get(j);
+					out.putVarint(w);
+					out.putVarint(parts[w]);
+					out.putUtf8(String.valueOf(g.getLabel(w)));
+				}
+				for (int pass = 0; pass < 2; pass++) {
+					for (int i = starts[s]; i < starts[s + 1]; i++) {
+						int v = members[i];
+						cursor.reset(v);
+						while (cursor.next()) {
+							int w = cursor.target();
+							if (pass == 0 && parts[w] == s && (g.isOriented() || v <= w)) {
+								out.putVarint(local[v]);
+								out.putVarint(local[w]);
+								out.putDouble(cursor.weight());
+							} else if (pass == 1 && parts[w] != s) {
+								out.putVarint(local[v]);
+								out.putVarint(owned + boundaryIndex[w]);
+								out.putDouble(cursor.weight());
+							}
+						}
+					}
+				}
+				out.flush();
+			}
+			for (int j = 0; j < boundary.size(); j++) {
+				boundaryIndex[boundary.get(j)] = -1;
+			}
+			files.add(file);
+		}
+		return files;
+	}
+
+	/**
+	 * Method reading a shard file
+	 *
+	 * @param filepath the path of the file
+	 * @return the shard
+	 * @throws IOException if the file cannot be read or is not a shard file
+	 */
+	public static GraphShard read(Path filepath) throws IOException {
+		byte[] bytes = Files.readAllBytes(filepath);
+		BinaryInput in = new BinaryInput(bytes, 0, bytes.length);
+		try {
+			if (bytes.length < HEADER || in.getInt() != MAGIC)
+				throw new IOException("Not a shard file: " + filepath);
+			int version = in.getInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported shard file version " + version);
+			boolean oriented = (in.getInt() & ORIENTED) != 0;
+			int shard = in.getInt();
+			int shardCount = in.getInt();
+			int vertexCount = in.getInt();
+			int owned = in.getInt();
+			int boundary = in.getInt();
+			long internalCount = in.getLong();
+			long cutCount = in.getLong();
+			if (owned < 0 || boundary < 0 || internalCount < 0 || cutCount < 0
+					|| internalCount + cutCount > Integer.MAX_VALUE)
+				throw new IOException("Corrupted shard file: " + filepath);
+
+			LabelDictionary labels = new LabelDictionary();
+			int[] globalIds = new int[owned + boundary];
+			int[] owners = new int[owned + boundary];
+			for (int v = 0; v < owned + boundary; v++) {
+				globalIds[v] = in.getVarint();
+				owners[v] = v < owned ? shard : in.getVarint();
+				labels.intern(in.getUtf8());
+			}
+			int size = (int) (internalCount + cutCount);
+			int[] src = new int[size];
+			int[] dest = new int[size];
+			double[] weights = new double[size];
+			for (int i = 0; i < size; i++) {
+				src[i] = in.getVarint();
+				dest[i] = in.getVarint();
+				weights[i] = in.getDouble();
+				if (src[i] >= owned || dest[i] >= owned + boundary)
+					throw new IOException("Corrupted shard file: " + filepath);
+			}
+			return new GraphShard(shard, shardCount, vertexCount, oriented, owned, globalIds, owners,
+					new EdgeList(labels, src, dest, weights, size), (int) internalCount);
+		} catch (EOFException e) {
+			throw new IOException("Truncated shard file: " + filepath, e);
+		}
+	}
+
+	/**
+	 * Method returning the shard id
+	 *
+	 * @return an integer value of the shard id
+	 */
+	public int getShard() {
+		return shard;
+	}
+
+	/**
+	 * Method returning the number of shards of the graph
+	 *
+	 * @return an integer value of the shards count
+	 */
+	public int getShardCount() {
+		return shardCount;
+	}
+
+	/**
+	 * Method returning the number of vertexes of the whole graph
+	 *
+	 * @return an integer value of the vertexes count
+	 */
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	/**
+	 * Method telling if the graph is oriented or not
+	 *
+	 * @return true of it is oriented, false if it's not
+	 */
+	public boolean isOriented() {
+		return oriented;
+	}
+
+	/**
+	 * Method returning the number of owned vertexes, whose local ids come first
+	 *
+	 * @return an integer value of the owned vertexes count
+	 */
+	public int ownedCount() {
+		return owned;
+	}
+
+	/**
+	 * Method returning the number of boundary vertexes, owned by other shards
+	 *
+	 * @return an integer value of the boundary vertexes count
+	 */
+	public int boundaryCount() {
+		return globalIds.length - owned;
+	}
+
+	/**
+	 * Method returning the id of a local vertex in the whole graph
+	 *
+	 * @param v the local vertex id
+	 * @return the global vertex id
+	 */
+	public int getGlobalId(int v) {
+		return globalIds[v];
+	}
+
+	/**
+	 * Method returning the shard owning a local vertex
+	 *
+	 * @param v the local vertex id
+	 * @return the owner shard id
+	 */
+	public int getOwner(int v) {
+		return owners[v];
+	}
+
+	/**
+	 * Method returning the edges of the shard, between local vertex ids, whose
+	 * labels are those of the whole graph
+	 *
+	 * @return the edges, the internal ones first
+	 */
+	public EdgeList getEdges() {
+		return edges;
+	}
+
+	/**
+	 * Method returning the number of edges between owned vertexes, which precede
+	 * the cut edges in the edge list
+	 *
+	 * @return an integer value of the internal edges count
+	 */
+	public int internalCount() {
+		return internal;
+	}
+
+}
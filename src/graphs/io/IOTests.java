@@ -0,0 +1,742 @@
+package graphs.io;
+
+import graphs.secondversion.CsrGraph;
+import graphs.secondversion.Graph;
+import graphs.secondversion.GraphPartitioner;
+import graphs.secondversion.IndexedGraph;
+import graphs.secondversion.Prim;
+import graphs.secondversion.SpanningForest;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Class containing a set of various methods for unit testing on given methods
+ * implemented in the "graphs.io" package
+ */
+public class IOTests {
+
+	class MinHeapComparator<T extends Comparable<? super T>> implements Comparator<T> {
+		@Override
+		public int compare(T o1, T o2) {
+			return -o1.compareTo(o2);
+		}
+	}
+
+	private String csv;
+	private Path csvFile;
+
+	@Before
+	public void setUp() throws IOException {
+		csv = "Londra,New York,5\n" + "Dubai,Londra,12\n" + "Parigi,New York,3\n" + "Roma,Londra,6\n"
+				+ "Roma,Dubai,2\n" + "Milano,New York,7\n" + "Manchester,Parigi,1\n" + "Milano,Roma,8\n"
+				+ "Berlino,Madrid,4\n";
+		csvFile = Files.createTempFile("edges", ".csv");
+		Files.write(csvFile, csv.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(csvFile);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testStreamingMst() throws IOException {
+		EdgeList mst = new StreamingMst(2).compute(csvFile);
+		assertEquals(9, mst.vertexCount());
+		assertEquals(7, mst.size());
+		assertEquals(28, mst.weight(), 0);
+		Graph full = new Graph(false);
+		for (String line : csv.split("\n")) {
+			String[] content = line.split(",");
+			full.addEdgeForced(content[0], content[1], Double.parseDouble(content[2]));
+		}
+		Graph expected = Prim.mstPrim(full, "Roma", new MinHeapComparator());
+		assertEquals(expected.weight(), mst.weight(), 0);
+	}
+
+	@Test
+	public void testStreamingMst_Reader() throws IOException {
+		EdgeList mst = new StreamingMst(100).compute(new BufferedReader(new StringReader(csv)));
+		assertEquals(28, mst.weight(), 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testStreamingMst_Fail_BatchSize() {
+		new StreamingMst(0);
+	}
+
+	@Test
+	public void testEdgeListLoader() throws IOException {
+		EdgeList edges = new EdgeListLoader(ForkJoinPool.commonPool()).load(csvFile);
+		assertEquals(9, edges.size());
+		assertEquals(9, edges.vertexCount());
+		assertEquals("Londra", edges.getLabel(edges.getSource(0)));
+		assertEquals("Madrid", edges.getLabel(edges.getDestination(8)));
+		assertEquals(48, edges.weight(), 0);
+		Graph<String> g = edges.toGraph(false);
+		assertEquals(9, g.edgeCount());
+		assertEquals(12, g.getEdgeWeight("Londra", "Dubai"), 0);
+		CsrGraph<String> csr = edges.toIndexedGraph(false);
+		assertEquals(18, csr.adjacencyCount());
+		assertEquals(3, csr.degree(csr.indexOf("Londra")));
+	}
+
+	@Test
+	public void testEdgeListLoader_Chunks() throws IOException {
+		Random random = new Random(41);
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 100000; i++) {
+			String weight;
+			switch (i % 4) {
+			case 0:
+				weight = Integer.toString(random.nextInt(1000));
+				break;
+			case 1:
+				weight = Double.toString(random.nextDouble() * 1000);
+				break;
+			case 2:
+				weight = String.format(Locale.ROOT, "%.3f", random.nextDouble());
+				break;
+			default:
+				weight = random.nextInt(100) + "e-2";
+			}
+			builder.append("v").append(random.nextInt(5000)).append(',').append("v").append(random.nextInt(5000))
+					.append(',').append(weight).append(i % 3 == 0 ? "\r\n" : "\n");
+		}
+		String text = builder.toString();
+		Files.write(csvFile, text.getBytes(StandardCharsets.UTF_8));
+		ForkJoinPool pool = new ForkJoinPool(4);
+		EdgeList edges = new EdgeListLoader(pool).load(csvFile);
+		pool.shutdown();
+		String[] lines = text.split("\r?\n");
+		assertEquals(lines.length, edges.size());
+		for (int i = 0; i < lines.length; i++) {
+			String[] content = lines[i].split(",");
+			assertEquals(content[0], edges.getLabel(edges.getSource(i)));
+			assertEquals(content[1], edges.getLabel(edges.getDestination(i)));
+			assertEquals(Double.parseDouble(content[2]), edges.getWeight(i), 0);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testEdgeListLoader_Fail_Malformed() throws IOException {
+		Files.write(csvFile, "Roma,Londra,6\nRoma;Dubai;2\n".getBytes(StandardCharsets.UTF_8));
+		new EdgeListLoader(ForkJoinPool.commonPool()).load(csvFile);
+	}
+
+	@Test
+	public void testEdgeListLoader_Gzip() throws IOException {
+		Random random = new Random(47);
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 100000; i++) {
+			builder.append("v").append(random.nextInt(5000)).append(',').append("v").append(random.nextInt(5000))
+					.append(',').append(random.nextInt(1000)).append('\n');
+		}
+		byte[] text = builder.toString().getBytes(StandardCharsets.UTF_8);
+		Path gzipFile = Files.createTempFile("edges", ".csv.gz");
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			// two concatenated members, split in the middle of a line
+			try (OutputStream out = Files.newOutputStream(gzipFile)) {
+				GZIPOutputStream first = new GZIPOutputStream(out);
+				first.write(text, 0, text.length / 2);
+				first.finish();
+				GZIPOutputStream second = new GZIPOutputStream(out);
+				second.write(text, text.length / 2, text.length - text.length / 2);
+				second.finish();
+			}
+			Files.write(csvFile, text);
+			EdgeList expected = new EdgeListLoader(pool).load(csvFile);
+			EdgeList edges = new EdgeListLoader(pool).load(gzipFile);
+			assertEquals(100000, edges.size());
+			assertEquals(expected.vertexCount(), edges.vertexCount());
+			for (int i = 0; i < edges.size(); i++) {
+				assertEquals(expected.getLabel(expected.getSource(i)), edges.getLabel(edges.getSource(i)));
+				assertEquals(expected.getLabel(expected.getDestination(i)), edges.getLabel(edges.getDestination(i)));
+				assertEquals(expected.getWeight(i), edges.getWeight(i), 0);
+			}
+		} finally {
+			pool.shutdown();
+			Files.deleteIfExists(gzipFile);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testEdgeListLoader_Fail_MalformedGzip() throws IOException {
+		Path gzipFile = Files.createTempFile("edges", ".csv.gz");
+		try {
+			try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzipFile))) {
+				out.write("Roma,Londra,6\nRoma;Dubai;2\n".getBytes(StandardCharsets.UTF_8));
+			}
+			new EdgeListLoader(ForkJoinPool.commonPool()).load(gzipFile);
+		} finally {
+			Files.deleteIfExists(gzipFile);
+		}
+	}
+
+	@Test
+	public void testMappedGraph() throws IOException {
+		Graph<String> g = new EdgeListLoader(ForkJoinPool.commonPool()).load(csvFile).toGraph(false);
+		Path graphFile = Files.createTempFile("edges", MappedGraph.EXTENSION);
+		try {
+			MappedGraph.write(g, graphFile);
+			MappedGraph mapped = MappedGraph.open(graphFile);
+			assertEquals(9, mapped.vertexCount());
+			assertEquals(18, mapped.adjacencyCount());
+			assertEquals(false, mapped.isOriented());
+			assertEquals(-1, mapped.indexOf("Tokyo"));
+			for (String label : g.getAllVertex()) {
+				int v = mapped.indexOf(label);
+				assertEquals(label, mapped.getLabel(v));
+				assertEquals(g.getVertexAdjs(label).size(), mapped.degree(v));
+				IndexedGraph.Cursor cursor = mapped.cursor();
+				cursor.reset(v);
+				while (cursor.next()) {
+					assertEquals(g.getEdgeWeight(label, mapped.getLabel(cursor.target())), cursor.weight(), 0);
+				}
+			}
+			Graph<String> copy = mapped.toGraph();
+			assertEquals(g.edgeCount(), copy.edgeCount());
+			assertEquals(g.weight(), copy.weight(), 0);
+		} finally {
+			Files.deleteIfExists(graphFile);
+		}
+	}
+
+	@Test
+	public void testMappedGraph_Oriented() throws IOException {
+		Graph<String> g = new Graph<String>(true);
+		g.addEdgeForced("Citt\u00e0", "Ville", 1.5);
+		g.addEdgeForced("Ville", "Stadt", -2);
+		g.addVertex("");
+		Path graphFile = Files.createTempFile("edges", MappedGraph.EXTENSION);
+		try {
+			MappedGraph.write(g, graphFile);
+			MappedGraph mapped = MappedGraph.open(graphFile);
+			assertEquals(true, mapped.isOriented());
+			assertEquals(4, mapped.vertexCount());
+			assertEquals(2, mapped.adjacencyCount());
+			assertEquals(0, mapped.degree(mapped.indexOf("")));
+			assertEquals(0, mapped.degree(mapped.indexOf("Stadt")));
+			assertEquals(-2, mapped.toGraph().getEdgeWeight("Ville", "Stadt"), 0);
+			assertEquals(1.5, mapped.toGraph().getEdgeWeight("Citt\u00e0", "Ville"), 0);
+		} finally {
+			Files.deleteIfExists(graphFile);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testMappedGraph_Fail_NotGraphFile() throws IOException {
+		MappedGraph.open(csvFile);
+	}
+
+	@Test
+	public void testLabelDictionary() {
+		LabelDictionary labels = new LabelDictionary(0);
+		assertEquals(0, labels.intern("Roma"));
+		assertEquals(1, labels.intern("Citt\u00e0"));
+		assertEquals(0, labels.intern("Roma"));
+		byte[] line = "Londra,Roma,6".getBytes(StandardCharsets.UTF_8);
+		assertEquals(2, labels.intern(line, 0, 6));
+		assertEquals(0, labels.intern(line, 7, 11));
+		assertEquals(3, labels.intern(""));
+		assertEquals(4, labels.size());
+		assertEquals(16, labels.byteCount());
+		assertEquals("Citt\u00e0", labels.get(1));
+		assertEquals(2, labels.indexOf("Londra"));
+		assertEquals(-1, labels.indexOf("Dubai"));
+		LabelDictionary copy = new LabelDictionary();
+		for (int i = 0; i < 100000; i++) {
+			assertEquals(i, labels.intern("v" + i) - 4);
+		}
+		for (int id = labels.size() - 1; id >= 0; id--) {
+			copy.intern(labels, id);
+		}
+		String[] all = labels.toArray();
+		for (int id = 0; id < all.length; id++) {
+			assertEquals(all.length - 1 - id, copy.indexOf(all[id]));
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testLabelDictionary_Fail_IdNotFound() {
+		LabelDictionary labels = new LabelDictionary();
+		labels.intern("Roma");
+		labels.get(1);
+	}
+
+	@Test
+	public void testGraphBuilder() throws Exception {
+		AtomicInteger snapshots = new AtomicInteger();
+		GraphBuilder builder = new GraphBuilder(false, 2, 1, snapshot -> snapshots.incrementAndGet());
+		Thread[] producers = new Thread[4];
+		for (int p = 0; p < producers.length; p++) {
+			int seed = p;
+			producers[p] = new Thread(() -> {
+				Random random = new Random(seed);
+				try {
+					for (int b = 0; b < 50; b++) {
+						GraphBuilder.Batch batch = new GraphBuilder.Batch();
+						for (int i = 0; i < 100; i++) {
+							int u = random.nextInt(300);
+							int v = random.nextInt(300);
+							// every producer repeats the same edges with the same weights
+							batch.add("v" + u, "v" + v, Math.min(u, v) * 1000 + Math.max(u, v));
+						}
+						builder.submit(batch);
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			producers[p].start();
+		}
+		for (Thread producer : producers) {
+			producer.join();
+		}
+		CsrGraph<String> g = builder.finish();
+		assertEquals(g, builder.getSnapshot());
+		assertEquals(true, snapshots.get() >= 1);
+		Graph<String> expected = new Graph<String>(false);
+		for (int p = 0; p < producers.length; p++) {
+			Random random = new Random(p);
+			for (int i = 0; i < 50 * 100; i++) {
+				int u = random.nextInt(300);
+				int v = random.nextInt(300);
+				expected.addEdgeForced("v" + u, "v" + v, Math.min(u, v) * 1000 + Math.max(u, v));
+			}
+		}
+		assertEquals(expected.vertexCount(), g.vertexCount());
+		for (String label : expected.getAllVertex()) {
+			int v = g.indexOf(label);
+			assertEquals(expected.getVertexAdjs(label).size(), g.degree(v));
+			IndexedGraph.Cursor cursor = g.cursor();
+			cursor.reset(v);
+			while (cursor.next()) {
+				assertEquals(expected.getEdgeWeight(label, g.getLabel(cursor.target())), cursor.weight(), 0);
+			}
+		}
+	}
+
+	@Test
+	public void testGraphBuilder_SlowListener() throws Exception {
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		GraphBuilder builder = new GraphBuilder(true, 1, 1, snapshot -> {
+			entered.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		GraphBuilder.Batch first = new GraphBuilder.Batch();
+		first.add("Roma", "Londra", 6);
+		builder.submit(first);
+		entered.await();
+		GraphBuilder.Batch second = new GraphBuilder.Batch();
+		second.add("Londra", "Roma", 5);
+		second.add("Roma", "Londra", 7);
+		builder.submit(second);
+		GraphBuilder.Batch third = new GraphBuilder.Batch();
+		third.add("Roma", "Dubai", 2);
+		// the listener blocks the publishing thread only, ingestion goes on
+		assertEquals(true, builder.offer(third, 10, TimeUnit.SECONDS));
+		GraphBuilder.Batch fourth = new GraphBuilder.Batch();
+		fourth.add("Roma", "Dubai", 3);
+		assertEquals(true, builder.offer(fourth, 10, TimeUnit.SECONDS));
+		assertEquals(1, builder.getSnapshot().adjacencyCount());
+		release.countDown();
+		CsrGraph<String> g = builder.finish();
+		assertEquals(3, g.vertexCount());
+		assertEquals(3, g.adjacencyCount());
+		assertEquals(2, g.degree(g.indexOf("Roma")));
+	}
+
+	@Test
+	public void testGraphBuilder_FinishRace() throws Exception {
+		for (int round = 0; round < 20; round++) {
+			GraphBuilder builder = new GraphBuilder(true, 1, 1, null);
+			AtomicInteger accepted = new AtomicInteger();
+			Thread producer = new Thread(() -> {
+				try {
+					for (int b = 0;; b++) {
+						GraphBuilder.Batch batch = new GraphBuilder.Batch();
+						batch.add("v" + b, "w" + b, b);
+						builder.submit(batch);
+						accepted.incrementAndGet();
+					}
+				} catch (IllegalStateException e) {
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			producer.start();
+			Thread.sleep(round % 3);
+			CsrGraph<String> g = builder.finish();
+			producer.join();
+			// every batch whose submit returned is in the final snapshot
+			assertEquals(accepted.get(), g.adjacencyCount());
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testGraphBuilder_Fail_Finished() throws InterruptedException {
+		GraphBuilder builder = new GraphBuilder(false, 1, 1000, null);
+		builder.finish();
+		builder.submit(new GraphBuilder.Batch());
+	}
+
+	@Test
+	public void testGraphCheckpoint_Snapshot() throws IOException {
+		Random random = new Random(46);
+		Graph<String> g = new Graph<String>(false);
+		for (int k = 0; k < 50000; k++) {
+			g.addEdgeForced("v" + random.nextInt(10000), "v" + random.nextInt(10000), random.nextDouble());
+		}
+		g.addEdgeForced("Citt\u00e0", "\ud83d\ude80", 1);
+		g.addVertex("");
+		Path snapshot = Files.createTempFile("graph", ".snapshot");
+		try {
+			GraphCheckpoint.write(g, snapshot);
+			ForkJoinPool pool = new ForkJoinPool(4);
+			Graph<String> restored = GraphCheckpoint.read(snapshot, pool);
+			pool.shutdown();
+			assertSameGraph(g, restored);
+		} finally {
+			Files.deleteIfExists(snapshot);
+		}
+	}
+
+	@Test
+	public void testGraphCheckpoint_Log() throws IOException {
+		Path directory = Files.createTempDirectory("checkpoint");
+		try {
+			Graph<String> expected = new Graph<String>(true);
+			try (GraphCheckpoint checkpoint = new GraphCheckpoint(directory, ForkJoinPool.commonPool(), 1000)) {
+				Graph<String> g = checkpoint.open(true);
+				assertEquals(0, g.vertexCount());
+				for (String line : csv.split("\n")) {
+					String[] content = line.split(",");
+					checkpoint.addEdge(content[0], content[1], Double.parseDouble(content[2]));
+					expected.addEdgeForced(content[0], content[1], Double.parseDouble(content[2]));
+				}
+				checkpoint.addEdge("Roma", "Londra", 100);
+				checkpoint.removeEdge("Roma", "Dubai");
+				expected.removeEdge("Roma", "Dubai");
+				checkpoint.removeVertex("Madrid");
+				expected.removeVertex("Madrid");
+				checkpoint.addVertex("Tokyo");
+				expected.addVertex("Tokyo");
+				assertEquals(12, checkpoint.getLogSize());
+			}
+			// a record torn by a crash is dropped on restart
+			Files.write(directory.resolve("graph.log"), new byte[] { 40, 0, 0, 0, 2, 1 }, StandardOpenOption.APPEND);
+			try (GraphCheckpoint checkpoint = new GraphCheckpoint(directory, ForkJoinPool.commonPool(), 1000)) {
+				assertSameGraph(expected, checkpoint.open(false));
+				assertEquals(12, checkpoint.getLogSize());
+				checkpoint.compact();
+				assertEquals(0, checkpoint.getLogSize());
+				checkpoint.addEdge("Tokyo", "Roma", 9);
+				expected.addEdgeForced("Tokyo", "Roma", 9);
+			}
+			try (GraphCheckpoint checkpoint = new GraphCheckpoint(directory, ForkJoinPool.commonPool(), 1000)) {
+				assertSameGraph(expected, checkpoint.open(false));
+				assertEquals(1, checkpoint.getLogSize());
+			}
+		} finally {
+			for (String name : new String[] { "graph.snapshot", "graph.log" }) {
+				Files.deleteIfExists(directory.resolve(name));
+			}
+			Files.deleteIfExists(directory);
+		}
+	}
+
+	@Test
+	public void testGraphCheckpoint_StaleLog() throws IOException {
+		Path directory = Files.createTempDirectory("checkpoint");
+		Path logFile = directory.resolve("graph.log");
+		try {
+			byte[] stale;
+			try (GraphCheckpoint checkpoint = new GraphCheckpoint(directory, ForkJoinPool.commonPool(), 1000)) {
+				checkpoint.open(false);
+				checkpoint.addEdge("A", "B", 1);
+				checkpoint.addEdge("C", "D", 2);
+				checkpoint.removeEdge("A", "B");
+				checkpoint.sync();
+				stale = Files.readAllBytes(logFile);
+				checkpoint.compact();
+			}
+			// a crash after the new snapshot is in place but before the log is emptied
+			Files.write(logFile, stale);
+			try (GraphCheckpoint checkpoint = new GraphCheckpoint(directory, ForkJoinPool.commonPool(), 1000)) {
+				Graph<String> g = checkpoint.open(false);
+				assertEquals(0, checkpoint.getLogSize());
+				assertEquals(1, g.edgeCount());
+				checkpoint.addEdge("A", "B", 9);
+			}
+			try (GraphCheckpoint checkpoint = new GraphCheckpoint(directory, ForkJoinPool.commonPool(), 1000)) {
+				Graph<String> g = checkpoint.open(false);
+				assertEquals(1, checkpoint.getLogSize());
+				assertEquals(2, g.edgeCount());
+				assertEquals(9, g.getEdgeWeight("A", "B"), 0);
+				assertEquals(2, g.getEdgeWeight("C", "D"), 0);
+			}
+		} finally {
+			for (String name : new String[] { "graph.snapshot", "graph.log" }) {
+				Files.deleteIfExists(directory.resolve(name));
+			}
+			Files.deleteIfExists(directory);
+		}
+	}
+
+	@Test
+	public void testGraphCheckpoint_Compaction() throws IOException {
+		Path directory = Files.createTempDirectory("checkpoint");
+		try {
+			try (GraphCheckpoint checkpoint = new GraphCheckpoint(directory, ForkJoinPool.commonPool(), 100)) {
+				checkpoint.open(false);
+				for (int i = 0; i < 250; i++) {
+					checkpoint.addEdge("v" + i, "v" + (i + 1), i);
+				}
+				assertEquals(50, checkpoint.getLogSize());
+			}
+			try (GraphCheckpoint checkpoint = new GraphCheckpoint(directory, ForkJoinPool.commonPool(), 100)) {
+				Graph<String> g = checkpoint.open(false);
+				assertEquals(251, g.vertexCount());
+				assertEquals(250, g.edgeCount());
+				assertEquals(249 * 250 / 2, g.weight(), 0);
+				assertEquals(50, checkpoint.getLogSize());
+			}
+		} finally {
+			for (String name : new String[] { "graph.snapshot", "graph.log" }) {
+				Files.deleteIfExists(directory.resolve(name));
+			}
+			Files.deleteIfExists(directory);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testGraphCheckpoint_Fail_NotSnapshot() throws IOException {
+		GraphCheckpoint.read(csvFile, ForkJoinPool.commonPool());
+	}
+
+	@Test
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public void testMstWriter_Csv() throws IOException {
+		Files.write(csvFile, (csv + "Madrid,Roma,0.125\n").getBytes(StandardCharsets.UTF_8));
+		CsrGraph<String> g = new EdgeListLoader(ForkJoinPool.commonPool()).load(csvFile).toIndexedGraph(false);
+		Graph<String> expected = Prim.mstPrim(g, "Londra", new MinHeapComparator());
+		Path treeFile = Files.createTempFile("tree", ".csv");
+		try {
+			MstWriter<String> writer = MstWriter.export(g, "Londra", new MinHeapComparator(), treeFile,
+					MstWriter.Format.CSV);
+			assertEquals(8, writer.getEdgeCount());
+			assertEquals(expected.weight(), writer.getWeight(), 1e-9);
+			EdgeList edges = new EdgeListLoader(ForkJoinPool.commonPool()).load(treeFile);
+			assertEquals(expected.edgeCount(), edges.size());
+			for (int i = 0; i < edges.size(); i++) {
+				assertEquals(expected.getEdgeWeight(edges.getLabel(edges.getSource(i)),
+						edges.getLabel(edges.getDestination(i))), edges.getWeight(i), 0);
+			}
+		} finally {
+			Files.deleteIfExists(treeFile);
+		}
+	}
+
+	@Test
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public void testMstWriter_Binary() throws IOException {
+		CsrGraph<String> g = new EdgeListLoader(ForkJoinPool.commonPool()).load(csvFile).toIndexedGraph(false);
+		Graph<String> expected = Prim.mstPrim(g, "Londra", new MinHeapComparator());
+		Path treeFile = Files.createTempFile("tree", MstWriter.EXTENSION);
+		try {
+			MstWriter<String> writer = MstWriter.export(g, "Londra", new MinHeapComparator(), treeFile,
+					MstWriter.Format.BINARY);
+			EdgeList edges = MstWriter.read(treeFile);
+			assertEquals(writer.getEdgeCount(), edges.size());
+			assertEquals(expected.edgeCount(), edges.size());
+			assertEquals(g.vertexCount(), edges.vertexCount());
+			assertEquals(expected.weight(), edges.weight(), 1e-9);
+			for (int i = 0; i < edges.size(); i++) {
+				assertEquals(g.getLabel(edges.getSource(i)), edges.getLabel(edges.getSource(i)));
+				assertEquals(expected.getEdgeWeight(edges.getLabel(edges.getSource(i)),
+						edges.getLabel(edges.getDestination(i))), edges.getWeight(i), 0);
+			}
+		} finally {
+			Files.deleteIfExists(treeFile);
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMstWriter_Fail_Closed() throws IOException {
+		CsrGraph<String> g = new EdgeListLoader(ForkJoinPool.commonPool()).load(csvFile).toIndexedGraph(false);
+		Path treeFile = Files.createTempFile("tree", ".csv");
+		try {
+			MstWriter<String> writer = new MstWriter<String>(g, treeFile, MstWriter.Format.CSV);
+			writer.close();
+			writer.accept(0, 1, 5);
+		} finally {
+			Files.deleteIfExists(treeFile);
+		}
+	}
+
+	@Test
+	public void testGraphShard() throws IOException {
+		CsrGraph<String> g = new EdgeListLoader(ForkJoinPool.commonPool()).load(csvFile).toIndexedGraph(false);
+		int[] parts = new GraphPartitioner<String>(g).partition(3, GraphPartitioner.Strategy.FENNEL, 0.1);
+		Path directory = Files.createTempDirectory("shards");
+		try {
+			List<Path> files = GraphShard.write(g, parts, 3, directory);
+			assertEquals(3, files.size());
+			int owned = 0;
+			long internal = 0;
+			long cut = 0;
+			for (int s = 0; s < 3; s++) {
+				GraphShard shard = GraphShard.read(files.get(s));
+				assertEquals(s, shard.getShard());
+				assertEquals(3, shard.getShardCount());
+				assertEquals(9, shard.getVertexCount());
+				EdgeList edges = shard.getEdges();
+				for (int v = 0; v < shard.ownedCount() + shard.boundaryCount(); v++) {
+					assertEquals(g.getLabel(shard.getGlobalId(v)), edges.getLabel(v));
+					assertEquals(parts[shard.getGlobalId(v)], shard.getOwner(v));
+					assertEquals(v < shard.ownedCount(), shard.getOwner(v) == s);
+				}
+				for (int i = 0; i < edges.size(); i++) {
+					String src = edges.getLabel(edges.getSource(i));
+					String dest = edges.getLabel(edges.getDestination(i));
+					assertEquals(i < shard.internalCount(), parts[g.indexOf(dest)] == s);
+					IndexedGraph.Cursor cursor = g.cursor();
+					cursor.reset(g.indexOf(src));
+					double weight = -1;
+					while (cursor.next()) {
+						if (cursor.target() == g.indexOf(dest))
+							weight = cursor.weight();
+					}
+					assertEquals(weight, edges.getWeight(i), 0);
+				}
+				owned += shard.ownedCount();
+				internal += shard.internalCount();
+				cut += edges.size() - shard.internalCount();
+			}
+			assertEquals(9, owned);
+			long expectedCut = new GraphPartitioner<String>(g).edgeCut(parts);
+			assertEquals(2 * expectedCut, cut);
+			assertEquals(9, internal + expectedCut);
+		} finally {
+			for (int s = 0; s < 3; s++) {
+				Files.deleteIfExists(directory.resolve("shard-" + s + GraphShard.EXTENSION));
+			}
+			Files.deleteIfExists(directory);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testGraphShard_Fail_NotShardFile() throws IOException {
+		GraphShard.read(csvFile);
+	}
+
+	@Test
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public void testDistributedMst() throws IOException {
+		Random random = new Random(50);
+		Graph<String> g = new Graph<String>(false);
+		for (int i = 0; i < 5000; i++) {
+			g.addEdgeForced("v" + random.nextInt(1000), "v" + random.nextInt(1000), random.nextInt(100));
+		}
+		CsrGraph<String> csr = new CsrGraph<String>(g);
+		int[] parts = new GraphPartitioner<String>(csr).partition(3, GraphPartitioner.Strategy.LDG, 0.05);
+		Path directory = Files.createTempDirectory("shards");
+		try {
+			List<Path> files = GraphShard.write(csr, parts, 3, directory);
+			EdgeList forest = new DistributedMst(60000).compute(files);
+			SpanningForest<String> expected = Prim.minimumSpanningForest(g, new MinHeapComparator());
+			assertEquals(csr.vertexCount(), forest.vertexCount());
+			assertEquals(csr.vertexCount() - expected.componentCount(), forest.size());
+			assertEquals(expected.weight(), forest.weight(), 1e-6);
+			for (int i = 0; i < forest.size(); i++) {
+				assertEquals(g.getEdgeWeight(forest.getLabel(forest.getSource(i)),
+						forest.getLabel(forest.getDestination(i))), forest.getWeight(i), 0);
+			}
+		} finally {
+			for (int s = 0; s < 3; s++) {
+				Files.deleteIfExists(directory.resolve("shard-" + s + GraphShard.EXTENSION));
+			}
+			Files.deleteIfExists(directory);
+		}
+	}
+
+	@Test
+	public void testDistributedMst_LongLabel() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 70000; i++) {
+			builder.append((char) ('a' + i % 26));
+		}
+		String label = builder.toString();
+		Graph<String> g = new Graph<String>(false);
+		g.addEdgeForced(label, "Roma", 2);
+		g.addEdgeForced("Roma", "Dubai", 1);
+		g.addEdgeForced(label, "Dubai", 5);
+		CsrGraph<String> csr = new CsrGraph<String>(g);
+		int[] parts = new GraphPartitioner<String>(csr).partition(2, GraphPartitioner.Strategy.LDG, 0.5);
+		Path directory = Files.createTempDirectory("shards");
+		try {
+			List<Path> files = GraphShard.write(csr, parts, 2, directory);
+			EdgeList forest = new DistributedMst(60000).compute(files);
+			assertEquals(2, forest.size());
+			assertEquals(3, forest.weight(), 0);
+			boolean found = false;
+			for (int v = 0; v < forest.vertexCount(); v++) {
+				found |= label.equals(forest.getLabel(v));
+			}
+			assertTrue(found);
+		} finally {
+			for (int s = 0; s < 2; s++) {
+				Files.deleteIfExists(directory.resolve("shard-" + s + GraphShard.EXTENSION));
+			}
+			Files.deleteIfExists(directory);
+		}
+	}
+
+	/**
+	 * Method asserting that two graphs hold the same vertexes and connections
+	 *
+	 * @param expected the expected graph
+	 * @param actual   the graph to check
+	 */
+	private void assertSameGraph(Graph<String> expected, Graph<String> actual) {
+		assertEquals(expected.isOriented(), actual.isOriented());
+		assertEquals(expected.vertexCount(), actual.vertexCount());
+		assertEquals(expected.edgeCount(), actual.edgeCount());
+		assertEquals(expected.weight(), actual.weight(), 1e-6);
+		for (String v : expected.getAllVertex()) {
+			assertEquals(expected.getVertexAdjs(v), actual.getVertexAdjs(v));
+			for (String w : expected.getVertexAdjs(v)) {
+				assertEquals(expected.getEdgeWeight(v, w), actual.getEdgeWeight(v, w));
+			}
+		}
+	}
+
+}
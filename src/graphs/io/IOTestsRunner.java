@@ -0,0 +1,25 @@
+package graphs.io;
+
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+/**
+ * Class set for main runner for a set of unit-tests
+ */
+public class IOTestsRunner {
+
+	/**
+	 *
+	 * @param args the command line arguments
+	 */
+	public static void main(String[] args) {
+		Result result = JUnitCore.runClasses(IOTests.class);
+		for (Failure failure : result.getFailures()) {
+			System.out.println(failure.toString());
+		}
+
+		System.out.println(result.wasSuccessful());
+	}
+
+}
@@ -0,0 +1,230 @@
+package graphs.io;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Class interning vertex labels into dense integer ids 0..n-1: the UTF-8 bytes
+ * of all labels are stored back to back in a single array and found through an
+ * open addressing table of ids, so that a label costs its bytes plus a few
+ * ints instead of a String, a boxed id and a hash map entry; labels are decoded
+ * to strings only when asked for
+ */
+public class LabelDictionary {
+
+	private byte[] bytes;
+	private int[] starts;
+	private int[] hashes;
+	private int[] table;
+	private int size;
+
+	/**
+	 * Simple constructor
+	 */
+	public LabelDictionary() {
+		this(16);
+	}
+
+	/**
+	 * Constructor sizing the dictionary for an expected number of labels
+	 *
+	 * @param expected the expected number of labels
+	 * @throws IllegalArgumentException if the expected number is negative
+	 */
+	public LabelDictionary(int expected) throws IllegalArgumentException {
+		if (expected < 0)
+			throw new IllegalArgumentException("Expected labels must be not negative");
+		int capacity = Math.max(16, expected);
+		this.bytes = new byte[8 * capacity];
+		this.starts = new int[capacity + 1];
+		this.hashes = new int[capacity];
+		this.table = new int[Integer.highestOneBit(2 * capacity - 1) << 1];
+		Arrays.fill(table, -1);
+	}
+
+	/**
+	 * Method hashing the bytes of a label; the low bits, which index the tables,
+	 * depend on every byte
+	 *
+	 * @param bytes the buffer
+	 * @param from  the position of the first byte
+	 * @param to    the position following the last byte
+	 * @return the hash value
+	 */
+	static int hash(byte[] bytes, int from, int to) {
+		int hash = 0x811c9dc5;
+		for (int i = from; i < to; i++) {
+			hash = (hash ^ bytes[i]) * 0x01000193;
+		}
+		// spreading the high bits, since the table is indexed by the low ones
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		return hash;
+	}
+
+	/**
+	 * Method returning the id of the label encoded by some bytes, adding it when
+	 * new; the bytes are copied, so the buffer can be reused afterwards
+	 *
+	 * @param buffer the buffer holding the UTF-8 bytes of the label
+	 * @param from   the position of the first byte
+	 * @param to     the position following the last byte
+	 * @return the label id
+	 */
+	public int intern(byte[] buffer, int from, int to) {
+		int hash = hash(buffer, from, to);
+		int mask = table.length - 1;
+		int slot = hash & mask;
+		int id;
+		while ((id = table[slot]) >= 0) {
+			if (hashes[id] == hash && sameBytes(id, buffer, from, to))
+				return id;
+			slot = (slot + 1) & mask;
+		}
+		id = size;
+		if (id == hashes.length) {
+			starts = Arrays.copyOf(starts, 2 * id + 1);
+			hashes = Arrays.copyOf(hashes, 2 * id);
+		}
+		int start = starts[id];
+		int length = to - from;
+		if (start + length > bytes.length)
+			bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, start + length));
+		System.arraycopy(buffer, from, bytes, start, length);
+		starts[id + 1] = start + length;
+		hashes[id] = hash;
+		table[slot] = id;
+		size++;
+		if (2 * size > table.length)
+			rehash();
+		return id;
+	}
+
+	/**
+	 * Method returning the id of a label, adding it when new
+	 *
+	 * @param label the label
+	 * @return the label id
+	 */
+	public int intern(String label) {
+		byte[] encoded = label.getBytes(StandardCharsets.UTF_8);
+		return intern(encoded, 0, encoded.length);
+	}
+
+	/**
+	 * Method returning the id of a label of another dictionary, adding it when
+	 * new, without decoding it
+	 *
+	 * @param other the dictionary holding the label
+	 * @param id    the label id in the other dictionary
+	 * @return the label id in this dictionary
+	 */
+	public int intern(LabelDictionary other, int id) {
+		return intern(other.bytes, other.starts[id], other.starts[id + 1]);
+	}
+
+	/**
+	 * Method returning the id of a label
+	 *
+	 * @param label the label
+	 * @return the label id, -1 if the label is not contained in the dictionary
+	 */
+	public int indexOf(String label) {
+		if (label == null)
+			return -1;
+		byte[] encoded = label.getBytes(StandardCharsets.UTF_8);
+		int hash = hash(encoded, 0, encoded.length);
+		int mask = table.length - 1;
+		int slot = hash & mask;
+		int id;
+		while ((id = table[slot]) >= 0) {
+			if (hashes[id] == hash && sameBytes(id, encoded, 0, encoded.length))
+				return id;
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Method decoding a label
+	 *
+	 * @param id the label id
+	 * @return the label
+	 * @throws IndexOutOfBoundsException if the id is not contained in the
+	 *                                   dictionary
+	 */
+	public String get(int id) throws IndexOutOfBoundsException {
+		if (id < 0 || id >= size)
+			throw new IndexOutOfBoundsException("Label id " + id + " not found");
+		return new String(bytes, starts[id], starts[id + 1] - starts[id], StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Method returning the number of labels
+	 *
+	 * @return an integer value of the labels count
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Method returning the total length of the stored labels
+	 *
+	 * @return an integer value of the UTF-8 bytes count
+	 */
+	public int byteCount() {
+		return starts[size];
+	}
+
+	/**
+	 * Method decoding every label, each one exactly once
+	 *
+	 * @return the labels, indexed by id
+	 */
+	public String[] toArray() {
+		String[] labels = new String[size];
+		for (int id = 0; id < size; id++) {
+			labels[id] = new String(bytes, starts[id], starts[id + 1] - starts[id], StandardCharsets.UTF_8);
+		}
+		return labels;
+	}
+
+	/**
+	 * Method comparing the stored bytes of a label with a range of a buffer
+	 *
+	 * @param id     the label id
+	 * @param buffer the buffer
+	 * @param from   the position of the first byte of the range
+	 * @param to     the position following the last byte of the range
+	 * @return true if the label holds the same bytes, false if it does not
+	 */
+	private boolean sameBytes(int id, byte[] buffer, int from, int to) {
+		int start = starts[id];
+		if (starts[id + 1] - start != to - from)
+			return false;
+		for (int i = 0; i < to - from; i++) {
+			if (bytes[start + i] != buffer[from + i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Method doubling the open addressing table
+	 */
+	private void rehash() {
+		table = new int[2 * table.length];
+		Arrays.fill(table, -1);
+		int mask = table.length - 1;
+		for (int id = 0; id < size; id++) {
+			int slot = hashes[id] & mask;
+			while (table[slot] >= 0) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = id;
+		}
+	}
+
+}
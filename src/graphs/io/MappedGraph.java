@@ -0,0 +1,514 @@
+package graphs.io;
+
+import graphs.secondversion.CsrGraph;
+import graphs.secondversion.Graph;
+import graphs.secondversion.IndexedGraph;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Class implementing an indexed graph read straight from a memory mapped binary
+ * file, without parsing nor copying its arrays. The file holds, in little
+ * endian order and after a fixed header, the byte offsets of the vertex labels,
+ * an open addressing table from label hashes to vertex ids, the compressed
+ * sparse row offsets, targets and weights, and finally the UTF-8 bytes of the
+ * labels; every section starts at a multiple of 8 bytes and must fit in a
+ * single mapping, that is in less than 2 GB
+ */
+public class MappedGraph extends IndexedGraph<String> {
+
+	/**
+	 * The conventional extension of the binary graph files
+	 */
+	public static final String EXTENSION = ".graph";
+
+	private static final int MAGIC = 0x47524631;
+	private static final int VERSION = 1;
+	private static final int HEADER = 40;
+	private static final int ORIENTED = 1;
+
+	private final int n;
+	private final long m;
+	private final boolean oriented;
+	private final IntBuffer labelOffsets;
+	private final IntBuffer slots;
+	private final IntBuffer offsets;
+	private final IntBuffer targets;
+	private final DoubleBuffer weights;
+	private final ByteBuffer labelBytes;
+
+	/**
+	 * Constructor accepting the mapped sections
+	 *
+	 * @param layout       the section layout of the file
+	 * @param oriented     boolean value specifying the graph orientation
+	 * @param labelOffsets the byte offsets of the labels
+	 * @param slots        the open addressing table of the labels
+	 * @param offsets      the first adjacency position of every vertex
+	 * @param targets      the adjacent vertex id of every adjacency
+	 * @param weights      the cost of every adjacency
+	 * @param labelBytes   the bytes of the labels
+	 */
+	private MappedGraph(Layout layout, boolean oriented, IntBuffer labelOffsets, IntBuffer slots, IntBuffer offsets,
+			IntBuffer targets, DoubleBuffer weights, ByteBuffer labelBytes) {
+		this.n = layout.n;
+		this.m = layout.m;
+		this.oriented = oriented;
+		this.labelOffsets = labelOffsets;
+		this.slots = slots;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.labelBytes = labelBytes;
+	}
+
+	/**
+	 * Method writing a graph in binary format, labels being stored as their
+	 * string form
+	 *
+	 * @param          <V> type of elements used as identifier for graph vertexes
+	 * @param g        the graph to write
+	 * @param filepath the path of the file, replaced if it exists
+	 * @throws IllegalArgumentException when the graph, passed as param, is null or
+	 *                                  too large for the format
+	 * @throws IOException              if the file cannot be written
+	 */
+	public static <V> void write(Graph<V> g, Path filepath) throws IllegalArgumentException, IOException {
+		if (g == null)
+			throw new IllegalArgumentException("Graph must be not null");
+		write(new CsrGraph<V>(g), filepath);
+	}
+
+	/**
+	 * Method writing an indexed graph in binary format, labels being stored as
+	 * their string form; vertex ids are preserved
+	 *
+	 * @param          <V> type of elements used as identifier for graph vertexes
+	 * @param g        the graph to write
+	 * @param filepath the path of the file, replaced if it exists
+	 * @throws IllegalArgumentException when the graph, passed as param, is null or
+	 *                                  too large for the format
+	 * @throws IOException              if the file cannot be written
+	 */
+	public static <V> void write(IndexedGraph<V> g, Path filepath) throws IllegalArgumentException, IOException {
+		if (g == null)
+			throw new IllegalArgumentException("Graph must be not null");
+		int n = g.vertexCount();
+		byte[][] labels = new byte[n][];
+		long labelLength = 0;
+		for (int v = 0; v < n; v++) {
+			labels[v] = String.valueOf(g.getLabel(v)).getBytes(StandardCharsets.UTF_8);
+			labelLength += labels[v].length;
+		}
+		int slotCount = Integer.highestOneBit(Math.max(1, 2 * n - 1)) << 1;
+		Layout layout = new Layout(n, g.adjacencyCount(), labelLength, slotCount);
+		if (!layout.fitsMapping())
+			throw new IllegalArgumentException("Graph too large for the binary format");
+		int[] table = new int[slotCount];
+		Arrays.fill(table, -1);
+		for (int v = 0; v < n; v++) {
+			int slot = LabelDictionary.hash(labels[v], 0, labels[v].length) & (slotCount - 1);
+			while (table[slot] >= 0) {
+				slot = (slot + 1) & (slotCount - 1);
+			}
+			table[slot] = v;
+		}
+
+		try (FileChannel channel = FileChannel.open(filepath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			BinaryOutput out = new BinaryOutput(channel);
+			out.putInt(MAGIC);
+			out.putInt(VERSION);
+			out.putInt(g.isOriented() ? ORIENTED : 0);
+			out.putInt(n);
+			out.putLong(layout.m);
+			out.putLong(labelLength);
+			out.putInt(slotCount);
+			out.putInt(0);
+			int labelOffset = 0;
+			for (int v = 0; v < n; v++) {
+				out.putInt(labelOffset);
+				labelOffset += labels[v].length;
+			}
+			out.putInt(labelOffset);
+			out.align();
+			for (int slot : table) {
+				out.putInt(slot);
+			}
+			out.align();
+			int count = 0;
+			for (int v = 0; v < n; v++) {
+				out.putInt(count);
+				count += g.degree(v);
+			}
+			out.putInt(count);
+			out.align();
+			IndexedGraph.Cursor cursor = g.cursor();
+			for (int v = 0; v < n; v++) {
+				cursor.reset(v);
+				while (cursor.next()) {
+					out.putInt(cursor.target());
+				}
+			}
+			out.align();
+			for (int v = 0; v < n; v++) {
+				cursor.reset(v);
+				while (cursor.next()) {
+					out.putDouble(cursor.weight());
+				}
+			}
+			for (byte[] label : labels) {
+				out.putBytes(label, 0, label.length);
+			}
+			out.flush();
+		}
+	}
+
+	/**
+	 * Method opening a graph written by write; the sections are mapped and not
+	 * read, so that opening takes constant time and the pages are loaded by the
+	 * operating system on first access
+	 *
+	 * @param filepath the path of the file
+	 * @return the mapped graph, which stays valid after the file is closed
+	 * @throws IOException if the file cannot be read or is not a graph file
+	 */
+	public static MappedGraph open(Path filepath) throws IOException {
+		try (FileChannel channel = FileChannel.open(filepath, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER)
+				throw new IOException("Not a graph file: " + filepath);
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			if (header.getInt(0) != MAGIC)
+				throw new IOException("Not a graph file: " + filepath);
+			if (header.getInt(4) != VERSION)
+				throw new IOException("Unsupported graph file version " + header.getInt(4));
+			Layout layout = new Layout(header.getInt(12), header.getLong(16), header.getLong(24), header.getInt(32));
+			if (!layout.fitsMapping() || channel.size() < layout.end())
+				throw new IOException("Truncated graph file: " + filepath);
+			return new MappedGraph(layout, (header.getInt(8) & ORIENTED) != 0,
+					map(channel, layout.labelOffsets(), 4L * (layout.n + 1)).asIntBuffer(),
+					map(channel, layout.slots(), 4L * layout.slotCount).asIntBuffer(),
+					map(channel, layout.offsets(), 4L * (layout.n + 1)).asIntBuffer(),
+					map(channel, layout.targets(), 4L * layout.m).asIntBuffer(),
+					map(channel, layout.weights(), 8L * layout.m).asDoubleBuffer(),
+					map(channel, layout.labelBytes(), layout.labelLength));
+		}
+	}
+
+	/**
+	 * Method mapping a section of a file in little endian order
+	 *
+	 * @param channel  the file channel
+	 * @param position the position of the section
+	 * @param size     the length in bytes of the section
+	 * @return the mapped section
+	 * @throws IOException if the file cannot be mapped
+	 */
+	private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Method returning the number of vertexes
+	 *
+	 * @return an integer value of the vertexes count
+	 */
+	@Override
+	public int vertexCount() {
+		return n;
+	}
+
+	/**
+	 * Method returning the number of stored adjacencies
+	 *
+	 * @return a long value of the adjacencies count
+	 */
+	@Override
+	public long adjacencyCount() {
+		return m;
+	}
+
+	/**
+	 * Method telling if the graph is oriented or not
+	 *
+	 * @return true of it is oriented, false if it's not
+	 */
+	@Override
+	public boolean isOriented() {
+		return oriented;
+	}
+
+	/**
+	 * Method returning the label of a vertex, decoded from the mapped bytes
+	 *
+	 * @param v the vertex id
+	 * @return the label of the vertex
+	 */
+	@Override
+	public String getLabel(int v) {
+		int from = labelOffsets.get(v);
+		byte[] bytes = new byte[labelOffsets.get(v + 1) - from];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = labelBytes.get(from + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Method returning the id of a vertex, found through the mapped label table
+	 *
+	 * @param label the label of the vertex
+	 * @return the vertex id, -1 if the vertex is not contained in the graph
+	 */
+	@Override
+	public int indexOf(String label) {
+		if (label == null)
+			return -1;
+		byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+		int mask = slots.limit() - 1;
+		int slot = LabelDictionary.hash(bytes, 0, bytes.length) & mask;
+		int v;
+		while ((v = slots.get(slot)) >= 0) {
+			if (sameBytes(v, bytes))
+				return v;
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Method comparing the stored label of a vertex with some bytes
+	 *
+	 * @param v     the vertex id
+	 * @param bytes the bytes to compare
+	 * @return true if the label holds the same bytes, false if it does not
+	 */
+	private boolean sameBytes(int v, byte[] bytes) {
+		int from = labelOffsets.get(v);
+		if (labelOffsets.get(v + 1) - from != bytes.length)
+			return false;
+		for (int i = 0; i < bytes.length; i++) {
+			if (labelBytes.get(from + i) != bytes[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Method returning the number of adjacencies of a vertex
+	 *
+	 * @param v the vertex id
+	 * @return an integer value of the vertex out degree
+	 */
+	@Override
+	public int degree(int v) {
+		return offsets.get(v + 1) - offsets.get(v);
+	}
+
+	/**
+	 * Method creating a new cursor over the mapped adjacency arrays
+	 *
+	 * @return a new cursor
+	 */
+	@Override
+	public Cursor cursor() {
+		return new MappedCursor();
+	}
+
+	/**
+	 * Method building a graph containing every vertex and adjacency of the file
+	 *
+	 * @return the built graph
+	 */
+	public Graph<String> toGraph() {
+		Graph<String> g = new Graph<String>(oriented);
+		String[] labels = new String[n];
+		for (int v = 0; v < n; v++) {
+			labels[v] = getLabel(v);
+			g.addVertex(labels[v]);
+		}
+		Cursor cursor = cursor();
+		for (int v = 0; v < n; v++) {
+			cursor.reset(v);
+			while (cursor.next()) {
+				g.addEdge(labels[v], labels[cursor.target()], cursor.weight());
+			}
+		}
+		return g;
+	}
+
+	/**
+	 * Inner class implementing a cursor walking the mapped adjacency arrays
+	 */
+	protected class MappedCursor extends Cursor {
+
+		private int position;
+		private int end;
+
+		/**
+		 * Method positioning the cursor before the first adjacency of a vertex
+		 *
+		 * @param v the vertex id
+		 */
+		@Override
+		public void reset(int v) {
+			position = offsets.get(v) - 1;
+			end = offsets.get(v + 1);
+		}
+
+		/**
+		 * Method moving the cursor to the next adjacency
+		 *
+		 * @return true if there is an adjacency, false if all of them have been
+		 *         enumerated
+		 */
+		@Override
+		public boolean next() {
+			return ++position < end;
+		}
+
+		/**
+		 * Method returning the vertex id at the end of the current adjacency
+		 *
+		 * @return the adjacent vertex id
+		 */
+		@Override
+		public int target() {
+			return targets.get(position);
+		}
+
+		/**
+		 * Method returning the cost of the current adjacency
+		 *
+		 * @return a double value for the weight
+		 */
+		@Override
+		public double weight() {
+			return weights.get(position);
+		}
+
+	}
+
+	/**
+	 * Inner class computing the position of every section from the sizes stored
+	 * in the header, shared by the writer and the reader
+	 */
+	protected static class Layout {
+
+		private final int n;
+		private final long m;
+		private final long labelLength;
+		private final int slotCount;
+
+		/**
+		 * Constructor for the layout of a file
+		 *
+		 * @param n           the number of vertexes
+		 * @param m           the number of adjacencies
+		 * @param labelLength the total length in bytes of the labels
+		 * @param slotCount   the size of the label table, a power of two
+		 */
+		public Layout(int n, long m, long labelLength, int slotCount) {
+			this.n = n;
+			this.m = m;
+			this.labelLength = labelLength;
+			this.slotCount = slotCount;
+		}
+
+		/**
+		 * Method telling if every section fits in a single mapping and is
+		 * addressable by int positions
+		 *
+		 * @return true if the file can be mapped, false if it cannot
+		 */
+		public boolean fitsMapping() {
+			return n >= 0 && m >= 0 && labelLength >= 0 && slotCount > 0 && Integer.bitCount(slotCount) == 1
+					&& slotCount >= n && 8L * m <= Integer.MAX_VALUE && labelLength <= Integer.MAX_VALUE
+					&& 4L * (n + 1) <= Integer.MAX_VALUE;
+		}
+
+		/**
+		 * Method returning the position of the label offsets
+		 *
+		 * @return the position in bytes
+		 */
+		public long labelOffsets() {
+			return HEADER;
+		}
+
+		/**
+		 * Method returning the position of the label table
+		 *
+		 * @return the position in bytes
+		 */
+		public long slots() {
+			return align(labelOffsets() + 4L * (n + 1));
+		}
+
+		/**
+		 * Method returning the position of the adjacency offsets
+		 *
+		 * @return the position in bytes
+		 */
+		public long offsets() {
+			return align(slots() + 4L * slotCount);
+		}
+
+		/**
+		 * Method returning the position of the adjacency targets
+		 *
+		 * @return the position in bytes
+		 */
+		public long targets() {
+			return align(offsets() + 4L * (n + 1));
+		}
+
+		/**
+		 * Method returning the position of the adjacency weights
+		 *
+		 * @return the position in bytes
+		 */
+		public long weights() {
+			return align(targets() + 4L * m);
+		}
+
+		/**
+		 * Method returning the position of the label bytes
+		 *
+		 * @return the position in bytes
+		 */
+		public long labelBytes() {
+			return weights() + 8L * m;
+		}
+
+		/**
+		 * Method returning the length of the whole file
+		 *
+		 * @return the length in bytes
+		 */
+		public long end() {
+			return labelBytes() + labelLength;
+		}
+
+		/**
+		 * Method rounding a position up to a multiple of 8
+		 *
+		 * @param position the position in bytes
+		 * @return the aligned position
+		 */
+		private static long align(long position) {
+			return (position + 7) & ~7L;
+		}
+
+	}
+
+}
@@ -0,0 +1,260 @@
+package graphs.io;
+
+import graphs.secondversion.IndexedGraph;
+import graphs.secondversion.Prim;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+/**
+ * Class writing the edges of a minimum spanning tree to a file while Prim
+ * finalizes them, through a buffered channel, so that the tree is never held in
+ * memory; edges are written either as "vertex,parent,weight" CSV lines, readable
+ * by EdgeListLoader, or in a binary format made of a header, the vertex labels
+ * and fixed size little endian records of two vertex ids and a weight
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public class MstWriter<V> implements Prim.EdgeSink, Closeable {
+
+	/**
+	 * Formats in which the edges can be written
+	 */
+	public enum Format {
+		/**
+		 * "vertex,parent,weight" lines, with integral weights written without
+		 * decimals
+		 */
+		CSV,
+		/**
+		 * a header, the labels and 16 bytes per edge
+		 */
+		BINARY
+	}
+
+	/**
+	 * The extension of the binary format files
+	 */
+	public static final String EXTENSION = ".mst";
+
+	private static final int MAGIC = 0x4d535431;
+	private static final int VERSION = 1;
+	private static final int HEADER = 32;
+
+	private final IndexedGraph<V> g;
+	private final Format format;
+	private final FileChannel channel;
+	private final BinaryOutput out;
+	private long edgeCount;
+	private double weight;
+	private boolean closed;
+
+	/**
+	 * Constructor creating, or truncating, the output file; in the binary format
+	 * the labels of every vertex of the graph are written immediately
+	 *
+	 * @param g        the graph the tree is computed on
+	 * @param filepath the path of the output file
+	 * @param format   the format of the output
+	 * @throws IllegalArgumentException when the graph or the format, passed as
+	 *                                  params, is null
+	 * @throws IOException              if the file cannot be written
+	 */
+	public MstWriter(IndexedGraph<V> g, Path filepath, Format format) throws IllegalArgumentException, IOException {
+		if (g == null || format == null)
+			throw new IllegalArgumentException("Graph and format must be not null");
+		this.g = g;
+		this.format = format;
+		this.channel = FileChannel.open(filepath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		this.out = new BinaryOutput(channel);
+		if (format == Format.BINARY) {
+			try {
+				out.putInt(MAGIC);
+				out.putInt(VERSION);
+				out.putInt(g.vertexCount());
+				out.putInt(0);
+				// edge count and weight, rewritten on close
+				out.putLong(0);
+				out.putDouble(0);
+				for (int v = 0; v < g.vertexCount(); v++) {
+					out.putUtf8(String.valueOf(g.getLabel(v)));
+				}
+				out.align();
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Method computing the minimum spanning tree of an indexed graph and writing
+	 * its edges to a file as they are finalized
+	 *
+	 * @param             <V> type of elements used as identifier for graph vertexes
+	 * @param g           the used graph
+	 * @param startVertex the label of the starting vertex
+	 * @param comparator  a comparator that implements the priority precedence
+	 *                    relation between vertexes
+	 * @param filepath    the path of the output file
+	 * @param format      the format of the output
+	 * @return the closed writer, holding the count and the weight of the edges
+	 * @throws IllegalArgumentException      when the graph or the format, passed
+	 *                                       as params, is null
+	 * @throws UnsupportedOperationException if the passed graph is oriented or it
+	 *                                       contains negative weights
+	 * @throws NoSuchElementException        if the starting vertex is not contained
+	 *                                       in the graph
+	 * @throws IOException                   if the file cannot be written
+	 */
+	@SuppressWarnings("rawtypes")
+	public static <V> MstWriter<V> export(IndexedGraph<V> g, V startVertex, Comparator comparator, Path filepath,
+			Format format)
+			throws IllegalArgumentException, UnsupportedOperationException, NoSuchElementException, IOException {
+		try (MstWriter<V> writer = new MstWriter<V>(g, filepath, format)) {
+			Prim.mstPrim(g, startVertex, comparator, writer);
+			return writer;
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Method writing an edge finalized by Prim; vertexes starting a new tree are
+	 * skipped
+	 *
+	 * @param vertex the vertex id
+	 * @param parent the id of the vertex it is connected to, -1 if it starts a new
+	 *               tree
+	 * @param weight the cost of the connection
+	 * @throws IllegalStateException if the writer has been closed
+	 * @throws UncheckedIOException  if the file cannot be written
+	 */
+	@Override
+	public void accept(int vertex, int parent, double weight) throws IllegalStateException {
+		if (closed)
+			throw new IllegalStateException("Writer already closed");
+		if (parent < 0)
+			return;
+		try {
+			if (format == Format.BINARY) {
+				out.putInt(vertex);
+				out.putInt(parent);
+				out.putDouble(weight);
+			} else {
+				out.putText(String.valueOf(g.getLabel(vertex)));
+				out.putByte(',');
+				out.putText(String.valueOf(g.getLabel(parent)));
+				out.putByte(',');
+				if (weight == Math.rint(weight) && Math.abs(weight) < 1e15)
+					out.putDecimal((long) weight);
+				else
+					out.putText(Double.toString(weight));
+				out.putByte('\n');
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		edgeCount++;
+		this.weight += weight;
+	}
+
+	/**
+	 * Method returning the number of edges written so far
+	 *
+	 * @return a long value of the edges count
+	 */
+	public long getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * Method returning the total weight of the edges written so far
+	 *
+	 * @return a double value of the total weight
+	 */
+	public double getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Method flushing the buffered edges, completing the binary header, and
+	 * closing the file; closing twice has no effect
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		try {
+			out.flush();
+			if (format == Format.BINARY) {
+				ByteBuffer totals = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+				totals.putLong(edgeCount).putDouble(weight).flip();
+				long position = 16;
+				while (totals.hasRemaining()) {
+					position += channel.write(totals, position);
+				}
+			}
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Method reading a tree written in the binary format
+	 *
+	 * @param filepath the path of the file
+	 * @return the edges of the tree, in the order they were finalized, with the
+	 *         vertex ids of the graph the tree was computed on
+	 * @throws IOException if the file cannot be read or is not a tree file
+	 */
+	public static EdgeList read(Path filepath) throws IOException {
+		byte[] bytes = Files.readAllBytes(filepath);
+		BinaryInput in = new BinaryInput(bytes, 0, bytes.length);
+		try {
+			if (bytes.length < HEADER || in.getInt() != MAGIC)
+				throw new IOException("Not a tree file: " + filepath);
+			int version = in.getInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported tree file version " + version);
+			int n = in.getInt();
+			in.getInt();
+			long count = in.getLong();
+			in.getDouble();
+			LabelDictionary labels = new LabelDictionary();
+			for (int v = 0; v < n; v++) {
+				labels.intern(in.getUtf8());
+			}
+			int start = (in.position() + 7) & ~7;
+			if (count > (bytes.length - (long) start) / 16)
+				throw new IOException("Truncated tree file: " + filepath);
+			in = new BinaryInput(bytes, start, bytes.length);
+			int size = (int) count;
+			int[] src = new int[size];
+			int[] dest = new int[size];
+			double[] weights = new double[size];
+			for (int i = 0; i < size; i++) {
+				src[i] = in.getInt();
+				dest[i] = in.getInt();
+				weights[i] = in.getDouble();
+			}
+			return new EdgeList(labels, src, dest, weights, size);
+		} catch (EOFException e) {
+			throw new IOException("Truncated tree file: " + filepath, e);
+		}
+	}
+
+}
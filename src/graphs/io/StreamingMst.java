@@ -0,0 +1,127 @@
+package graphs.io;
+
+import graphs.secondversion.UnionFind;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Class implementing a semi-external minimum spanning forest computation over a
+ * "source,destination,weight" CSV file; the file is read exactly once and only
+ * the current forest, the label dictionary and a bounded batch of edges are kept
+ * in memory, since every time the batch fills up the edges closing a cycle of
+ * the forest built so far are discarded (cycle property) with a Kruskal pass
+ */
+public class StreamingMst {
+
+	private static final Charset ENCODING = StandardCharsets.UTF_8;
+
+	private final int batchSize;
+
+	private LabelDictionary labels;
+	private int[] src;
+	private int[] dest;
+	private double[] weights;
+	private int forestSize;
+	private int size;
+
+	/**
+	 * Constructor specifying how many edges are buffered between two filtering
+	 * passes
+	 *
+	 * @param batchSize the number of buffered edges, which is raised to the forest
+	 *                  size when smaller to keep the passes amortized
+	 * @throws IllegalArgumentException if the batch size is not positive
+	 */
+	public StreamingMst(int batchSize) throws IllegalArgumentException {
+		if (batchSize < 1)
+			throw new IllegalArgumentException("Batch size must be positive");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Method computing the minimum spanning forest of the edges in a CSV file
+	 *
+	 * @param filepath the path of the "source,destination,weight" file
+	 * @return the edges of the minimum spanning forest
+	 * @throws IOException if the file cannot be read
+	 */
+	public EdgeList compute(Path filepath) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(filepath, ENCODING)) {
+			return compute(reader);
+		}
+	}
+
+	/**
+	 * Method computing the minimum spanning forest of the edges read from a
+	 * stream of CSV lines
+	 *
+	 * @param reader the reader supplying "source,destination,weight" lines
+	 * @return the edges of the minimum spanning forest
+	 * @throws IOException if the stream cannot be read
+	 */
+	public EdgeList compute(BufferedReader reader) throws IOException {
+		labels = new LabelDictionary();
+		src = new int[batchSize];
+		dest = new int[batchSize];
+		weights = new double[batchSize];
+		forestSize = 0;
+		size = 0;
+		String line = null;
+		while ((line = reader.readLine()) != null) {
+			if (line.isEmpty())
+				continue;
+			String[] content = line.split(",");
+			int u = labels.intern(content[0]);
+			int v = labels.intern(content[1]);
+			if (u == v)
+				continue;
+			if (size == src.length) {
+				filter();
+				int capacity = forestSize + Math.max(batchSize, forestSize);
+				if (capacity > src.length) {
+					src = Arrays.copyOf(src, capacity);
+					dest = Arrays.copyOf(dest, capacity);
+					weights = Arrays.copyOf(weights, capacity);
+				}
+			}
+			src[size] = u;
+			dest[size] = v;
+			weights[size] = Double.parseDouble(content[2]);
+			size++;
+		}
+		filter();
+		EdgeList out = new EdgeList(labels, Arrays.copyOf(src, forestSize),
+				Arrays.copyOf(dest, forestSize), Arrays.copyOf(weights, forestSize), forestSize);
+		labels = null;
+		src = null;
+		dest = null;
+		weights = null;
+		return out;
+	}
+
+	/**
+	 * Method running Kruskal over the current forest and the buffered edges,
+	 * compacting the surviving ones at the head of the arrays
+	 */
+	private void filter() {
+		EdgeList.sortByWeight(src, dest, weights, size);
+		UnionFind sets = new UnionFind(labels.size());
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			if (sets.union(src[i], dest[i])) {
+				src[kept] = src[i];
+				dest[kept] = dest[i];
+				weights[kept] = weights[i];
+				kept++;
+			}
+		}
+		forestSize = kept;
+		size = kept;
+	}
+
+}
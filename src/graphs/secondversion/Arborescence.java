@@ -0,0 +1,385 @@
+package graphs.secondversion;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+
+/**
+ * Class implementing the minimum arborescence (oriented minimum spanning tree)
+ * algorithm of Chu-Liu and Edmonds, in Tarjan's O(E log V) formulation: every
+ * vertex keeps its incoming edges in a mergeable heap whose weights are
+ * lowered lazily, the cheapest incoming edge of every vertex is chosen walking
+ * back towards the root, and the cycles met on the way are contracted into a
+ * single vertex by merging their heaps; contractions are recorded in a union
+ * find with rollback, so that the chosen edges can be expanded afterwards
+ */
+public class Arborescence {
+
+	/**
+	 * Method computing the minimum arborescence rooted in a vertex, spanning the
+	 * vertexes reachable from it
+	 *
+	 * @param      <V> type of elements used as identifier for graph vertexes
+	 * @param g    the used graph
+	 * @param root the label of the root vertex
+	 * @return an oriented graph representing the minimum arborescence, where every
+	 *         vertex but the root has exactly one incoming edge
+	 * @throws IllegalArgumentException      when the graph, passed as param, is
+	 *                                       null
+	 * @throws UnsupportedOperationException if the graph is not oriented
+	 * @throws NoSuchElementException        if the root vertex is not contained in
+	 *                                       the graph
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static <V> Graph<V> minimumArborescence(Graph<V> g, V root)
+			throws IllegalArgumentException, UnsupportedOperationException, NoSuchElementException {
+		if (g == null)
+			throw new IllegalArgumentException("Graph must be not null");
+		if (!g.isOriented())
+			throw new UnsupportedOperationException("Minimum arborescence only works on oriented graphs");
+		if (!g.containsVertex(root))
+			throw new NoSuchElementException("Root vertex not found in graph");
+
+		// numbering the vertexes reachable from the root, the root being 0
+		HashMap<V, Integer> ids = new HashMap();
+		Object[] labels = new Object[g.vertexCount()];
+		ArrayDeque<V> queue = new ArrayDeque<V>();
+		ids.put(root, 0);
+		labels[0] = root;
+		queue.add(root);
+		int n = 1;
+		int m = 0;
+		while (!queue.isEmpty()) {
+			V actual = queue.poll();
+			for (V adiacent : g.getVertexAdjs(actual)) {
+				m++;
+				if (!ids.containsKey(adiacent)) {
+					ids.put(adiacent, n);
+					labels[n++] = adiacent;
+					queue.add(adiacent);
+				}
+			}
+		}
+		Heaps heaps = new Heaps(m);
+		for (int v = 0; v < n; v++) {
+			for (V adiacent : g.getVertexAdjs((V) labels[v])) {
+				int w = ids.get(adiacent);
+				if (w != v)
+					heaps.addEdge(v, w, g.getEdgeWeight((V) labels[v], adiacent));
+			}
+		}
+
+		int[] incoming = solve(n, heaps);
+
+		Graph<V> arborescence = new Graph(true);
+		arborescence.addVertex(root);
+		for (int v = 1; v < n; v++) {
+			V src = (V) labels[heaps.src[incoming[v]]];
+			arborescence.addEdgeForced(src, (V) labels[v], g.getEdgeWeight(src, (V) labels[v]));
+		}
+		return arborescence;
+	}
+
+	/**
+	 * Method choosing the incoming edge of every vertex
+	 *
+	 * @param n     the number of vertexes, all reachable from vertex 0
+	 * @param heaps the edges, with a heap of incoming edges per vertex
+	 * @return the chosen incoming edge id of every vertex, indexed by vertex id
+	 */
+	private static int[] solve(int n, Heaps heaps) {
+		RollbackUnionFind sets = new RollbackUnionFind(n);
+		int[] heap = new int[n];
+		Arrays.fill(heap, -1);
+		for (int e = 0; e < heaps.size; e++) {
+			int v = heaps.dest[e];
+			heap[v] = heaps.merge(heap[v], e);
+		}
+		int[] seen = new int[n];
+		Arrays.fill(seen, -1);
+		seen[0] = 0;
+		int[] path = new int[n];
+		int[] chosen = new int[n];
+		int[] incoming = new int[n];
+		Arrays.fill(incoming, -1);
+		ArrayDeque<int[]> cycles = new ArrayDeque<int[]>();
+
+		for (int s = 0; s < n; s++) {
+			int u = s;
+			int count = 0;
+			// walking back along the cheapest incoming edges until a visited vertex
+			while (seen[u] < 0) {
+				int e = heap[u];
+				double weight = heaps.top(e);
+				heaps.shift(e, -weight);
+				heap[u] = heaps.pop(e);
+				chosen[count] = e;
+				path[count++] = u;
+				seen[u] = s;
+				u = sets.find(heaps.src[e]);
+				if (seen[u] == s) {
+					// contracting the cycle closed by the walk into a single vertex
+					int cycle = -1;
+					int end = count;
+					int time = sets.time();
+					int w;
+					do {
+						w = path[--count];
+						cycle = heaps.merge(cycle, heap[w]);
+					} while (sets.union(u, w));
+					u = sets.find(u);
+					heap[u] = cycle;
+					seen[u] = -1;
+					int[] record = new int[2 + end - count];
+					record[0] = u;
+					record[1] = time;
+					System.arraycopy(chosen, count, record, 2, end - count);
+					cycles.addFirst(record);
+				}
+			}
+			for (int i = 0; i < count; i++) {
+				incoming[sets.find(heaps.dest[chosen[i]])] = chosen[i];
+			}
+		}
+
+		// expanding the cycles, the most recent first: the edge entering a cycle
+		// replaces the cycle edge reaching the same vertex
+		for (int[] record : cycles) {
+			int u = record[0];
+			sets.rollback(record[1]);
+			int entering = incoming[u];
+			for (int i = 2; i < record.length; i++) {
+				incoming[sets.find(heaps.dest[record[i]])] = record[i];
+			}
+			incoming[sets.find(heaps.dest[entering])] = entering;
+		}
+		return incoming;
+	}
+
+	/**
+	 * Inner class implementing the edges as nodes of leftist heaps ordered by
+	 * weight, where a whole heap can be shifted by a constant in O(1) through a
+	 * lazy delta pushed down on access
+	 */
+	protected static class Heaps {
+
+		private final int[] src;
+		private final int[] dest;
+		private final double[] key;
+		private final double[] delta;
+		private final int[] left;
+		private final int[] right;
+		private final int[] rank;
+		private int size;
+
+		/**
+		 * Constructor allocating room for the edges
+		 *
+		 * @param capacity the greatest number of edges
+		 */
+		public Heaps(int capacity) {
+			src = new int[capacity];
+			dest = new int[capacity];
+			key = new double[capacity];
+			delta = new double[capacity];
+			left = new int[capacity];
+			right = new int[capacity];
+			rank = new int[capacity];
+		}
+
+		/**
+		 * Method adding an edge as a single node heap
+		 *
+		 * @param u      the starting vertex id
+		 * @param v      the ending vertex id
+		 * @param weight the cost of the edge
+		 */
+		public void addEdge(int u, int v, double weight) {
+			src[size] = u;
+			dest[size] = v;
+			key[size] = weight;
+			left[size] = -1;
+			right[size] = -1;
+			rank[size] = 1;
+			size++;
+		}
+
+		/**
+		 * Method returning the weight of the heap root
+		 *
+		 * @param a the heap root
+		 * @return a double value for the current weight
+		 */
+		public double top(int a) {
+			push(a);
+			return key[a];
+		}
+
+		/**
+		 * Method adding a constant to every weight of a heap
+		 *
+		 * @param a     the heap root
+		 * @param shift the constant to add
+		 */
+		public void shift(int a, double shift) {
+			delta[a] += shift;
+		}
+
+		/**
+		 * Method removing the root of a heap
+		 *
+		 * @param a the heap root
+		 * @return the root of the remaining heap, -1 if empty
+		 */
+		public int pop(int a) {
+			push(a);
+			return merge(left[a], right[a]);
+		}
+
+		/**
+		 * Method merging two heaps along their right spines, whose length is
+		 * logarithmic
+		 *
+		 * @param a the first heap root, -1 if empty
+		 * @param b the second heap root, -1 if empty
+		 * @return the root of the merged heap
+		 */
+		public int merge(int a, int b) {
+			if (a < 0)
+				return b;
+			if (b < 0)
+				return a;
+			push(a);
+			push(b);
+			if (key[a] > key[b]) {
+				int temp = a;
+				a = b;
+				b = temp;
+			}
+			right[a] = merge(right[a], b);
+			if (rankOf(left[a]) < rankOf(right[a])) {
+				int temp = left[a];
+				left[a] = right[a];
+				right[a] = temp;
+			}
+			rank[a] = rankOf(right[a]) + 1;
+			return a;
+		}
+
+		/**
+		 * Method applying the lazy delta of a node to its key and children
+		 *
+		 * @param a the node
+		 */
+		private void push(int a) {
+			if (delta[a] != 0) {
+				key[a] += delta[a];
+				if (left[a] >= 0)
+					delta[left[a]] += delta[a];
+				if (right[a] >= 0)
+					delta[right[a]] += delta[a];
+				delta[a] = 0;
+			}
+		}
+
+		/**
+		 * Method returning the distance of a node from its nearest missing child
+		 *
+		 * @param a the node, -1 for an empty heap
+		 * @return an integer value, 0 for an empty heap
+		 */
+		private int rankOf(int a) {
+			return a < 0 ? 0 : rank[a];
+		}
+
+	}
+
+	/**
+	 * Inner class implementing a union-find structure by size without path
+	 * compression, whose unions can be undone in reverse order
+	 */
+	protected static class RollbackUnionFind {
+
+		private final int[] parent;
+		private final int[] size;
+		private final LinkedList<int[]> history;
+
+		/**
+		 * Constructor for a structure of singleton sets
+		 *
+		 * @param n the number of elements, identified by 0..n-1
+		 */
+		public RollbackUnionFind(int n) {
+			parent = new int[n];
+			size = new int[n];
+			for (int i = 0; i < n; i++) {
+				parent[i] = i;
+				size[i] = 1;
+			}
+			history = new LinkedList<int[]>();
+		}
+
+		/**
+		 * Method finding the representative of the set containing an element
+		 *
+		 * @param x the element
+		 * @return the representative element of its set
+		 */
+		public int find(int x) {
+			while (parent[x] != x) {
+				x = parent[x];
+			}
+			return x;
+		}
+
+		/**
+		 * Method returning the number of unions done, to roll back to
+		 *
+		 * @return an integer value of the unions count
+		 */
+		public int time() {
+			return history.size();
+		}
+
+		/**
+		 * Method undoing the unions done after a given time
+		 *
+		 * @param time the number of unions to keep
+		 */
+		public void rollback(int time) {
+			while (history.size() > time) {
+				int[] union = history.removeLast();
+				parent[union[1]] = union[1];
+				size[union[0]] -= size[union[1]];
+			}
+		}
+
+		/**
+		 * Method merging the sets containing two elements
+		 *
+		 * @param x the first element
+		 * @param y the second element
+		 * @return true if the two sets were distinct, false if they were already the
+		 *         same set
+		 */
+		public boolean union(int x, int y) {
+			int rx = find(x);
+			int ry = find(y);
+			if (rx == ry)
+				return false;
+			if (size[rx] < size[ry]) {
+				int temp = rx;
+				rx = ry;
+				ry = temp;
+			}
+			parent[ry] = rx;
+			size[rx] += size[ry];
+			history.add(new int[] { rx, ry });
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,741 @@
+package graphs.secondversion;
+
+import graphs.io.LabelDictionary;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Class implementing an indexed graph whose adjacencies are compressed into a
+ * single byte array: the adjacencies of every vertex are sorted by target and
+ * stored as a varint count followed, for each adjacency, by the varint gap from
+ * the previous target (the first one relative to the vertex itself, zigzag
+ * encoded) and by its weight, as a double, a float or a 16 bit value quantized
+ * over the weight range; cursors decode the bytes on the fly, so that an
+ * adjacency takes from 3 to 10 bytes instead of the 12 of a compressed sparse
+ * row layout. String labels are kept in a label dictionary and decoded only
+ * when asked for, other labels in an array indexed by an open addressing table
+ * of ids, so that no map entry nor boxed id is stored per vertex
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public class CompressedGraph<V> extends IndexedGraph<V> {
+
+	/**
+	 * Formats in which the weights can be stored
+	 */
+	public enum WeightFormat {
+		/**
+		 * 8 bytes per weight, exact
+		 */
+		DOUBLE,
+		/**
+		 * 4 bytes per weight, rounded to single precision
+		 */
+		FLOAT,
+		/**
+		 * 2 bytes per weight, rounded to one of 65536 evenly spaced values between
+		 * the least and the greatest weight
+		 */
+		QUANTIZED
+	}
+
+	private static final int LEVELS = 0xffff;
+
+	private final Labels labels;
+	private final int[] positions;
+	private final byte[] data;
+	private final long adjacencies;
+	private final boolean oriented;
+	private final WeightFormat format;
+	private final double minWeight;
+	private final double step;
+
+	/**
+	 * Constructor compressing a graph, reading its adjacency lists directly;
+	 * vertex ids follow the order of the graph vertexes
+	 *
+	 * @param g      the graph to compress
+	 * @param format the format of the stored weights
+	 * @throws IllegalArgumentException when the graph or the format, passed as
+	 *                                  params, is null, or when weights to
+	 *                                  quantize are not finite
+	 */
+	public CompressedGraph(Graph<V> g, WeightFormat format) throws IllegalArgumentException {
+		this(g == null ? null : new GraphView<V>(g), format);
+	}
+
+	/**
+	 * Constructor compressing an indexed graph, reading it through a single
+	 * cursor; vertex ids are preserved
+	 *
+	 * @param g      the graph to compress
+	 * @param format the format of the stored weights
+	 * @throws IllegalArgumentException when the graph or the format, passed as
+	 *                                  params, is null, or when weights to
+	 *                                  quantize are not finite
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public CompressedGraph(IndexedGraph<V> g, WeightFormat format) throws IllegalArgumentException {
+		if (g == null || format == null)
+			throw new IllegalArgumentException("Graph and format must be not null");
+		int n = g.vertexCount();
+		if (g instanceof GraphView) {
+			this.labels = ((GraphView) g).labels;
+		} else {
+			this.labels = new Labels(n);
+			for (int v = 0; v < n; v++) {
+				labels.add(g.getLabel(v));
+			}
+		}
+		this.oriented = g.isOriented();
+		this.format = format;
+		this.adjacencies = g.adjacencyCount();
+
+		IndexedGraph.Cursor cursor = g.cursor();
+		double min = 0;
+		double max = 0;
+		if (format == WeightFormat.QUANTIZED) {
+			min = Double.POSITIVE_INFINITY;
+			max = Double.NEGATIVE_INFINITY;
+			for (int v = 0; v < n; v++) {
+				cursor.reset(v);
+				while (cursor.next()) {
+					double weight = cursor.weight();
+					if (Double.isNaN(weight) || Double.isInfinite(weight))
+						throw new IllegalArgumentException("Quantized weights must be finite");
+					min = Math.min(min, weight);
+					max = Math.max(max, weight);
+				}
+			}
+			if (min > max)
+				min = max = 0;
+		}
+		this.minWeight = min;
+		this.step = (max - min) / LEVELS;
+
+		Encoder encoder = new Encoder(adjacencies);
+		this.positions = new int[n + 1];
+		int[] targets = new int[16];
+		double[] weights = new double[16];
+		Integer[] order = new Integer[0];
+		for (int v = 0; v < n; v++) {
+			positions[v] = encoder.size;
+			int degree = g.degree(v);
+			if (degree > targets.length) {
+				targets = new int[Math.max(degree, 2 * targets.length)];
+				weights = new double[targets.length];
+			}
+			cursor.reset(v);
+			int count = 0;
+			boolean sorted = true;
+			while (cursor.next()) {
+				targets[count] = cursor.target();
+				weights[count] = cursor.weight();
+				if (count > 0 && targets[count] < targets[count - 1])
+					sorted = false;
+				count++;
+			}
+			encoder.putVarint(count);
+			if (!sorted) {
+				if (order.length < count)
+					order = new Integer[targets.length];
+				for (int i = 0; i < count; i++) {
+					order[i] = i;
+				}
+				final int[] keys = targets;
+				Arrays.sort(order, 0, count, (a, b) -> Integer.compare(keys[a], keys[b]));
+			}
+			int previous = v;
+			for (int i = 0; i < count; i++) {
+				int k = sorted ? i : order[i];
+				if (i == 0) {
+					int gap = targets[k] - v;
+					encoder.putVarint((gap << 1) ^ (gap >> 31));
+				} else {
+					encoder.putVarint(targets[k] - previous);
+				}
+				previous = targets[k];
+				putWeight(encoder, weights[k]);
+			}
+		}
+		positions[n] = encoder.size;
+		this.data = Arrays.copyOf(encoder.bytes, encoder.size);
+	}
+
+	/**
+	 * Method encoding a weight in the chosen format
+	 *
+	 * @param encoder the encoder receiving the bytes
+	 * @param weight  the weight
+	 */
+	private void putWeight(Encoder encoder, double weight) {
+		switch (format) {
+		case DOUBLE:
+			encoder.putLong(Double.doubleToRawLongBits(weight), 8);
+			break;
+		case FLOAT:
+			encoder.putLong(Float.floatToRawIntBits((float) weight) & 0xffffffffL, 4);
+			break;
+		default:
+			encoder.putLong(step == 0 ? 0 : Math.round((weight - minWeight) / step), 2);
+		}
+	}
+
+	/**
+	 * Method returning the number of vertexes
+	 *
+	 * @return an integer value of the vertexes count
+	 */
+	@Override
+	public int vertexCount() {
+		return labels.size;
+	}
+
+	/**
+	 * Method returning the number of stored adjacencies
+	 *
+	 * @return a long value of the adjacencies count
+	 */
+	@Override
+	public long adjacencyCount() {
+		return adjacencies;
+	}
+
+	/**
+	 * Method telling if the graph is oriented or not
+	 *
+	 * @return true of it is oriented, false if it's not
+	 */
+	@Override
+	public boolean isOriented() {
+		return oriented;
+	}
+
+	/**
+	 * Method returning the label of a vertex
+	 *
+	 * @param v the vertex id
+	 * @return the label of the vertex
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public V getLabel(int v) {
+		return (V) labels.get(v);
+	}
+
+	/**
+	 * Method returning the id of a vertex
+	 *
+	 * @param label the label of the vertex
+	 * @return the vertex id, -1 if the vertex is not contained in the graph
+	 */
+	@Override
+	public int indexOf(V label) {
+		return labels.indexOf(label);
+	}
+
+	/**
+	 * Method returning the number of adjacencies of a vertex, decoding the count
+	 * at the head of its list
+	 *
+	 * @param v the vertex id
+	 * @return an integer value of the vertex out degree
+	 */
+	@Override
+	public int degree(int v) {
+		int position = positions[v];
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			byte b = data[position++];
+			value |= (b & 0x7f) << shift;
+			if (b >= 0)
+				return value;
+		}
+	}
+
+	/**
+	 * Method creating a new cursor decoding the adjacency bytes
+	 *
+	 * @return a new cursor
+	 */
+	@Override
+	public Cursor cursor() {
+		return new CompressedCursor();
+	}
+
+	/**
+	 * Method returning the length of the encoded adjacencies
+	 *
+	 * @return an integer value of the bytes count
+	 */
+	public int encodedSize() {
+		return data.length;
+	}
+
+	/**
+	 * Method returning the format of the stored weights
+	 *
+	 * @return the weight format
+	 */
+	public WeightFormat getWeightFormat() {
+		return format;
+	}
+
+	/**
+	 * Inner class implementing a cursor decoding the adjacencies of a vertex
+	 */
+	protected class CompressedCursor extends Cursor {
+
+		private int position;
+		private int remaining;
+		private boolean first;
+		private int target;
+		private double weight;
+
+		/**
+		 * Method positioning the cursor before the first adjacency of a vertex
+		 *
+		 * @param v the vertex id
+		 */
+		@Override
+		public void reset(int v) {
+			position = positions[v];
+			remaining = readVarint();
+			first = true;
+			target = v;
+		}
+
+		/**
+		 * Method moving the cursor to the next adjacency, decoding it
+		 *
+		 * @return true if there is an adjacency, false if all of them have been
+		 *         enumerated
+		 */
+		@Override
+		public boolean next() {
+			if (remaining == 0)
+				return false;
+			int gap = readVarint();
+			if (first) {
+				// the first target is zigzag encoded relative to the vertex itself
+				target += (gap >>> 1) ^ -(gap & 1);
+				first = false;
+			} else {
+				target += gap;
+			}
+			remaining--;
+			switch (format) {
+			case DOUBLE:
+				weight = Double.longBitsToDouble(readLong(8));
+				break;
+			case FLOAT:
+				weight = Float.intBitsToFloat((int) readLong(4));
+				break;
+			default:
+				weight = minWeight + readLong(2) * step;
+			}
+			return true;
+		}
+
+		/**
+		 * Method returning the vertex id at the end of the current adjacency
+		 *
+		 * @return the adjacent vertex id
+		 */
+		@Override
+		public int target() {
+			return target;
+		}
+
+		/**
+		 * Method returning the cost of the current adjacency
+		 *
+		 * @return a double value for the weight
+		 */
+		@Override
+		public double weight() {
+			return weight;
+		}
+
+		/**
+		 * Method decoding a varint
+		 *
+		 * @return the decoded value
+		 */
+		private int readVarint() {
+			int value = 0;
+			for (int shift = 0;; shift += 7) {
+				byte b = data[position++];
+				value |= (b & 0x7f) << shift;
+				if (b >= 0)
+					return value;
+			}
+		}
+
+		/**
+		 * Method decoding a little endian fixed size value
+		 *
+		 * @param size the number of bytes
+		 * @return the decoded value
+		 */
+		private long readLong(int size) {
+			long value = 0;
+			for (int i = 0; i < size; i++) {
+				value |= (data[position++] & 0xffL) << (8 * i);
+			}
+			return value;
+		}
+
+	}
+
+	/**
+	 * Inner class storing the vertex labels by id: String labels go into a label
+	 * dictionary, until a label of another type switches the store to an array
+	 * of labels found through an open addressing table of ids
+	 */
+	protected static class Labels {
+
+		private LabelDictionary dictionary;
+		private Object[] objects;
+		private int[] table;
+		private final int capacity;
+		private int size;
+
+		/**
+		 * Constructor sizing the store for a given number of labels
+		 *
+		 * @param capacity the number of labels
+		 */
+		protected Labels(int capacity) {
+			this.capacity = capacity;
+			this.dictionary = new LabelDictionary(capacity);
+		}
+
+		/**
+		 * Method appending a label, whose id is the number of labels added before
+		 *
+		 * @param label the label
+		 */
+		protected void add(Object label) {
+			if (dictionary != null) {
+				if (label instanceof String) {
+					dictionary.intern((String) label);
+					size++;
+					return;
+				}
+				// switching to the array, with the labels interned so far
+				objects = new Object[Math.max(capacity, size + 1)];
+				table = new int[Integer.highestOneBit(2 * objects.length - 1) << 1];
+				Arrays.fill(table, -1);
+				int count = size;
+				size = 0;
+				for (int id = 0; id < count; id++) {
+					put(dictionary.get(id));
+				}
+				dictionary = null;
+			}
+			put(label);
+		}
+
+		/**
+		 * Method appending a label to the array
+		 *
+		 * @param label the label
+		 */
+		private void put(Object label) {
+			if (size == objects.length) {
+				objects = Arrays.copyOf(objects, 2 * size);
+				int[] old = table;
+				table = new int[2 * old.length];
+				Arrays.fill(table, -1);
+				for (int id = 0; id < size; id++) {
+					table[slotOf(objects[id])] = id;
+				}
+			}
+			objects[size] = label;
+			table[slotOf(label)] = size;
+			size++;
+		}
+
+		/**
+		 * Method returning the first free slot of the table, or the one holding a
+		 * label
+		 *
+		 * @param label the label
+		 * @return the slot index
+		 */
+		private int slotOf(Object label) {
+			int hash = label == null ? 0 : label.hashCode() * 0x9e3779b9;
+			int mask = table.length - 1;
+			int slot = (hash ^ (hash >>> 16)) & mask;
+			while (table[slot] >= 0 && !equal(objects[table[slot]], label)) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		/**
+		 * Method comparing two labels, either of which may be null
+		 *
+		 * @param a the first label
+		 * @param b the second label
+		 * @return true if the labels are equal, false if they are not
+		 */
+		private static boolean equal(Object a, Object b) {
+			return a == null ? b == null : a.equals(b);
+		}
+
+		/**
+		 * Method returning the label of an id
+		 *
+		 * @param id the label id
+		 * @return the label
+		 */
+		protected Object get(int id) {
+			return dictionary != null ? dictionary.get(id) : objects[id];
+		}
+
+		/**
+		 * Method returning the id of a label
+		 *
+		 * @param label the label
+		 * @return the label id, -1 if the label is not stored
+		 */
+		protected int indexOf(Object label) {
+			if (dictionary != null)
+				return label instanceof String ? dictionary.indexOf((String) label) : -1;
+			return table[slotOf(label)];
+		}
+
+	}
+
+	/**
+	 * Inner class viewing a graph as an indexed one, so that it is compressed
+	 * without building an intermediate layout; every adjacency is resolved
+	 * through the label store, which the compressed graph then keeps
+	 *
+	 * @param <V> type of elements used as identifier for graph vertexes
+	 */
+	protected static class GraphView<V> extends IndexedGraph<V> {
+
+		private final Graph<V> g;
+		private final Labels labels;
+		private final long adjacencies;
+
+		/**
+		 * Constructor assigning the ids in the order of the graph vertexes
+		 *
+		 * @param g the graph
+		 */
+		protected GraphView(Graph<V> g) {
+			this.g = g;
+			LinkedList<V> allVertex = g.getAllVertex();
+			this.labels = new Labels(allVertex.size());
+			long count = 0;
+			for (V v : allVertex) {
+				labels.add(v);
+				count += g.getVertexAdjs(v).size();
+			}
+			this.adjacencies = count;
+		}
+
+		/**
+		 * Method returning the number of vertexes
+		 *
+		 * @return an integer value of the vertexes count
+		 */
+		@Override
+		public int vertexCount() {
+			return labels.size;
+		}
+
+		/**
+		 * Method returning the number of adjacencies
+		 *
+		 * @return a long value of the adjacencies count
+		 */
+		@Override
+		public long adjacencyCount() {
+			return adjacencies;
+		}
+
+		/**
+		 * Method telling if the graph is oriented or not
+		 *
+		 * @return true of it is oriented, false if it's not
+		 */
+		@Override
+		public boolean isOriented() {
+			return g.isOriented();
+		}
+
+		/**
+		 * Method returning the label of a vertex
+		 *
+		 * @param v the vertex id
+		 * @return the label of the vertex
+		 */
+		@SuppressWarnings("unchecked")
+		@Override
+		public V getLabel(int v) {
+			return (V) labels.get(v);
+		}
+
+		/**
+		 * Method returning the id of a vertex
+		 *
+		 * @param label the label of the vertex
+		 * @return the vertex id, -1 if the vertex is not contained in the graph
+		 */
+		@Override
+		public int indexOf(V label) {
+			return labels.indexOf(label);
+		}
+
+		/**
+		 * Method returning the number of adjacencies of a vertex
+		 *
+		 * @param v the vertex id
+		 * @return an integer value of the vertex out degree
+		 */
+		@Override
+		public int degree(int v) {
+			return g.getVertexAdjs(getLabel(v)).size();
+		}
+
+		/**
+		 * Method creating a new cursor over the adjacency lists
+		 *
+		 * @return a new cursor
+		 */
+		@Override
+		public Cursor cursor() {
+			return new GraphCursor();
+		}
+
+		/**
+		 * Inner class implementing a cursor over the adjacency list of a vertex
+		 */
+		protected class GraphCursor extends Cursor {
+
+			private V source;
+			private Iterator<V> adjacents;
+			private int target;
+			private double weight;
+
+			/**
+			 * Method positioning the cursor before the first adjacency of a vertex
+			 *
+			 * @param v the vertex id
+			 */
+			@Override
+			public void reset(int v) {
+				source = getLabel(v);
+				adjacents = g.getVertexAdjs(source).iterator();
+			}
+
+			/**
+			 * Method moving the cursor to the next adjacency, resolving its target
+			 *
+			 * @return true if there is an adjacency, false if all of them have been
+			 *         enumerated
+			 */
+			@Override
+			public boolean next() {
+				if (!adjacents.hasNext())
+					return false;
+				V adjacent = adjacents.next();
+				target = labels.indexOf(adjacent);
+				weight = g.getEdgeWeight(source, adjacent);
+				return true;
+			}
+
+			/**
+			 * Method returning the vertex id at the end of the current adjacency
+			 *
+			 * @return the adjacent vertex id
+			 */
+			@Override
+			public int target() {
+				return target;
+			}
+
+			/**
+			 * Method returning the cost of the current adjacency
+			 *
+			 * @return a double value for the weight
+			 */
+			@Override
+			public double weight() {
+				return weight;
+			}
+
+		}
+
+	}
+
+	/**
+	 * Inner class accumulating encoded bytes in a growing array
+	 */
+	protected static class Encoder {
+
+		private byte[] bytes;
+		private int size;
+
+		/**
+		 * Constructor sizing the array for an expected number of adjacencies
+		 *
+		 * @param adjacencies the expected number of adjacencies
+		 */
+		public Encoder(long adjacencies) {
+			bytes = new byte[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(16, 4 * adjacencies))];
+		}
+
+		/**
+		 * Method appending a varint, 7 bits per byte with the high bit telling
+		 * that more bytes follow
+		 *
+		 * @param value the value, read as unsigned
+		 */
+		public void putVarint(int value) {
+			ensure(5);
+			while ((value & ~0x7f) != 0) {
+				bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			bytes[size++] = (byte) value;
+		}
+
+		/**
+		 * Method appending the low bytes of a value in little endian order
+		 *
+		 * @param value the value
+		 * @param count the number of bytes
+		 */
+		public void putLong(long value, int count) {
+			ensure(count);
+			for (int i = 0; i < count; i++) {
+				bytes[size++] = (byte) (value >>> (8 * i));
+			}
+		}
+
+		/**
+		 * Method growing the array if it has not enough room left
+		 *
+		 * @param count the number of bytes about to be appended
+		 * @throws IllegalArgumentException if the encoded graph exceeds the
+		 *                                  greatest array size
+		 */
+		private void ensure(int count) throws IllegalArgumentException {
+			if (size + count > bytes.length) {
+				long capacity = Math.min(Integer.MAX_VALUE - 8, 2L * bytes.length);
+				if (size + count > capacity)
+					throw new IllegalArgumentException("Graph too large to be compressed in a single array");
+				bytes = Arrays.copyOf(bytes, (int) capacity);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,94 @@
+package graphs.secondversion;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Class implementing a disjoint-set (union-find) data structure over integer
+ * elements that can be updated by many threads at once without locks: roots
+ * are linked with compare-and-set, always the greater id under the smaller one
+ * so that no cycle can form, and paths are halved with compare-and-set too
+ */
+public class ConcurrentUnionFind {
+
+	private final AtomicIntegerArray parent;
+
+	/**
+	 * Constructor for a structure of singleton sets
+	 *
+	 * @param n the number of elements, identified by 0..n-1
+	 */
+	public ConcurrentUnionFind(int n) {
+		this.parent = new AtomicIntegerArray(n);
+		for (int i = 0; i < n; i++) {
+			parent.set(i, i);
+		}
+	}
+
+	/**
+	 * Method finding the representative of the set containing an element; while
+	 * other threads are merging sets, the result may stop being the
+	 * representative right after it is returned
+	 *
+	 * @param x the element
+	 * @return the representative element of its set
+	 */
+	public int find(int x) {
+		while (true) {
+			int p = parent.get(x);
+			if (p == x)
+				return x;
+			int grandparent = parent.get(p);
+			if (p != grandparent)
+				parent.compareAndSet(x, p, grandparent);
+			x = p;
+		}
+	}
+
+	/**
+	 * Method merging the sets containing two elements
+	 *
+	 * @param x the first element
+	 * @param y the second element
+	 * @return true if this call merged two distinct sets, false if they were
+	 *         already the same set
+	 */
+	public boolean union(int x, int y) {
+		while (true) {
+			int rx = find(x);
+			int ry = find(y);
+			if (rx == ry)
+				return false;
+			if (rx < ry) {
+				int temp = rx;
+				rx = ry;
+				ry = temp;
+			}
+			// linking the greater root under the smaller one, retrying if it is no
+			// longer a root
+			if (parent.compareAndSet(rx, rx, ry))
+				return true;
+		}
+	}
+
+	/**
+	 * Method telling if two elements belong to the same set, to be called when no
+	 * thread is merging sets
+	 *
+	 * @param x the first element
+	 * @param y the second element
+	 * @return true if they are in the same set, false if they are not
+	 */
+	public boolean connected(int x, int y) {
+		return find(x) == find(y);
+	}
+
+	/**
+	 * Method returning the number of elements
+	 *
+	 * @return an integer value of the elements count
+	 */
+	public int size() {
+		return parent.length();
+	}
+
+}
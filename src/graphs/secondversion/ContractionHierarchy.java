@@ -0,0 +1,842 @@
+package graphs.secondversion;
+
+import priorityqueue.source.PriorityQueue;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Class implementing a contraction hierarchy for fast point to point shortest
+ * path queries on a static graph: vertexes are contracted one at a time in
+ * order of importance, adding a shortcut between two neighbours whenever the
+ * contracted vertex lies on their only shortest path, so that every query can
+ * be answered by two searches climbing only towards more important vertexes;
+ * the hierarchy can be saved and loaded back, and it can be queried by many
+ * threads at once
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public class ContractionHierarchy<V> {
+
+	private static final int MAGIC = 0x43484731;
+	private static final int WITNESS_SETTLE_LIMIT = 100;
+
+	private final Object[] labels;
+	private final HashMap<V, Integer> ids;
+	private final boolean oriented;
+	private final int[] rank;
+	private final UpwardGraph forwardUp;
+	private final UpwardGraph backwardUp;
+	private final Comparator<Double> comparator;
+	private final ThreadLocal<Query> queries;
+
+	/**
+	 * Constructor running the preprocessing of a graph
+	 *
+	 * @param g          the used graph
+	 * @param comparator a comparator that implements the priority precedence
+	 *                   relation between vertexes
+	 * @throws IllegalArgumentException      when the graph, passed as param, is
+	 *                                       null
+	 * @throws UnsupportedOperationException if the graph contains negative
+	 *                                       weights
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public ContractionHierarchy(IndexedGraph<V> g, Comparator comparator)
+			throws IllegalArgumentException, UnsupportedOperationException {
+		if (g == null)
+			throw new IllegalArgumentException("Graph must be not null");
+		int n = g.vertexCount();
+		this.labels = new Object[n];
+		this.ids = new HashMap(2 * n);
+		for (int v = 0; v < n; v++) {
+			labels[v] = g.getLabel(v);
+			ids.put(g.getLabel(v), v);
+		}
+		this.oriented = g.isOriented();
+		this.comparator = comparator;
+		this.queries = ThreadLocal.withInitial(() -> new Query());
+		this.rank = new int[n];
+		Contraction contraction = new Contraction(g);
+		contraction.run();
+		this.forwardUp = contraction.upward(true);
+		this.backwardUp = contraction.upward(false);
+	}
+
+	/**
+	 * Constructor for a hierarchy read back from a stream
+	 *
+	 * @param labels     the vertex labels, indexed by vertex id
+	 * @param oriented   the graph orientation
+	 * @param rank       the contraction order of every vertex
+	 * @param forwardUp  the upward arcs of the forward search
+	 * @param backwardUp the upward arcs of the backward search
+	 * @param comparator a comparator that implements the priority precedence
+	 *                   relation between vertexes
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private ContractionHierarchy(Object[] labels, boolean oriented, int[] rank, UpwardGraph forwardUp,
+			UpwardGraph backwardUp, Comparator comparator) {
+		this.labels = labels;
+		this.ids = new HashMap(2 * labels.length);
+		for (int v = 0; v < labels.length; v++) {
+			ids.put((V) labels[v], v);
+		}
+		this.oriented = oriented;
+		this.rank = rank;
+		this.forwardUp = forwardUp;
+		this.backwardUp = backwardUp;
+		this.comparator = comparator;
+		this.queries = ThreadLocal.withInitial(() -> new Query());
+	}
+
+	/**
+	 * Method computing the shortest distance between two vertexes
+	 *
+	 * @param source the label of the source vertex
+	 * @param target the label of the target vertex
+	 * @return a double value for the distance, positive infinity if the target is
+	 *         not reachable
+	 * @throws NoSuchElementException if the source or the target vertex is not
+	 *                                contained in the graph
+	 */
+	public double distance(V source, V target) throws NoSuchElementException {
+		return queries.get().run(idOf(source), idOf(target));
+	}
+
+	/**
+	 * Method computing the shortest path between two vertexes, expanding the
+	 * shortcuts it contains
+	 *
+	 * @param source the label of the source vertex
+	 * @param target the label of the target vertex
+	 * @return the shortest path from the source to the target
+	 * @throws NoSuchElementException if the source or the target vertex is not
+	 *                                contained in the graph
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Path<V> path(V source, V target) throws NoSuchElementException {
+		Query query = queries.get();
+		double distance = query.run(idOf(source), idOf(target));
+		LinkedList<V> vertexes = new LinkedList();
+		if (query.meeting >= 0) {
+			LinkedList<Integer> ids = new LinkedList();
+			ids.add(query.meeting);
+			for (int v = query.meeting; v != query.source; v = query.forwardParent[v]) {
+				unpack(query.forwardParent[v], v, query.forwardMiddle[v], ids, true);
+			}
+			for (int v = query.meeting; v != query.target; v = query.backwardParent[v]) {
+				unpack(v, query.backwardParent[v], query.backwardMiddle[v], ids, false);
+			}
+			for (int v : ids) {
+				vertexes.add((V) labels[v]);
+			}
+		}
+		return new Path(vertexes, distance, query.settled);
+	}
+
+	/**
+	 * Method returning the number of vertexes of the hierarchy
+	 *
+	 * @return an integer value of the vertexes count
+	 */
+	public int vertexCount() {
+		return labels.length;
+	}
+
+	/**
+	 * Method returning the number of upward arcs, original and shortcut ones, used
+	 * by the searches
+	 *
+	 * @return an integer value of the arcs count
+	 */
+	public int arcCount() {
+		return forwardUp.targets.length + (oriented ? backwardUp.targets.length : 0);
+	}
+
+	/**
+	 * Method returning the contraction order of a vertex
+	 *
+	 * @param vertex the label of the vertex
+	 * @return an integer value, greater for more important vertexes
+	 * @throws NoSuchElementException if the vertex is not contained in the graph
+	 */
+	public int getRank(V vertex) throws NoSuchElementException {
+		return rank[idOf(vertex)];
+	}
+
+	/**
+	 * Method writing the hierarchy to a stream, vertex labels being stored as
+	 * their string representation
+	 *
+	 * @param out the stream to write
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void save(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeBoolean(oriented);
+		data.writeInt(labels.length);
+		for (Object label : labels) {
+			data.writeUTF(label.toString());
+		}
+		for (int r : rank) {
+			data.writeInt(r);
+		}
+		forwardUp.save(data);
+		backwardUp.save(data);
+		data.flush();
+	}
+
+	/**
+	 * Method reading a hierarchy written by save
+	 *
+	 * @param in         the stream to read
+	 * @param comparator a comparator that implements the priority precedence
+	 *                   relation between vertexes
+	 * @return the hierarchy, labelled by strings
+	 * @throws IOException if the stream cannot be read or it does not contain a
+	 *                     hierarchy
+	 */
+	@SuppressWarnings("rawtypes")
+	public static ContractionHierarchy<String> load(InputStream in, Comparator comparator) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != MAGIC)
+			throw new IOException("Stream does not contain a contraction hierarchy");
+		boolean oriented = data.readBoolean();
+		int n = data.readInt();
+		String[] labels = new String[n];
+		for (int v = 0; v < n; v++) {
+			labels[v] = data.readUTF();
+		}
+		int[] rank = new int[n];
+		for (int v = 0; v < n; v++) {
+			rank[v] = data.readInt();
+		}
+		UpwardGraph forwardUp = UpwardGraph.load(data, n);
+		UpwardGraph backwardUp = UpwardGraph.load(data, n);
+		return new ContractionHierarchy<String>(labels, oriented, rank, forwardUp, backwardUp, comparator);
+	}
+
+	/**
+	 * Method returning the forward upward arcs, for the algorithms built on the
+	 * hierarchy
+	 *
+	 * @return the upward graph of the forward searches
+	 */
+	UpwardGraph getForwardUp() {
+		return forwardUp;
+	}
+
+	/**
+	 * Method returning the backward upward arcs, for the algorithms built on the
+	 * hierarchy
+	 *
+	 * @return the upward graph of the backward searches
+	 */
+	UpwardGraph getBackwardUp() {
+		return backwardUp;
+	}
+
+	/**
+	 * Method returning the comparator of the search queues
+	 *
+	 * @return the comparator
+	 */
+	Comparator<Double> getComparator() {
+		return comparator;
+	}
+
+	/**
+	 * Method returning the id of a vertex
+	 *
+	 * @param vertex the label of the vertex
+	 * @return the vertex id
+	 * @throws NoSuchElementException if the vertex is not contained in the graph
+	 */
+	protected int idOf(V vertex) throws NoSuchElementException {
+		Integer id = ids.get(vertex);
+		if (id == null)
+			throw new NoSuchElementException("Vertex " + vertex + " not found in hierarchy");
+		return id;
+	}
+
+	/**
+	 * Method replacing an arc with the original edges it stands for, appending
+	 * them (forward) or prepending them (backward) to a path; shortcuts are
+	 * expanded with an explicit stack
+	 *
+	 * @param from    the starting vertex id of the arc
+	 * @param to      the ending vertex id of the arc
+	 * @param middle  the vertex contracted by the arc, -1 for an original edge
+	 * @param path    the path being built, which already contains the arc end
+	 *                nearest to the meeting vertex
+	 * @param prepend true to add the vertexes before the path head, false to add
+	 *                them after its tail
+	 */
+	private void unpack(int from, int to, int middle, LinkedList<Integer> path, boolean prepend) {
+		LinkedList<int[]> stack = new LinkedList<int[]>();
+		LinkedList<Integer> expanded = new LinkedList<Integer>();
+		stack.push(new int[] { from, to, middle });
+		// expanding left to right, collecting every vertex but the last one
+		while (!stack.isEmpty()) {
+			int[] arc = stack.pop();
+			if (arc[2] < 0) {
+				expanded.add(arc[0]);
+			} else {
+				int m = arc[2];
+				stack.push(new int[] { m, arc[1], forwardUp.middleOf(m, arc[1]) });
+				stack.push(new int[] { arc[0], m, backwardUp.middleOf(m, arc[0]) });
+			}
+		}
+		expanded.add(to);
+		if (prepend) {
+			expanded.removeLast();
+			while (!expanded.isEmpty()) {
+				path.addFirst(expanded.removeLast());
+			}
+		} else {
+			expanded.removeFirst();
+			path.addAll(expanded);
+		}
+	}
+
+	/**
+	 * Inner class holding the upward arcs of every vertex in compressed sparse row
+	 * layout
+	 */
+	static class UpwardGraph {
+
+		private final int[] offsets;
+		private final int[] targets;
+		private final double[] weights;
+		private final int[] middles;
+
+		/**
+		 * Constructor accepting the arrays of the layout
+		 *
+		 * @param offsets the first arc position of every vertex, followed by the
+		 *                total number of arcs
+		 * @param targets the vertex id reached by every arc
+		 * @param weights the cost of every arc
+		 * @param middles the vertex contracted by every arc, -1 for original edges
+		 */
+		UpwardGraph(int[] offsets, int[] targets, double[] weights, int[] middles) {
+			this.offsets = offsets;
+			this.targets = targets;
+			this.weights = weights;
+			this.middles = middles;
+		}
+
+		/**
+		 * Method returning the position of the first arc of a vertex
+		 *
+		 * @param v the vertex id
+		 * @return the first arc position
+		 */
+		int first(int v) {
+			return offsets[v];
+		}
+
+		/**
+		 * Method returning the position following the last arc of a vertex
+		 *
+		 * @param v the vertex id
+		 * @return the position after the last arc
+		 */
+		int end(int v) {
+			return offsets[v + 1];
+		}
+
+		/**
+		 * Method returning the vertex reached by an arc
+		 *
+		 * @param e the arc position
+		 * @return the vertex id
+		 */
+		int target(int e) {
+			return targets[e];
+		}
+
+		/**
+		 * Method returning the cost of an arc
+		 *
+		 * @param e the arc position
+		 * @return a double value for the weight
+		 */
+		double weight(int e) {
+			return weights[e];
+		}
+
+		/**
+		 * Method returning the vertex contracted by an arc
+		 *
+		 * @param e the arc position
+		 * @return the vertex id, -1 for an original edge
+		 */
+		int middle(int e) {
+			return middles[e];
+		}
+
+		/**
+		 * Method returning the vertex contracted by the arc between a vertex and
+		 * one of its upward neighbours
+		 *
+		 * @param v      the lower vertex id
+		 * @param target the upper vertex id
+		 * @return the vertex id, -1 for an original edge
+		 * @throws NoSuchElementException if the arc does not exist
+		 */
+		int middleOf(int v, int target) throws NoSuchElementException {
+			for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+				if (targets[e] == target)
+					return middles[e];
+			}
+			throw new NoSuchElementException("Arc not found in hierarchy");
+		}
+
+		/**
+		 * Method writing the arcs to a stream
+		 *
+		 * @param data the stream to write
+		 * @throws IOException if the stream cannot be written
+		 */
+		void save(DataOutputStream data) throws IOException {
+			for (int offset : offsets) {
+				data.writeInt(offset);
+			}
+			for (int e = 0; e < targets.length; e++) {
+				data.writeInt(targets[e]);
+				data.writeDouble(weights[e]);
+				data.writeInt(middles[e]);
+			}
+		}
+
+		/**
+		 * Method reading arcs written by save
+		 *
+		 * @param data the stream to read
+		 * @param n    the number of vertexes
+		 * @return the read arcs
+		 * @throws IOException if the stream cannot be read
+		 */
+		static UpwardGraph load(DataInputStream data, int n) throws IOException {
+			int[] offsets = new int[n + 1];
+			for (int v = 0; v <= n; v++) {
+				offsets[v] = data.readInt();
+			}
+			int m = offsets[n];
+			int[] targets = new int[m];
+			double[] weights = new double[m];
+			int[] middles = new int[m];
+			for (int e = 0; e < m; e++) {
+				targets[e] = data.readInt();
+				weights[e] = data.readDouble();
+				middles[e] = data.readInt();
+			}
+			return new UpwardGraph(offsets, targets, weights, middles);
+		}
+
+	}
+
+	/**
+	 * Inner class representing an arc of the graph being contracted
+	 */
+	protected static class Arc {
+
+		private final double weight;
+		private final int middle;
+
+		/**
+		 * Constructor accepting the arc cost and the vertex it bypasses
+		 *
+		 * @param weight the cost of the arc
+		 * @param middle the contracted vertex, -1 for an original edge
+		 */
+		public Arc(double weight, int middle) {
+			this.weight = weight;
+			this.middle = middle;
+		}
+
+	}
+
+	/**
+	 * Inner class holding the state of the preprocessing: the remaining graph,
+	 * kept as outgoing and incoming arc maps of every vertex, and the importance
+	 * queue
+	 */
+	protected class Contraction {
+
+		private final HashMap<Integer, Arc>[] out;
+		private final HashMap<Integer, Arc>[] in;
+		private final HashMap<Integer, Arc>[] upOut;
+		private final HashMap<Integer, Arc>[] upIn;
+		private final int[] contractedNeighbours;
+		private final PriorityQueue<Integer, Double> witnessQueue;
+		private final ArrayList<int[]> pending;
+		private final double[] witnessDistance;
+		private final int[] witnessReached;
+		private int witnessStamp;
+
+		/**
+		 * Constructor copying the graph arcs, keeping the cheapest one between
+		 * every pair of vertexes
+		 *
+		 * @param g the used graph
+		 * @throws UnsupportedOperationException if the graph contains negative
+		 *                                       weights
+		 */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		public Contraction(IndexedGraph<V> g) throws UnsupportedOperationException {
+			int n = g.vertexCount();
+			out = new HashMap[n];
+			in = new HashMap[n];
+			upOut = new HashMap[n];
+			upIn = new HashMap[n];
+			for (int v = 0; v < n; v++) {
+				out[v] = new HashMap();
+				in[v] = new HashMap();
+			}
+			contractedNeighbours = new int[n];
+			witnessQueue = new PriorityQueue(comparator);
+			pending = new ArrayList<int[]>();
+			witnessDistance = new double[n];
+			witnessReached = new int[n];
+			IndexedGraph.Cursor cursor = g.cursor();
+			for (int v = 0; v < n; v++) {
+				cursor.reset(v);
+				while (cursor.next()) {
+					int w = cursor.target();
+					double weight = cursor.weight();
+					if (weight < 0)
+						throw new UnsupportedOperationException("Contraction hierarchies only work with non negative weights");
+					if (w != v)
+						addArc(v, w, new Arc(weight, -1));
+				}
+			}
+		}
+
+		/**
+		 * Method contracting every vertex in order of importance; the importance of
+		 * the queue head is recomputed before contracting it, and the vertex is put
+		 * back in place when it is no longer the least important one
+		 */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		public void run() {
+			int n = out.length;
+			if (n == 0)
+				return;
+			ArrayList<Integer> vertexes = new ArrayList();
+			ArrayList<Double> priorities = new ArrayList();
+			for (int v = 0; v < n; v++) {
+				vertexes.add(v);
+				priorities.add(importance(v));
+			}
+			PriorityQueue<Integer, Double> queue = new PriorityQueue(vertexes, priorities, comparator);
+			int order = 0;
+			while (!queue.isEmpty()) {
+				int v = queue.peek();
+				double priority = importance(v);
+				if (priority != queue.peekPriority()) {
+					queue.updatePriority(v, priority);
+					if (queue.peek() != v)
+						continue;
+				}
+				queue.extractRec();
+				contract(v);
+				rank[v] = order++;
+				upOut[v] = out[v];
+				upIn[v] = in[v];
+				for (int w : upOut[v].keySet()) {
+					contractedNeighbours[w]++;
+				}
+				for (int u : upIn[v].keySet()) {
+					contractedNeighbours[u]++;
+				}
+			}
+		}
+
+		/**
+		 * Method building the upward arcs of one of the two searches
+		 *
+		 * @param forward true for the arcs leaving every vertex, false for the arcs
+		 *                reaching it
+		 * @return the upward graph
+		 */
+		public UpwardGraph upward(boolean forward) {
+			int n = out.length;
+			int[] offsets = new int[n + 1];
+			for (int v = 0; v < n; v++) {
+				offsets[v + 1] = offsets[v] + (forward ? upOut[v] : upIn[v]).size();
+			}
+			int[] targets = new int[offsets[n]];
+			double[] weights = new double[offsets[n]];
+			int[] middles = new int[offsets[n]];
+			for (int v = 0; v < n; v++) {
+				int e = offsets[v];
+				for (Map.Entry<Integer, Arc> entry : (forward ? upOut[v] : upIn[v]).entrySet()) {
+					targets[e] = entry.getKey();
+					weights[e] = entry.getValue().weight;
+					middles[e] = entry.getValue().middle;
+					e++;
+				}
+			}
+			return new UpwardGraph(offsets, targets, weights, middles);
+		}
+
+		/**
+		 * Method computing the importance of a vertex as its edge difference (the
+		 * shortcuts its contraction would add minus the arcs it would remove) plus
+		 * the number of its already contracted neighbours; the needed shortcuts are
+		 * kept, so that contracting the vertex right after does not repeat the
+		 * witness searches
+		 *
+		 * @param v the vertex id
+		 * @return a double value, lower for vertexes to contract first
+		 */
+		private double importance(int v) {
+			pending.clear();
+			for (Map.Entry<Integer, Arc> incoming : in[v].entrySet()) {
+				shortcutsFrom(v, incoming.getKey(), incoming.getValue().weight);
+			}
+			return pending.size() - in[v].size() - out[v].size() + contractedNeighbours[v];
+		}
+
+		/**
+		 * Method removing a vertex from the remaining graph, adding the shortcuts
+		 * found by the last importance computation, which must concern the same
+		 * vertex
+		 *
+		 * @param v the vertex id
+		 */
+		private void contract(int v) {
+			for (int[] shortcut : pending) {
+				int u = shortcut[0];
+				int w = shortcut[1];
+				addArc(u, w, new Arc(in[v].get(u).weight + out[v].get(w).weight, v));
+			}
+			for (int w : out[v].keySet()) {
+				in[w].remove(v);
+			}
+			for (int u : in[v].keySet()) {
+				out[u].remove(v);
+			}
+		}
+
+		/**
+		 * Method finding the shortcuts needed from an incoming neighbour of a
+		 * vertex, running a bounded witness search that avoids the vertex, and
+		 * adding them to the pending ones
+		 *
+		 * @param v      the vertex id being contracted
+		 * @param u      the incoming neighbour id
+		 * @param weight the cost of the arc from u to v
+		 */
+		private void shortcutsFrom(int v, int u, double weight) {
+			double limit = 0;
+			for (Arc outgoing : out[v].values()) {
+				limit = Math.max(limit, weight + outgoing.weight);
+			}
+			witnessSearch(u, v, limit);
+			for (Map.Entry<Integer, Arc> outgoing : out[v].entrySet()) {
+				int w = outgoing.getKey();
+				if (w == u)
+					continue;
+				double via = weight + outgoing.getValue().weight;
+				if (witnessReached[w] != witnessStamp || witnessDistance[w] > via) {
+					pending.add(new int[] { u, w });
+				}
+			}
+		}
+
+		/**
+		 * Method running a Dijkstra search on the remaining graph from a vertex,
+		 * avoiding the vertex being contracted and stopping at a distance or
+		 * settled vertexes limit, or once the targets are settled; the tentative
+		 * distances are left in the witness arrays, stamped with the search number
+		 *
+		 * @param source   the starting vertex id
+		 * @param excluded the vertex id being contracted
+		 * @param limit    the greatest distance of interest
+		 */
+		private void witnessSearch(int source, int excluded, double limit) {
+			witnessStamp++;
+			int targets = out[excluded].size();
+			int settled = 0;
+			witnessQueue.clear();
+			reachWitness(source, 0);
+			while (!witnessQueue.isEmpty() && settled < WITNESS_SETTLE_LIMIT && targets > 0) {
+				int actual = witnessQueue.extractRec();
+				double distance = witnessDistance[actual];
+				settled++;
+				if (distance > limit)
+					break;
+				if (out[excluded].containsKey(actual))
+					targets--;
+				for (Map.Entry<Integer, Arc> entry : out[actual].entrySet()) {
+					int w = entry.getKey();
+					if (w != excluded)
+						reachWitness(w, distance + entry.getValue().weight);
+				}
+			}
+		}
+
+		/**
+		 * Method lowering the tentative distance of a vertex in the witness search
+		 *
+		 * @param v        the vertex id
+		 * @param distance the candidate distance
+		 */
+		private void reachWitness(int v, double distance) {
+			if (witnessReached[v] != witnessStamp) {
+				witnessReached[v] = witnessStamp;
+				witnessDistance[v] = distance;
+				witnessQueue.insert(v, distance);
+			} else if (distance < witnessDistance[v] && witnessQueue.contains(v)) {
+				witnessDistance[v] = distance;
+				witnessQueue.updatePriority(v, distance);
+			}
+		}
+
+		/**
+		 * Method adding an arc to the remaining graph, unless a cheaper one between
+		 * the same vertexes exists
+		 *
+		 * @param u   the starting vertex id
+		 * @param w   the ending vertex id
+		 * @param arc the arc
+		 */
+		private void addArc(int u, int w, Arc arc) {
+			Arc known = out[u].get(w);
+			if (known == null || arc.weight < known.weight) {
+				out[u].put(w, arc);
+				in[w].put(u, arc);
+			}
+		}
+
+	}
+
+	/**
+	 * Inner class holding the scratch structures of a query, reused by the
+	 * queries of the same thread; per vertex values are valid only when their
+	 * stamp matches the current query
+	 */
+	protected class Query {
+
+		private final double[] forwardDistance;
+		private final double[] backwardDistance;
+		private final int[] forwardParent;
+		private final int[] backwardParent;
+		private final int[] forwardMiddle;
+		private final int[] backwardMiddle;
+		private final int[] forwardStamp;
+		private final int[] backwardStamp;
+		private final PriorityQueue<Integer, Double> forwardQueue;
+		private final PriorityQueue<Integer, Double> backwardQueue;
+		private int stamp;
+		private int source;
+		private int target;
+		private int meeting;
+		private int settled;
+
+		/**
+		 * Simple constructor
+		 */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		public Query() {
+			int n = labels.length;
+			forwardDistance = new double[n];
+			backwardDistance = new double[n];
+			forwardParent = new int[n];
+			backwardParent = new int[n];
+			forwardMiddle = new int[n];
+			backwardMiddle = new int[n];
+			forwardStamp = new int[n];
+			backwardStamp = new int[n];
+			forwardQueue = new PriorityQueue(comparator);
+			backwardQueue = new PriorityQueue(comparator);
+		}
+
+		/**
+		 * Method running the two upward searches
+		 *
+		 * @param source the source vertex id
+		 * @param target the target vertex id
+		 * @return a double value for the distance, positive infinity if the target
+		 *         is not reachable
+		 */
+		public double run(int source, int target) {
+			this.source = source;
+			this.target = target;
+			stamp++;
+			forwardQueue.clear();
+			backwardQueue.clear();
+			reach(true, source, 0, -1, -1);
+			reach(false, target, 0, -1, -1);
+			double best = Double.POSITIVE_INFINITY;
+			meeting = -1;
+			settled = 0;
+			while (true) {
+				boolean forwardActive = !forwardQueue.isEmpty() && forwardQueue.peekPriority() < best;
+				boolean backwardActive = !backwardQueue.isEmpty() && backwardQueue.peekPriority() < best;
+				if (!forwardActive && !backwardActive)
+					break;
+				boolean forward = forwardActive
+						&& (!backwardActive || forwardQueue.peekPriority() <= backwardQueue.peekPriority());
+				int v = (forward ? forwardQueue : backwardQueue).extractRec();
+				settled++;
+				double distance = forward ? forwardDistance[v] : backwardDistance[v];
+				boolean otherReached = forward ? backwardStamp[v] == stamp : forwardStamp[v] == stamp;
+				if (otherReached) {
+					double total = distance + (forward ? backwardDistance[v] : forwardDistance[v]);
+					if (total < best) {
+						best = total;
+						meeting = v;
+					}
+				}
+				UpwardGraph up = forward ? forwardUp : backwardUp;
+				for (int e = up.first(v); e < up.end(v); e++) {
+					reach(forward, up.target(e), distance + up.weight(e), v, up.middle(e));
+				}
+			}
+			return best;
+		}
+
+		/**
+		 * Method lowering the tentative distance of a vertex in one of the searches
+		 *
+		 * @param forward  true for the forward search, false for the backward one
+		 * @param v        the vertex id
+		 * @param distance the candidate distance
+		 * @param parent   the vertex id the arc comes from
+		 * @param middle   the vertex contracted by the arc
+		 */
+		private void reach(boolean forward, int v, double distance, int parent, int middle) {
+			int[] stamps = forward ? forwardStamp : backwardStamp;
+			double[] distances = forward ? forwardDistance : backwardDistance;
+			PriorityQueue<Integer, Double> queue = forward ? forwardQueue : backwardQueue;
+			if (stamps[v] != stamp) {
+				stamps[v] = stamp;
+				distances[v] = distance;
+				queue.insert(v, distance);
+			} else if (distance < distances[v] && queue.contains(v)) {
+				distances[v] = distance;
+				queue.updatePriority(v, distance);
+			} else {
+				return;
+			}
+			(forward ? forwardParent : backwardParent)[v] = parent;
+			(forward ? forwardMiddle : backwardMiddle)[v] = middle;
+		}
+
+	}
+
+}
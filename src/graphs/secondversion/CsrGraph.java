@@ -0,0 +1,297 @@
+package graphs.secondversion;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+/**
+ * Class implementing an indexed graph in compressed sparse row layout: the
+ * adjacencies of vertex v are stored in positions offsets[v]..offsets[v+1]-1
+ * of the targets and weights arrays
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public class CsrGraph<V> extends IndexedGraph<V> {
+
+	private final Object[] labels;
+	private final HashMap<V, Integer> ids;
+	private final int[] offsets;
+	private final int[] targets;
+	private final double[] weights;
+	private final boolean oriented;
+
+	/**
+	 * Constructor building the compressed layout of a graph
+	 *
+	 * @param g the graph to index
+	 * @throws IllegalArgumentException when the graph, passed as param, is null
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public CsrGraph(Graph<V> g) throws IllegalArgumentException {
+		if (g == null)
+			throw new IllegalArgumentException("Graph must be not null");
+		LinkedList<V> allVertex = g.getAllVertex();
+		int n = allVertex.size();
+		this.labels = new Object[n];
+		this.ids = new HashMap(2 * n);
+		this.offsets = new int[n + 1];
+		this.oriented = g.isOriented();
+		int i = 0;
+		for (V v : allVertex) {
+			labels[i] = v;
+			ids.put(v, i++);
+		}
+		int count = 0;
+		for (i = 0; i < n; i++) {
+			offsets[i] = count;
+			count += g.getVertexAdjs((V) labels[i]).size();
+		}
+		offsets[n] = count;
+		this.targets = new int[count];
+		this.weights = new double[count];
+		for (i = 0; i < n; i++) {
+			int e = offsets[i];
+			for (V adiacent : g.getVertexAdjs((V) labels[i])) {
+				targets[e] = ids.get(adiacent);
+				weights[e] = g.getEdgeWeight((V) labels[i], adiacent);
+				e++;
+			}
+		}
+	}
+
+	/**
+	 * Constructor accepting an already built compressed layout, whose arrays are
+	 * not copied
+	 *
+	 * @param labels   the vertex labels, indexed by vertex id
+	 * @param offsets  the first adjacency position of every vertex, followed by
+	 *                 the total number of adjacencies
+	 * @param targets  the adjacent vertex id of every adjacency
+	 * @param weights  the cost of every adjacency
+	 * @param oriented boolean value specifying the graph orientation: true if
+	 *                 oriented, false if not
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public CsrGraph(V[] labels, int[] offsets, int[] targets, double[] weights, boolean oriented) {
+		this.labels = labels;
+		this.ids = new HashMap(2 * labels.length);
+		for (int i = 0; i < labels.length; i++) {
+			ids.put(labels[i], i);
+		}
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.oriented = oriented;
+	}
+
+	/**
+	 * Method building the transpose of a graph, where every adjacency is reversed;
+	 * vertex ids are preserved
+	 *
+	 * @param   <V> type of elements used as identifier for graph vertexes
+	 * @param g the graph to transpose
+	 * @return the transposed graph in compressed layout
+	 * @throws IllegalArgumentException when the graph, passed as param, is null
+	 */
+	@SuppressWarnings("unchecked")
+	public static <V> CsrGraph<V> transpose(IndexedGraph<V> g) throws IllegalArgumentException {
+		if (g == null)
+			throw new IllegalArgumentException("Graph must be not null");
+		int n = g.vertexCount();
+		int[] offsets = new int[n + 1];
+		IndexedGraph.Cursor cursor = g.cursor();
+		for (int v = 0; v < n; v++) {
+			cursor.reset(v);
+			while (cursor.next()) {
+				offsets[cursor.target() + 1]++;
+			}
+		}
+		for (int v = 0; v < n; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+		int[] fill = Arrays.copyOf(offsets, n);
+		int[] targets = new int[offsets[n]];
+		double[] weights = new double[offsets[n]];
+		for (int v = 0; v < n; v++) {
+			cursor.reset(v);
+			while (cursor.next()) {
+				int e = fill[cursor.target()]++;
+				targets[e] = v;
+				weights[e] = cursor.weight();
+			}
+		}
+		Object[] labels = new Object[n];
+		for (int v = 0; v < n; v++) {
+			labels[v] = g.getLabel(v);
+		}
+		return new CsrGraph<V>((V[]) labels, offsets, targets, weights, g.isOriented());
+	}
+
+	/**
+	 * Method returning the number of vertexes
+	 *
+	 * @return an integer value of the vertexes count
+	 */
+	@Override
+	public int vertexCount() {
+		return labels.length;
+	}
+
+	/**
+	 * Method returning the number of stored adjacencies
+	 *
+	 * @return a long value of the adjacencies count
+	 */
+	@Override
+	public long adjacencyCount() {
+		return offsets[labels.length];
+	}
+
+	/**
+	 * Method telling if the graph is oriented or not
+	 *
+	 * @return true of it is oriented, false if it's not
+	 */
+	@Override
+	public boolean isOriented() {
+		return oriented;
+	}
+
+	/**
+	 * Method returning the label of a vertex
+	 *
+	 * @param v the vertex id
+	 * @return the label of the vertex
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public V getLabel(int v) {
+		return (V) labels[v];
+	}
+
+	/**
+	 * Method returning the id of a vertex
+	 *
+	 * @param label the label of the vertex
+	 * @return the vertex id, -1 if the vertex is not contained in the graph
+	 */
+	@Override
+	public int indexOf(V label) {
+		Integer id = ids.get(label);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Method returning the number of adjacencies of a vertex
+	 *
+	 * @param v the vertex id
+	 * @return an integer value of the vertex out degree
+	 */
+	@Override
+	public int degree(int v) {
+		return offsets[v + 1] - offsets[v];
+	}
+
+	/**
+	 * Method creating a new cursor over the adjacency arrays
+	 *
+	 * @return a new cursor
+	 */
+	@Override
+	public Cursor cursor() {
+		return new CsrCursor();
+	}
+
+	/**
+	 * Method returning the position of the first adjacency of a vertex
+	 *
+	 * @param v the vertex id
+	 * @return the first adjacency position
+	 */
+	public int firstAdjacency(int v) {
+		return offsets[v];
+	}
+
+	/**
+	 * Method returning the position following the last adjacency of a vertex
+	 *
+	 * @param v the vertex id
+	 * @return the position after the last adjacency
+	 */
+	public int endAdjacency(int v) {
+		return offsets[v + 1];
+	}
+
+	/**
+	 * Method returning the adjacent vertex id stored at a position
+	 *
+	 * @param e the adjacency position
+	 * @return the adjacent vertex id
+	 */
+	public int target(int e) {
+		return targets[e];
+	}
+
+	/**
+	 * Method returning the cost stored at a position
+	 *
+	 * @param e the adjacency position
+	 * @return a double value for the weight
+	 */
+	public double weight(int e) {
+		return weights[e];
+	}
+
+	/**
+	 * Inner class implementing a cursor walking the adjacency arrays
+	 */
+	protected class CsrCursor extends Cursor {
+
+		private int position;
+		private int end;
+
+		/**
+		 * Method positioning the cursor before the first adjacency of a vertex
+		 *
+		 * @param v the vertex id
+		 */
+		@Override
+		public void reset(int v) {
+			position = offsets[v] - 1;
+			end = offsets[v + 1];
+		}
+
+		/**
+		 * Method moving the cursor to the next adjacency
+		 *
+		 * @return true if there is an adjacency, false if all of them have been
+		 *         enumerated
+		 */
+		@Override
+		public boolean next() {
+			return ++position < end;
+		}
+
+		/**
+		 * Method returning the vertex id at the end of the current adjacency
+		 *
+		 * @return the adjacent vertex id
+		 */
+		@Override
+		public int target() {
+			return targets[position];
+		}
+
+		/**
+		 * Method returning the cost of the current adjacency
+		 *
+		 * @return a double value for the weight
+		 */
+		@Override
+		public double weight() {
+			return weights[position];
+		}
+
+	}
+
+}
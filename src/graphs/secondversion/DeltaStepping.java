@@ -0,0 +1,232 @@
+package graphs.secondversion;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class implementing the parallel delta-stepping single source shortest path
+ * algorithm over an indexed graph: tentative distances are kept in buckets of
+ * width delta, edges not heavier than delta (light) are relaxed repeatedly
+ * while the current bucket refills, and the heavy ones once per bucket; the
+ * relaxations of every phase run on a fork-join pool, with distances lowered
+ * through compare-and-set. Only the non empty buckets exist, in a map ordered
+ * by their long index, so a small delta over long distances costs no memory
+ * for the empty ones
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public class DeltaStepping<V> {
+
+	private static final int GRAIN = 256;
+
+	private final IndexedGraph<V> g;
+	private final double delta;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Constructor for an engine working on a given graph
+	 *
+	 * @param g     the used graph
+	 * @param delta the bucket width
+	 * @param pool  the pool running the relaxations
+	 * @throws IllegalArgumentException when the graph or the pool, passed as
+	 *                                  params, is null or the bucket width is not
+	 *                                  positive
+	 */
+	public DeltaStepping(IndexedGraph<V> g, double delta, ForkJoinPool pool) throws IllegalArgumentException {
+		if (g == null || pool == null)
+			throw new IllegalArgumentException("Graph and pool must be not null");
+		if (!(delta > 0))
+			throw new IllegalArgumentException("Delta must be positive");
+		this.g = g;
+		this.delta = delta;
+		this.pool = pool;
+	}
+
+	/**
+	 * Method computing the distances from a source vertex
+	 *
+	 * @param source the label of the source vertex
+	 * @return the distance of every reached vertex
+	 * @throws UnsupportedOperationException if the graph contains negative
+	 *                                       weights
+	 * @throws NoSuchElementException        if the source vertex is not contained
+	 *                                       in the graph
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public HashMap<V, Double> run(V source) throws UnsupportedOperationException, NoSuchElementException {
+		int s = g.indexOf(source);
+		if (s < 0)
+			throw new NoSuchElementException("Source vertex not found in graph");
+		double[] distances = distances(s);
+		HashMap<V, Double> out = new HashMap();
+		for (int v = 0; v < distances.length; v++) {
+			if (distances[v] != Double.POSITIVE_INFINITY)
+				out.put(g.getLabel(v), distances[v]);
+		}
+		return out;
+	}
+
+	/**
+	 * Method computing the distances from a source vertex id
+	 *
+	 * @param source the source vertex id
+	 * @return the distance of every vertex, indexed by vertex id, positive
+	 *         infinity for the unreached ones
+	 * @throws UnsupportedOperationException if the graph contains negative
+	 *                                       weights
+	 * @throws NoSuchElementException        if the source vertex is not contained
+	 *                                       in the graph
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public double[] distances(int source) throws UnsupportedOperationException, NoSuchElementException {
+
+		int n = g.vertexCount();
+		if (source < 0 || source >= n)
+			throw new NoSuchElementException("Source vertex not found in graph");
+
+		AtomicLongArray distances = new AtomicLongArray(n);
+		long infinity = Double.doubleToLongBits(Double.POSITIVE_INFINITY);
+		for (int v = 0; v < n; v++) {
+			distances.set(v, infinity);
+		}
+		int[] phase = new int[n];
+		Arrays.fill(phase, -1);
+		int[] settledRound = new int[n];
+		Arrays.fill(settledRound, -1);
+		TreeMap<Long, IntList> buckets = new TreeMap();
+
+		distances.set(source, Double.doubleToLongBits(0.0));
+		addToBucket(buckets, 0, source);
+
+		int phaseId = 0;
+		for (int round = 0; !buckets.isEmpty(); round++) {
+			long i = buckets.firstKey();
+			IntList settled = new IntList(16);
+			IntList bucket;
+			while ((bucket = buckets.remove(i)) != null) {
+				// collecting the vertexes still belonging to this bucket, once each
+				IntList frontier = new IntList(bucket.size());
+				for (int k = 0; k < bucket.size(); k++) {
+					int v = bucket.get(k);
+					if (phase[v] != phaseId && bucketOf(Double.longBitsToDouble(distances.get(v))) == i) {
+						phase[v] = phaseId;
+						frontier.add(v);
+						// a vertex coming back in a later phase has its heavy edges relaxed once
+						if (settledRound[v] != round) {
+							settledRound[v] = round;
+							settled.add(v);
+						}
+					}
+				}
+				phaseId++;
+				relax(frontier, distances, buckets, true);
+			}
+			relax(settled, distances, buckets, false);
+		}
+
+		double[] out = new double[n];
+		for (int v = 0; v < n; v++) {
+			out[v] = Double.longBitsToDouble(distances.get(v));
+		}
+		return out;
+
+	}
+
+	/**
+	 * Method relaxing in parallel the light or the heavy adjacencies of a set of
+	 * vertexes, then moving every improved vertex to its new bucket
+	 *
+	 * @param vertexes  the vertexes whose adjacencies are relaxed
+	 * @param distances the tentative distances, as double bits
+	 * @param buckets   the buckets of vertexes
+	 * @param light     true to relax the adjacencies not heavier than delta,
+	 *                  false to relax the heavier ones
+	 * @throws UnsupportedOperationException if the graph contains negative
+	 *                                       weights
+	 */
+	private void relax(IntList vertexes, AtomicLongArray distances, TreeMap<Long, IntList> buckets, boolean light)
+			throws UnsupportedOperationException {
+		ConcurrentLinkedQueue<IntList> improved = new ConcurrentLinkedQueue<IntList>();
+		ParallelRange.run(pool, 0, vertexes.size(), GRAIN, (from, to) -> {
+			IntList local = new IntList(to - from);
+			IndexedGraph.Cursor cursor = g.cursor();
+			for (int k = from; k < to; k++) {
+				int v = vertexes.get(k);
+				double base = Double.longBitsToDouble(distances.get(v));
+				cursor.reset(v);
+				while (cursor.next()) {
+					double weight = cursor.weight();
+					if (weight < 0)
+						throw new UnsupportedOperationException("Delta-stepping only works with non negative weights");
+					if ((weight <= delta) != light)
+						continue;
+					int target = cursor.target();
+					if (lower(distances, target, base + weight)) {
+						local.add(target);
+					}
+				}
+			}
+			improved.add(local);
+		});
+		for (IntList local : improved) {
+			for (int k = 0; k < local.size(); k++) {
+				int v = local.get(k);
+				addToBucket(buckets, bucketOf(Double.longBitsToDouble(distances.get(v))), v);
+			}
+		}
+	}
+
+	/**
+	 * Method atomically lowering a tentative distance
+	 *
+	 * @param distances the tentative distances, as double bits
+	 * @param v         the vertex id
+	 * @param distance  the candidate distance
+	 * @return true if the distance has been lowered, false if it was not greater
+	 */
+	private boolean lower(AtomicLongArray distances, int v, double distance) {
+		long bits = Double.doubleToLongBits(distance);
+		while (true) {
+			long current = distances.get(v);
+			if (Double.longBitsToDouble(current) <= distance)
+				return false;
+			if (distances.compareAndSet(v, current, bits))
+				return true;
+		}
+	}
+
+	/**
+	 * Method computing the bucket index of a distance; indexes beyond the long
+	 * range share the last bucket, which is then processed again until it stays
+	 * empty
+	 *
+	 * @param distance the tentative distance
+	 * @return the bucket index
+	 */
+	private long bucketOf(double distance) {
+		return (long) Math.floor(distance / delta);
+	}
+
+	/**
+	 * Method adding a vertex to a bucket, creating it if it is empty
+	 *
+	 * @param buckets the non empty buckets of vertexes, by index
+	 * @param i       the bucket index
+	 * @param v       the vertex id
+	 */
+	private void addToBucket(TreeMap<Long, IntList> buckets, long i, int v) {
+		IntList bucket = buckets.get(i);
+		if (bucket == null) {
+			bucket = new IntList(16);
+			buckets.put(i, bucket);
+		}
+		bucket.add(v);
+	}
+
+}
@@ -0,0 +1,134 @@
+package graphs.secondversion;
+
+import priorityqueue.source.PriorityQueue;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Class implementing the Dijkstra single source shortest path algorithm over a
+ * graph; the priority queue and the visit structures are kept between queries,
+ * so an instance should be reused for many queries on the same graph and must
+ * not be shared between threads
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public class Dijkstra<V> {
+
+	private final Graph<V> g;
+	private final PriorityQueue<V, Double> queue;
+	private final HashSet<V> settled;
+
+	/**
+	 * Constructor for an engine working on a given graph
+	 *
+	 * @param g          the used graph
+	 * @param comparator a comparator that implements the priority precedence
+	 *                   relation between vertexes
+	 * @throws IllegalArgumentException when the graph, passed as param, is null
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Dijkstra(Graph<V> g, Comparator comparator) throws IllegalArgumentException {
+		if (g == null)
+			throw new IllegalArgumentException("Graph must be not null");
+		this.g = g;
+		this.queue = new PriorityQueue(comparator);
+		this.settled = new HashSet();
+	}
+
+	/**
+	 * Method computing the shortest paths from a source vertex to every vertex
+	 * reachable from it
+	 *
+	 * @param source the label of the source vertex
+	 * @return the distance and predecessor maps of the reached vertexes
+	 * @throws UnsupportedOperationException if the graph contains negative
+	 *                                       weights
+	 * @throws NoSuchElementException        if the source vertex is not contained
+	 *                                       in the graph
+	 */
+	public ShortestPaths<V> run(V source) throws UnsupportedOperationException, NoSuchElementException {
+		return run(source, null);
+	}
+
+	/**
+	 * Method computing the shortest paths from a source vertex, stopping as soon
+	 * as the target vertex is settled; only the settled vertexes, whose distance
+	 * is final, are reported
+	 *
+	 * @param source the label of the source vertex
+	 * @param target the label of the target vertex, null to visit every vertex
+	 *               reachable from the source
+	 * @return the distance and predecessor maps of the settled vertexes
+	 * @throws UnsupportedOperationException if the graph contains negative
+	 *                                       weights
+	 * @throws NoSuchElementException        if the source or the target vertex is
+	 *                                       not contained in the graph
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public ShortestPaths<V> run(V source, V target) throws UnsupportedOperationException, NoSuchElementException {
+
+		if (!g.containsVertex(source))
+			throw new NoSuchElementException("Source vertex not found in graph");
+		if (target != null && !g.containsVertex(target))
+			throw new NoSuchElementException("Target vertex not found in graph");
+
+		HashMap<V, Double> distances = new HashMap();
+		HashMap<V, V> predecessors = new HashMap();
+		queue.clear();
+		settled.clear();
+
+		distances.put(source, 0.0);
+		queue.insert(source, 0.0);
+		boolean stopped = false;
+
+		while (!queue.isEmpty()) {
+
+			V actual = queue.extractRec();
+			settled.add(actual);
+			if (actual.equals(target)) {
+				stopped = true;
+				break;
+			}
+			double actualDistance = distances.get(actual);
+
+			for (V adiacent : g.getVertexAdjs(actual)) {
+				if (settled.contains(adiacent))
+					continue;
+				double edgeWeight = g.getEdgeWeight(actual, adiacent);
+				if (edgeWeight < 0)
+					throw new UnsupportedOperationException("Dijkstra only works with non negative weights");
+				double distance = actualDistance + edgeWeight;
+				Double known = distances.get(adiacent);
+				if (known == null) {
+					distances.put(adiacent, distance);
+					predecessors.put(adiacent, actual);
+					queue.insert(adiacent, distance);
+				} else if (distance < known) {
+					distances.put(adiacent, distance);
+					predecessors.put(adiacent, actual);
+					queue.updatePriority(adiacent, distance);
+				}
+			}
+
+		}
+
+		// dropping the tentative distances of the frontier left by an early stop
+		if (stopped) {
+			Iterator<V> i = distances.keySet().iterator();
+			while (i.hasNext()) {
+				V v = i.next();
+				if (!settled.contains(v)) {
+					i.remove();
+					predecessors.remove(v);
+				}
+			}
+		}
+
+		return new ShortestPaths(source, distances, predecessors);
+
+	}
+
+}
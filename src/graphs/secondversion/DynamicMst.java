@@ -0,0 +1,762 @@
+package graphs.secondversion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+
+/**
+ * Class maintaining a minimum spanning forest under edge insertions, deletions
+ * and weight changes. The edges known at the last rebuild form the base graph,
+ * whose minimum spanning forest is kept under deletions by the level structure
+ * of Holm, de Lichtenberg and Thorup: every edge has a level, every level owns
+ * an Euler tour forest of the tree edges at that level or above, and the
+ * replacement for a deleted tree edge is searched level by level among the
+ * edges of the smaller split tree, in increasing weight order, pushing every
+ * edge that fails one level up, so that base deletions cost O(log^2 n)
+ * amortized time. Edges inserted after the rebuild wait in a buffer of b
+ * edges: the maintained forest is the minimum spanning forest of the base
+ * forest plus the buffer, kept with a link-cut tree for the insertions in
+ * O(log n) time, while a deleted forest edge is replaced by the cheapest of
+ * the at most b edges of that graph outside the forest, skipping the lighter
+ * ones inside the smaller split tree in O(b log n) time at worst. When b
+ * exceeds a multiple of the square root of the edge count everything is
+ * rebuilt from the current forest in O(m log n), so every update takes
+ * O(sqrt(m) log n) amortized time
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public class DynamicMst<V> {
+
+	private static final int MIN_BUFFER = 64;
+	private static final int BUFFER_FACTOR = 16;
+
+	/**
+	 * Class keeping the minimum spanning forest of the base graph under
+	 * deletions, as the levels of the Holm, de Lichtenberg and Thorup structure;
+	 * a level holds the Euler tour forest of the base forest edges at that level
+	 * or above, with the edges at exactly that level marked, and for every vertex
+	 * the base edges outside the forest at that level, ordered by weight, the
+	 * lightest one being the key of the vertex
+	 */
+	protected class Levels {
+
+		private final ArrayList<EulerTourForest> forests;
+		private final ArrayList<HashMap<Integer, TreeSet<Integer>>> incident;
+
+		/**
+		 * Constructor for a structure without edges
+		 */
+		protected Levels() {
+			this.forests = new ArrayList<EulerTourForest>();
+			this.incident = new ArrayList<HashMap<Integer, TreeSet<Integer>>>();
+		}
+
+		/**
+		 * Method adding an edge to the base forest
+		 *
+		 * @param e     the edge id
+		 * @param level the level of the edge
+		 */
+		protected void addTreeEdge(int e, int level) {
+			edgeLevels[e] = level;
+			for (int i = 0; i <= level; i++) {
+				forest(i).link(edgeSrc[e], edgeDest[e], e);
+			}
+			forests.get(level).setMarked(e, true);
+		}
+
+		/**
+		 * Method adding a base edge that is not in the base forest
+		 *
+		 * @param e     the edge id
+		 * @param level the level of the edge
+		 */
+		protected void addNonTreeEdge(int e, int level) {
+			edgeLevels[e] = level;
+			attach(edgeSrc[e], e, level);
+			attach(edgeDest[e], e, level);
+		}
+
+		/**
+		 * Method removing a base edge that is not in the base forest
+		 *
+		 * @param e the edge id
+		 */
+		protected void removeNonTreeEdge(int e) {
+			detach(edgeSrc[e], e, edgeLevels[e]);
+			detach(edgeDest[e], e, edgeLevels[e]);
+		}
+
+		/**
+		 * Method removing an edge of the base forest and searching the cheapest
+		 * base edge reconnecting the two split trees, which joins the base forest
+		 *
+		 * @param e the edge id
+		 * @return the id of the replacement edge, -1 if there is none
+		 */
+		protected int removeTreeEdge(int e) {
+			int level = edgeLevels[e];
+			for (int i = 0; i <= level; i++) {
+				forests.get(i).cut(e);
+			}
+			for (int i = level; i >= 0; i--) {
+				EulerTourForest f = forests.get(i);
+				int small = edgeSrc[e];
+				int large = edgeDest[e];
+				if (f.size(small) > f.size(large)) {
+					small = edgeDest[e];
+					large = edgeSrc[e];
+				}
+				// the smaller tree has at most half the vertexes allowed at this level, so its
+				// edges can move one level up
+				for (int t = f.findMarked(small); t >= 0; t = f.findMarked(small)) {
+					f.setMarked(t, false);
+					edgeLevels[t] = i + 1;
+					forest(i + 1).link(edgeSrc[t], edgeDest[t], t);
+					forests.get(i + 1).setMarked(t, true);
+				}
+				for (int x = f.findMin(small); x >= 0; x = f.findMin(small)) {
+					int candidate = incident.get(i).get(x).first();
+					int other = edgeSrc[candidate] == x ? edgeDest[candidate] : edgeSrc[candidate];
+					removeNonTreeEdge(candidate);
+					if (f.connected(other, large)) {
+						addTreeEdge(candidate, i);
+						return candidate;
+					}
+					addNonTreeEdge(candidate, i + 1);
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Method returning the Euler tour forest of a level, creating the missing
+		 * levels
+		 *
+		 * @param level the level
+		 * @return the forest of the edges at that level or above
+		 */
+		private EulerTourForest forest(int level) {
+			while (forests.size() <= level) {
+				forests.add(new EulerTourForest(labels.size()));
+				incident.add(new HashMap<Integer, TreeSet<Integer>>());
+			}
+			return forests.get(level);
+		}
+
+		/**
+		 * Method adding an edge to the non forest edges of a vertex at a level
+		 *
+		 * @param v     the vertex id
+		 * @param e     the edge id
+		 * @param level the level of the edge
+		 */
+		private void attach(int v, int e, int level) {
+			DynamicMst.this.attach(forest(level), incident.get(level), v, e);
+		}
+
+		/**
+		 * Method removing an edge from the non forest edges of a vertex at a level
+		 *
+		 * @param v     the vertex id
+		 * @param e     the edge id
+		 * @param level the level of the edge
+		 */
+		private void detach(int v, int e, int level) {
+			DynamicMst.this.detach(forests.get(level), incident.get(level), v, e);
+		}
+
+	}
+
+	private final Graph<V> graph;
+	private final Graph<V> tree;
+	private final LinkCutTree forest;
+	private final EulerTourForest tours;
+	private final HashMap<V, Integer> ids;
+	private final ArrayList<V> labels;
+	private final HashMap<Long, Integer> edgeIds;
+	private final IntList freeEdges;
+	private final HashMap<Integer, TreeSet<Integer>> aside;
+	private final Comparator<Integer> byWeight;
+	private int[] edgeSrc;
+	private int[] edgeDest;
+	private double[] edgeWeights;
+	private int[] edgeLevels;
+	private boolean[] buffered;
+	private boolean[] baseTree;
+	private boolean[] inForest;
+	private Levels levels;
+	private int nextEdge;
+	private int edgeCount;
+	private int bufferSize;
+	private boolean changed;
+
+	/**
+	 * Constructor starting from an existing minimum spanning tree (or forest),
+	 * whose edges are the only known edges of the underlying graph
+	 *
+	 * @param mst the minimum spanning tree, as produced by Prim
+	 * @throws IllegalArgumentException      when the tree, passed as param, is
+	 *                                       null or contains a cycle
+	 * @throws UnsupportedOperationException if the passed tree is oriented
+	 */
+	public DynamicMst(Graph<V> mst) throws IllegalArgumentException, UnsupportedOperationException {
+		this(mst, mst);
+	}
+
+	/**
+	 * Constructor starting from a graph and its minimum spanning tree (or
+	 * forest); the graph edges outside the tree are kept as replacement
+	 * candidates for later deletions
+	 *
+	 * @param g   the underlying graph
+	 * @param mst the minimum spanning tree of the graph, as produced by Prim
+	 * @throws IllegalArgumentException      when one of the graphs, passed as
+	 *                                       params, is null or the tree contains
+	 *                                       a cycle or an edge missing from the
+	 *                                       graph
+	 * @throws UnsupportedOperationException if one of the passed graphs is
+	 *                                       oriented
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public DynamicMst(Graph<V> g, Graph<V> mst) throws IllegalArgumentException, UnsupportedOperationException {
+		if (g == null || mst == null)
+			throw new IllegalArgumentException("Graph and tree must be not null");
+		if (g.isOriented() || mst.isOriented())
+			throw new UnsupportedOperationException("Dynamic MST only works on not oriented graphs");
+		int n = g.vertexCount();
+		this.graph = new Graph(false);
+		this.tree = new Graph(false);
+		this.forest = new LinkCutTree(4 * n);
+		this.tours = new EulerTourForest(n);
+		this.ids = new HashMap();
+		this.labels = new ArrayList();
+		this.edgeIds = new HashMap();
+		this.freeEdges = new IntList(16);
+		this.aside = new HashMap();
+		this.byWeight = (a, b) -> a.intValue() == b.intValue() ? 0
+				: edgeWeights[a] != edgeWeights[b] ? Double.compare(edgeWeights[a], edgeWeights[b])
+						: Integer.compare(a, b);
+		this.edgeSrc = new int[0];
+		this.edgeDest = new int[0];
+		this.edgeWeights = new double[0];
+		this.edgeLevels = new int[0];
+		this.buffered = new boolean[0];
+		this.baseTree = new boolean[0];
+		this.inForest = new boolean[0];
+		this.levels = new Levels();
+		for (V v : g.getAllVertex()) {
+			addVertex(v);
+		}
+		for (V v : g.getAllVertex()) {
+			for (V adiacent : g.getVertexAdjs(v)) {
+				if (!v.equals(adiacent) && !graph.containsEdge(v, adiacent)) {
+					double weight = g.getEdgeWeight(v, adiacent);
+					graph.addEdge(v, adiacent, weight);
+					newEdge(ids.get(v), ids.get(adiacent), weight);
+				}
+			}
+		}
+		for (V v : mst.getAllVertex()) {
+			for (V adiacent : mst.getVertexAdjs(v)) {
+				if (!graph.containsVertex(v) || !graph.containsVertex(adiacent) || !graph.containsEdge(v, adiacent))
+					throw new IllegalArgumentException("Tree edges must belong to the graph");
+				int e = edgeIds.get(pairKey(ids.get(v), ids.get(adiacent)));
+				if (!inForest[e]) {
+					if (tours.connected(edgeSrc[e], edgeDest[e]))
+						throw new IllegalArgumentException("Tree must not contain cycles");
+					linkEdge(e);
+				}
+			}
+		}
+		// graph edges joining two trees of a forest that does not span them are
+		// offered like insertions
+		IntList joining = new IntList(16);
+		for (int e = 0; e < nextEdge; e++) {
+			if (!inForest[e] && !tours.connected(edgeSrc[e], edgeDest[e]))
+				joining.add(e);
+		}
+		rebuild();
+		for (int i = 0; i < joining.size(); i++) {
+			int e = joining.get(i);
+			levels.removeNonTreeEdge(e);
+			buffered[e] = true;
+			bufferSize++;
+			offerEdge(e);
+		}
+		if (bufferSize > bufferLimit())
+			rebuild();
+	}
+
+	/**
+	 * Method that adds a vertex to the maintained forest as an isolated tree
+	 *
+	 * @param vertexName the label of the vertex to add
+	 */
+	public void addVertex(V vertexName) {
+		if (ids.containsKey(vertexName))
+			return;
+		int v = labels.size();
+		ids.put(vertexName, v);
+		labels.add(vertexName);
+		forest.makeNode(vertexNode(v), Double.NEGATIVE_INFINITY);
+		graph.addVertex(vertexName);
+		tree.addVertex(vertexName);
+	}
+
+	/**
+	 * Method processing the insertion of an edge in the underlying graph; missing
+	 * vertexes are created, and the edge enters the forest when it joins two
+	 * trees or when it is cheaper than the heaviest edge on the tree path between
+	 * its endpoints, which is then evicted; inserting an edge that already exists
+	 * keeps the cheaper of the two weights
+	 *
+	 * @param src    the label of the connection starting vertex
+	 * @param dest   the label of the connection ending vertex
+	 * @param weight the cost of the connection
+	 * @return true if the forest has changed, false if it has not
+	 */
+	public boolean addEdge(V src, V dest, double weight) {
+		addVertex(src);
+		addVertex(dest);
+		if (src.equals(dest))
+			return false;
+		if (graph.containsEdge(src, dest)) {
+			if (weight >= graph.getEdgeWeight(src, dest))
+				return false;
+			return updateWeight(src, dest, weight);
+		}
+		graph.addEdge(src, dest, weight);
+		changed = false;
+		insert(ids.get(src), ids.get(dest), weight);
+		return changed;
+	}
+
+	/**
+	 * Method processing the removal of an edge from the underlying graph; when it
+	 * is a forest edge the cheapest edge reconnecting the two split trees, if
+	 * any, takes its place
+	 *
+	 * @param src  the label of the connection starting vertex
+	 * @param dest the label of the connection ending vertex
+	 * @return true if the forest has changed, false if it has not
+	 * @throws NoSuchElementException if one of the two vertexes or the edge does
+	 *                                not exist
+	 */
+	public boolean removeEdge(V src, V dest) {
+		graph.removeEdge(src, dest);
+		changed = false;
+		delete(edgeIds.get(pairKey(ids.get(src), ids.get(dest))));
+		return changed;
+	}
+
+	/**
+	 * Method processing a weight change of an edge of the underlying graph, as a
+	 * removal followed by an insertion with the new weight; changing the weight
+	 * of a forest edge always changes the forest
+	 *
+	 * @param src    the label of the connection starting vertex
+	 * @param dest   the label of the connection ending vertex
+	 * @param weight the new cost of the connection
+	 * @return true if the forest has changed, false if it has not
+	 * @throws NoSuchElementException if one of the two vertexes or the edge does
+	 *                                not exist
+	 */
+	public boolean updateWeight(V src, V dest, double weight) {
+		double oldWeight = graph.getEdgeWeight(src, dest);
+		graph.removeEdge(src, dest);
+		graph.addEdge(src, dest, weight);
+		int u = ids.get(src);
+		int v = ids.get(dest);
+		int e = edgeIds.get(pairKey(u, v));
+		if (buffered[e] && inForest[e] && weight <= oldWeight) {
+			// a cheaper forest edge stays in the forest
+			edgeWeights[e] = weight;
+			forest.setValue(edgeNode(e), weight);
+			tree.removeEdge(src, dest);
+			tree.addEdge(src, dest, weight);
+			return true;
+		}
+		changed = false;
+		delete(e);
+		insert(u, v, weight);
+		return changed;
+	}
+
+	/**
+	 * Method telling if two vertexes are in the same tree of the forest
+	 *
+	 * @param src  the label of the first vertex
+	 * @param dest the label of the second vertex
+	 * @return true if the two vertexes are connected, false if they are not
+	 * @throws NoSuchElementException if one of the two vertexes doesn't exist
+	 */
+	public boolean connected(V src, V dest) {
+		return tours.connected(idOf(src), idOf(dest));
+	}
+
+	/**
+	 * Method returning the heaviest edge weight on the tree path between two
+	 * connected vertexes
+	 *
+	 * @param src  the label of the first vertex
+	 * @param dest the label of the second vertex
+	 * @return the weight of the heaviest edge on the path, or negative infinity
+	 *         if the two vertexes coincide
+	 * @throws NoSuchElementException        if one of the two vertexes doesn't
+	 *                                       exist
+	 * @throws UnsupportedOperationException if the two vertexes are not connected
+	 */
+	public double pathMaxWeight(V src, V dest) {
+		return forest.getValue(forest.pathMax(vertexNode(idOf(src)), vertexNode(idOf(dest))));
+	}
+
+	/**
+	 * Method returning the maintained minimum spanning forest; the returned graph
+	 * must not be modified
+	 *
+	 * @return a graph representing the current minimum spanning forest
+	 */
+	public Graph<V> getTree() {
+		return tree;
+	}
+
+	/**
+	 * Method returning the total cost of the maintained forest
+	 *
+	 * @return a double value for the forest weight
+	 */
+	public double weight() {
+		return tree.weight();
+	}
+
+	/**
+	 * Method returning the underlying graph as known by the structure; the
+	 * returned graph must not be modified
+	 *
+	 * @return the graph whose minimum spanning forest is maintained
+	 */
+	public Graph<V> getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Method inserting a new edge into the buffer and offering it to the forest,
+	 * rebuilding the structure when the buffer is full
+	 *
+	 * @param u      the id of the connection starting vertex
+	 * @param v      the id of the connection ending vertex
+	 * @param weight the cost of the connection
+	 */
+	protected void insert(int u, int v, double weight) {
+		int e = newEdge(u, v, weight);
+		buffered[e] = true;
+		bufferSize++;
+		offerEdge(e);
+		if (bufferSize > bufferLimit())
+			rebuild();
+	}
+
+	/**
+	 * Method deleting an edge; a base forest edge is replaced in the base forest
+	 * first, and the replacement is offered to the maintained forest
+	 *
+	 * @param e the edge id
+	 */
+	protected void delete(int e) {
+		if (buffered[e]) {
+			bufferSize--;
+			withdrawEdge(e);
+		} else if (baseTree[e]) {
+			int replacement = levels.removeTreeEdge(e);
+			withdrawEdge(e);
+			if (replacement >= 0) {
+				baseTree[replacement] = true;
+				offerEdge(replacement);
+			}
+		} else {
+			levels.removeNonTreeEdge(e);
+		}
+		edgeIds.remove(pairKey(edgeSrc[e], edgeDest[e]));
+		edgeSrc[e] = -1;
+		buffered[e] = false;
+		baseTree[e] = false;
+		freeEdges.add(e);
+		edgeCount--;
+	}
+
+	/**
+	 * Method offering an edge of the base forest or of the buffer to the
+	 * maintained forest; the edge enters it when it joins two trees or when it is
+	 * cheaper than the heaviest edge on the tree path between its endpoints,
+	 * which is then evicted, and otherwise it is kept aside as a replacement
+	 * candidate
+	 *
+	 * @param e the edge id
+	 * @return true if the edge entered the forest, false if it did not
+	 */
+	protected boolean offerEdge(int e) {
+		if (tours.connected(edgeSrc[e], edgeDest[e])) {
+			int heaviest = forest.pathMax(vertexNode(edgeSrc[e]), vertexNode(edgeDest[e]));
+			if (edgeWeights[e] >= forest.getValue(heaviest)) {
+				attach(tours, aside, e);
+				return false;
+			}
+			cutEdge(heaviest / 2);
+			attach(tours, aside, heaviest / 2);
+		}
+		linkEdge(e);
+		return true;
+	}
+
+	/**
+	 * Method withdrawing an edge of the base forest or of the buffer from the
+	 * maintained forest; a forest edge is replaced by the cheapest edge set aside
+	 * that reconnects the two split trees, searched from the smaller tree in
+	 * increasing weight order, so that only the lighter edges inside it are
+	 * skipped
+	 *
+	 * @param e the edge id
+	 */
+	protected void withdrawEdge(int e) {
+		if (!inForest[e]) {
+			detach(tours, aside, e);
+			return;
+		}
+		cutEdge(e);
+		int small = edgeSrc[e];
+		int large = edgeDest[e];
+		if (tours.size(small) > tours.size(large)) {
+			small = edgeDest[e];
+			large = edgeSrc[e];
+		}
+		IntList skipped = new IntList(4);
+		int best = -1;
+		for (int x = tours.findMin(small); x >= 0 && best < 0; x = tours.findMin(small)) {
+			int candidate = aside.get(x).first();
+			int other = edgeSrc[candidate] == x ? edgeDest[candidate] : edgeSrc[candidate];
+			detach(tours, aside, candidate);
+			if (tours.connected(other, large))
+				best = candidate;
+			else
+				skipped.add(candidate);
+		}
+		for (int i = 0; i < skipped.size(); i++) {
+			attach(tours, aside, skipped.get(i));
+		}
+		if (best >= 0)
+			linkEdge(best);
+	}
+
+	/**
+	 * Method rebuilding the level structure from the current forest, which is
+	 * the minimum spanning forest of the whole graph: every edge joins the base
+	 * graph at level 0 and the buffer is emptied
+	 */
+	protected void rebuild() {
+		levels = new Levels();
+		for (int e = 0; e < nextEdge; e++) {
+			if (edgeSrc[e] < 0)
+				continue;
+			buffered[e] = false;
+			baseTree[e] = inForest[e];
+			if (inForest[e])
+				levels.addTreeEdge(e, 0);
+			else
+				levels.addNonTreeEdge(e, 0);
+		}
+		for (int v : aside.keySet()) {
+			tours.setKey(v, Double.POSITIVE_INFINITY);
+		}
+		aside.clear();
+		bufferSize = 0;
+	}
+
+	/**
+	 * Method returning the vertex id of a label
+	 *
+	 * @param vertex the label of the vertex
+	 * @return the vertex id
+	 * @throws NoSuchElementException if the vertex doesn't exist
+	 */
+	protected int idOf(V vertex) {
+		Integer id = ids.get(vertex);
+		if (id == null)
+			throw new NoSuchElementException("Vertex " + vertex + " not found");
+		return id;
+	}
+
+	/**
+	 * Method adding an edge to the maintained forest, as a link-cut node carrying
+	 * its weight linked to both endpoints
+	 *
+	 * @param e the edge id
+	 */
+	protected void linkEdge(int e) {
+		forest.makeNode(edgeNode(e), edgeWeights[e]);
+		forest.link(vertexNode(edgeSrc[e]), edgeNode(e));
+		forest.link(edgeNode(e), vertexNode(edgeDest[e]));
+		tours.link(edgeSrc[e], edgeDest[e], e);
+		inForest[e] = true;
+		tree.addEdge(labels.get(edgeSrc[e]), labels.get(edgeDest[e]), edgeWeights[e]);
+		changed = true;
+	}
+
+	/**
+	 * Method removing an edge from the maintained forest
+	 *
+	 * @param e the edge id
+	 */
+	protected void cutEdge(int e) {
+		forest.cut(vertexNode(edgeSrc[e]), edgeNode(e));
+		forest.cut(edgeNode(e), vertexNode(edgeDest[e]));
+		tours.cut(e);
+		inForest[e] = false;
+		tree.removeEdge(labels.get(edgeSrc[e]), labels.get(edgeDest[e]));
+		changed = true;
+	}
+
+	/**
+	 * Method returning the link-cut node of a vertex; vertexes take the even
+	 * nodes and edges the odd ones
+	 *
+	 * @param v the vertex id
+	 * @return the node index of the vertex
+	 */
+	private static int vertexNode(int v) {
+		return 2 * v;
+	}
+
+	/**
+	 * Method returning the link-cut node of an edge
+	 *
+	 * @param e the edge id
+	 * @return the node index of the edge
+	 */
+	private static int edgeNode(int e) {
+		return 2 * e + 1;
+	}
+
+	/**
+	 * Method returning the key of the edge between two vertexes, whatever their
+	 * order
+	 *
+	 * @param u the first vertex id
+	 * @param v the second vertex id
+	 * @return a long value identifying the vertex pair
+	 */
+	private static long pairKey(int u, int v) {
+		return ((long) Math.min(u, v) << 32) | Math.max(u, v);
+	}
+
+	/**
+	 * Method returning the greatest number of buffered edges before a rebuild
+	 *
+	 * @return an integer value of the buffer capacity
+	 */
+	private int bufferLimit() {
+		return Math.max(MIN_BUFFER, BUFFER_FACTOR * (int) Math.sqrt(edgeCount));
+	}
+
+	/**
+	 * Method allocating an edge id, reusing released ones; the edge is neither in
+	 * the base graph nor in the buffer yet
+	 *
+	 * @param u      the id of the connection starting vertex
+	 * @param v      the id of the connection ending vertex
+	 * @param weight the cost of the connection
+	 * @return the edge id
+	 */
+	private int newEdge(int u, int v, double weight) {
+		int e;
+		if (freeEdges.isEmpty()) {
+			e = nextEdge++;
+			if (e >= edgeSrc.length) {
+				int capacity = Math.max(16, 2 * edgeSrc.length);
+				edgeSrc = Arrays.copyOf(edgeSrc, capacity);
+				edgeDest = Arrays.copyOf(edgeDest, capacity);
+				edgeWeights = Arrays.copyOf(edgeWeights, capacity);
+				edgeLevels = Arrays.copyOf(edgeLevels, capacity);
+				buffered = Arrays.copyOf(buffered, capacity);
+				baseTree = Arrays.copyOf(baseTree, capacity);
+				inForest = Arrays.copyOf(inForest, capacity);
+			}
+		} else {
+			e = freeEdges.removeLast();
+		}
+		edgeSrc[e] = u;
+		edgeDest[e] = v;
+		edgeWeights[e] = weight;
+		edgeIds.put(pairKey(u, v), e);
+		edgeCount++;
+		return e;
+	}
+
+	/**
+	 * Method adding an edge to the edges of its endpoints kept outside a forest,
+	 * each vertex being keyed in the forest by the lightest of them
+	 *
+	 * @param f        the forest keying the vertexes
+	 * @param incident the edges kept outside the forest, by vertex
+	 * @param e        the edge id
+	 */
+	private void attach(EulerTourForest f, HashMap<Integer, TreeSet<Integer>> incident, int e) {
+		attach(f, incident, edgeSrc[e], e);
+		attach(f, incident, edgeDest[e], e);
+	}
+
+	/**
+	 * Method removing an edge from the edges of its endpoints kept outside a
+	 * forest
+	 *
+	 * @param f        the forest keying the vertexes
+	 * @param incident the edges kept outside the forest, by vertex
+	 * @param e        the edge id
+	 */
+	private void detach(EulerTourForest f, HashMap<Integer, TreeSet<Integer>> incident, int e) {
+		detach(f, incident, edgeSrc[e], e);
+		detach(f, incident, edgeDest[e], e);
+	}
+
+	/**
+	 * Method adding an edge to the edges of a vertex kept outside a forest
+	 *
+	 * @param f        the forest keying the vertexes
+	 * @param incident the edges kept outside the forest, by vertex
+	 * @param v        the vertex id
+	 * @param e        the edge id
+	 */
+	private void attach(EulerTourForest f, HashMap<Integer, TreeSet<Integer>> incident, int v, int e) {
+		TreeSet<Integer> edges = incident.get(v);
+		if (edges == null) {
+			edges = new TreeSet<Integer>(byWeight);
+			incident.put(v, edges);
+		}
+		edges.add(e);
+		if (edges.first() == e)
+			f.setKey(v, edgeWeights[e]);
+	}
+
+	/**
+	 * Method removing an edge from the edges of a vertex kept outside a forest
+	 *
+	 * @param f        the forest keying the vertexes
+	 * @param incident the edges kept outside the forest, by vertex
+	 * @param v        the vertex id
+	 * @param e        the edge id
+	 */
+	private void detach(EulerTourForest f, HashMap<Integer, TreeSet<Integer>> incident, int v, int e) {
+		TreeSet<Integer> edges = incident.get(v);
+		edges.remove(e);
+		if (edges.isEmpty()) {
+			incident.remove(v);
+			f.setKey(v, Double.POSITIVE_INFINITY);
+		} else if (edgeWeights[e] < edgeWeights[edges.first()]) {
+			f.setKey(v, edgeWeights[edges.first()]);
+		}
+	}
+
+}
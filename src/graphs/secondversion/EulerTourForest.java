@@ -0,0 +1,434 @@
+package graphs.secondversion;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Class implementing a forest of Euler tour trees over integer vertexes: every
+ * tree is stored as the sequence of its Euler tour, one node per vertex and one
+ * per direction of every edge, in a treap ordered by position, so that link,
+ * cut and connectivity queries take O(log n) expected time. Every tree edge can
+ * be marked and every vertex carries a double key, and each tree knows how many
+ * vertexes it holds, where a marked edge is and which vertex has the smallest
+ * key. Vertexes are created lazily, a vertex never linked nor keyed being an
+ * isolated tree
+ */
+public class EulerTourForest {
+
+	/**
+	 * Class representing a node of the Euler tour, either a vertex or one
+	 * direction of an edge
+	 */
+	protected static class Node {
+
+		protected Node left;
+		protected Node right;
+		protected Node parent;
+		protected Node twin;
+		protected final int priority;
+		protected final int vertex;
+		protected final int edge;
+		protected int size;
+		protected int vertexes;
+		protected boolean marked;
+		protected boolean anyMarked;
+		protected double key;
+		protected double minKey;
+
+		/**
+		 * Constructor for an isolated node
+		 *
+		 * @param priority the treap priority
+		 * @param vertex   the vertex id, -1 for an edge node
+		 * @param edge     the edge id, -1 for a vertex node
+		 */
+		protected Node(int priority, int vertex, int edge) {
+			this.priority = priority;
+			this.vertex = vertex;
+			this.edge = edge;
+			this.key = Double.POSITIVE_INFINITY;
+			pull();
+		}
+
+		/**
+		 * Method recomputing the subtree aggregates from the children
+		 */
+		protected void pull() {
+			size = 1;
+			vertexes = vertex >= 0 ? 1 : 0;
+			anyMarked = marked;
+			minKey = key;
+			if (left != null) {
+				size += left.size;
+				vertexes += left.vertexes;
+				anyMarked |= left.anyMarked;
+				minKey = Math.min(minKey, left.minKey);
+			}
+			if (right != null) {
+				size += right.size;
+				vertexes += right.vertexes;
+				anyMarked |= right.anyMarked;
+				minKey = Math.min(minKey, right.minKey);
+			}
+		}
+
+	}
+
+	private Node[] vertexNodes;
+	private final HashMap<Integer, Node> edgeNodes;
+	private int seed;
+	private Node low;
+	private Node high;
+
+	/**
+	 * Constructor for a forest of the given initial capacity
+	 *
+	 * @param capacity the number of vertexes initially allocated
+	 */
+	public EulerTourForest(int capacity) {
+		this.vertexNodes = new Node[Math.max(capacity, 1)];
+		this.edgeNodes = new HashMap<Integer, Node>();
+		this.seed = 0x2545f491;
+	}
+
+	/**
+	 * Method telling if two vertexes belong to the same tree
+	 *
+	 * @param u the first vertex
+	 * @param v the second vertex
+	 * @return true if the two vertexes are connected, false if they are not
+	 */
+	public boolean connected(int u, int v) {
+		if (u == v)
+			return true;
+		Node x = find(u);
+		Node y = find(v);
+		return x != null && y != null && root(x) == root(y);
+	}
+
+	/**
+	 * Method returning the number of vertexes of the tree containing a vertex
+	 *
+	 * @param v the vertex
+	 * @return an integer value of the vertexes count
+	 */
+	public int size(int v) {
+		Node x = find(v);
+		return x == null ? 1 : root(x).vertexes;
+	}
+
+	/**
+	 * Method joining two trees with an edge between two vertexes
+	 *
+	 * @param u    the first vertex
+	 * @param v    the second vertex
+	 * @param edge the id of the edge, unique in the forest
+	 * @throws UnsupportedOperationException if the two vertexes are already
+	 *                                       connected
+	 */
+	public void link(int u, int v, int edge) throws UnsupportedOperationException {
+		if (connected(u, v))
+			throw new UnsupportedOperationException("Vertexes " + u + " and " + v + " are already connected");
+		Node forward = new Node(nextPriority(), -1, edge);
+		Node backward = new Node(nextPriority(), -1, edge);
+		forward.twin = backward;
+		backward.twin = forward;
+		edgeNodes.put(edge, forward);
+		Node tour = merge(merge(reroot(vertexNode(u)), forward), reroot(vertexNode(v)));
+		merge(tour, backward).parent = null;
+	}
+
+	/**
+	 * Method removing an edge, splitting its tree in two
+	 *
+	 * @param edge the id of the edge
+	 * @throws UnsupportedOperationException if the edge is not in the forest
+	 */
+	public void cut(int edge) throws UnsupportedOperationException {
+		Node first = edgeNodes.remove(edge);
+		if (first == null)
+			throw new UnsupportedOperationException("Edge " + edge + " not in the forest");
+		Node second = first.twin;
+		int i = index(first);
+		int j = index(second);
+		if (i > j) {
+			int swap = i;
+			i = j;
+			j = swap;
+		}
+		// the tour reads A first B second C, and becomes A C and B
+		split(root(first), i);
+		Node before = low;
+		split(high, 1);
+		split(high, j - i - 1);
+		Node inside = low;
+		split(high, 1);
+		Node after = high;
+		if (inside != null)
+			inside.parent = null;
+		Node rest = merge(before, after);
+		if (rest != null)
+			rest.parent = null;
+	}
+
+	/**
+	 * Method telling if an edge is in the forest
+	 *
+	 * @param edge the id of the edge
+	 * @return true if the edge is in the forest, false if it is not
+	 */
+	public boolean contains(int edge) {
+		return edgeNodes.containsKey(edge);
+	}
+
+	/**
+	 * Method marking or unmarking an edge of the forest
+	 *
+	 * @param edge   the id of the edge
+	 * @param marked the new mark of the edge
+	 * @throws UnsupportedOperationException if the edge is not in the forest
+	 */
+	public void setMarked(int edge, boolean marked) throws UnsupportedOperationException {
+		Node x = edgeNodes.get(edge);
+		if (x == null)
+			throw new UnsupportedOperationException("Edge " + edge + " not in the forest");
+		x.marked = marked;
+		pullUp(x);
+	}
+
+	/**
+	 * Method finding a marked edge in the tree containing a vertex
+	 *
+	 * @param v the vertex
+	 * @return the id of a marked edge, -1 if the tree has none
+	 */
+	public int findMarked(int v) {
+		Node x = find(v);
+		if (x == null)
+			return -1;
+		x = root(x);
+		if (!x.anyMarked)
+			return -1;
+		while (true) {
+			if (x.left != null && x.left.anyMarked)
+				x = x.left;
+			else if (x.marked)
+				return x.edge;
+			else
+				x = x.right;
+		}
+	}
+
+	/**
+	 * Method changing the key carried by a vertex
+	 *
+	 * @param v   the vertex
+	 * @param key the new key, positive infinity standing for no key
+	 */
+	public void setKey(int v, double key) {
+		Node x = find(v);
+		if (x == null) {
+			if (key == Double.POSITIVE_INFINITY)
+				return;
+			x = vertexNode(v);
+		}
+		x.key = key;
+		pullUp(x);
+	}
+
+	/**
+	 * Method getting the key carried by a vertex
+	 *
+	 * @param v the vertex
+	 * @return the double key of the vertex, positive infinity if it has none
+	 */
+	public double getKey(int v) {
+		Node x = find(v);
+		return x == null ? Double.POSITIVE_INFINITY : x.key;
+	}
+
+	/**
+	 * Method finding the vertex with the smallest key in the tree containing a
+	 * vertex
+	 *
+	 * @param v the vertex
+	 * @return the vertex with the smallest key, -1 if no vertex of the tree has a
+	 *         key
+	 */
+	public int findMin(int v) {
+		Node x = find(v);
+		if (x == null)
+			return -1;
+		x = root(x);
+		if (x.minKey == Double.POSITIVE_INFINITY)
+			return -1;
+		while (true) {
+			if (x.left != null && x.left.minKey == x.minKey)
+				x = x.left;
+			else if (x.key == x.minKey)
+				return x.vertex;
+			else
+				x = x.right;
+		}
+	}
+
+	/**
+	 * Method returning the node of a vertex, if it has been created
+	 *
+	 * @param v the vertex
+	 * @return the vertex node, null if the vertex is still implicit
+	 */
+	protected Node find(int v) {
+		return v < vertexNodes.length ? vertexNodes[v] : null;
+	}
+
+	/**
+	 * Method returning the node of a vertex, creating it when needed
+	 *
+	 * @param v the vertex
+	 * @return the vertex node
+	 */
+	protected Node vertexNode(int v) {
+		if (v >= vertexNodes.length)
+			vertexNodes = Arrays.copyOf(vertexNodes, Math.max(v + 1, 2 * vertexNodes.length));
+		if (vertexNodes[v] == null)
+			vertexNodes[v] = new Node(nextPriority(), v, -1);
+		return vertexNodes[v];
+	}
+
+	/**
+	 * Method rotating the tour of a tree so that it starts at a vertex
+	 *
+	 * @param x the vertex node
+	 * @return the root of the rotated tour
+	 */
+	protected Node reroot(Node x) {
+		split(root(x), index(x));
+		Node before = low;
+		Node result = merge(high, before);
+		result.parent = null;
+		return result;
+	}
+
+	/**
+	 * Method returning the root of the treap containing a node
+	 *
+	 * @param x the node
+	 * @return the treap root
+	 */
+	protected Node root(Node x) {
+		while (x.parent != null) {
+			x = x.parent;
+		}
+		return x;
+	}
+
+	/**
+	 * Method returning the position of a node in its tour
+	 *
+	 * @param x the node
+	 * @return the number of nodes preceding it
+	 */
+	protected int index(Node x) {
+		int i = x.left == null ? 0 : x.left.size;
+		while (x.parent != null) {
+			if (x == x.parent.right)
+				i += (x.parent.left == null ? 0 : x.parent.left.size) + 1;
+			x = x.parent;
+		}
+		return i;
+	}
+
+	/**
+	 * Method concatenating two tours
+	 *
+	 * @param a the root of the first tour, may be null
+	 * @param b the root of the second tour, may be null
+	 * @return the root of the concatenation
+	 */
+	protected Node merge(Node a, Node b) {
+		if (a == null)
+			return b;
+		if (b == null)
+			return a;
+		if (a.priority > b.priority) {
+			a.right = merge(a.right, b);
+			a.right.parent = a;
+			a.pull();
+			return a;
+		}
+		b.left = merge(a, b.left);
+		b.left.parent = b;
+		b.pull();
+		return b;
+	}
+
+	/**
+	 * Method splitting a tour after a given number of nodes, leaving the two
+	 * parts in the low and high fields with no parent
+	 *
+	 * @param t the root of the tour, may be null
+	 * @param k the number of nodes of the first part
+	 */
+	protected void split(Node t, int k) {
+		splitRec(t, k);
+		if (low != null)
+			low.parent = null;
+		if (high != null)
+			high.parent = null;
+	}
+
+	/**
+	 * Method splitting a subtree after a given number of nodes
+	 *
+	 * @param t the root of the subtree, may be null
+	 * @param k the number of nodes of the first part
+	 */
+	private void splitRec(Node t, int k) {
+		if (t == null) {
+			low = null;
+			high = null;
+			return;
+		}
+		int leftSize = t.left == null ? 0 : t.left.size;
+		if (k <= leftSize) {
+			splitRec(t.left, k);
+			t.left = high;
+			if (high != null)
+				high.parent = t;
+			t.pull();
+			high = t;
+		} else {
+			splitRec(t.right, k - leftSize - 1);
+			t.right = low;
+			if (low != null)
+				low.parent = t;
+			t.pull();
+			low = t;
+		}
+	}
+
+	/**
+	 * Method recomputing the aggregates from a node up to its root
+	 *
+	 * @param x the changed node
+	 */
+	private void pullUp(Node x) {
+		for (; x != null; x = x.parent) {
+			x.pull();
+		}
+	}
+
+	/**
+	 * Method drawing the priority of a new node from a xorshift generator
+	 *
+	 * @return a pseudo random priority
+	 */
+	private int nextPriority() {
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		return seed;
+	}
+
+}
@@ -1,9 +1,12 @@
 package graphs.secondversion;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Class implementing a graph data structure
@@ -15,6 +18,7 @@ public class Graph<V> {
 	private final HashMap<V, LinkedList<V>> adjs;
 	private final WeightTable weights;
 	private final boolean oriented;
+	private long version;
 
 	/**
 	 * Constructor for an empty graph
@@ -29,6 +33,55 @@ public class Graph<V> {
 		this.oriented = oriented;
 	}
 
+	/**
+	 * Constructor copying an indexed graph, whose adjacency lists and weight rows
+	 * are built in parallel, one vertex at a time; adjacencies are copied as they
+	 * are, so every vertex keeps the order of its cursor
+	 *
+	 * @param g    the graph to copy
+	 * @param pool the pool building the adjacencies
+	 * @throws IllegalArgumentException when the graph or the pool, passed as
+	 *                                  params, is null
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Graph(IndexedGraph<V> g, ForkJoinPool pool) throws IllegalArgumentException {
+		if (g == null || pool == null)
+			throw new IllegalArgumentException("Graph and pool must be not null");
+		int n = g.vertexCount();
+		this.oriented = g.isOriented();
+		LinkedList<V>[] lists = new LinkedList[n];
+		HashMap<V, Double>[] rows = new HashMap[n];
+		double[] totals = new double[n];
+		ParallelRange.run(pool, 0, n, 1024, (from, to) -> {
+			IndexedGraph.Cursor cursor = g.cursor();
+			for (int v = from; v < to; v++) {
+				LinkedList<V> list = new LinkedList();
+				HashMap<V, Double> row = new HashMap(2 * g.degree(v));
+				cursor.reset(v);
+				while (cursor.next()) {
+					V adiacent = g.getLabel(cursor.target());
+					list.add(adiacent);
+					row.put(adiacent, cursor.weight());
+					totals[v] += cursor.weight();
+				}
+				lists[v] = list;
+				rows[v] = row;
+			}
+		});
+		HashMap<V, LinkedList<V>> adjs = new HashMap(2 * n);
+		HashMap<V, HashMap<V, Double>> table = new HashMap(2 * n);
+		double total = 0;
+		for (int v = 0; v < n; v++) {
+			V label = g.getLabel(v);
+			adjs.put(label, lists[v]);
+			if (!rows[v].isEmpty())
+				table.put(label, rows[v]);
+			total += totals[v];
+		}
+		this.adjs = adjs;
+		this.weights = new WeightTable(table, total);
+	}
+
 	/**
 	 * Method that adds a vertex to graph
 	 *
@@ -36,7 +89,8 @@ public class Graph<V> {
 	 */
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public void addVertex(V vertexName) {
-		adjs.putIfAbsent(vertexName, new LinkedList());
+		if (adjs.putIfAbsent(vertexName, new LinkedList()) == null)
+			version++;
 	}
 
 	/**
@@ -62,6 +116,7 @@ public class Graph<V> {
 				adjs.get(dest).add(src);
 				weights.set(dest, src, weight);
 			}
+			version++;
 		}
 	}
 
@@ -83,6 +138,7 @@ public class Graph<V> {
 				adjs.get(dest).add(src);
 				weights.set(dest, src, weight);
 			}
+			version++;
 		}
 	}
 
@@ -105,6 +161,7 @@ public class Graph<V> {
 			weights.remove(entry.getKey(), vertexName);
 			weights.remove(vertexName, entry.getKey());
 		}
+		version++;
 	}
 
 	/**
@@ -133,6 +190,17 @@ public class Graph<V> {
 			adjs.get(dest).remove(src);
 			weights.remove(dest, src);
 		}
+		version++;
+	}
+
+	/**
+	 * Method returning the modification counter of the graph, increased by every
+	 * change of its vertexes or edges
+	 *
+	 * @return a long value, never decreasing
+	 */
+	public long getVersion() {
+		return version;
 	}
 
 	/**
@@ -269,34 +337,110 @@ public class Graph<V> {
 	 */
 	@Override
 	public String toString() {
-		String out = "";
-		out += oriented ? "Oriented Graph" : "Not Oriented Graph";
-		out += "\n";
-		out += "Vertex count: " + this.vertexCount() + "\n";
-		out += "Edge count: " + this.edgeCount() + "\n";
-		out += "Total weight: " + this.weight() + "\n";
-		out += "Vertex list: [ ";
-		for (V v : adjs.keySet()) {
-			out += v.toString() + ", ";
+		StringBuilder out = new StringBuilder();
+		try {
+			dump(out);
+		} catch (IOException e) {
+			// a StringBuilder never fails
+			throw new UncheckedIOException(e);
 		}
-		if (this.vertexCount() > 0) {
-			out = out.substring(0, out.length() - 2);
+		return out.toString();
+	}
+
+	/**
+	 * Method writing the representation returned by toString to an output, a
+	 * piece at a time, in time linear in the size of the graph
+	 *
+	 * @param out the output receiving the representation
+	 * @throws IllegalArgumentException when the output, passed as param, is null
+	 * @throws IOException              if the output cannot be written
+	 */
+	public void dump(Appendable out) throws IllegalArgumentException, IOException {
+		dump(out, Integer.MAX_VALUE, Integer.MAX_VALUE, 1);
+	}
+
+	/**
+	 * Method writing a bounded representation of the graph structure to an
+	 * output, so that huge graphs can be inspected safely: only a sample of the
+	 * vertexes, taken at a fixed stride in iteration order, is listed, with a
+	 * bounded number of adjacencies each, and every omission is reported with the
+	 * count of the omitted items
+	 *
+	 * @param out            the output receiving the representation
+	 * @param maxVertexes    the greatest number of vertexes listed
+	 * @param maxAdjacencies the greatest number of adjacencies listed per vertex
+	 * @param stride         the distance between two sampled vertexes, 1 to take
+	 *                       them all
+	 * @throws IllegalArgumentException when the output, passed as param, is null,
+	 *                                  or a limit or the stride is not positive
+	 * @throws IOException              if the output cannot be written
+	 */
+	public void dump(Appendable out, int maxVertexes, int maxAdjacencies, int stride)
+			throws IllegalArgumentException, IOException {
+		if (out == null)
+			throw new IllegalArgumentException("Output must be not null");
+		if (maxVertexes < 1 || maxAdjacencies < 1 || stride < 1)
+			throw new IllegalArgumentException("Limits and stride must be positive");
+		out.append(oriented ? "Oriented Graph" : "Not Oriented Graph").append('\n');
+		out.append("Vertex count: ").append(String.valueOf(vertexCount())).append('\n');
+		out.append("Edge count: ").append(String.valueOf(edgeCount())).append('\n');
+		out.append("Total weight: ").append(String.valueOf(weight())).append('\n');
+		out.append("Vertex list: [ ");
+		int listed = 0;
+		int position = 0;
+		for (V v : adjs.keySet()) {
+			if (listed == maxVertexes)
+				break;
+			if (position++ % stride != 0)
+				continue;
+			if (listed++ > 0)
+				out.append(", ");
+			out.append(v.toString());
 		}
-		out += " ]\n";
-		out += "Adjacencies: {\n";
+		appendOmitted(out, listed, adjs.size() - listed);
+		out.append(" ]\n");
+		out.append("Adjacencies: {\n");
+		listed = 0;
+		position = 0;
 		for (Map.Entry<V, LinkedList<V>> entry : adjs.entrySet()) {
-			out += "\t" + entry.getKey().toString() + ": [ ";
-			LinkedList<V> adjs = entry.getValue();
-			for (V adiacent : adjs) {
-				out += "to " + adiacent.toString() + " in " + weights.get(entry.getKey(), adiacent) + ", ";
-			}
-			if (adjs.size() > 0) {
-				out = out.substring(0, out.length() - 2);
+			if (listed == maxVertexes)
+				break;
+			if (position++ % stride != 0)
+				continue;
+			listed++;
+			out.append('\t').append(entry.getKey().toString()).append(": [ ");
+			HashMap<V, Double> row = weights.table.get(entry.getKey());
+			int written = 0;
+			for (V adiacent : entry.getValue()) {
+				if (written == maxAdjacencies)
+					break;
+				if (written++ > 0)
+					out.append(", ");
+				out.append("to ").append(adiacent.toString()).append(" in ")
+						.append(String.valueOf(row == null ? null : row.get(adiacent)));
 			}
-			out += " ]\n";
+			appendOmitted(out, written, entry.getValue().size() - written);
+			out.append(" ]\n");
 		}
-		out += "}";
-		return out;
+		if (listed < adjs.size())
+			out.append("\t... (").append(String.valueOf(adjs.size() - listed)).append(" more)\n");
+		out.append('}');
+	}
+
+	/**
+	 * Method reporting the items left out of a list
+	 *
+	 * @param out     the output receiving the report
+	 * @param listed  the number of items already listed
+	 * @param omitted the number of items left out
+	 * @throws IOException if the output cannot be written
+	 */
+	private static void appendOmitted(Appendable out, int listed, int omitted) throws IOException {
+		if (omitted <= 0)
+			return;
+		if (listed > 0)
+			out.append(", ");
+		out.append("... (").append(String.valueOf(omitted)).append(" more)");
 	}
 
 	/**
@@ -316,6 +460,17 @@ public class Graph<V> {
 			weight = 0.0;
 		}
 
+		/**
+		 * Constructor accepting already built rows, which are not copied
+		 * 
+		 * @param table  the rows, indexed by row label
+		 * @param weight the sum of every cell value
+		 */
+		public WeightTable(HashMap<V, HashMap<V, Double>> table, double weight) {
+			this.table = table;
+			this.weight = weight;
+		}
+
 		/**
 		 * Method setting the value of the cell with coords are given by r and c
 		 * 
@@ -341,9 +496,7 @@ public class Graph<V> {
 		 */
 		public Double get(V r, V c) {
 			if (table.containsKey(r)) {
-				if (table.containsKey(c)) {
-					return table.get(r).get(c);
-				}
+				return table.get(r).get(c);
 			}
 			return null;
 		}
@@ -355,9 +508,8 @@ public class Graph<V> {
 		 * @param c the column label
 		 */
 		public void remove(V r, V c) {
-			if (table.containsKey(r)) {
-				weight -= get(r, c);
-				table.get(r).remove(c);
+			if (table.containsKey(r) && table.get(r).containsKey(c)) {
+				weight -= table.get(r).remove(c);
 			}
 		}
 
@@ -377,14 +529,51 @@ public class Graph<V> {
 		 */
 		@Override
 		public String toString() {
-			String out = "";
+			StringBuilder out = new StringBuilder();
+			try {
+				dump(out, Integer.MAX_VALUE, Integer.MAX_VALUE);
+			} catch (IOException e) {
+				// a StringBuilder never fails
+				throw new UncheckedIOException(e);
+			}
+			return out.toString();
+		}
+
+		/**
+		 * Method writing a bounded representation of the table to an output, one
+		 * line per row, reporting the count of the omitted rows and cells
+		 * 
+		 * @param out      the output receiving the representation
+		 * @param maxRows  the greatest number of rows written
+		 * @param maxCells the greatest number of cells written per row
+		 * @throws IllegalArgumentException when the output, passed as param, is
+		 *                                  null, or a limit is not positive
+		 * @throws IOException              if the output cannot be written
+		 */
+		public void dump(Appendable out, int maxRows, int maxCells) throws IllegalArgumentException, IOException {
+			if (out == null)
+				throw new IllegalArgumentException("Output must be not null");
+			if (maxRows < 1 || maxCells < 1)
+				throw new IllegalArgumentException("Limits must be positive");
+			int rows = 0;
 			for (Map.Entry<V, HashMap<V, Double>> outer : table.entrySet()) {
+				if (rows++ == maxRows) {
+					out.append("... (").append(String.valueOf(table.size() - maxRows)).append(" more rows)\n");
+					break;
+				}
+				int cells = 0;
 				for (Map.Entry<V, Double> inner : outer.getValue().entrySet()) {
-					out += "<" + outer.getKey() + ", " + inner.getKey() + ", " + inner.getValue() + ">";
+					if (cells++ == maxCells) {
+						out.append("... (").append(String.valueOf(outer.getValue().size() - maxCells))
+								.append(" more)");
+						break;
+					}
+					out.append('<').append(String.valueOf(outer.getKey())).append(", ")
+							.append(String.valueOf(inner.getKey())).append(", ")
+							.append(String.valueOf(inner.getValue())).append('>');
 				}
-				out += "\n";
+				out.append('\n');
 			}
-			return out;
 		}
 
 	}
@@ -0,0 +1,155 @@
+package graphs.secondversion;
+
+import java.util.Arrays;
+
+/**
+ * Class splitting an indexed graph into balanced shards with a small edge cut
+ * through one pass of streaming partitioning: vertexes are visited in breadth
+ * first order, so that most of the neighbours of a vertex are already placed
+ * when it arrives, and each one is assigned for good to the shard scoring best
+ * between the neighbours it already holds and a penalty growing with its size.
+ * Two scores are available: linear deterministic greedy (LDG), which scales the
+ * neighbours by the room left in the shard, and Fennel, which subtracts the
+ * marginal cost of a superlinear size term; in both cases no shard exceeds the
+ * capacity allowed by the imbalance. A pass takes linear time and needs only
+ * the shard sizes and one counter per shard besides the assignment
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public class GraphPartitioner<V> {
+
+	/**
+	 * Scores choosing the shard of a vertex
+	 */
+	public enum Strategy {
+		/**
+		 * neighbours in the shard times the fraction of the capacity left
+		 */
+		LDG,
+		/**
+		 * neighbours in the shard minus the marginal cost of its size, raised to
+		 * the power of 1.5
+		 */
+		FENNEL
+	}
+
+	private static final double GAMMA = 1.5;
+
+	private final IndexedGraph<V> g;
+
+	/**
+	 * Constructor for a partitioner working on a given graph
+	 *
+	 * @param g the used graph
+	 * @throws IllegalArgumentException when the graph, passed as param, is null
+	 */
+	public GraphPartitioner(IndexedGraph<V> g) throws IllegalArgumentException {
+		if (g == null)
+			throw new IllegalArgumentException("Graph must be not null");
+		this.g = g;
+	}
+
+	/**
+	 * Method assigning every vertex to a shard
+	 *
+	 * @param k         the number of shards
+	 * @param strategy  the score choosing the shard of a vertex
+	 * @param imbalance the fraction by which a shard may exceed the average
+	 *                  size, as 0.05 for 5%
+	 * @return the shard of every vertex, indexed by vertex id
+	 * @throws IllegalArgumentException when the strategy, passed as param, is
+	 *                                  null, the number of shards is not positive
+	 *                                  or the imbalance is negative
+	 */
+	public int[] partition(int k, Strategy strategy, double imbalance) throws IllegalArgumentException {
+		if (strategy == null)
+			throw new IllegalArgumentException("Strategy must be not null");
+		if (k < 1 || !(imbalance >= 0))
+			throw new IllegalArgumentException("Shards must be positive and imbalance not negative");
+		int n = g.vertexCount();
+		int[] parts = new int[n];
+		Arrays.fill(parts, -1);
+		int[] sizes = new int[k];
+		int[] neighbours = new int[k];
+		int[] touched = new int[k];
+		double capacity = Math.max(1, Math.ceil((1 + imbalance) * n / k));
+		double edges = g.isOriented() ? g.adjacencyCount() : g.adjacencyCount() / 2.0;
+		double alpha = n == 0 ? 0 : Math.sqrt(k) * edges / Math.pow(n, GAMMA);
+
+		int[] order = new int[n];
+		boolean[] queued = new boolean[n];
+		int head = 0;
+		int tail = 0;
+		IndexedGraph.Cursor cursor = g.cursor();
+		for (int root = 0; root < n; root++) {
+			if (queued[root])
+				continue;
+			queued[root] = true;
+			order[tail++] = root;
+			while (head < tail) {
+				int v = order[head++];
+
+				// counting the neighbours already placed in every shard
+				int touchedCount = 0;
+				cursor.reset(v);
+				while (cursor.next()) {
+					int w = cursor.target();
+					if (parts[w] >= 0) {
+						if (neighbours[parts[w]]++ == 0)
+							touched[touchedCount++] = parts[w];
+					} else if (!queued[w]) {
+						queued[w] = true;
+						order[tail++] = w;
+					}
+				}
+
+				int best = -1;
+				double bestScore = Double.NEGATIVE_INFINITY;
+				for (int p = 0; p < k; p++) {
+					if (sizes[p] >= capacity)
+						continue;
+					double score;
+					if (strategy == Strategy.LDG)
+						score = neighbours[p] * (1 - sizes[p] / capacity);
+					else
+						score = neighbours[p] - alpha * GAMMA * Math.sqrt(sizes[p]);
+					// ties go to the smallest shard
+					if (score > bestScore || (score == bestScore && sizes[p] < sizes[best])) {
+						best = p;
+						bestScore = score;
+					}
+				}
+				parts[v] = best;
+				sizes[best]++;
+				for (int i = 0; i < touchedCount; i++) {
+					neighbours[touched[i]] = 0;
+				}
+			}
+		}
+		return parts;
+	}
+
+	/**
+	 * Method counting the edges whose endpoints lie in different shards
+	 *
+	 * @param parts the shard of every vertex, indexed by vertex id
+	 * @return a long value of the cut edges count
+	 * @throws IllegalArgumentException when the assignment, passed as param, is
+	 *                                  null or has not one shard per vertex
+	 */
+	public long edgeCut(int[] parts) throws IllegalArgumentException {
+		if (parts == null || parts.length != g.vertexCount())
+			throw new IllegalArgumentException("Assignment must hold one shard per vertex");
+		long cut = 0;
+		IndexedGraph.Cursor cursor = g.cursor();
+		for (int v = 0; v < parts.length; v++) {
+			cursor.reset(v);
+			while (cursor.next()) {
+				if (parts[cursor.target()] != parts[v])
+					cut++;
+			}
+		}
+		return g.isOriented() ? cut : cut / 2;
+	}
+
+}
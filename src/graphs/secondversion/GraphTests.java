@@ -1,11 +1,22 @@
 package graphs.secondversion;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 import static org.junit.Assert.assertEquals;
 import org.junit.Before;
 import org.junit.Test;
@@ -118,6 +129,31 @@ public class GraphTests {
 		notOrientedGraph.removeVertex("Manchester");
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testRemoveVertex_Weight() {
+		notOrientedConnectedGraph.removeVertex("Manchester");
+		assertEquals(35, notOrientedConnectedGraph.weight(), 0);
+		orientedConnectedGraph.removeVertex("Londra");
+		assertEquals(13, orientedConnectedGraph.weight(), 0);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testGetVersion() {
+		long version = notOrientedGraph.getVersion();
+		notOrientedGraph.addVertex("Londra");
+		assertEquals(version, notOrientedGraph.getVersion());
+		notOrientedGraph.addEdge("Londra", "Parigi", 4);
+		assertEquals(version + 1, notOrientedGraph.getVersion());
+		notOrientedGraph.addEdge("Londra", "Parigi", 4);
+		assertEquals(version + 1, notOrientedGraph.getVersion());
+		notOrientedGraph.removeEdge("Londra", "Parigi");
+		notOrientedGraph.removeVertex("Londra");
+		notOrientedGraph.addVertex("Berlino");
+		assertEquals(version + 4, notOrientedGraph.getVersion());
+	}
+
 	@SuppressWarnings("unchecked")
 	@Test(expected = NoSuchElementException.class)
 	public void testRemoveEdge_Fail_FirstVertex() throws NoSuchElementException {
@@ -180,6 +216,39 @@ public class GraphTests {
 		assertEquals(false, notOrientedGraph.isEmpty());
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testToString() {
+		orientedGraph.addEdgeForced("A", "B", 2.5);
+		orientedGraph.addVertex("C");
+		assertEquals("Oriented Graph\nVertex count: 3\nEdge count: 1\nTotal weight: 2.5\n"
+				+ "Vertex list: [ A, B, C ]\nAdjacencies: {\n\tA: [ to B in 2.5 ]\n\tB: [  ]\n\tC: [  ]\n}",
+				orientedGraph.toString());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testDump_Limits() throws IOException {
+		for (int i = 1; i < 1000; i++) {
+			orientedGraph.addEdgeForced(0, i, i);
+			orientedGraph.addEdgeForced(i, 0, i);
+		}
+		StringBuilder out = new StringBuilder();
+		orientedGraph.dump(out, 3, 2, 10);
+		String[] lines = out.toString().split("\n");
+		assertEquals("Vertex count: 1000", lines[1]);
+		assertEquals("Vertex list: [ 0, 10, 20, ... (997 more) ]", lines[4]);
+		assertEquals("\t0: [ to 1 in 1.0, to 2 in 2.0, ... (997 more) ]", lines[6]);
+		assertEquals("\t10: [ to 0 in 10.0 ]", lines[7]);
+		assertEquals("\t... (997 more)", lines[9]);
+		assertEquals("}", lines[10]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDump_Fail_Limit() throws IOException {
+		notOrientedGraph.dump(new StringBuilder(), 0, 1, 1);
+	}
+
 	@Test
 	public void testGraphIsNotOriented() {
 		assertEquals(false, notOrientedGraph.isOriented());
@@ -299,4 +368,1081 @@ public class GraphTests {
 		assertEquals(true, resultVertex && resultEdge);
 	}
 
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testMinimumSpanningForest_Components() {
+		Graph islands = new Graph(false);
+		islands.addEdgeForced("Londra", "New York", 5);
+		islands.addEdgeForced("New York", "Parigi", 3);
+		islands.addEdgeForced("Londra", "Parigi", 1);
+		islands.addEdgeForced("Roma", "Milano", 4);
+		islands.addVertex("Dubai");
+		SpanningForest forest = Prim.minimumSpanningForest(islands, new MinHeapComparator(), 2);
+		assertEquals(3, forest.componentCount());
+		assertEquals(8, forest.weight(), 0);
+		int londra = forest.getComponentId("Londra");
+		assertEquals(londra, forest.getComponentId("Parigi"));
+		assertEquals(4, forest.getComponentWeight(londra), 0);
+		assertEquals(2, forest.getTree(londra).edgeCount());
+		assertEquals(4, forest.getComponentWeight(forest.getComponentId("Milano")), 0);
+		assertEquals(1, forest.getTree(forest.getComponentId("Dubai")).vertexCount());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testMinimumSpanningForest_ConnectedGraph() {
+		SpanningForest forest = Prim.minimumSpanningForest(notOrientedConnectedGraph, new MinHeapComparator());
+		Graph mstGraph = Prim.mstPrim(notOrientedConnectedGraph, "Roma", new MinHeapComparator());
+		assertEquals(1, forest.componentCount());
+		assertEquals(mstGraph.weight(), forest.weight(), 0);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test(expected = UnsupportedOperationException.class)
+	public void testMinimumSpanningForest_Fail_NegativeWeights() {
+		Graph negativeWeightsGraph = new Graph(false);
+		negativeWeightsGraph.addEdgeForced("Roma", "Berlino", 4);
+		negativeWeightsGraph.addEdgeForced("Parigi", "Madrid", -2);
+		Prim.minimumSpanningForest(negativeWeightsGraph, new MinHeapComparator());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testDynamicMst_AddEdge() {
+		Graph mstGraph = Prim.mstPrim(notOrientedConnectedGraph, "Roma", new MinHeapComparator());
+		DynamicMst dynamic = new DynamicMst(mstGraph);
+		assertEquals(false, dynamic.addEdge("Milano", "Parigi", 8));
+		assertEquals(true, dynamic.addEdge("Milano", "Parigi", 4));
+		assertEquals(true, dynamic.getTree().containsEdge("Milano", "Parigi"));
+		assertEquals(false, dynamic.getTree().containsEdge("Milano", "New York"));
+		assertEquals(true, dynamic.addEdge("Berlino", "Roma", 9));
+		assertEquals(9, dynamic.pathMaxWeight("Berlino", "Dubai"), 0);
+		assertEquals(mstGraph.weight() - 3 + 9, dynamic.weight(), 0);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testDynamicMst_RandomInsertions() {
+		Random random = new Random(42);
+		int n = 60;
+		Graph full = new Graph(false);
+		Graph initial = new Graph(false);
+		for (int i = 0; i < n; i++) {
+			full.addVertex(i);
+			initial.addVertex(i);
+		}
+		LinkedList<int[]> later = new LinkedList();
+		for (int k = 0; k < 400; k++) {
+			int a = random.nextInt(n);
+			int b = random.nextInt(n);
+			if (a == b || full.containsEdge(a, b))
+				continue;
+			int w = 1 + random.nextInt(100);
+			full.addEdge(a, b, w);
+			if (k < 100) {
+				initial.addEdge(a, b, w);
+			} else {
+				later.add(new int[] { a, b, w });
+			}
+		}
+		DynamicMst dynamic = new DynamicMst(Prim.mstPrim(initial, 0, new MinHeapComparator()));
+		for (int[] edge : later) {
+			dynamic.addEdge(edge[0], edge[1], edge[2]);
+		}
+		Graph expected = Prim.mstPrim(full, 0, new MinHeapComparator());
+		assertEquals(expected.weight(), dynamic.weight(), 0);
+		assertEquals(expected.edgeCount(), dynamic.getTree().edgeCount());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testDynamicMst_RemoveEdge() {
+		Graph mstGraph = Prim.mstPrim(notOrientedConnectedGraph, "Roma", new MinHeapComparator());
+		DynamicMst dynamic = new DynamicMst(notOrientedConnectedGraph, mstGraph);
+		assertEquals(true, dynamic.removeEdge("Roma", "Londra"));
+		assertEquals(true, dynamic.getTree().containsEdge("Dubai", "Londra"));
+		assertEquals(30, dynamic.weight(), 0);
+		assertEquals(true, dynamic.removeEdge("Dubai", "Roma"));
+		assertEquals(false, dynamic.connected("Roma", "Londra"));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test(expected = NoSuchElementException.class)
+	public void testDynamicMst_Fail_RemoveMissingEdge() {
+		DynamicMst dynamic = new DynamicMst(notOrientedConnectedGraph,
+				Prim.mstPrim(notOrientedConnectedGraph, "Roma", new MinHeapComparator()));
+		dynamic.removeEdge("Roma", "Manchester");
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testDynamicMst_RandomUpdates() {
+		Random random = new Random(7);
+		int n = 40;
+		Graph mirror = new Graph(false);
+		for (int i = 0; i < n; i++) {
+			mirror.addVertex(i);
+		}
+		DynamicMst dynamic = new DynamicMst(mirror, Prim.mstPrim(mirror, 0, new MinHeapComparator()));
+		for (int step = 0; step < 1500; step++) {
+			int a = random.nextInt(n);
+			int b = random.nextInt(n);
+			if (a == b)
+				continue;
+			int w = 1 + random.nextInt(50);
+			if (!mirror.containsEdge(a, b)) {
+				mirror.addEdge(a, b, w);
+				dynamic.addEdge(a, b, w);
+			} else if (random.nextBoolean()) {
+				mirror.removeEdge(a, b);
+				dynamic.removeEdge(a, b);
+			} else {
+				mirror.removeEdge(a, b);
+				mirror.addEdge(a, b, w);
+				dynamic.updateWeight(a, b, w);
+			}
+			if (step % 50 == 0) {
+				Graph expected = Prim.mstPrim(mirror, 0, new MinHeapComparator());
+				assertEquals(expected.weight(), dynamic.weight(), 0);
+				assertEquals(expected.edgeCount(), dynamic.getTree().edgeCount());
+			}
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testDynamicMst_RandomDeletions() {
+		Random random = new Random(11);
+		int n = 150;
+		Graph mirror = new Graph(false);
+		for (int i = 0; i < n; i++) {
+			mirror.addVertex(i);
+		}
+		LinkedList<int[]> edges = new LinkedList();
+		for (int k = 0; k < 900; k++) {
+			int a = k < n ? k : random.nextInt(n);
+			int b = k < n ? (k + 1) % n : random.nextInt(n);
+			if (a != b && !mirror.containsEdge(a, b)) {
+				mirror.addEdge(a, b, 1 + random.nextInt(20));
+				edges.add(new int[] { a, b });
+			}
+		}
+		DynamicMst dynamic = new DynamicMst(mirror, Prim.mstPrim(mirror, 0, new MinHeapComparator()));
+		Collections.shuffle(edges, random);
+		int step = 0;
+		for (int[] edge : edges) {
+			mirror.removeEdge(edge[0], edge[1]);
+			dynamic.removeEdge(edge[0], edge[1]);
+			if (step++ % 20 == 0) {
+				SpanningForest expected = Prim.minimumSpanningForest(mirror, new MinHeapComparator());
+				assertEquals(expected.weight(), dynamic.weight(), 0);
+				assertEquals(n - expected.componentCount(), dynamic.getTree().edgeCount());
+			}
+		}
+		assertEquals(0, dynamic.getTree().edgeCount());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testMstWeightEstimator() {
+		Random random = new Random(3);
+		Graph g = new Graph(false);
+		for (int i = 0; i < 300; i++) {
+			g.addVertex(i);
+		}
+		for (int k = 0; k < 900; k++) {
+			int a = random.nextInt(300);
+			int b = random.nextInt(300);
+			if (a != b)
+				g.addEdgeForced(a, b, 1 + random.nextInt(100));
+		}
+		double expected = Prim.mstPrim(g, 0, new MinHeapComparator()).weight();
+		WeightEstimate estimate = new MstWeightEstimator(0.05, 100, 3000, 11).estimate(g);
+		assertEquals(expected, estimate.value(), expected * 0.1);
+		assertEquals(true, estimate.getLowerBound() <= estimate.value());
+		assertEquals(true, estimate.getUpperBound() >= estimate.value());
+		assertEquals(0.95, estimate.getConfidence(), 0);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testMstWeightEstimator_Truncated() {
+		Random random = new Random(5);
+		Graph g = new Graph(false);
+		for (int i = 0; i < 400; i++) {
+			g.addEdgeForced(i, (i + 1) % 400, 1 + random.nextInt(100));
+		}
+		double expected = Prim.mstPrim(g, 0, new MinHeapComparator()).weight();
+		// every exploration stops after 5 vertexes
+		MstWeightEstimator estimator = new MstWeightEstimator(0.5, 100, 4000, 9);
+		WeightEstimate estimate = estimator.estimate(g);
+		assertEquals(true, estimate.getLowerBound() <= expected);
+		assertEquals(true, estimate.getUpperBound() >= expected);
+		g.addEdgeForced(0, 200, 1);
+		estimate = estimator.estimate(g);
+		assertEquals(true, estimate.getUpperBound() >= Prim.mstPrim(g, 0, new MinHeapComparator()).weight());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test(expected = UnsupportedOperationException.class)
+	public void testMstWeightEstimator_Fail_WeightBound() {
+		new MstWeightEstimator(0.1, 10, 100, 1).estimate(notOrientedConnectedGraph);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testMstWeightEstimator_Disconnected() {
+		WeightEstimate estimate = new MstWeightEstimator(0.1, 100, 500, 1).estimate(notOrientedGraph);
+		assertEquals(0, estimate.value(), 0);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testDijkstra_NotOriented() {
+		Dijkstra dijkstra = new Dijkstra(notOrientedConnectedGraph, new MinHeapComparator());
+		ShortestPaths paths = dijkstra.run("Roma");
+		assertEquals(0, paths.getDistance("Roma"), 0);
+		assertEquals(2, paths.getDistance("Dubai"), 0);
+		assertEquals(11, paths.getDistance("New York"), 0);
+		assertEquals(15, paths.getDistance("Manchester"), 0);
+		assertEquals(18, paths.getDistance("Milano"), 0);
+		assertEquals(Arrays.asList("Roma", "Londra", "New York", "Parigi", "Manchester"),
+				paths.getPath("Manchester"));
+		assertEquals(7, paths.getDistances().size());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testDijkstra_Oriented() {
+		Dijkstra dijkstra = new Dijkstra(orientedConnectedGraph, new MinHeapComparator());
+		ShortestPaths paths = dijkstra.run("Roma");
+		assertEquals(6, paths.getDistance("Londra"), 0);
+		assertEquals(11, paths.getDistance("New York"), 0);
+		assertEquals(false, paths.hasPathTo("Manchester"));
+		assertEquals(Double.POSITIVE_INFINITY, paths.getDistance("Manchester"), 0);
+		assertEquals(0, paths.getPath("Manchester").size());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testDijkstra_EarlyTermination() {
+		Dijkstra dijkstra = new Dijkstra(notOrientedConnectedGraph, new MinHeapComparator());
+		ShortestPaths paths = dijkstra.run("Roma", "Londra");
+		assertEquals(6, paths.getDistance("Londra"), 0);
+		assertEquals(false, paths.hasPathTo("Milano"));
+		paths = dijkstra.run("Manchester", "Roma");
+		assertEquals(15, paths.getDistance("Roma"), 0);
+		assertEquals(Arrays.asList("Manchester", "Parigi", "New York", "Londra", "Roma"), paths.getPath("Roma"));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test(expected = NoSuchElementException.class)
+	public void testDijkstra_Fail_SourceNotFound() {
+		new Dijkstra(notOrientedConnectedGraph, new MinHeapComparator()).run("Redmond");
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test(expected = UnsupportedOperationException.class)
+	public void testDijkstra_Fail_NegativeWeights() {
+		Graph negativeWeightsGraph = new Graph(false);
+		negativeWeightsGraph.addEdgeForced("Roma", "Berlino", 4);
+		negativeWeightsGraph.addEdgeForced("Berlino", "Parigi", -2);
+		new Dijkstra(negativeWeightsGraph, new MinHeapComparator()).run("Roma");
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testPointToPointSearch_Bidirectional() {
+		PointToPointSearch search = new PointToPointSearch(notOrientedConnectedGraph, new MinHeapComparator());
+		Path path = search.bidirectional("Roma", "Manchester");
+		assertEquals(15, path.getDistance(), 0);
+		assertEquals(Arrays.asList("Roma", "Londra", "New York", "Parigi", "Manchester"), path.getVertexes());
+		search = new PointToPointSearch(orientedConnectedGraph, new MinHeapComparator());
+		path = search.bidirectional("Roma", "New York");
+		assertEquals(11, path.getDistance(), 0);
+		assertEquals(Arrays.asList("Roma", "Londra", "New York"), path.getVertexes());
+		assertEquals(false, search.bidirectional("New York", "Roma").isFound());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testPointToPointSearch_AStar() {
+		Random random = new Random(5);
+		int side = 30;
+		Graph grid = new Graph(false);
+		for (int x = 0; x < side; x++) {
+			for (int y = 0; y < side; y++) {
+				if (x + 1 < side)
+					grid.addEdgeForced(x * side + y, (x + 1) * side + y, 1 + random.nextDouble());
+				if (y + 1 < side)
+					grid.addEdgeForced(x * side + y, x * side + y + 1, 1 + random.nextDouble());
+			}
+		}
+		Heuristic<Integer> euclidean = (from, to) -> Math.hypot(from / side - to / side, from % side - to % side);
+		Dijkstra dijkstra = new Dijkstra(grid, new MinHeapComparator());
+		PointToPointSearch search = new PointToPointSearch(grid, new MinHeapComparator());
+		int dijkstraSettled = 0;
+		int aStarSettled = 0;
+		for (int k = 0; k < 20; k++) {
+			int source = random.nextInt(side * side);
+			int target = random.nextInt(side * side);
+			ShortestPaths expected = dijkstra.run(source, target);
+			dijkstraSettled += expected.getDistances().size();
+			assertEquals(expected.getDistance(target), search.bidirectional(source, target).getDistance(), 1e-9);
+			Path path = search.aStar(source, target, euclidean);
+			aStarSettled += path.getSettledCount();
+			assertEquals(expected.getDistance(target), path.getDistance(), 1e-9);
+			assertEquals(source, path.getVertexes().getFirst());
+			assertEquals(target, path.getVertexes().getLast());
+		}
+		assertEquals(true, aStarSettled < dijkstraSettled);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testCsrGraph() {
+		CsrGraph csr = new CsrGraph(orientedConnectedGraph);
+		assertEquals(7, csr.vertexCount());
+		assertEquals(7, csr.adjacencyCount());
+		assertEquals(true, csr.isOriented());
+		int roma = csr.indexOf("Roma");
+		assertEquals("Roma", csr.getLabel(roma));
+		assertEquals(2, csr.degree(roma));
+		assertEquals(-1, csr.indexOf("Berlino"));
+		IndexedGraph.Cursor cursor = csr.cursor();
+		cursor.reset(roma);
+		double total = 0;
+		while (cursor.next()) {
+			total += cursor.weight();
+			assertEquals(true, orientedConnectedGraph.containsEdge("Roma", csr.getLabel(cursor.target())));
+		}
+		assertEquals(8, total, 0);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testDeltaStepping() {
+		Random random = new Random(9);
+		int n = 2000;
+		Graph g = new Graph(false);
+		for (int i = 0; i < n; i++) {
+			g.addVertex(i);
+		}
+		for (int k = 0; k < 8000; k++) {
+			g.addEdgeForced(random.nextInt(n), random.nextInt(n), random.nextInt(100));
+		}
+		ShortestPaths expected = new Dijkstra(g, new MinHeapComparator()).run(0);
+		CsrGraph csr = new CsrGraph(g);
+		for (int threads : new int[] { 1, 4 }) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			for (double delta : new double[] { 1e-300, 1e-9, 1, 10, 1000 }) {
+				HashMap distances = new DeltaStepping(csr, delta, pool).run(0);
+				assertEquals(expected.getDistances(), distances);
+			}
+			pool.shutdown();
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test(expected = IllegalArgumentException.class)
+	public void testDeltaStepping_Fail_Delta() {
+		new DeltaStepping(new CsrGraph(notOrientedConnectedGraph), 0, ForkJoinPool.commonPool());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testContractionHierarchy() {
+		Random random = new Random(13);
+		int n = 300;
+		for (boolean oriented : new boolean[] { false, true }) {
+			Graph g = new Graph(oriented);
+			for (int i = 0; i < n; i++) {
+				g.addVertex(i);
+			}
+			for (int k = 0; k < 4 * n; k++) {
+				g.addEdgeForced(random.nextInt(n), random.nextInt(n), random.nextInt(50));
+			}
+			ContractionHierarchy ch = new ContractionHierarchy(new CsrGraph(g), new MinHeapComparator());
+			Dijkstra dijkstra = new Dijkstra(g, new MinHeapComparator());
+			for (int k = 0; k < 30; k++) {
+				int source = random.nextInt(n);
+				ShortestPaths expected = dijkstra.run(source);
+				for (int target = 0; target < n; target += 7) {
+					assertEquals(expected.getDistance(target), ch.distance(source, target), 1e-9);
+					Path path = ch.path(source, target);
+					assertEquals(expected.hasPathTo(target), path.isFound());
+					if (path.isFound()) {
+						Integer previous = null;
+						double total = 0;
+						for (Object v : path.getVertexes()) {
+							if (previous != null)
+								total += g.getEdgeWeight(previous, v);
+							previous = (Integer) v;
+						}
+						assertEquals(source, path.getVertexes().getFirst());
+						assertEquals(target, path.getVertexes().getLast());
+						assertEquals(path.getDistance(), total, 1e-9);
+					}
+				}
+			}
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testContractionHierarchy_SaveLoad() throws IOException {
+		ContractionHierarchy ch = new ContractionHierarchy(new CsrGraph(orientedConnectedGraph),
+				new MinHeapComparator());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ch.save(out);
+		ContractionHierarchy loaded = ContractionHierarchy.load(new ByteArrayInputStream(out.toByteArray()),
+				new MinHeapComparator());
+		assertEquals(7, loaded.vertexCount());
+		assertEquals(ch.arcCount(), loaded.arcCount());
+		assertEquals(ch.getRank("Roma"), loaded.getRank("Roma"));
+		assertEquals(11, loaded.distance("Roma", "New York"), 0);
+		assertEquals(Arrays.asList("Roma", "Londra", "New York"), loaded.path("Roma", "New York").getVertexes());
+		assertEquals(Double.POSITIVE_INFINITY, loaded.distance("New York", "Roma"), 0);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test(expected = UnsupportedOperationException.class)
+	public void testContractionHierarchy_Fail_NegativeWeights() {
+		Graph negativeWeightsGraph = new Graph(false);
+		negativeWeightsGraph.addEdgeForced("Roma", "Londra", -1.0);
+		new ContractionHierarchy(new CsrGraph(negativeWeightsGraph), new MinHeapComparator());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testManyToMany() {
+		Random random = new Random(17);
+		int n = 300;
+		Graph g = new Graph(true);
+		for (int i = 0; i < n; i++) {
+			g.addVertex(i);
+		}
+		for (int k = 0; k < 4 * n; k++) {
+			g.addEdgeForced(random.nextInt(n), random.nextInt(n), random.nextInt(50));
+		}
+		ContractionHierarchy ch = new ContractionHierarchy(new CsrGraph(g), new MinHeapComparator());
+		Dijkstra dijkstra = new Dijkstra(g, new MinHeapComparator());
+		ForkJoinPool pool = new ForkJoinPool(4);
+		ManyToMany manyToMany = new ManyToMany(ch, pool);
+		LinkedList batches = new LinkedList();
+		for (int b = 0; b < 5; b++) {
+			LinkedList sources = new LinkedList();
+			LinkedList targets = new LinkedList();
+			for (int k = 0; k < 20; k++) {
+				sources.add(random.nextInt(n));
+				targets.add(random.nextInt(n));
+			}
+			batches.add(new ManyToMany.Batch(sources, targets));
+		}
+		List<double[][]> results = manyToMany.distances(batches);
+		for (int b = 0; b < batches.size(); b++) {
+			ManyToMany.Batch batch = (ManyToMany.Batch) batches.get(b);
+			double[][] single = manyToMany.distances(batch.getSources(), batch.getTargets());
+			for (int i = 0; i < batch.getSources().size(); i++) {
+				ShortestPaths expected = dijkstra.run(batch.getSources().get(i));
+				for (int j = 0; j < batch.getTargets().size(); j++) {
+					assertEquals(expected.getDistance(batch.getTargets().get(j)), results.get(b)[i][j], 1e-9);
+					assertEquals(results.get(b)[i][j], single[i][j], 0);
+				}
+			}
+		}
+		pool.shutdown();
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test(expected = NoSuchElementException.class)
+	public void testManyToMany_Fail_VertexNotFound() {
+		ContractionHierarchy ch = new ContractionHierarchy(new CsrGraph(orientedConnectedGraph),
+				new MinHeapComparator());
+		new ManyToMany(ch, ForkJoinPool.commonPool()).distances(Arrays.asList("Roma"), Arrays.asList("Berlino"));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testResultCache() {
+		ResultCache cache = new ResultCache(2);
+		MinHeapComparator comparator = new MinHeapComparator();
+		Graph mst = cache.mstPrim(notOrientedConnectedGraph, "Roma", comparator);
+		assertEquals(mst, cache.mstPrim(notOrientedConnectedGraph, "Roma", comparator));
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		ShortestPaths paths = cache.shortestPaths(notOrientedConnectedGraph, "Roma", comparator);
+		assertEquals(15, paths.getDistance("Manchester"), 0);
+		assertEquals(2, cache.size());
+		cache.shortestPaths(orientedConnectedGraph, "Roma", comparator);
+		assertEquals(1, cache.getEvictions());
+		notOrientedConnectedGraph.addEdge("Roma", "Manchester", 1);
+		paths = cache.shortestPaths(notOrientedConnectedGraph, "Roma", comparator);
+		assertEquals(1, paths.getDistance("Manchester"), 0);
+		assertEquals(1, cache.getInvalidations());
+		assertEquals(1, cache.getHits());
+		assertEquals(4, cache.getMisses());
+		assertEquals(0.2, cache.getHitRate(), 1e-9);
+		// a new instance of a comparator without state shares the result
+		cache.shortestPaths(notOrientedConnectedGraph, "Roma", new MinHeapComparator());
+		assertEquals(2, cache.getHits());
+		assertEquals(4, cache.getMisses());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testResultCache_Comparator() {
+		ResultCache cache = new ResultCache(4);
+		Graph mst = cache.mstPrim(notOrientedConnectedGraph, "Roma", new MinHeapComparator());
+		assertEquals(mst, cache.mstPrim(notOrientedConnectedGraph, "Roma", new MinHeapComparator()));
+		assertEquals(1, cache.getHits());
+		// comparators holding a state are keyed by instance, as they may order differently
+		for (int sign : new int[] { -1, -1 }) {
+			cache.shortestPaths(notOrientedConnectedGraph, "Roma",
+					(Comparator<Comparable>) (a, b) -> sign * a.compareTo(b));
+		}
+		assertEquals(1, cache.getHits());
+		assertEquals(3, cache.getMisses());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testResultCache_CollectedGraph() throws InterruptedException {
+		ResultCache cache = new ResultCache(4);
+		MinHeapComparator comparator = new MinHeapComparator();
+		Graph g = new Graph(false);
+		g.addEdgeForced("Roma", "Milano", 5);
+		WeakReference reference = new WeakReference(g);
+		cache.mstPrim(g, "Roma", comparator);
+		g = null;
+		for (int i = 0; i < 50 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertEquals(null, reference.get());
+		cache.mstPrim(notOrientedConnectedGraph, "Roma", comparator);
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getInvalidations());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testResultCache_Fail_Capacity() {
+		new ResultCache(0);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testCsrGraph_Transpose() {
+		CsrGraph csr = new CsrGraph(orientedConnectedGraph);
+		CsrGraph transposed = CsrGraph.transpose(csr);
+		assertEquals(csr.adjacencyCount(), transposed.adjacencyCount());
+		int newYork = transposed.indexOf("New York");
+		assertEquals(3, transposed.degree(newYork));
+		assertEquals(0, transposed.degree(transposed.indexOf("Roma")));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testTraversal_Bfs() {
+		Random random = new Random(21);
+		int n = 3000;
+		for (boolean oriented : new boolean[] { false, true }) {
+			Graph g = new Graph(oriented);
+			for (int i = 0; i < n; i++) {
+				g.addVertex(i);
+			}
+			for (int k = 0; k < 10 * n; k++) {
+				g.addEdgeForced(random.nextInt(n), random.nextInt(n), 1);
+			}
+			ShortestPaths expected = new Dijkstra(g, new MinHeapComparator()).run(0);
+			CsrGraph csr = new CsrGraph(g);
+			for (int threads : new int[] { 1, 4 }) {
+				ForkJoinPool pool = new ForkJoinPool(threads);
+				HashMap levels = new Traversal(csr, pool).bfs(0);
+				assertEquals(expected.getDistances().size(), levels.size());
+				for (Object v : levels.keySet()) {
+					assertEquals(expected.getDistance(v), ((Integer) levels.get(v)).doubleValue(), 0);
+				}
+				pool.shutdown();
+			}
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testTraversal_Dfs() {
+		Traversal traversal = new Traversal(new CsrGraph(notOrientedConnectedGraph), ForkJoinPool.commonPool());
+		LinkedList order = traversal.dfs("Roma");
+		assertEquals(7, order.size());
+		assertEquals("Roma", order.getFirst());
+		assertEquals(7, new HashSet(order).size());
+		for (int i = 1; i < order.size(); i++) {
+			boolean linked = false;
+			for (int j = 0; j < i; j++) {
+				linked |= notOrientedConnectedGraph.containsEdge(order.get(j), order.get(i));
+			}
+			assertEquals(true, linked);
+		}
+		traversal = new Traversal(new CsrGraph(orientedConnectedGraph), ForkJoinPool.commonPool());
+		assertEquals(Arrays.asList("New York"), traversal.dfs("New York"));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testTraversal_Components() {
+		Random random = new Random(23);
+		int n = 5000;
+		Graph g = new Graph(false);
+		for (int i = 0; i < n; i++) {
+			g.addVertex(i);
+		}
+		for (int k = 0; k < n / 2; k++) {
+			g.addEdgeForced(random.nextInt(n), random.nextInt(n), 1);
+		}
+		SpanningForest forest = Prim.minimumSpanningForest(g, new MinHeapComparator());
+		CsrGraph csr = new CsrGraph(g);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		Traversal traversal = new Traversal(csr, pool);
+		int[] ids = traversal.components();
+		assertEquals(forest.componentCount(), traversal.componentCount());
+		for (int k = 0; k < 2000; k++) {
+			int a = random.nextInt(n);
+			int b = random.nextInt(n);
+			boolean expected = forest.getComponentId(csr.getLabel(a)) == forest.getComponentId(csr.getLabel(b));
+			assertEquals(expected, ids[a] == ids[b]);
+		}
+		pool.shutdown();
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test(expected = NoSuchElementException.class)
+	public void testTraversal_Fail_SourceNotFound() {
+		new Traversal(new CsrGraph(notOrientedConnectedGraph), ForkJoinPool.commonPool()).bfs("Berlino");
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testStronglyConnectedComponents() {
+		orientedConnectedGraph.addEdgeForced("New York", "Dubai", 1);
+		CsrGraph csr = new CsrGraph(orientedConnectedGraph);
+		StronglyConnectedComponents sccs = new StronglyConnectedComponents(csr, ForkJoinPool.commonPool());
+		assertEquals(5, sccs.componentCount());
+		for (LinkedList component : (LinkedList<LinkedList>) sccs.getComponents()) {
+			if (component.contains("Londra"))
+				assertEquals(new HashSet(Arrays.asList("Londra", "New York", "Dubai")), new HashSet(component));
+		}
+		int[] ids = sccs.components();
+		assertEquals(ids[csr.indexOf("Londra")], ids[csr.indexOf("Dubai")]);
+		assertEquals(true, ids[csr.indexOf("Roma")] > ids[csr.indexOf("Dubai")]);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testStronglyConnectedComponents_Parallel() {
+		Random random = new Random(29);
+		int n = 20000;
+		Graph g = new Graph(true);
+		for (int i = 0; i < n; i++) {
+			g.addVertex(i);
+		}
+		for (int k = 0; k < 3 * n / 2; k++) {
+			g.addEdgeForced(random.nextInt(n), random.nextInt(n), 1);
+		}
+		CsrGraph csr = new CsrGraph(g);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		StronglyConnectedComponents sccs = new StronglyConnectedComponents(csr, pool);
+		int[] tarjan = sccs.components();
+		int[] parallel = sccs.componentsParallel();
+		HashMap<Integer, Integer> mapping = new HashMap();
+		for (int v = 0; v < n; v++) {
+			Integer known = mapping.putIfAbsent(tarjan[v], parallel[v]);
+			assertEquals(known == null ? parallel[v] : known, parallel[v]);
+		}
+		assertEquals(sccs.componentCount(), new HashSet(mapping.values()).size());
+		IndexedGraph.Cursor cursor = csr.cursor();
+		for (int v = 0; v < n; v++) {
+			cursor.reset(v);
+			while (cursor.next()) {
+				assertEquals(true, tarjan[v] >= tarjan[cursor.target()]);
+			}
+		}
+		pool.shutdown();
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testStronglyConnectedComponents_LongCycle() {
+		int n = 200000;
+		Integer[] labels = new Integer[n];
+		int[] offsets = new int[n + 1];
+		int[] targets = new int[n];
+		for (int v = 0; v < n; v++) {
+			labels[v] = v;
+			offsets[v + 1] = v + 1;
+			targets[v] = (v + 1) % n;
+		}
+		CsrGraph cycle = new CsrGraph(labels, offsets, targets, new double[n], true);
+		StronglyConnectedComponents sccs = new StronglyConnectedComponents(cycle, ForkJoinPool.commonPool());
+		assertEquals(1, sccs.componentCount());
+		assertEquals(0, Arrays.stream(sccs.componentsParallel()).max().getAsInt());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testStronglyConnectedComponents_LongChain() {
+		// a path of 200000 two vertexes cycles, each one linked to the next
+		int n = 400000;
+		Integer[] labels = new Integer[n];
+		int[] offsets = new int[n + 1];
+		int[] targets = new int[n - 1 + n / 2];
+		int size = 0;
+		for (int v = 0; v < n; v++) {
+			labels[v] = v;
+			targets[size++] = v ^ 1;
+			if (v % 2 == 1 && v + 1 < n)
+				targets[size++] = v + 1;
+			offsets[v + 1] = size;
+		}
+		CsrGraph chain = new CsrGraph(labels, offsets, targets, new double[size], true);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		int[] parallel = new StronglyConnectedComponents(chain, pool).componentsParallel();
+		pool.shutdown();
+		assertEquals(n / 2 - 1, Arrays.stream(parallel).max().getAsInt());
+		for (int v = 0; v < n; v += 2) {
+			assertEquals(parallel[v], parallel[v + 1]);
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test(expected = UnsupportedOperationException.class)
+	public void testStronglyConnectedComponents_Fail_NotOriented() {
+		new StronglyConnectedComponents(new CsrGraph(notOrientedConnectedGraph), ForkJoinPool.commonPool());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testTopologicalSort() {
+		LinkedList order = new TopologicalSort(new CsrGraph(orientedConnectedGraph)).sort();
+		assertEquals(7, order.size());
+		for (Object src : order) {
+			for (Object dest : orientedConnectedGraph.getVertexAdjs(src)) {
+				assertEquals(true, order.indexOf(src) < order.indexOf(dest));
+			}
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test(expected = UnsupportedOperationException.class)
+	public void testTopologicalSort_Fail_Cycle() {
+		orientedConnectedGraph.addEdgeForced("New York", "Roma", 1);
+		new TopologicalSort(new CsrGraph(orientedConnectedGraph)).sort();
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test(expected = UnsupportedOperationException.class)
+	public void testTopologicalSort_Fail_NotOriented() {
+		new TopologicalSort(new CsrGraph(notOrientedConnectedGraph));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testMinimumArborescence() {
+		Graph g = new Graph(true);
+		g.addEdgeForced("Roma", "Londra", 10);
+		g.addEdgeForced("Roma", "Parigi", 2);
+		g.addEdgeForced("Parigi", "Londra", 6);
+		g.addEdgeForced("Londra", "Dubai", 1);
+		g.addEdgeForced("Dubai", "Parigi", 1);
+		g.addEdgeForced("Milano", "Roma", 1);
+		Graph arborescence = Arborescence.minimumArborescence(g, "Roma");
+		assertEquals(true, arborescence.isOriented());
+		assertEquals(4, arborescence.vertexCount());
+		assertEquals(9, arborescence.weight(), 0);
+		assertEquals(true, arborescence.containsEdge("Parigi", "Londra"));
+		assertEquals(false, arborescence.containsVertex("Milano"));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testMinimumArborescence_Random() {
+		Random random = new Random(31);
+		for (int k = 0; k < 200; k++) {
+			int n = 2 + random.nextInt(5);
+			Graph g = new Graph(true);
+			for (int i = 0; i < n; i++) {
+				g.addVertex(i);
+			}
+			for (int e = 0; e < 3 * n; e++) {
+				g.addEdgeForced(random.nextInt(n), random.nextInt(n), random.nextInt(20));
+			}
+			Graph arborescence = Arborescence.minimumArborescence(g, 0);
+			HashSet reachable = new HashSet(new Traversal(new CsrGraph(g), ForkJoinPool.commonPool()).bfs(0).keySet());
+			assertEquals(reachable, new HashSet(arborescence.getAllVertex()));
+			assertEquals(reachable.size() - 1, arborescence.edgeCount());
+			for (Object v : reachable) {
+				int parents = 0;
+				for (Object u : arborescence.getAllVertex()) {
+					if (arborescence.containsEdge(u, v))
+						parents++;
+				}
+				assertEquals(v.equals(0) ? 0 : 1, parents);
+			}
+			assertEquals(reachable.size(), new Traversal(new CsrGraph(arborescence), ForkJoinPool.commonPool())
+					.bfs(0).size());
+			assertEquals(bruteForceArborescence(g, reachable), arborescence.weight(), 1e-9);
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test(expected = UnsupportedOperationException.class)
+	public void testMinimumArborescence_Fail_NotOriented() {
+		Arborescence.minimumArborescence(notOrientedConnectedGraph, "Roma");
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test(expected = NoSuchElementException.class)
+	public void testMinimumArborescence_Fail_RootNotFound() {
+		Arborescence.minimumArborescence(orientedConnectedGraph, "Berlino");
+	}
+
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testCompressedGraph() {
+		Random random = new Random(45);
+		int n = 2000;
+		Graph g = new Graph(false);
+		for (int k = 0; k < 8 * n; k++) {
+			g.addEdgeForced(random.nextInt(n), random.nextInt(n), random.nextInt(100000) / 100.0);
+		}
+		CsrGraph csr = new CsrGraph(g);
+		for (CompressedGraph.WeightFormat format : CompressedGraph.WeightFormat.values()) {
+			CompressedGraph compressed = new CompressedGraph(csr, format);
+			assertEquals(csr.vertexCount(), compressed.vertexCount());
+			assertEquals(csr.adjacencyCount(), compressed.adjacencyCount());
+			double tolerance = format == CompressedGraph.WeightFormat.DOUBLE ? 0
+					: format == CompressedGraph.WeightFormat.FLOAT ? 1e-4 : 1000.0 / 65535;
+			IndexedGraph.Cursor cursor = compressed.cursor();
+			for (int v = 0; v < n; v++) {
+				assertEquals(csr.degree(v), compressed.degree(v));
+				cursor.reset(v);
+				int previous = -1;
+				while (cursor.next()) {
+					assertEquals(true, cursor.target() >= previous);
+					previous = cursor.target();
+					assertEquals(g.getEdgeWeight(csr.getLabel(v), csr.getLabel(cursor.target())), cursor.weight(),
+							tolerance);
+				}
+			}
+			assertEquals(true, compressed.encodedSize() < 12 * csr.adjacencyCount());
+		}
+		CompressedGraph quantized = new CompressedGraph(csr, CompressedGraph.WeightFormat.QUANTIZED);
+		assertEquals(true, quantized.encodedSize() < 12 * csr.adjacencyCount() / 3);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testCompressedGraph_Prim() {
+		Random random = new Random(46);
+		int n = 1000;
+		Graph g = new Graph(false);
+		for (int k = 0; k < 5 * n; k++) {
+			g.addEdgeForced(random.nextInt(n), random.nextInt(n), random.nextInt(1000));
+		}
+		Graph expected = Prim.mstPrim(g, 0, new MinHeapComparator());
+		Graph mst = Prim.mstPrim(new CompressedGraph(g, CompressedGraph.WeightFormat.FLOAT), 0,
+				new MinHeapComparator());
+		assertEquals(expected.vertexCount(), mst.vertexCount());
+		assertEquals(expected.edgeCount(), mst.edgeCount());
+		assertEquals(expected.weight(), mst.weight(), 0);
+		assertEquals(notOrientedConnectedGraph.vertexCount() - 1,
+				Prim.mstPrim(new CsrGraph(notOrientedConnectedGraph), "Roma", new MinHeapComparator()).edgeCount());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testCompressedGraph_Labels() {
+		CompressedGraph<String> compressed = new CompressedGraph<String>(notOrientedConnectedGraph,
+				CompressedGraph.WeightFormat.DOUBLE);
+		assertEquals(notOrientedConnectedGraph.vertexCount(), compressed.vertexCount());
+		for (String label : (LinkedList<String>) notOrientedConnectedGraph.getAllVertex()) {
+			int v = compressed.indexOf(label);
+			assertEquals(label, compressed.getLabel(v));
+			assertEquals(notOrientedConnectedGraph.getVertexAdjs(label).size(), compressed.degree(v));
+		}
+		assertEquals(-1, compressed.indexOf("Berlino"));
+		Graph mixed = new Graph(false);
+		mixed.addEdgeForced("Roma", 1, 2);
+		mixed.addEdgeForced(1, 2.5, 3);
+		mixed.addEdgeForced(2.5, "Londra", 4);
+		CompressedGraph labels = new CompressedGraph(mixed, CompressedGraph.WeightFormat.DOUBLE);
+		for (Object label : mixed.getAllVertex()) {
+			assertEquals(label, labels.getLabel(labels.indexOf(label)));
+		}
+		assertEquals(-1, labels.indexOf(2));
+		IndexedGraph.Cursor cursor = labels.cursor();
+		cursor.reset(labels.indexOf(1));
+		double weight = 0;
+		while (cursor.next()) {
+			weight += cursor.weight();
+		}
+		assertEquals(5, weight, 0);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test(expected = IllegalArgumentException.class)
+	public void testCompressedGraph_Fail_InfiniteQuantized() {
+		orientedGraph.addEdgeForced("Roma", "Londra", Double.POSITIVE_INFINITY);
+		new CompressedGraph(orientedGraph, CompressedGraph.WeightFormat.QUANTIZED);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test(expected = UnsupportedOperationException.class)
+	public void testPrim_Indexed_Fail_Oriented() {
+		Prim.mstPrim(new CsrGraph(orientedConnectedGraph), "Roma", new MinHeapComparator());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testGraphPartitioner() {
+		Graph g = new Graph(false);
+		for (int r = 0; r < 40; r++) {
+			for (int c = 0; c < 40; c++) {
+				g.addVertex(40 * r + c);
+				if (c > 0)
+					g.addEdgeForced(40 * r + c, 40 * r + c - 1, 1);
+				if (r > 0)
+					g.addEdgeForced(40 * r + c, 40 * (r - 1) + c, 1);
+			}
+		}
+		CsrGraph csr = new CsrGraph(g);
+		GraphPartitioner partitioner = new GraphPartitioner(csr);
+		int[] hashed = new int[csr.vertexCount()];
+		for (int v = 0; v < hashed.length; v++) {
+			hashed[v] = v % 4;
+		}
+		for (GraphPartitioner.Strategy strategy : GraphPartitioner.Strategy.values()) {
+			int[] parts = partitioner.partition(4, strategy, 0.05);
+			int[] sizes = new int[4];
+			for (int part : parts) {
+				sizes[part]++;
+			}
+			for (int size : sizes) {
+				assertEquals(true, size <= 420);
+			}
+			assertEquals(true, 3 * partitioner.edgeCut(parts) < partitioner.edgeCut(hashed));
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test(expected = IllegalArgumentException.class)
+	public void testGraphPartitioner_Fail_NoShards() {
+		new GraphPartitioner(new CsrGraph(notOrientedConnectedGraph)).partition(0, GraphPartitioner.Strategy.LDG,
+				0.05);
+	}
+
+	/**
+	 * Method computing the weight of the minimum arborescence rooted in 0 by
+	 * trying every choice of parents
+	 *
+	 * @param g         the used graph, with integer labels
+	 * @param reachable the vertexes reachable from 0
+	 * @return the weight of the cheapest choice where every vertex reaches 0
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private double bruteForceArborescence(Graph g, HashSet reachable) {
+		Integer[] vertexes = (Integer[]) reachable.toArray(new Integer[0]);
+		int[] parent = new int[vertexes.length];
+		return bruteForceArborescence(g, vertexes, parent, 0);
+	}
+
+	/**
+	 * Method trying every parent of the i-th vertex and of the following ones
+	 *
+	 * @param g        the used graph, with integer labels
+	 * @param vertexes the vertexes reachable from 0
+	 * @param parent   the parent chosen for every vertex
+	 * @param i        the position of the vertex whose parent is chosen
+	 * @return the weight of the cheapest choice where every vertex reaches 0
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private double bruteForceArborescence(Graph g, Integer[] vertexes, int[] parent, int i) {
+		if (i == vertexes.length) {
+			double total = 0;
+			for (int k = 0; k < vertexes.length; k++) {
+				if (vertexes[k] == 0)
+					continue;
+				int v = vertexes[k];
+				for (int steps = 0; v != 0; steps++) {
+					if (steps > vertexes.length)
+						return Double.POSITIVE_INFINITY;
+					v = parent[Arrays.asList(vertexes).indexOf(v)];
+				}
+				total += g.getEdgeWeight(parent[k], vertexes[k]);
+			}
+			return total;
+		}
+		if (vertexes[i] == 0)
+			return bruteForceArborescence(g, vertexes, parent, i + 1);
+		double best = Double.POSITIVE_INFINITY;
+		for (Integer u : vertexes) {
+			if (!u.equals(vertexes[i]) && g.containsEdge(u, vertexes[i])) {
+				parent[i] = u;
+				best = Math.min(best, bruteForceArborescence(g, vertexes, parent, i + 1));
+			}
+		}
+		return best;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testNearestNeighbours() {
+		NearestNeighbours knn = new NearestNeighbours(notOrientedConnectedGraph, new MinHeapComparator());
+		HashSet facilities = new HashSet(Arrays.asList("Parigi", "Milano", "Londra", "Manchester"));
+		LinkedHashMap nearest = knn.nearest("Roma", 2, facilities);
+		assertEquals(Arrays.asList("Londra", "Parigi"), new LinkedList(nearest.keySet()));
+		assertEquals(14, (double) nearest.get("Parigi"), 0);
+		assertEquals(4, knn.nearest("Roma", 10, facilities).size());
+		LinkedHashMap within = knn.withinRadius("Roma", 11);
+		assertEquals(Arrays.asList("Roma", "Dubai", "Londra", "New York"), new LinkedList(within.keySet()));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testNearestNeighbours_Concurrent() throws Exception {
+		Random random = new Random(37);
+		int n = 2000;
+		Graph g = new Graph(false);
+		for (int i = 0; i < n; i++) {
+			g.addVertex(i);
+		}
+		for (int k = 0; k < 4 * n; k++) {
+			g.addEdgeForced(random.nextInt(n), random.nextInt(n), random.nextInt(100));
+		}
+		NearestNeighbours knn = new NearestNeighbours(g, new MinHeapComparator());
+		Dijkstra dijkstra = new Dijkstra(g, new MinHeapComparator());
+		int[] sources = new int[40];
+		ShortestPaths[] expected = new ShortestPaths[sources.length];
+		for (int i = 0; i < sources.length; i++) {
+			sources[i] = random.nextInt(n);
+			expected[i] = dijkstra.run(sources[i]);
+		}
+		ForkJoinPool pool = new ForkJoinPool(4);
+		pool.submit(() -> IntStream.range(0, sources.length).parallel().forEach(i -> {
+			LinkedHashMap<Integer, Double> nearest = knn.nearest(sources[i], 10, null);
+			assertEquals(10, nearest.size());
+			double previous = 0;
+			for (Map.Entry<Integer, Double> entry : nearest.entrySet()) {
+				assertEquals(expected[i].getDistance(entry.getKey()), entry.getValue(), 1e-9);
+				assertEquals(true, previous <= entry.getValue());
+				previous = entry.getValue();
+			}
+			LinkedHashMap<Integer, Double> within = knn.withinRadius(sources[i], 50);
+			for (Object v : expected[i].getDistances().keySet()) {
+				assertEquals(expected[i].getDistance(v) <= 50, within.containsKey(v));
+			}
+		})).get();
+		pool.shutdown();
+	}
+
 }
@@ -0,0 +1,22 @@
+package graphs.secondversion;
+
+/**
+ * Interface for the distance estimates driving an A* search; an estimate must
+ * never exceed the actual shortest distance (admissible) and must satisfy the
+ * triangle inequality along every edge (consistent), as the straight line
+ * distance between vertexes with known coordinates does
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public interface Heuristic<V> {
+
+	/**
+	 * Method estimating the shortest distance between two vertexes
+	 *
+	 * @param from the label of the starting vertex
+	 * @param to   the label of the ending vertex
+	 * @return a lower bound of the distance from the first to the second vertex
+	 */
+	double estimate(V from, V to);
+
+}
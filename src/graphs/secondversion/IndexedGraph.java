@@ -0,0 +1,104 @@
+package graphs.secondversion;
+
+/**
+ * Abstract class representing a read-only view of a graph whose vertexes are
+ * identified by dense integer ids 0..n-1, the form consumed by the array based
+ * and parallel algorithms; neighbours are enumerated through cursors, so that
+ * every implementation can decide how adjacencies are laid out in memory
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public abstract class IndexedGraph<V> {
+
+	/**
+	 * Method returning the number of vertexes
+	 *
+	 * @return an integer value of the vertexes count
+	 */
+	public abstract int vertexCount();
+
+	/**
+	 * Method returning the number of stored adjacencies, which for not oriented
+	 * graphs counts every connection twice
+	 *
+	 * @return a long value of the adjacencies count
+	 */
+	public abstract long adjacencyCount();
+
+	/**
+	 * Method telling if the graph is oriented or not
+	 *
+	 * @return true of it is oriented, false if it's not
+	 */
+	public abstract boolean isOriented();
+
+	/**
+	 * Method returning the label of a vertex
+	 *
+	 * @param v the vertex id
+	 * @return the label of the vertex
+	 */
+	public abstract V getLabel(int v);
+
+	/**
+	 * Method returning the id of a vertex
+	 *
+	 * @param label the label of the vertex
+	 * @return the vertex id, -1 if the vertex is not contained in the graph
+	 */
+	public abstract int indexOf(V label);
+
+	/**
+	 * Method returning the number of adjacencies of a vertex
+	 *
+	 * @param v the vertex id
+	 * @return an integer value of the vertex out degree
+	 */
+	public abstract int degree(int v);
+
+	/**
+	 * Method creating a new cursor over the adjacencies of the graph; a cursor
+	 * must not be shared between threads
+	 *
+	 * @return a new cursor
+	 */
+	public abstract Cursor cursor();
+
+	/**
+	 * Abstract class representing a cursor enumerating the adjacencies of one
+	 * vertex at a time
+	 */
+	public abstract static class Cursor {
+
+		/**
+		 * Method positioning the cursor before the first adjacency of a vertex
+		 *
+		 * @param v the vertex id
+		 */
+		public abstract void reset(int v);
+
+		/**
+		 * Method moving the cursor to the next adjacency
+		 *
+		 * @return true if there is an adjacency, false if all of them have been
+		 *         enumerated
+		 */
+		public abstract boolean next();
+
+		/**
+		 * Method returning the vertex id at the end of the current adjacency
+		 *
+		 * @return the adjacent vertex id
+		 */
+		public abstract int target();
+
+		/**
+		 * Method returning the cost of the current adjacency
+		 *
+		 * @return a double value for the weight
+		 */
+		public abstract double weight();
+
+	}
+
+}
@@ -0,0 +1,97 @@
+package graphs.secondversion;
+
+import java.util.Arrays;
+
+/**
+ * Class implementing a growable list of primitive integers
+ */
+public class IntList {
+
+	private int[] items;
+	private int size;
+
+	/**
+	 * Constructor for an empty list
+	 *
+	 * @param capacity the number of items initially allocated
+	 */
+	public IntList(int capacity) {
+		this.items = new int[Math.max(capacity, 1)];
+	}
+
+	/**
+	 * Method appending an item to the list
+	 *
+	 * @param item the item to append
+	 */
+	public void add(int item) {
+		if (size == items.length) {
+			items = Arrays.copyOf(items, 2 * size);
+		}
+		items[size++] = item;
+	}
+
+	/**
+	 * Method getting the item at a given position
+	 *
+	 * @param i the item position
+	 * @return the item value
+	 */
+	public int get(int i) {
+		return items[i];
+	}
+
+	/**
+	 * Method replacing the item at a given position
+	 *
+	 * @param i    the item position
+	 * @param item the new item value
+	 */
+	public void set(int i, int item) {
+		items[i] = item;
+	}
+
+	/**
+	 * Method removing the last item
+	 *
+	 * @return the removed item value
+	 */
+	public int removeLast() {
+		return items[--size];
+	}
+
+	/**
+	 * Method returning the number of items
+	 *
+	 * @return an integer value of the items count
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Method telling if the list is empty
+	 *
+	 * @return true if the list has no items, false if it has
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Method removing every item, keeping the allocated capacity
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Method returning a copy of the items
+	 *
+	 * @return an array with the items of the list
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(items, size);
+	}
+
+}
@@ -0,0 +1,303 @@
+package graphs.secondversion;
+
+import java.util.Arrays;
+
+/**
+ * Class implementing a link-cut tree over integer nodes, a forest of rooted
+ * trees supporting link, cut and path maximum queries in O(log n) amortized
+ * time; every node carries a double value and path queries return the node with
+ * the greatest value
+ */
+public class LinkCutTree {
+
+	private int[] left;
+	private int[] right;
+	private int[] parent;
+	private int[] max;
+	private boolean[] reversed;
+	private double[] values;
+	private int[] stack;
+
+	/**
+	 * Constructor for a forest of the given initial capacity
+	 *
+	 * @param capacity the number of nodes initially allocated
+	 */
+	public LinkCutTree(int capacity) {
+		capacity = Math.max(capacity, 1);
+		left = new int[0];
+		right = new int[0];
+		parent = new int[0];
+		max = new int[0];
+		reversed = new boolean[0];
+		values = new double[0];
+		stack = new int[0];
+		grow(capacity);
+	}
+
+	/**
+	 * Method resetting a node as an isolated tree with the given value, growing
+	 * the inner arrays if needed
+	 *
+	 * @param node  the node index
+	 * @param value the value carried by the node
+	 */
+	public void makeNode(int node, double value) {
+		if (node >= values.length) {
+			grow(Math.max(node + 1, values.length * 2));
+		}
+		left[node] = -1;
+		right[node] = -1;
+		parent[node] = -1;
+		reversed[node] = false;
+		values[node] = value;
+		max[node] = node;
+	}
+
+	/**
+	 * Method changing the value carried by a node
+	 *
+	 * @param node  the node index
+	 * @param value the new value of the node
+	 */
+	public void setValue(int node, double value) {
+		access(node);
+		values[node] = value;
+		pull(node);
+	}
+
+	/**
+	 * Method getting the value carried by a node
+	 *
+	 * @param node the node index
+	 * @return the double value of the node
+	 */
+	public double getValue(int node) {
+		return values[node];
+	}
+
+	/**
+	 * Method telling if two nodes belong to the same tree
+	 *
+	 * @param x the first node
+	 * @param y the second node
+	 * @return true if the two nodes are connected, false if they are not
+	 */
+	public boolean connected(int x, int y) {
+		return x == y || findRoot(x) == findRoot(y);
+	}
+
+	/**
+	 * Method joining two trees with an edge between two nodes
+	 *
+	 * @param x the first node
+	 * @param y the second node
+	 * @throws UnsupportedOperationException if the two nodes are already connected
+	 */
+	public void link(int x, int y) {
+		if (connected(x, y)) {
+			throw new UnsupportedOperationException("Nodes " + x + " and " + y + " are already connected");
+		}
+		makeRoot(x);
+		parent[x] = y;
+	}
+
+	/**
+	 * Method removing the edge between two adjacent nodes
+	 *
+	 * @param x the first node
+	 * @param y the second node
+	 * @throws UnsupportedOperationException if the two nodes are not adjacent
+	 */
+	public void cut(int x, int y) {
+		makeRoot(x);
+		access(y);
+		if (left[y] != x || left[x] != -1 || right[x] != -1) {
+			throw new UnsupportedOperationException("Nodes " + x + " and " + y + " are not adjacent");
+		}
+		left[y] = -1;
+		parent[x] = -1;
+		pull(y);
+	}
+
+	/**
+	 * Method finding the node with the greatest value on the path between two
+	 * connected nodes
+	 *
+	 * @param x the first node
+	 * @param y the second node
+	 * @return the index of the node with the greatest value on the path
+	 * @throws UnsupportedOperationException if the two nodes are not connected
+	 */
+	public int pathMax(int x, int y) {
+		if (!connected(x, y)) {
+			throw new UnsupportedOperationException("Nodes " + x + " and " + y + " are not connected");
+		}
+		makeRoot(x);
+		access(y);
+		return max[y];
+	}
+
+	/**
+	 * Method finding the root of the tree containing a node
+	 *
+	 * @param x the node index
+	 * @return the index of the tree root
+	 */
+	protected int findRoot(int x) {
+		access(x);
+		push(x);
+		while (left[x] != -1) {
+			x = left[x];
+			push(x);
+		}
+		splay(x);
+		return x;
+	}
+
+	/**
+	 * Method rerooting the represented tree at a given node
+	 *
+	 * @param x the node index
+	 */
+	protected void makeRoot(int x) {
+		access(x);
+		reversed[x] = !reversed[x];
+	}
+
+	/**
+	 * Method making the path from the tree root to a node the preferred one,
+	 * leaving the node at the root of its splay tree
+	 *
+	 * @param x the node index
+	 */
+	protected void access(int x) {
+		int last = -1;
+		for (int y = x; y != -1; y = parent[y]) {
+			splay(y);
+			right[y] = last;
+			pull(y);
+			last = y;
+		}
+		splay(x);
+	}
+
+	/**
+	 * Method moving a node to the root of its splay tree
+	 *
+	 * @param x the node index
+	 */
+	protected void splay(int x) {
+		int top = 0;
+		stack[top++] = x;
+		for (int y = x; !isSplayRoot(y); y = parent[y]) {
+			stack[top++] = parent[y];
+		}
+		while (top > 0) {
+			push(stack[--top]);
+		}
+		while (!isSplayRoot(x)) {
+			int p = parent[x];
+			if (!isSplayRoot(p)) {
+				int g = parent[p];
+				rotate((left[p] == x) == (left[g] == p) ? p : x);
+			}
+			rotate(x);
+		}
+	}
+
+	/**
+	 * Method rotating a node over its parent in the splay tree
+	 *
+	 * @param x the node index
+	 */
+	protected void rotate(int x) {
+		int p = parent[x];
+		int g = parent[p];
+		if (!isSplayRoot(p)) {
+			if (left[g] == p) {
+				left[g] = x;
+			} else {
+				right[g] = x;
+			}
+		}
+		parent[x] = g;
+		if (left[p] == x) {
+			left[p] = right[x];
+			if (left[p] != -1)
+				parent[left[p]] = p;
+			right[x] = p;
+		} else {
+			right[p] = left[x];
+			if (right[p] != -1)
+				parent[right[p]] = p;
+			left[x] = p;
+		}
+		parent[p] = x;
+		pull(p);
+		pull(x);
+	}
+
+	/**
+	 * Method telling if a node is the root of its splay tree
+	 *
+	 * @param x the node index
+	 * @return true if the node has no splay parent, false if it has one
+	 */
+	protected boolean isSplayRoot(int x) {
+		int p = parent[x];
+		return p == -1 || (left[p] != x && right[p] != x);
+	}
+
+	/**
+	 * Method recomputing the path maximum of a node from its children
+	 *
+	 * @param x the node index
+	 */
+	protected void pull(int x) {
+		int m = x;
+		if (left[x] != -1 && values[max[left[x]]] > values[m])
+			m = max[left[x]];
+		if (right[x] != -1 && values[max[right[x]]] > values[m])
+			m = max[right[x]];
+		max[x] = m;
+	}
+
+	/**
+	 * Method propagating a pending reversal of a node to its children
+	 *
+	 * @param x the node index
+	 */
+	protected void push(int x) {
+		if (reversed[x]) {
+			int temp = left[x];
+			left[x] = right[x];
+			right[x] = temp;
+			if (left[x] != -1)
+				reversed[left[x]] = !reversed[left[x]];
+			if (right[x] != -1)
+				reversed[right[x]] = !reversed[right[x]];
+			reversed[x] = false;
+		}
+	}
+
+	/**
+	 * Method growing the inner arrays to a given capacity
+	 *
+	 * @param capacity the new capacity
+	 */
+	private void grow(int capacity) {
+		int old = values.length;
+		left = Arrays.copyOf(left, capacity);
+		right = Arrays.copyOf(right, capacity);
+		parent = Arrays.copyOf(parent, capacity);
+		max = Arrays.copyOf(max, capacity);
+		reversed = Arrays.copyOf(reversed, capacity);
+		values = Arrays.copyOf(values, capacity);
+		stack = new int[capacity];
+		for (int i = old; i < capacity; i++) {
+			makeNode(i, Double.NEGATIVE_INFINITY);
+		}
+	}
+
+}
@@ -0,0 +1,283 @@
+package graphs.secondversion;
+
+import priorityqueue.source.PriorityQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Class implementing batched shortest distance queries between sets of
+ * sources and targets on a contraction hierarchy, with the bucket algorithm:
+ * an upward search from every target leaves its distance in a bucket of every
+ * vertex it reaches, then an upward search from every source scans the buckets
+ * of the vertexes it reaches, so that every pair is answered by the two
+ * searches alone; searches run in parallel and reuse per thread queues and
+ * arrays
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public class ManyToMany<V> {
+
+	private final ContractionHierarchy<V> ch;
+	private final ForkJoinPool pool;
+	private final ThreadLocal<UpwardSearch> searches;
+
+	/**
+	 * Constructor for an engine working on a given hierarchy
+	 *
+	 * @param ch   the used hierarchy
+	 * @param pool the pool running the searches
+	 * @throws IllegalArgumentException when the hierarchy or the pool, passed as
+	 *                                  params, is null
+	 */
+	public ManyToMany(ContractionHierarchy<V> ch, ForkJoinPool pool) throws IllegalArgumentException {
+		if (ch == null || pool == null)
+			throw new IllegalArgumentException("Hierarchy and pool must be not null");
+		this.ch = ch;
+		this.pool = pool;
+		this.searches = ThreadLocal.withInitial(() -> new UpwardSearch());
+	}
+
+	/**
+	 * Method computing the distance from every source to every target, running the
+	 * searches of the batch in parallel
+	 *
+	 * @param sources the labels of the source vertexes
+	 * @param targets the labels of the target vertexes
+	 * @return a matrix whose element [i][j] is the distance from the i-th source
+	 *         to the j-th target, positive infinity if it is not reachable
+	 * @throws NoSuchElementException if a source or target vertex is not contained
+	 *                                in the graph
+	 */
+	public double[][] distances(List<V> sources, List<V> targets) throws NoSuchElementException {
+		return solve(new Batch<V>(sources, targets), true);
+	}
+
+	/**
+	 * Method answering independent batches, running the batches in parallel
+	 *
+	 * @param batches the batches of sources and targets
+	 * @return the distance matrix of every batch, in the same order
+	 * @throws NoSuchElementException if a source or target vertex is not contained
+	 *                                in the graph
+	 */
+	public List<double[][]> distances(List<Batch<V>> batches) throws NoSuchElementException {
+		double[][][] results = new double[batches.size()][][];
+		ParallelRange.run(pool, 0, batches.size(), 1, (from, to) -> {
+			for (int b = from; b < to; b++) {
+				results[b] = solve(batches.get(b), false);
+			}
+		});
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Method answering a batch
+	 *
+	 * @param batch    the batch of sources and targets
+	 * @param parallel true to run the searches of the batch in parallel, false to
+	 *                 run them on the calling thread
+	 * @return the distance matrix
+	 * @throws NoSuchElementException if a source or target vertex is not contained
+	 *                                in the graph
+	 */
+	private double[][] solve(Batch<V> batch, boolean parallel) throws NoSuchElementException {
+		int[] sources = idsOf(batch.getSources());
+		int[] targets = idsOf(batch.getTargets());
+		int n = ch.vertexCount();
+
+		// backward searches, one per target, each recording the reached vertexes
+		int[][] reached = new int[targets.length][];
+		double[][] reachedDistance = new double[targets.length][];
+		range(parallel, targets.length, (from, to) -> {
+			UpwardSearch search = searches.get();
+			for (int j = from; j < to; j++) {
+				search.run(targets[j], ch.getBackwardUp());
+				reached[j] = search.settled.toArray();
+				reachedDistance[j] = new double[reached[j].length];
+				for (int k = 0; k < reached[j].length; k++) {
+					reachedDistance[j][k] = search.distance[reached[j][k]];
+				}
+			}
+		});
+
+		// buckets in compressed layout: the entries of vertex v are in
+		// offsets[v]..offsets[v+1]-1
+		int[] offsets = new int[n + 1];
+		for (int j = 0; j < targets.length; j++) {
+			for (int v : reached[j]) {
+				offsets[v + 1]++;
+			}
+		}
+		for (int v = 0; v < n; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+		int[] fill = Arrays.copyOf(offsets, n);
+		int[] bucketTarget = new int[offsets[n]];
+		double[] bucketDistance = new double[offsets[n]];
+		for (int j = 0; j < targets.length; j++) {
+			for (int k = 0; k < reached[j].length; k++) {
+				int e = fill[reached[j][k]]++;
+				bucketTarget[e] = j;
+				bucketDistance[e] = reachedDistance[j][k];
+			}
+		}
+
+		// forward searches, one per source, each filling its own row
+		double[][] result = new double[sources.length][targets.length];
+		range(parallel, sources.length, (from, to) -> {
+			UpwardSearch search = searches.get();
+			for (int i = from; i < to; i++) {
+				double[] row = result[i];
+				Arrays.fill(row, Double.POSITIVE_INFINITY);
+				search.run(sources[i], ch.getForwardUp());
+				for (int k = 0; k < search.settled.size(); k++) {
+					int v = search.settled.get(k);
+					double distance = search.distance[v];
+					for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+						double total = distance + bucketDistance[e];
+						if (total < row[bucketTarget[e]])
+							row[bucketTarget[e]] = total;
+					}
+				}
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Method processing a range of indexes, in parallel or on the calling thread
+	 *
+	 * @param parallel true to use the pool, false to run on the calling thread
+	 * @param size     the number of indexes
+	 * @param body     the work done on every chunk
+	 */
+	private void range(boolean parallel, int size, ParallelRange.Body body) {
+		if (parallel) {
+			ParallelRange.run(pool, 0, size, 1, body);
+		} else if (size > 0) {
+			body.apply(0, size);
+		}
+	}
+
+	/**
+	 * Method returning the ids of a list of vertexes
+	 *
+	 * @param vertexes the labels of the vertexes
+	 * @return the vertex ids, in the same order
+	 * @throws NoSuchElementException if a vertex is not contained in the graph
+	 */
+	private int[] idsOf(List<V> vertexes) throws NoSuchElementException {
+		int[] ids = new int[vertexes.size()];
+		int i = 0;
+		for (V v : vertexes) {
+			ids[i++] = ch.idOf(v);
+		}
+		return ids;
+	}
+
+	/**
+	 * Class representing a batch of queries, from every source to every target
+	 *
+	 * @param <V> type of elements used as identifier for graph vertexes
+	 */
+	public static class Batch<V> {
+
+		private final List<V> sources;
+		private final List<V> targets;
+
+		/**
+		 * Constructor accepting the sources and the targets of the batch
+		 *
+		 * @param sources the labels of the source vertexes
+		 * @param targets the labels of the target vertexes
+		 * @throws IllegalArgumentException when the sources or the targets, passed
+		 *                                  as params, are null
+		 */
+		public Batch(List<V> sources, List<V> targets) throws IllegalArgumentException {
+			if (sources == null || targets == null)
+				throw new IllegalArgumentException("Sources and targets must be not null");
+			this.sources = sources;
+			this.targets = targets;
+		}
+
+		/**
+		 * Method returning the sources of the batch
+		 *
+		 * @return the labels of the source vertexes
+		 */
+		public List<V> getSources() {
+			return sources;
+		}
+
+		/**
+		 * Method returning the targets of the batch
+		 *
+		 * @return the labels of the target vertexes
+		 */
+		public List<V> getTargets() {
+			return targets;
+		}
+
+	}
+
+	/**
+	 * Inner class holding the scratch structures of an upward search, reused by
+	 * the searches of the same thread; distances are valid only for the vertexes
+	 * whose stamp matches the current search
+	 */
+	protected class UpwardSearch {
+
+		private final double[] distance;
+		private final int[] stamps;
+		private final IntList settled;
+		private final PriorityQueue<Integer, Double> queue;
+		private int stamp;
+
+		/**
+		 * Simple constructor
+		 */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		public UpwardSearch() {
+			distance = new double[ch.vertexCount()];
+			stamps = new int[ch.vertexCount()];
+			settled = new IntList(64);
+			queue = new PriorityQueue(ch.getComparator());
+		}
+
+		/**
+		 * Method settling every vertex reachable through upward arcs
+		 *
+		 * @param source the starting vertex id
+		 * @param up     the upward arcs to follow
+		 */
+		public void run(int source, ContractionHierarchy.UpwardGraph up) {
+			stamp++;
+			settled.clear();
+			queue.clear();
+			stamps[source] = stamp;
+			distance[source] = 0;
+			queue.insert(source, 0.0);
+			while (!queue.isEmpty()) {
+				int v = queue.extractRec();
+				settled.add(v);
+				for (int e = up.first(v); e < up.end(v); e++) {
+					int w = up.target(e);
+					double candidate = distance[v] + up.weight(e);
+					if (stamps[w] != stamp) {
+						stamps[w] = stamp;
+						distance[w] = candidate;
+						queue.insert(w, candidate);
+					} else if (candidate < distance[w] && queue.contains(w)) {
+						distance[w] = candidate;
+						queue.updatePriority(w, candidate);
+					}
+				}
+			}
+		}
+
+	}
+
+}
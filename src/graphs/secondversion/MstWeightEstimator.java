@@ -0,0 +1,181 @@
+package graphs.secondversion;
+
+import priorityqueue.source.PriorityQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Class estimating the total weight of the minimum spanning forest of a graph
+ * without building it, following the Chazelle-Rubinfeld-Trevisan approach: the
+ * forest weight equals the integral over t of the number of components of the
+ * subgraph made of the edges not heavier than t, minus the components of the
+ * whole graph, and every components count is estimated by sampling vertexes
+ * and averaging the inverse size of their component; the component of a sample
+ * is explored once in Prim order, which yields its size at every threshold, and
+ * the exploration stops after a bound depending on the allowed relative error.
+ * A truncated exploration only bounds the contribution of its sample, between
+ * the value it would have if the component were infinitely large and the one
+ * it would have if the rest of the component joined at the greatest edge
+ * weight; the estimate takes the middle of the two, and the confidence interval
+ * is widened by half their distance, which is at most the weight bound over the
+ * exploration bound for every sample. The vertexes of the last graph are kept in
+ * an index, rebuilt only when the graph changes
+ */
+public class MstWeightEstimator {
+
+	private static final double CONFIDENCE = 0.95;
+	private static final double Z_SCORE = 1.959964;
+
+	private final int samples;
+	private final int cap;
+	private final double maxWeight;
+	private final Random random;
+	private final Comparator<Double> comparator;
+	private WeakReference<Graph<?>> indexed;
+	private long indexedVersion;
+	private ArrayList<?> index;
+
+	/**
+	 * Constructor specifying the accuracy of the estimator
+	 *
+	 * @param relativeError the relative error allowed by the component exploration
+	 *                      bound
+	 * @param maxWeight     the greatest edge weight of the estimated graphs
+	 * @param samples       the number of vertexes sampled for every estimate
+	 * @param seed          the seed of the random vertex sampling
+	 * @throws IllegalArgumentException if the relative error, the weight bound or
+	 *                                  the number of samples is not positive
+	 */
+	public MstWeightEstimator(double relativeError, double maxWeight, int samples, long seed)
+			throws IllegalArgumentException {
+		if (!(relativeError > 0))
+			throw new IllegalArgumentException("Relative error must be positive");
+		if (!(maxWeight > 0) || maxWeight == Double.POSITIVE_INFINITY)
+			throw new IllegalArgumentException("Weight bound must be positive and finite");
+		if (samples < 1)
+			throw new IllegalArgumentException("Number of samples must be positive");
+		this.samples = samples;
+		this.maxWeight = maxWeight;
+		this.cap = (int) Math.ceil(1 / (relativeError * relativeError));
+		this.random = new Random(seed);
+		this.comparator = (o1, o2) -> -o1.compareTo(o2);
+	}
+
+	/**
+	 * Method estimating the minimum spanning forest weight of a graph
+	 *
+	 * @param   <V> type of elements used as identifier for graph vertexes
+	 * @param g the used graph
+	 * @return the estimated weight with its 95% confidence interval
+	 * @throws IllegalArgumentException      when the graph, passed as param, is
+	 *                                       null
+	 * @throws UnsupportedOperationException if the passed graph is oriented or it
+	 *                                       contains negative weights or weights
+	 *                                       above the bound
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public <V> WeightEstimate estimate(Graph<V> g) throws IllegalArgumentException, UnsupportedOperationException {
+
+		if (g == null)
+			throw new IllegalArgumentException("Graph must be not null");
+		if (g.isOriented())
+			throw new UnsupportedOperationException("Estimator only works on not oriented graphs");
+		if (g.isEmpty())
+			return new WeightEstimate(0, 0, 0, CONFIDENCE);
+
+		if (indexed == null || indexed.get() != g || indexedVersion != g.getVersion()) {
+			index = new ArrayList(g.getAllVertex());
+			indexed = new WeakReference<Graph<?>>(g);
+			indexedVersion = g.getVersion();
+		}
+		ArrayList<V> vertexes = (ArrayList<V>) index;
+		int n = vertexes.size();
+		double[] range = new double[2];
+		double sum = 0;
+		double sumSquares = 0;
+		double truncation = 0;
+		for (int i = 0; i < samples; i++) {
+			componentIntegral(g, vertexes.get(random.nextInt(n)), range);
+			double y = (range[0] + range[1]) / 2;
+			sum += y;
+			sumSquares += y * y;
+			truncation += (range[1] - range[0]) / 2;
+		}
+		double mean = sum / samples;
+		double variance = samples > 1 ? Math.max(0, (sumSquares - samples * mean * mean) / (samples - 1)) : 0;
+		double value = n * mean;
+		double halfWidth = Z_SCORE * n * Math.sqrt(variance / samples) + n * truncation / samples;
+		return new WeightEstimate(value, Math.max(0, value - halfWidth), value + halfWidth, CONFIDENCE);
+
+	}
+
+	/**
+	 * Method computing the contribution of a sampled vertex, that is the integral
+	 * over t of the inverse size of its component in the subgraph of the edges not
+	 * heavier than t, minus the inverse size of its component in the whole graph;
+	 * when the component is larger than the exploration bound only the range of
+	 * the contribution is known
+	 *
+	 * @param       <V> type of elements used as identifier for graph vertexes
+	 * @param g     the used graph
+	 * @param start the label of the sampled vertex
+	 * @param range the array receiving the lowest and the highest possible value
+	 *              of the contribution, equal when the component was explored
+	 *              completely
+	 * @throws UnsupportedOperationException if the passed graph contains negative
+	 *                                       weights or weights above the bound
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private <V> void componentIntegral(Graph<V> g, V start, double[] range) throws UnsupportedOperationException {
+		PriorityQueue<V, Double> queue = new PriorityQueue(comparator);
+		HashMap<V, Double> keys = new HashMap();
+		HashSet<V> reached = new HashSet();
+		// thresholds[s] is the smallest t at which the component reaches size s + 1
+		double[] thresholds = new double[cap + 1];
+		int size = 0;
+		double bottleneck = 0;
+		queue.insert(start, 0.0);
+		keys.put(start, 0.0);
+		while (!queue.isEmpty() && size <= cap) {
+			V actual = queue.extractRec();
+			bottleneck = Math.max(bottleneck, keys.get(actual));
+			thresholds[size++] = bottleneck;
+			reached.add(actual);
+			for (V adiacent : g.getVertexAdjs(actual)) {
+				if (reached.contains(adiacent))
+					continue;
+				double weight = g.getEdgeWeight(actual, adiacent);
+				if (weight < 0)
+					throw new UnsupportedOperationException("Estimator only works with non negative weights");
+				if (weight > maxWeight)
+					throw new UnsupportedOperationException("Edge weight " + weight + " above the bound " + maxWeight);
+				Double key = keys.get(adiacent);
+				if (key == null) {
+					keys.put(adiacent, weight);
+					queue.insert(adiacent, weight);
+				} else if (weight < key) {
+					keys.put(adiacent, weight);
+					queue.updatePriority(adiacent, weight);
+				}
+			}
+		}
+		double y = 0;
+		for (int s = 0; s + 1 < size; s++) {
+			y += (thresholds[s + 1] - thresholds[s]) / (s + 1);
+		}
+		if (queue.isEmpty()) {
+			y -= (thresholds[size - 1] - thresholds[0]) / size;
+			range[0] = y;
+			range[1] = y;
+		} else {
+			// the component has more than size vertexes, all joined at the weight bound at worst
+			range[0] = y - (thresholds[size - 1] - thresholds[0]) / (size + 1);
+			range[1] = y + (maxWeight - thresholds[size - 1]) / size;
+		}
+	}
+
+}
@@ -0,0 +1,200 @@
+package graphs.secondversion;
+
+import priorityqueue.source.PriorityQueue;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Class answering k-nearest-neighbour and radius queries by network distance:
+ * every query is a Dijkstra search stopped as soon as the k-th target is
+ * settled or the radius is exceeded; the distance arrays and queues are kept
+ * in a pool and reused, with per vertex stamps instead of clearing, so that
+ * many threads can query at once without allocating graph sized structures
+ * per query
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public class NearestNeighbours<V> {
+
+	private final IndexedGraph<V> g;
+	private final Comparator<Double> comparator;
+	private final ConcurrentLinkedQueue<Scratch> scratches;
+
+	/**
+	 * Constructor for queries on a given graph, indexed once
+	 *
+	 * @param g          the used graph
+	 * @param comparator a comparator that implements the priority precedence
+	 *                   relation between vertexes
+	 * @throws IllegalArgumentException when the graph, passed as param, is null
+	 */
+	@SuppressWarnings("rawtypes")
+	public NearestNeighbours(Graph<V> g, Comparator comparator) throws IllegalArgumentException {
+		this(new CsrGraph<V>(g), comparator);
+	}
+
+	/**
+	 * Constructor for queries on a given indexed graph
+	 *
+	 * @param g          the used graph
+	 * @param comparator a comparator that implements the priority precedence
+	 *                   relation between vertexes
+	 * @throws IllegalArgumentException when the graph, passed as param, is null
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public NearestNeighbours(IndexedGraph<V> g, Comparator comparator) throws IllegalArgumentException {
+		if (g == null)
+			throw new IllegalArgumentException("Graph must be not null");
+		this.g = g;
+		this.comparator = comparator;
+		this.scratches = new ConcurrentLinkedQueue<Scratch>();
+	}
+
+	/**
+	 * Method finding the k targets nearest to a source vertex
+	 *
+	 * @param source  the label of the source vertex
+	 * @param k       the number of targets to find
+	 * @param targets the labels of the candidate targets, null to accept every
+	 *                vertex; the source itself is accepted at distance 0
+	 * @return the found targets with their distance, in increasing distance order;
+	 *         fewer than k if not enough targets are reachable
+	 * @throws UnsupportedOperationException if the graph contains negative
+	 *                                       weights
+	 * @throws NoSuchElementException        if the source vertex is not contained
+	 *                                       in the graph
+	 */
+	public LinkedHashMap<V, Double> nearest(V source, int k, Set<V> targets)
+			throws UnsupportedOperationException, NoSuchElementException {
+		return search(source, k, Double.POSITIVE_INFINITY, targets);
+	}
+
+	/**
+	 * Method finding the vertexes within a distance from a source vertex
+	 *
+	 * @param source the label of the source vertex
+	 * @param radius the greatest accepted distance
+	 * @return the found vertexes with their distance, in increasing distance
+	 *         order, the source included
+	 * @throws UnsupportedOperationException if the graph contains negative
+	 *                                       weights
+	 * @throws NoSuchElementException        if the source vertex is not contained
+	 *                                       in the graph
+	 */
+	public LinkedHashMap<V, Double> withinRadius(V source, double radius)
+			throws UnsupportedOperationException, NoSuchElementException {
+		return search(source, Integer.MAX_VALUE, radius, null);
+	}
+
+	/**
+	 * Method running a bounded search with a scratch taken from the pool
+	 *
+	 * @param source  the label of the source vertex
+	 * @param k       the greatest number of targets to find
+	 * @param radius  the greatest accepted distance
+	 * @param targets the labels of the candidate targets, null to accept every
+	 *                vertex
+	 * @return the found targets with their distance, in increasing distance order
+	 * @throws UnsupportedOperationException if the graph contains negative
+	 *                                       weights
+	 * @throws NoSuchElementException        if the source vertex is not contained
+	 *                                       in the graph
+	 */
+	private LinkedHashMap<V, Double> search(V source, int k, double radius, Set<V> targets)
+			throws UnsupportedOperationException, NoSuchElementException {
+		int s = g.indexOf(source);
+		if (s < 0)
+			throw new NoSuchElementException("Source vertex not found in graph");
+		Scratch scratch = scratches.poll();
+		if (scratch == null)
+			scratch = new Scratch();
+		try {
+			return scratch.run(s, k, radius, targets);
+		} finally {
+			scratches.add(scratch);
+		}
+	}
+
+	/**
+	 * Inner class holding the structures of a search, used by one query at a time;
+	 * distances are valid only for the vertexes whose stamp matches the current
+	 * search
+	 */
+	protected class Scratch {
+
+		private final double[] distance;
+		private final int[] stamps;
+		private final PriorityQueue<Integer, Double> queue;
+		private final IndexedGraph.Cursor cursor;
+		private int stamp;
+
+		/**
+		 * Simple constructor
+		 */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		public Scratch() {
+			distance = new double[g.vertexCount()];
+			stamps = new int[g.vertexCount()];
+			queue = new PriorityQueue(comparator);
+			cursor = g.cursor();
+		}
+
+		/**
+		 * Method running a Dijkstra search stopped at k targets or at the radius
+		 *
+		 * @param source  the source vertex id
+		 * @param k       the greatest number of targets to find
+		 * @param radius  the greatest accepted distance
+		 * @param targets the labels of the candidate targets, null to accept every
+		 *                vertex
+		 * @return the found targets with their distance, in increasing distance
+		 *         order
+		 * @throws UnsupportedOperationException if the graph contains negative
+		 *                                       weights
+		 */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		public LinkedHashMap<V, Double> run(int source, int k, double radius, Set<V> targets)
+				throws UnsupportedOperationException {
+			LinkedHashMap<V, Double> found = new LinkedHashMap();
+			stamp++;
+			queue.clear();
+			stamps[source] = stamp;
+			distance[source] = 0;
+			queue.insert(source, 0.0);
+			while (!queue.isEmpty() && found.size() < k) {
+				int v = queue.extractRec();
+				double d = distance[v];
+				if (d > radius)
+					break;
+				V label = g.getLabel(v);
+				if (targets == null || targets.contains(label))
+					found.put(label, d);
+				cursor.reset(v);
+				while (cursor.next()) {
+					double weight = cursor.weight();
+					if (weight < 0)
+						throw new UnsupportedOperationException("Dijkstra only works with non negative weights");
+					int w = cursor.target();
+					double candidate = d + weight;
+					// a vertex beyond the radius would never be reported
+					if (candidate > radius)
+						continue;
+					if (stamps[w] != stamp) {
+						stamps[w] = stamp;
+						distance[w] = candidate;
+						queue.insert(w, candidate);
+					} else if (candidate < distance[w] && queue.contains(w)) {
+						distance[w] = candidate;
+						queue.updatePriority(w, candidate);
+					}
+				}
+			}
+			return found;
+		}
+
+	}
+
+}
@@ -0,0 +1,78 @@
+package graphs.secondversion;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class implementing a fork-join task that splits a range of integers into
+ * chunks processed in parallel
+ */
+public class ParallelRange extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int from;
+	private final int to;
+	private final int grain;
+	private final Body body;
+
+	/**
+	 * Interface for the work done on a chunk of the range
+	 */
+	public interface Body {
+
+		/**
+		 * Method processing a chunk of the range
+		 *
+		 * @param from the first integer of the chunk
+		 * @param to   the integer following the last one of the chunk
+		 */
+		void apply(int from, int to);
+
+	}
+
+	/**
+	 * Constructor for a task over a range
+	 *
+	 * @param from  the first integer of the range
+	 * @param to    the integer following the last one of the range
+	 * @param grain the greatest chunk size processed without splitting
+	 * @param body  the work done on every chunk
+	 */
+	public ParallelRange(int from, int to, int grain, Body body) {
+		this.from = from;
+		this.to = to;
+		this.grain = Math.max(grain, 1);
+		this.body = body;
+	}
+
+	/**
+	 * Method processing a range in parallel on a pool, running small ranges
+	 * directly on the calling thread
+	 *
+	 * @param pool  the pool running the chunks
+	 * @param from  the first integer of the range
+	 * @param to    the integer following the last one of the range
+	 * @param grain the greatest chunk size processed without splitting
+	 * @param body  the work done on every chunk
+	 */
+	public static void run(ForkJoinPool pool, int from, int to, int grain, Body body) {
+		if (to - from <= grain || pool.getParallelism() == 1) {
+			if (from < to)
+				body.apply(from, to);
+			return;
+		}
+		pool.invoke(new ParallelRange(from, to, grain, body));
+	}
+
+	@Override
+	protected void compute() {
+		if (to - from <= grain) {
+			body.apply(from, to);
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		invokeAll(new ParallelRange(from, middle, grain, body), new ParallelRange(middle, to, grain, body));
+	}
+
+}
@@ -0,0 +1,68 @@
+package graphs.secondversion;
+
+import java.util.LinkedList;
+
+/**
+ * Class representing the result of a point to point shortest path query
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public class Path<V> {
+
+	private final LinkedList<V> vertexes;
+	private final double distance;
+	private final int settled;
+
+	/**
+	 * Constructor accepting the path and the search statistics
+	 *
+	 * @param vertexes the vertexes on the path, empty if the target is not
+	 *                 reachable
+	 * @param distance the length of the path, positive infinity if the target is
+	 *                 not reachable
+	 * @param settled  the number of vertexes settled by the search
+	 */
+	public Path(LinkedList<V> vertexes, double distance, int settled) {
+		this.vertexes = vertexes;
+		this.distance = distance;
+		this.settled = settled;
+	}
+
+	/**
+	 * Method telling if a path has been found
+	 *
+	 * @return true if the target is reachable from the source, false if not
+	 */
+	public boolean isFound() {
+		return !vertexes.isEmpty();
+	}
+
+	/**
+	 * Method returning the vertexes on the path
+	 *
+	 * @return a list of the vertexes from the source to the target, both included
+	 */
+	public LinkedList<V> getVertexes() {
+		return vertexes;
+	}
+
+	/**
+	 * Method returning the length of the path
+	 *
+	 * @return a double value for the path length
+	 */
+	public double getDistance() {
+		return distance;
+	}
+
+	/**
+	 * Method returning how many vertexes the search has settled, a measure of the
+	 * explored portion of the graph
+	 *
+	 * @return an integer value of the settled vertexes count
+	 */
+	public int getSettledCount() {
+		return settled;
+	}
+
+}
@@ -0,0 +1,245 @@
+package graphs.secondversion;
+
+import priorityqueue.source.PriorityQueue;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+
+/**
+ * Class implementing point to point shortest path queries with a bidirectional
+ * search: a forward search from the source and a backward search from the
+ * target, each one driven by its own priority queue, grow until their frontiers
+ * prove that no path shorter than the best meeting point can exist; in A* mode
+ * both searches are guided by the average of the forward and backward
+ * heuristic potentials, which keeps the same stopping rule valid; the reverse
+ * adjacencies of oriented graphs are indexed once when the instance is built,
+ * so the graph must not change afterwards, and an instance must not be shared
+ * between threads
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public class PointToPointSearch<V> {
+
+	private final Graph<V> g;
+	private final HashMap<V, LinkedList<V>> reverse;
+	private final SearchSide forward;
+	private final SearchSide backward;
+
+	/**
+	 * Constructor for an engine working on a given graph
+	 *
+	 * @param g          the used graph
+	 * @param comparator a comparator that implements the priority precedence
+	 *                   relation between vertexes
+	 * @throws IllegalArgumentException when the graph, passed as param, is null
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public PointToPointSearch(Graph<V> g, Comparator comparator) throws IllegalArgumentException {
+		if (g == null)
+			throw new IllegalArgumentException("Graph must be not null");
+		this.g = g;
+		this.forward = new SearchSide(comparator);
+		this.backward = new SearchSide(comparator);
+		if (g.isOriented()) {
+			this.reverse = new HashMap();
+			for (V v : g.getAllVertex()) {
+				reverse.putIfAbsent(v, new LinkedList());
+				for (V adiacent : g.getVertexAdjs(v)) {
+					reverse.computeIfAbsent(adiacent, k -> new LinkedList()).add(v);
+				}
+			}
+		} else {
+			this.reverse = null;
+		}
+	}
+
+	/**
+	 * Method computing a shortest path with a bidirectional Dijkstra search
+	 *
+	 * @param source the label of the source vertex
+	 * @param target the label of the target vertex
+	 * @return the shortest path from the source to the target
+	 * @throws UnsupportedOperationException if the graph contains negative
+	 *                                       weights
+	 * @throws NoSuchElementException        if the source or the target vertex is
+	 *                                       not contained in the graph
+	 */
+	public Path<V> bidirectional(V source, V target) throws UnsupportedOperationException, NoSuchElementException {
+		return search(source, target, null);
+	}
+
+	/**
+	 * Method computing a shortest path with a bidirectional A* search
+	 *
+	 * @param source    the label of the source vertex
+	 * @param target    the label of the target vertex
+	 * @param heuristic an admissible and consistent distance estimate
+	 * @return the shortest path from the source to the target
+	 * @throws IllegalArgumentException      when the heuristic, passed as param,
+	 *                                       is null
+	 * @throws UnsupportedOperationException if the graph contains negative
+	 *                                       weights
+	 * @throws NoSuchElementException        if the source or the target vertex is
+	 *                                       not contained in the graph
+	 */
+	public Path<V> aStar(V source, V target, Heuristic<V> heuristic)
+			throws IllegalArgumentException, UnsupportedOperationException, NoSuchElementException {
+		if (heuristic == null)
+			throw new IllegalArgumentException("Heuristic must be not null");
+		return search(source, target, heuristic);
+	}
+
+	/**
+	 * Method running the bidirectional search
+	 *
+	 * @param source    the label of the source vertex
+	 * @param target    the label of the target vertex
+	 * @param heuristic the distance estimate, null for a plain Dijkstra search
+	 * @return the shortest path from the source to the target
+	 * @throws UnsupportedOperationException if the graph contains negative
+	 *                                       weights
+	 * @throws NoSuchElementException        if the source or the target vertex is
+	 *                                       not contained in the graph
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	protected Path<V> search(V source, V target, Heuristic<V> heuristic)
+			throws UnsupportedOperationException, NoSuchElementException {
+
+		if (!g.containsVertex(source))
+			throw new NoSuchElementException("Source vertex not found in graph");
+		if (!g.containsVertex(target))
+			throw new NoSuchElementException("Target vertex not found in graph");
+
+		if (source.equals(target)) {
+			LinkedList<V> single = new LinkedList();
+			single.add(source);
+			return new Path(single, 0, 1);
+		}
+
+		forward.reset(source, heuristic == null ? 0 : potential(heuristic, source, target, source));
+		backward.reset(target, heuristic == null ? 0 : -potential(heuristic, source, target, target));
+
+		double best = Double.POSITIVE_INFINITY;
+		V meeting = null;
+		int settled = 0;
+
+		while (!forward.queue.isEmpty() && !backward.queue.isEmpty()) {
+
+			double forwardTop = forward.queue.peekPriority();
+			double backwardTop = backward.queue.peekPriority();
+			if (forwardTop + backwardTop >= best)
+				break;
+
+			boolean isForward = forwardTop <= backwardTop;
+			SearchSide side = isForward ? forward : backward;
+			SearchSide other = isForward ? backward : forward;
+
+			V actual = side.queue.extractRec();
+			side.settled.add(actual);
+			settled++;
+			double actualDistance = side.distances.get(actual);
+
+			LinkedList<V> adjs = isForward || reverse == null ? g.getVertexAdjs(actual) : reverse.get(actual);
+			for (V adiacent : adjs) {
+				if (side.settled.contains(adiacent))
+					continue;
+				double edgeWeight = isForward ? g.getEdgeWeight(actual, adiacent) : g.getEdgeWeight(adiacent, actual);
+				if (edgeWeight < 0)
+					throw new UnsupportedOperationException("Shortest paths only work with non negative weights");
+				double distance = actualDistance + edgeWeight;
+				Double known = side.distances.get(adiacent);
+				if (known == null || distance < known) {
+					double key = distance;
+					if (heuristic != null) {
+						double p = potential(heuristic, source, target, adiacent);
+						key += isForward ? p : -p;
+					}
+					side.distances.put(adiacent, distance);
+					side.predecessors.put(adiacent, actual);
+					if (known == null) {
+						side.queue.insert(adiacent, key);
+					} else {
+						side.queue.updatePriority(adiacent, key);
+					}
+				}
+				Double otherDistance = other.distances.get(adiacent);
+				if (otherDistance != null && side.distances.get(adiacent) + otherDistance < best) {
+					best = side.distances.get(adiacent) + otherDistance;
+					meeting = adiacent;
+				}
+			}
+
+		}
+
+		LinkedList<V> vertexes = new LinkedList();
+		if (meeting != null) {
+			for (V v = meeting; v != null; v = forward.predecessors.get(v)) {
+				vertexes.addFirst(v);
+			}
+			for (V v = backward.predecessors.get(meeting); v != null; v = backward.predecessors.get(v)) {
+				vertexes.addLast(v);
+			}
+		}
+		return new Path(vertexes, best, settled);
+
+	}
+
+	/**
+	 * Method computing the forward potential of a vertex, the average of the
+	 * estimated distance to the target and the opposite of the estimated distance
+	 * from the source; the backward potential is its opposite
+	 *
+	 * @param heuristic the distance estimate
+	 * @param source    the label of the source vertex
+	 * @param target    the label of the target vertex
+	 * @param vertex    the label of the vertex
+	 * @return a double value for the forward potential
+	 */
+	private double potential(Heuristic<V> heuristic, V source, V target, V vertex) {
+		return (heuristic.estimate(vertex, target) - heuristic.estimate(source, vertex)) / 2;
+	}
+
+	/**
+	 * Inner class holding the state of one of the two searches
+	 */
+	protected class SearchSide {
+
+		private final PriorityQueue<V, Double> queue;
+		private final HashMap<V, Double> distances;
+		private final HashMap<V, V> predecessors;
+		private final HashSet<V> settled;
+
+		/**
+		 * Constructor accepting the comparator of the search queue
+		 *
+		 * @param comparator a comparator that implements the priority precedence
+		 *                   relation between vertexes
+		 */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		public SearchSide(Comparator comparator) {
+			this.queue = new PriorityQueue(comparator);
+			this.distances = new HashMap();
+			this.predecessors = new HashMap();
+			this.settled = new HashSet();
+		}
+
+		/**
+		 * Method clearing the search and seeding it with its starting vertex
+		 *
+		 * @param start the label of the starting vertex
+		 * @param key   the queue priority of the starting vertex
+		 */
+		public void reset(V start, double key) {
+			queue.clear();
+			distances.clear();
+			predecessors.clear();
+			settled.clear();
+			distances.put(start, 0.0);
+			queue.insert(start, key);
+		}
+
+	}
+
+}
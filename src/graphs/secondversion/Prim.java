@@ -1,12 +1,17 @@
 package graphs.secondversion;
 
 import priorityqueue.source.PriorityQueue;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Class implementing MST Prim algorithm
@@ -40,7 +45,262 @@ public class Prim {
 		if (!g.containsVertex(startVertex))
 			throw new NoSuchElementException("Starting vertex not found in graph");
 
-		LinkedList<V> allVertex = g.getAllVertex();
+		return mstPrim(g, g.getAllVertex(), startVertex, comparator);
+
+	}
+
+	/**
+	 * Interface for the receiver of the edges of a spanning tree, in the order
+	 * they are finalized
+	 */
+	public interface EdgeSink {
+
+		/**
+		 * Method receiving a vertex extracted from the queue, along with the edge
+		 * connecting it to the tree
+		 *
+		 * @param vertex the vertex id
+		 * @param parent the id of the vertex it is connected to, -1 if it starts a
+		 *               new tree
+		 * @param weight the cost of the connection, 0 if it starts a new tree
+		 */
+		void accept(int vertex, int parent, double weight);
+
+	}
+
+	/**
+	 * Method implementing the MST-Prim algorithm on an indexed graph, whose
+	 * adjacencies are read through a cursor, so that compressed or mapped layouts
+	 * are decoded on the fly
+	 * 
+	 * @param             <V> type of elements used as identifier for graph vertexes
+	 * @param g           the used graph
+	 * @param startVertex the label of the starting vertex
+	 * @param comparator  a comparator that implements the priority precedence
+	 *                    relation between vertexes
+	 * @return a graph representing the produced minimum spanning tree (MST)
+	 * @throws IllegalArgumentException      when the graph, passed as param, is
+	 *                                       null
+	 * @throws UnsupportedOperationException if the passed graph is oriented or it
+	 *                                       contains negative weights
+	 * @throws NoSuchElementException        if the starting vertex is not contained
+	 *                                       in the graph
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static <V> Graph mstPrim(IndexedGraph<V> g, V startVertex, Comparator comparator)
+			throws IllegalArgumentException, UnsupportedOperationException, NoSuchElementException {
+
+		Graph<V> result = new Graph(false);
+		mstPrim(g, startVertex, comparator, (vertex, parent, weight) -> {
+			if (parent < 0)
+				result.addVertex(g.getLabel(vertex));
+			else
+				result.addEdgeForced(g.getLabel(vertex), g.getLabel(parent), weight);
+		});
+		return result;
+
+	}
+
+	/**
+	 * Method implementing the MST-Prim algorithm on an indexed graph, handing
+	 * every edge to a sink as soon as it is finalized instead of collecting the
+	 * tree, so that it can be streamed out while the algorithm runs
+	 * 
+	 * @param             <V> type of elements used as identifier for graph vertexes
+	 * @param g           the used graph
+	 * @param startVertex the label of the starting vertex
+	 * @param comparator  a comparator that implements the priority precedence
+	 *                    relation between vertexes
+	 * @param sink        the receiver of the tree edges
+	 * @throws IllegalArgumentException      when the graph or the sink, passed as
+	 *                                       params, is null
+	 * @throws UnsupportedOperationException if the passed graph is oriented or it
+	 *                                       contains negative weights
+	 * @throws NoSuchElementException        if the starting vertex is not contained
+	 *                                       in the graph
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static <V> void mstPrim(IndexedGraph<V> g, V startVertex, Comparator comparator, EdgeSink sink)
+			throws IllegalArgumentException, UnsupportedOperationException, NoSuchElementException {
+
+		if (g == null || sink == null)
+			throw new IllegalArgumentException("Graph and sink must be not null");
+		if (g.isOriented())
+			throw new UnsupportedOperationException("Prim only works on not oriented graphs");
+		int start = g.indexOf(startVertex);
+		if (start < 0)
+			throw new NoSuchElementException("Starting vertex not found in graph");
+
+		int n = g.vertexCount();
+
+		// initializing the priority queue
+		ArrayList<Integer> vertexes = new ArrayList(n);
+		for (int v = 0; v < n; v++) {
+			vertexes.add(v);
+		}
+		Double[] prioritiesArr = new Double[n];
+		Arrays.fill(prioritiesArr, Double.MAX_VALUE);
+		ArrayList<Double> priorities = new ArrayList(Arrays.asList(prioritiesArr));
+		PriorityQueue<Integer, Double> queue = new PriorityQueue(vertexes, priorities, comparator);
+
+		// initializing prim vertexes
+		double[] weights = new double[n];
+		Arrays.fill(weights, Double.MAX_VALUE);
+		int[] parents = new int[n];
+		Arrays.fill(parents, -1);
+
+		// setting starting vertex weight to 0
+		weights[start] = 0;
+		queue.updatePriority(start, 0.0);
+
+		IndexedGraph.Cursor cursor = g.cursor();
+		while (!queue.isEmpty()) {
+
+			int actual = queue.extractRec();
+
+			if (parents[actual] < 0) {
+				weights[actual] = 0;
+				sink.accept(actual, -1, 0);
+			} else {
+				sink.accept(actual, parents[actual], weights[actual]);
+			}
+
+			cursor.reset(actual);
+			while (cursor.next()) {
+				int adiacent = cursor.target();
+				if (queue.contains(adiacent)) {
+					double edgeWeight = cursor.weight();
+					if (edgeWeight < 0)
+						throw new UnsupportedOperationException("Prim only works with non negative weights");
+					if (weights[adiacent] > edgeWeight) {
+						weights[adiacent] = edgeWeight;
+						queue.updatePriority(adiacent, edgeWeight);
+						parents[adiacent] = actual;
+					}
+				}
+			}
+
+		}
+
+	}
+
+	/**
+	 * Method computing the minimum spanning forest of a graph, one tree for each
+	 * connected component; components are processed in parallel using as many
+	 * threads as the available processors
+	 * 
+	 * @param            <V> type of elements used as identifier for graph vertexes
+	 * @param g          the used graph
+	 * @param comparator a comparator that implements the priority precedence
+	 *                   relation between vertexes
+	 * @return the produced minimum spanning forest
+	 * @throws IllegalArgumentException      when the graph, passed as param, is
+	 *                                       null
+	 * @throws UnsupportedOperationException if the passed graph is oriented or it
+	 *                                       contains negative weights
+	 */
+	@SuppressWarnings("rawtypes")
+	public static <V> SpanningForest<V> minimumSpanningForest(Graph<V> g, Comparator comparator)
+			throws IllegalArgumentException, UnsupportedOperationException {
+		return minimumSpanningForest(g, comparator, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Method computing the minimum spanning forest of a graph, one tree for each
+	 * connected component; components are processed in parallel by a pool of the
+	 * given size
+	 * 
+	 * @param            <V> type of elements used as identifier for graph vertexes
+	 * @param g          the used graph
+	 * @param comparator a comparator that implements the priority precedence
+	 *                   relation between vertexes
+	 * @param threads    the number of threads processing the components
+	 * @return the produced minimum spanning forest
+	 * @throws IllegalArgumentException      when the graph, passed as param, is
+	 *                                       null or the number of threads is not
+	 *                                       positive
+	 * @throws UnsupportedOperationException if the passed graph is oriented or it
+	 *                                       contains negative weights
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static <V> SpanningForest<V> minimumSpanningForest(Graph<V> g, Comparator comparator, int threads)
+			throws IllegalArgumentException, UnsupportedOperationException {
+
+		if (g == null)
+			throw new IllegalArgumentException("Graph must be not null");
+		if (threads < 1)
+			throw new IllegalArgumentException("Number of threads must be positive");
+		if (g.isOriented())
+			throw new UnsupportedOperationException("Prim only works on not oriented graphs");
+
+		// labelling the connected components with a breadth first visit
+		HashMap<V, Integer> componentIds = new HashMap();
+		ArrayList<LinkedList<V>> components = new ArrayList();
+		for (V v : g.getAllVertex()) {
+			if (componentIds.containsKey(v))
+				continue;
+			int id = components.size();
+			LinkedList<V> component = new LinkedList();
+			ArrayDeque<V> frontier = new ArrayDeque();
+			componentIds.put(v, id);
+			frontier.add(v);
+			while (!frontier.isEmpty()) {
+				V actual = frontier.poll();
+				component.add(actual);
+				for (V adiacent : g.getVertexAdjs(actual)) {
+					if (!componentIds.containsKey(adiacent)) {
+						componentIds.put(adiacent, id);
+						frontier.add(adiacent);
+					}
+				}
+			}
+			components.add(component);
+		}
+
+		// running an independent Prim on every component
+		Graph<V>[] trees = new Graph[components.size()];
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, components.size())));
+		try {
+			ArrayList<Future<Graph<V>>> futures = new ArrayList();
+			for (LinkedList<V> component : components) {
+				futures.add(pool.submit(() -> mstPrim(g, component, component.getFirst(), comparator)));
+			}
+			for (int i = 0; i < trees.length; i++) {
+				trees[i] = futures.get(i).get();
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while computing the spanning forest", e);
+		} finally {
+			pool.shutdownNow();
+		}
+
+		return new SpanningForest(trees, componentIds);
+
+	}
+
+	/**
+	 * Method running the MST-Prim algorithm over a subset of the graph vertexes,
+	 * which must be closed under adjacency
+	 * 
+	 * @param             <V> type of elements used as identifier for graph vertexes
+	 * @param g           the used graph
+	 * @param allVertex   the vertexes to span
+	 * @param startVertex the label of the starting vertex
+	 * @param comparator  a comparator that implements the priority precedence
+	 *                    relation between vertexes
+	 * @return a graph representing the produced minimum spanning tree (MST)
+	 * @throws UnsupportedOperationException if the passed graph contains negative
+	 *                                       weights
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static <V> Graph<V> mstPrim(Graph<V> g, LinkedList<V> allVertex, V startVertex, Comparator comparator)
+			throws UnsupportedOperationException {
+
 		Graph<V> result = new Graph(false);
 
 		// initializing the priority queue
@@ -0,0 +1,306 @@
+package graphs.secondversion;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Class implementing a size bounded cache of algorithm results, evicting the
+ * least recently used entry when full; entries are keyed by graph, graph
+ * version, algorithm, source and parameters, so that a change of the graph
+ * makes its cached results unreachable, and they are dropped as soon as a
+ * result for the new version is computed; keys refer to their graph weakly, so
+ * the cache never keeps a graph alive, and the results of a collected graph go
+ * with the next computation. Cached results are shared, so they must not be
+ * modified by callers
+ */
+public class ResultCache {
+
+	// a class is stateless when its only instance field is the reference to
+	// the enclosing instance of an inner class, captured values included
+	private static final ClassValue<Boolean> STATELESS = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+				for (Field field : c.getDeclaredFields()) {
+					if (!Modifier.isStatic(field.getModifiers())
+							&& !(field.isSynthetic() && field.getName().startsWith("this$")))
+						return false;
+				}
+			}
+			return true;
+		}
+	};
+
+	private final int capacity;
+	private final LinkedHashMap<Key, Object> entries;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long invalidations;
+
+	/**
+	 * Constructor for an empty cache
+	 *
+	 * @param capacity the greatest number of cached results
+	 * @throws IllegalArgumentException when the capacity is not positive
+	 */
+	@SuppressWarnings("serial")
+	public ResultCache(int capacity) throws IllegalArgumentException {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("Capacity must be positive");
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<Key, Object>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+				if (size() > ResultCache.this.capacity) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Method returning a cached minimum spanning tree, computing it with Prim's
+	 * algorithm on a miss
+	 *
+	 * @param             <V> type of elements used as identifier for graph vertexes
+	 * @param g           the used graph
+	 * @param startVertex the label of the starting vertex
+	 * @param comparator  a comparator that implements the priority precedence
+	 *                    relation between vertexes, part of the key by its
+	 *                    class when it has no state
+	 * @return a graph representing the minimum spanning tree
+	 * @throws IllegalArgumentException      when the graph, passed as param, is
+	 *                                       null
+	 * @throws UnsupportedOperationException if the graph is oriented
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public <V> Graph<V> mstPrim(Graph<V> g, V startVertex, Comparator comparator)
+			throws IllegalArgumentException, UnsupportedOperationException {
+		return get(g, "prim", startVertex, comparatorKey(comparator), () -> Prim.mstPrim(g, startVertex, comparator));
+	}
+
+	/**
+	 * Method returning cached shortest paths, computing them with Dijkstra's
+	 * algorithm on a miss
+	 *
+	 * @param            <V> type of elements used as identifier for graph vertexes
+	 * @param g          the used graph
+	 * @param source     the label of the source vertex
+	 * @param comparator a comparator that implements the priority precedence
+	 *                   relation between vertexes, part of the key by its
+	 *                   class when it has no state
+	 * @return the shortest paths from the source
+	 * @throws IllegalArgumentException      when the graph, passed as param, is
+	 *                                       null
+	 * @throws UnsupportedOperationException if the graph contains negative
+	 *                                       weights
+	 * @throws NoSuchElementException        if the source vertex is not contained
+	 *                                       in the graph
+	 */
+	@SuppressWarnings("rawtypes")
+	public <V> ShortestPaths<V> shortestPaths(Graph<V> g, V source, Comparator comparator)
+			throws IllegalArgumentException, UnsupportedOperationException, NoSuchElementException {
+		return get(g, "dijkstra", source, comparatorKey(comparator), () -> new Dijkstra<V>(g, comparator).run(source));
+	}
+
+	/**
+	 * Method returning a cached result, computing and caching it on a miss; the
+	 * computation runs outside the cache lock, so concurrent misses of the same
+	 * key may compute it more than once
+	 *
+	 * @param            <R> type of the result
+	 * @param g          the graph the result is computed on
+	 * @param algorithm  the name of the algorithm
+	 * @param source     the source vertex, or null
+	 * @param parameters the other parameters of the computation, or null; it must
+	 *                   implement equals and hashCode
+	 * @param compute    the computation of the result
+	 * @return the cached or computed result
+	 * @throws IllegalArgumentException when the graph, passed as param, is null
+	 */
+	@SuppressWarnings("unchecked")
+	public <R> R get(Graph<?> g, String algorithm, Object source, Object parameters, Supplier<R> compute)
+			throws IllegalArgumentException {
+		if (g == null)
+			throw new IllegalArgumentException("Graph must be not null");
+		Key key = new Key(g, g.getVersion(), algorithm, source, parameters);
+		synchronized (this) {
+			Object cached = entries.get(key);
+			if (cached != null) {
+				hits++;
+				return (R) cached;
+			}
+			misses++;
+		}
+		R result = compute.get();
+		synchronized (this) {
+			if (g.getVersion() == key.version && result != null) {
+				invalidate(g, key.version);
+				entries.put(key, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Method returning the key part of a comparator: comparators use identity
+	 * equality, so one without state is represented by its class, for a new
+	 * instance per call to find the results of the previous ones
+	 *
+	 * @param comparator the comparator, or null
+	 * @return the class of the comparator if it has no state, the comparator
+	 *         itself otherwise
+	 */
+	@SuppressWarnings("rawtypes")
+	private static Object comparatorKey(Comparator comparator) {
+		if (comparator == null)
+			return null;
+		return STATELESS.get(comparator.getClass()) ? comparator.getClass() : comparator;
+	}
+
+	/**
+	 * Method returning the number of requests answered from the cache
+	 *
+	 * @return a long value of the hits count
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Method returning the number of requests that computed their result
+	 *
+	 * @return a long value of the misses count
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Method returning the number of results dropped to respect the capacity
+	 *
+	 * @return a long value of the evictions count
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Method returning the number of results dropped because their graph changed
+	 *
+	 * @return a long value of the invalidations count
+	 */
+	public synchronized long getInvalidations() {
+		return invalidations;
+	}
+
+	/**
+	 * Method returning the fraction of requests answered from the cache
+	 *
+	 * @return a double value between 0 and 1, 0 if there were no requests
+	 */
+	public synchronized double getHitRate() {
+		long requests = hits + misses;
+		return requests == 0 ? 0 : (double) hits / requests;
+	}
+
+	/**
+	 * Method returning the number of cached results
+	 *
+	 * @return an integer value of the entries count
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Method removing every cached result, keeping the metrics
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Method dropping the results of the other versions of a graph and those of
+	 * collected graphs; it runs when a result is stored, after a computation
+	 * that costs more than the scan
+	 *
+	 * @param g       the graph
+	 * @param version the current version of the graph
+	 */
+	private void invalidate(Graph<?> g, long version) {
+		Iterator<Key> iterator = entries.keySet().iterator();
+		while (iterator.hasNext()) {
+			Key key = iterator.next();
+			Graph<?> graph = key.graph.get();
+			if (graph == null || (graph == g && key.version != version)) {
+				iterator.remove();
+				invalidations++;
+			}
+		}
+	}
+
+	/**
+	 * Inner class representing the key of a cached result; graphs are weakly
+	 * referenced and compared by identity, and a key whose graph has been
+	 * collected equals no other key
+	 */
+	protected static class Key {
+
+		private final WeakReference<Graph<?>> graph;
+		private final int graphHash;
+		private final long version;
+		private final String algorithm;
+		private final Object source;
+		private final Object parameters;
+
+		/**
+		 * Constructor accepting the components of the key
+		 *
+		 * @param graph      the graph the result is computed on
+		 * @param version    the version of the graph
+		 * @param algorithm  the name of the algorithm
+		 * @param source     the source vertex, or null
+		 * @param parameters the other parameters of the computation, or null
+		 */
+		public Key(Graph<?> graph, long version, String algorithm, Object source, Object parameters) {
+			this.graph = new WeakReference<Graph<?>>(graph);
+			this.graphHash = System.identityHashCode(graph);
+			this.version = version;
+			this.algorithm = algorithm;
+			this.source = source;
+			this.parameters = parameters;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (o == this)
+				return true;
+			if (!(o instanceof Key))
+				return false;
+			Key other = (Key) o;
+			Graph<?> referent = graph.get();
+			return referent != null && referent == other.graph.get() && version == other.version
+					&& Objects.equals(algorithm, other.algorithm)
+					&& Objects.equals(source, other.source) && Objects.equals(parameters, other.parameters);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(graphHash, version, algorithm, source, parameters);
+		}
+
+	}
+
+}
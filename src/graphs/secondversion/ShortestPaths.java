@@ -0,0 +1,98 @@
+package graphs.secondversion;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+
+/**
+ * Class representing the result of a single source shortest path computation
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public class ShortestPaths<V> {
+
+	private final V source;
+	private final HashMap<V, Double> distances;
+	private final HashMap<V, V> predecessors;
+
+	/**
+	 * Constructor accepting the source vertex and the computed maps
+	 *
+	 * @param source       the label of the source vertex
+	 * @param distances    the distance from the source of every reached vertex
+	 * @param predecessors the previous vertex on the shortest path of every
+	 *                     reached vertex, except the source
+	 */
+	public ShortestPaths(V source, HashMap<V, Double> distances, HashMap<V, V> predecessors) {
+		this.source = source;
+		this.distances = distances;
+		this.predecessors = predecessors;
+	}
+
+	/**
+	 * Method returning the source vertex of the computation
+	 *
+	 * @return the label of the source vertex
+	 */
+	public V getSource() {
+		return source;
+	}
+
+	/**
+	 * Method returning the distance map
+	 *
+	 * @return the distance from the source of every reached vertex
+	 */
+	public HashMap<V, Double> getDistances() {
+		return distances;
+	}
+
+	/**
+	 * Method returning the predecessor map
+	 *
+	 * @return the previous vertex on the shortest path of every reached vertex
+	 */
+	public HashMap<V, V> getPredecessors() {
+		return predecessors;
+	}
+
+	/**
+	 * Method telling if a vertex has been reached from the source
+	 *
+	 * @param vertex the label of the vertex
+	 * @return true if a path to the vertex has been found, false if not
+	 */
+	public boolean hasPathTo(V vertex) {
+		return distances.containsKey(vertex);
+	}
+
+	/**
+	 * Method returning the distance of a vertex from the source
+	 *
+	 * @param vertex the label of the vertex
+	 * @return a double value for the distance, positive infinity if the vertex
+	 *         has not been reached
+	 */
+	public double getDistance(V vertex) {
+		Double distance = distances.get(vertex);
+		return distance == null ? Double.POSITIVE_INFINITY : distance;
+	}
+
+	/**
+	 * Method returning the shortest path from the source to a vertex
+	 *
+	 * @param vertex the label of the path ending vertex
+	 * @return a list of the vertexes on the path, source and vertex included,
+	 *         empty if the vertex has not been reached
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public LinkedList<V> getPath(V vertex) {
+		LinkedList<V> path = new LinkedList();
+		if (!hasPathTo(vertex))
+			return path;
+		for (V v = vertex; v != null; v = predecessors.get(v)) {
+			path.addFirst(v);
+		}
+		return path;
+	}
+
+}
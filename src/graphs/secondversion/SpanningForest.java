@@ -0,0 +1,90 @@
+package graphs.secondversion;
+
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+
+/**
+ * Class representing a minimum spanning forest, made of one minimum spanning
+ * tree for each connected component of a graph
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public class SpanningForest<V> {
+
+	private final Graph<V>[] trees;
+	private final HashMap<V, Integer> componentIds;
+	private final double weight;
+
+	/**
+	 * Constructor accepting the trees of the forest and the component id of
+	 * every vertex
+	 *
+	 * @param trees        the minimum spanning trees, indexed by component id
+	 * @param componentIds the component id of every vertex
+	 */
+	public SpanningForest(Graph<V>[] trees, HashMap<V, Integer> componentIds) {
+		this.trees = trees;
+		this.componentIds = componentIds;
+		double total = 0;
+		for (Graph<V> tree : trees) {
+			total += tree.weight();
+		}
+		this.weight = total;
+	}
+
+	/**
+	 * Method returning the number of connected components, which is also the
+	 * number of trees in the forest
+	 *
+	 * @return an integer value of the components count
+	 */
+	public int componentCount() {
+		return trees.length;
+	}
+
+	/**
+	 * Method returning the minimum spanning tree of a component
+	 *
+	 * @param componentId the id of the component
+	 * @return a graph representing the minimum spanning tree of the component
+	 * @throws IndexOutOfBoundsException if the component id is not valid
+	 */
+	public Graph<V> getTree(int componentId) {
+		return trees[componentId];
+	}
+
+	/**
+	 * Method returning the id of the component containing a given vertex
+	 *
+	 * @param vertex the label of the vertex
+	 * @return the id of the component containing the vertex
+	 * @throws NoSuchElementException if the vertex is not contained in the graph
+	 */
+	public int getComponentId(V vertex) {
+		Integer id = componentIds.get(vertex);
+		if (id == null)
+			throw new NoSuchElementException("Vertex " + vertex + " not found in forest");
+		return id;
+	}
+
+	/**
+	 * Method returning the total cost of the minimum spanning tree of a component
+	 *
+	 * @param componentId the id of the component
+	 * @return a double value for the weight of the component tree
+	 * @throws IndexOutOfBoundsException if the component id is not valid
+	 */
+	public double getComponentWeight(int componentId) {
+		return trees[componentId].weight();
+	}
+
+	/**
+	 * Method returning the total cost of the whole forest
+	 *
+	 * @return a double value for the weight of the forest
+	 */
+	public double weight() {
+		return weight;
+	}
+
+}
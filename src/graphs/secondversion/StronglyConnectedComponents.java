@@ -0,0 +1,444 @@
+package graphs.secondversion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class computing the strongly connected components of an oriented indexed
+ * graph, either with Tarjan's algorithm, run with an explicit stack so that
+ * long paths cannot overflow the thread stack, or with the parallel
+ * forward-backward algorithm: after trimming the vertexes without incoming or
+ * outgoing adjacencies, the vertexes both reachable from and reaching a random
+ * pivot form its component, and the three remaining parts are trimmed and
+ * split independently on a fork-join pool
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public class StronglyConnectedComponents<V> {
+
+	private static final int SEQUENTIAL_LIMIT = 4096;
+
+	private final IndexedGraph<V> g;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Constructor for an engine working on a given graph
+	 *
+	 * @param g    the used graph
+	 * @param pool the pool running the parallel algorithm
+	 * @throws IllegalArgumentException      when the graph or the pool, passed as
+	 *                                       params, is null
+	 * @throws UnsupportedOperationException if the graph is not oriented
+	 */
+	public StronglyConnectedComponents(IndexedGraph<V> g, ForkJoinPool pool)
+			throws IllegalArgumentException, UnsupportedOperationException {
+		if (g == null || pool == null)
+			throw new IllegalArgumentException("Graph and pool must be not null");
+		if (!g.isOriented())
+			throw new UnsupportedOperationException("Strongly connected components only work on oriented graphs");
+		this.g = g;
+		this.pool = pool;
+	}
+
+	/**
+	 * Method computing the components with Tarjan's algorithm
+	 *
+	 * @return the component id of every vertex, indexed by vertex id; components
+	 *         are numbered in reverse topological order, so every adjacency
+	 *         between two components goes from a greater id to a smaller one
+	 */
+	public int[] components() {
+		int n = g.vertexCount();
+		int[] scc = new int[n];
+		int[] vertexes = new int[n];
+		for (int v = 0; v < n; v++) {
+			vertexes[v] = v;
+		}
+		tarjan(vertexes, 0, n, new int[n], 0, scc, new AtomicInteger(), new int[n], new int[n], new boolean[n]);
+		return scc;
+	}
+
+	/**
+	 * Method computing the components with the parallel forward-backward
+	 * algorithm
+	 *
+	 * @return the component id of every vertex, indexed by vertex id; component
+	 *         ids are dense, numbered by their first vertex
+	 */
+	public int[] componentsParallel() {
+		int n = g.vertexCount();
+		int[] scc = new int[n];
+		if (n == 0)
+			return scc;
+		State state = new State(CsrGraph.transpose(g), scc);
+		pool.invoke(new ForwardBackward(null, state, 0, n, 0));
+		// relabelling the components by their first vertex
+		int[] dense = new int[state.nextComponent.get()];
+		Arrays.fill(dense, -1);
+		int count = 0;
+		for (int v = 0; v < n; v++) {
+			if (dense[scc[v]] < 0)
+				dense[scc[v]] = count++;
+			scc[v] = dense[scc[v]];
+		}
+		return scc;
+	}
+
+	/**
+	 * Method grouping the vertexes by component, computed with Tarjan's algorithm
+	 *
+	 * @return the list of the components, in reverse topological order, each as a
+	 *         list of vertex labels
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public LinkedList<LinkedList<V>> getComponents() {
+		int[] scc = components();
+		ArrayList<LinkedList<V>> groups = new ArrayList();
+		for (int v = 0; v < scc.length; v++) {
+			while (groups.size() <= scc[v]) {
+				groups.add(new LinkedList());
+			}
+			groups.get(scc[v]).add(g.getLabel(v));
+		}
+		return new LinkedList(groups);
+	}
+
+	/**
+	 * Method counting the components
+	 *
+	 * @return an integer value of the components count
+	 */
+	public int componentCount() {
+		int[] scc = components();
+		return scc.length == 0 ? 0 : Arrays.stream(scc).max().getAsInt() + 1;
+	}
+
+	/**
+	 * Method running Tarjan's algorithm over the vertexes of a partition, with an
+	 * explicit stack of cursors; adjacencies leaving the partition are ignored
+	 *
+	 * @param vertexes      the array holding the vertexes of the partition
+	 * @param from          the position of the first vertex of the partition
+	 * @param to            the position after the last vertex of the partition
+	 * @param partition     the partition of every vertex
+	 * @param p             the partition to visit
+	 * @param scc           the component id of every vertex, filled for the
+	 *                      vertexes of the partition
+	 * @param nextComponent the counter of the component ids
+	 * @param index         the visit order of every vertex, 0 if unvisited
+	 * @param low           the smallest visit order reachable from every vertex
+	 * @param onStack       the vertexes on the component stack
+	 */
+	private void tarjan(int[] vertexes, int from, int to, int[] partition, int p, int[] scc,
+			AtomicInteger nextComponent, int[] index, int[] low, boolean[] onStack) {
+		IntList stack = new IntList(16);
+		IntList path = new IntList(16);
+		ArrayList<IndexedGraph.Cursor> cursors = new ArrayList<IndexedGraph.Cursor>();
+		int counter = 0;
+		for (int k = from; k < to; k++) {
+			int root = vertexes[k];
+			if (index[root] != 0)
+				continue;
+			// path holds the vertexes whose adjacencies are being scanned, with a
+			// cursor each at the same depth
+			path.clear();
+			int depth = 0;
+			index[root] = low[root] = ++counter;
+			stack.add(root);
+			onStack[root] = true;
+			path.add(root);
+			if (cursors.isEmpty())
+				cursors.add(g.cursor());
+			cursors.get(0).reset(root);
+			while (depth >= 0) {
+				int v = path.get(depth);
+				IndexedGraph.Cursor cursor = cursors.get(depth);
+				if (cursor.next()) {
+					int w = cursor.target();
+					if (partition[w] != p)
+						continue;
+					if (index[w] == 0) {
+						index[w] = low[w] = ++counter;
+						stack.add(w);
+						onStack[w] = true;
+						depth++;
+						if (depth == path.size()) {
+							path.add(w);
+						} else {
+							path.set(depth, w);
+						}
+						if (depth == cursors.size())
+							cursors.add(g.cursor());
+						cursors.get(depth).reset(w);
+					} else if (onStack[w]) {
+						low[v] = Math.min(low[v], index[w]);
+					}
+					continue;
+				}
+				if (low[v] == index[v]) {
+					int c = nextComponent.getAndIncrement();
+					int w;
+					do {
+						w = stack.removeLast();
+						onStack[w] = false;
+						scc[w] = c;
+					} while (w != v);
+				}
+				depth--;
+				if (depth >= 0) {
+					int u = path.get(depth);
+					low[u] = Math.min(low[u], low[v]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Inner class holding the arrays shared by the forward-backward tasks: the
+	 * vertexes of every partition lie in a range of the order array, and every
+	 * task only writes the entries of its own range and of its own vertexes
+	 */
+	protected class State {
+
+		private final IndexedGraph<V> transposed;
+		private final int[] scc;
+		private final int[] order;
+		private final int[] partition;
+		private final int[] in;
+		private final int[] out;
+		private final int[] index;
+		private final int[] low;
+		private final boolean[] onStack;
+		private final AtomicInteger nextComponent;
+		private final AtomicInteger nextPartition;
+
+		/**
+		 * Constructor accepting the transpose of the graph, with every vertex in
+		 * the first partition
+		 *
+		 * @param transposed the transpose of the graph
+		 * @param scc        the component id of every vertex, to fill
+		 */
+		public State(IndexedGraph<V> transposed, int[] scc) {
+			int n = g.vertexCount();
+			this.transposed = transposed;
+			this.scc = scc;
+			this.order = new int[n];
+			this.partition = new int[n];
+			this.in = new int[n];
+			this.out = new int[n];
+			this.index = new int[n];
+			this.low = new int[n];
+			this.onStack = new boolean[n];
+			this.nextComponent = new AtomicInteger();
+			this.nextPartition = new AtomicInteger();
+			for (int v = 0; v < n; v++) {
+				order[v] = v;
+			}
+		}
+
+	}
+
+	/**
+	 * Inner class implementing a forward-backward task over the vertexes of a
+	 * partition; the parts a split leaves are forked without waiting for them,
+	 * the task going on with one of them, so that neither the stack nor the
+	 * copies grow with the number of components along a path
+	 */
+	protected class ForwardBackward extends CountedCompleter<Void> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final State state;
+		private final int from;
+		private final int to;
+		private final int p;
+
+		/**
+		 * Constructor for a task over a partition
+		 *
+		 * @param parent the task completed after this one, null for the first
+		 * @param state  the shared arrays
+		 * @param from   the position of the first vertex of the partition
+		 * @param to     the position after the last vertex of the partition
+		 * @param p      the partition id
+		 */
+		public ForwardBackward(CountedCompleter<?> parent, State state, int from, int to, int p) {
+			super(parent);
+			this.state = state;
+			this.from = from;
+			this.to = to;
+			this.p = p;
+		}
+
+		@Override
+		public void compute() {
+			int[] order = state.order;
+			int[] partition = state.partition;
+			IndexedGraph.Cursor cursor = g.cursor();
+			IndexedGraph.Cursor reverse = state.transposed.cursor();
+			int from = this.from;
+			int to = this.to;
+			int p = this.p;
+			while (true) {
+				to = trim(from, to, p, cursor, reverse);
+				if (to - from <= SEQUENTIAL_LIMIT) {
+					tarjan(order, from, to, partition, p, state.scc, state.nextComponent, state.index, state.low,
+							state.onStack);
+					break;
+				}
+				int pivot = order[ThreadLocalRandom.current().nextInt(from, to)];
+				int forward = state.nextPartition.incrementAndGet();
+				int backward = state.nextPartition.incrementAndGet();
+
+				// vertexes reachable from the pivot move to the forward partition
+				IntList queue = new IntList(16);
+				partition[pivot] = forward;
+				queue.add(pivot);
+				for (int k = 0; k < queue.size(); k++) {
+					cursor.reset(queue.get(k));
+					while (cursor.next()) {
+						int w = cursor.target();
+						if (partition[w] == p) {
+							partition[w] = forward;
+							queue.add(w);
+						}
+					}
+				}
+
+				// vertexes reaching the pivot either close its component or move to
+				// the backward partition
+				int c = state.nextComponent.getAndIncrement();
+				queue.clear();
+				partition[pivot] = -1;
+				state.scc[pivot] = c;
+				queue.add(pivot);
+				for (int k = 0; k < queue.size(); k++) {
+					reverse.reset(queue.get(k));
+					while (reverse.next()) {
+						int u = reverse.target();
+						if (partition[u] == forward) {
+							partition[u] = -1;
+							state.scc[u] = c;
+							queue.add(u);
+						} else if (partition[u] == p) {
+							partition[u] = backward;
+							queue.add(u);
+						}
+					}
+				}
+
+				// the range is reordered as forward, backward, rest and component
+				int forwardEnd = group(from, to, forward);
+				int backwardEnd = group(forwardEnd, to, backward);
+				int restEnd = group(backwardEnd, to, p);
+				if (forwardEnd > from) {
+					addToPendingCount(1);
+					new ForwardBackward(this, state, from, forwardEnd, forward).fork();
+				}
+				if (backwardEnd > forwardEnd) {
+					addToPendingCount(1);
+					new ForwardBackward(this, state, forwardEnd, backwardEnd, backward).fork();
+				}
+				if (restEnd == backwardEnd)
+					break;
+				from = backwardEnd;
+				to = restEnd;
+			}
+			tryComplete();
+		}
+
+		/**
+		 * Method repeatedly removing the vertexes of a partition without incoming
+		 * or outgoing adjacencies inside it, each being a component on its own,
+		 * and moving them after the ones left
+		 *
+		 * @param from    the position of the first vertex of the partition
+		 * @param to      the position after the last vertex of the partition
+		 * @param p       the partition id
+		 * @param cursor  a cursor over the graph
+		 * @param reverse a cursor over the transpose of the graph
+		 * @return the position after the last vertex left
+		 */
+		private int trim(int from, int to, int p, IndexedGraph.Cursor cursor, IndexedGraph.Cursor reverse) {
+			int[] order = state.order;
+			int[] partition = state.partition;
+			int[] in = state.in;
+			int[] out = state.out;
+			IntList queue = new IntList(16);
+			for (int k = from; k < to; k++) {
+				int v = order[k];
+				in[v] = 0;
+				reverse.reset(v);
+				while (reverse.next()) {
+					if (partition[reverse.target()] == p)
+						in[v]++;
+				}
+				out[v] = 0;
+				cursor.reset(v);
+				while (cursor.next()) {
+					if (partition[cursor.target()] == p)
+						out[v]++;
+				}
+			}
+			for (int k = from; k < to; k++) {
+				int v = order[k];
+				if (in[v] == 0 || out[v] == 0) {
+					partition[v] = -1;
+					state.scc[v] = state.nextComponent.getAndIncrement();
+					queue.add(v);
+				}
+			}
+			for (int k = 0; k < queue.size(); k++) {
+				int v = queue.get(k);
+				cursor.reset(v);
+				while (cursor.next()) {
+					int w = cursor.target();
+					if (partition[w] == p && --in[w] == 0) {
+						partition[w] = -1;
+						state.scc[w] = state.nextComponent.getAndIncrement();
+						queue.add(w);
+					}
+				}
+				reverse.reset(v);
+				while (reverse.next()) {
+					int u = reverse.target();
+					if (partition[u] == p && --out[u] == 0) {
+						partition[u] = -1;
+						state.scc[u] = state.nextComponent.getAndIncrement();
+						queue.add(u);
+					}
+				}
+			}
+			return queue.isEmpty() ? to : group(from, to, p);
+		}
+
+		/**
+		 * Method moving the vertexes of a partition to the front of a range
+		 *
+		 * @param from the position of the first vertex of the range
+		 * @param to   the position after the last vertex of the range
+		 * @param p    the partition id
+		 * @return the position after the last moved vertex
+		 */
+		private int group(int from, int to, int p) {
+			int[] order = state.order;
+			int j = from;
+			for (int k = from; k < to; k++) {
+				int v = order[k];
+				if (state.partition[v] == p) {
+					order[k] = order[j];
+					order[j++] = v;
+				}
+			}
+			return j;
+		}
+
+	}
+
+}
@@ -0,0 +1,84 @@
+package graphs.secondversion;
+
+import java.util.LinkedList;
+
+/**
+ * Class implementing Kahn's topological sort of an oriented indexed graph:
+ * vertexes without incoming adjacencies are emitted first, and removing them
+ * frees their neighbours in turn
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public class TopologicalSort<V> {
+
+	private final IndexedGraph<V> g;
+
+	/**
+	 * Constructor for a sort working on a given graph
+	 *
+	 * @param g the used graph
+	 * @throws IllegalArgumentException      when the graph, passed as param, is
+	 *                                       null
+	 * @throws UnsupportedOperationException if the graph is not oriented
+	 */
+	public TopologicalSort(IndexedGraph<V> g) throws IllegalArgumentException, UnsupportedOperationException {
+		if (g == null)
+			throw new IllegalArgumentException("Graph must be not null");
+		if (!g.isOriented())
+			throw new UnsupportedOperationException("Topological sort only works on oriented graphs");
+		this.g = g;
+	}
+
+	/**
+	 * Method sorting the vertexes so that every adjacency goes from an earlier
+	 * vertex to a later one
+	 *
+	 * @return the list of vertex labels in topological order
+	 * @throws UnsupportedOperationException if the graph contains a cycle
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public LinkedList<V> sort() throws UnsupportedOperationException {
+		LinkedList<V> out = new LinkedList();
+		for (int v : order()) {
+			out.add(g.getLabel(v));
+		}
+		return out;
+	}
+
+	/**
+	 * Method sorting the vertex ids so that every adjacency goes from an earlier
+	 * vertex to a later one
+	 *
+	 * @return the vertex ids in topological order
+	 * @throws UnsupportedOperationException if the graph contains a cycle
+	 */
+	public int[] order() throws UnsupportedOperationException {
+		int n = g.vertexCount();
+		int[] in = new int[n];
+		IndexedGraph.Cursor cursor = g.cursor();
+		for (int v = 0; v < n; v++) {
+			cursor.reset(v);
+			while (cursor.next()) {
+				in[cursor.target()]++;
+			}
+		}
+		// the emitted vertexes double as the queue of the ones to process
+		IntList order = new IntList(n);
+		for (int v = 0; v < n; v++) {
+			if (in[v] == 0)
+				order.add(v);
+		}
+		for (int k = 0; k < order.size(); k++) {
+			cursor.reset(order.get(k));
+			while (cursor.next()) {
+				int w = cursor.target();
+				if (--in[w] == 0)
+					order.add(w);
+			}
+		}
+		if (order.size() < n)
+			throw new UnsupportedOperationException("Graph contains a cycle, no topological order exists");
+		return order.toArray();
+	}
+
+}
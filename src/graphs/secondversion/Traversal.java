@@ -0,0 +1,318 @@
+package graphs.secondversion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class implementing traversals of an indexed graph: a parallel breadth first
+ * search that switches between top-down steps, expanding the frontier, and
+ * bottom-up steps, where every unvisited vertex looks for a parent in the
+ * frontier, whichever scans fewer adjacencies; an iterative depth first
+ * search; and parallel connected components through a lock free union-find
+ *
+ * @param <V> type of elements used as identifier for graph vertexes
+ */
+public class Traversal<V> {
+
+	private static final int GRAIN = 1024;
+	private static final int ALPHA = 14;
+	private static final int BETA = 24;
+
+	private final IndexedGraph<V> g;
+	private final ForkJoinPool pool;
+	private IndexedGraph<V> incoming;
+
+	/**
+	 * Constructor for an engine working on a given graph
+	 *
+	 * @param g    the used graph
+	 * @param pool the pool running the parallel steps
+	 * @throws IllegalArgumentException when the graph or the pool, passed as
+	 *                                  params, is null
+	 */
+	public Traversal(IndexedGraph<V> g, ForkJoinPool pool) throws IllegalArgumentException {
+		if (g == null || pool == null)
+			throw new IllegalArgumentException("Graph and pool must be not null");
+		this.g = g;
+		this.pool = pool;
+	}
+
+	/**
+	 * Method computing the breadth first levels from a source vertex
+	 *
+	 * @param source the label of the source vertex
+	 * @return the number of edges from the source to every reached vertex
+	 * @throws NoSuchElementException if the source vertex is not contained in the
+	 *                                graph
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public HashMap<V, Integer> bfs(V source) throws NoSuchElementException {
+		int[] levels = levels(idOf(source));
+		HashMap<V, Integer> out = new HashMap();
+		for (int v = 0; v < levels.length; v++) {
+			if (levels[v] >= 0)
+				out.put(g.getLabel(v), levels[v]);
+		}
+		return out;
+	}
+
+	/**
+	 * Method computing the breadth first levels from a source vertex id
+	 *
+	 * @param source the source vertex id
+	 * @return the number of edges from the source to every vertex, indexed by
+	 *         vertex id, -1 for the unreached ones
+	 * @throws NoSuchElementException if the source vertex is not contained in the
+	 *                                graph
+	 */
+	public int[] levels(int source) throws NoSuchElementException {
+		int n = g.vertexCount();
+		if (source < 0 || source >= n)
+			throw new NoSuchElementException("Source vertex not found in graph");
+		AtomicIntegerArray levels = new AtomicIntegerArray(n);
+		for (int v = 0; v < n; v++) {
+			levels.set(v, -1);
+		}
+		levels.set(source, 0);
+		IntList frontier = new IntList(1);
+		frontier.add(source);
+		long frontierEdges = g.degree(source);
+		long unexploredEdges = g.adjacencyCount() - frontierEdges;
+		boolean bottomUp = false;
+		for (int depth = 0; !frontier.isEmpty(); depth++) {
+			if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+				bottomUp = true;
+			} else if (bottomUp && frontier.size() < n / BETA) {
+				bottomUp = false;
+			}
+			AtomicLong nextEdges = new AtomicLong();
+			frontier = bottomUp ? bottomUpStep(levels, depth, nextEdges) : topDownStep(frontier, levels, depth, nextEdges);
+			frontierEdges = nextEdges.get();
+			unexploredEdges -= frontierEdges;
+		}
+		int[] out = new int[n];
+		for (int v = 0; v < n; v++) {
+			out[v] = levels.get(v);
+		}
+		return out;
+	}
+
+	/**
+	 * Method visiting the vertexes reachable from a source in depth first order
+	 *
+	 * @param source the label of the source vertex
+	 * @return the reached vertexes, in the order they are first visited
+	 * @throws NoSuchElementException if the source vertex is not contained in the
+	 *                                graph
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public LinkedList<V> dfs(V source) throws NoSuchElementException {
+		LinkedList<V> out = new LinkedList();
+		for (int v : preorder(idOf(source))) {
+			out.add(g.getLabel(v));
+		}
+		return out;
+	}
+
+	/**
+	 * Method visiting the vertexes reachable from a source id in depth first
+	 * order, with an explicit stack of cursors instead of recursion
+	 *
+	 * @param source the source vertex id
+	 * @return the reached vertex ids, in the order they are first visited
+	 * @throws NoSuchElementException if the source vertex is not contained in the
+	 *                                graph
+	 */
+	public int[] preorder(int source) throws NoSuchElementException {
+		int n = g.vertexCount();
+		if (source < 0 || source >= n)
+			throw new NoSuchElementException("Source vertex not found in graph");
+		boolean[] visited = new boolean[n];
+		IntList order = new IntList(16);
+		ArrayList<IndexedGraph.Cursor> stack = new ArrayList<IndexedGraph.Cursor>();
+		int depth = 0;
+		visited[source] = true;
+		order.add(source);
+		stack.add(g.cursor());
+		stack.get(0).reset(source);
+		while (depth >= 0) {
+			IndexedGraph.Cursor cursor = stack.get(depth);
+			if (!cursor.next()) {
+				depth--;
+				continue;
+			}
+			int w = cursor.target();
+			if (visited[w])
+				continue;
+			visited[w] = true;
+			order.add(w);
+			// cursors of popped levels are kept and reused
+			if (++depth == stack.size())
+				stack.add(g.cursor());
+			stack.get(depth).reset(w);
+		}
+		return order.toArray();
+	}
+
+	/**
+	 * Method computing the connected components, weakly connected ones for
+	 * oriented graphs, merging the ends of every adjacency in parallel
+	 *
+	 * @return the component id of every vertex, indexed by vertex id; component
+	 *         ids are dense, numbered by their first vertex
+	 */
+	public int[] components() {
+		int n = g.vertexCount();
+		ConcurrentUnionFind sets = new ConcurrentUnionFind(n);
+		ParallelRange.run(pool, 0, n, GRAIN, (from, to) -> {
+			IndexedGraph.Cursor cursor = g.cursor();
+			for (int v = from; v < to; v++) {
+				cursor.reset(v);
+				while (cursor.next()) {
+					sets.union(v, cursor.target());
+				}
+			}
+		});
+		// roots are the smallest id of their set, so they come before the rest of
+		// it
+		int[] ids = new int[n];
+		int count = 0;
+		for (int v = 0; v < n; v++) {
+			int root = sets.find(v);
+			ids[v] = root == v ? count++ : ids[root];
+		}
+		return ids;
+	}
+
+	/**
+	 * Method counting the connected components, weakly connected ones for
+	 * oriented graphs
+	 *
+	 * @return an integer value of the components count
+	 */
+	public int componentCount() {
+		int[] ids = components();
+		return ids.length == 0 ? 0 : Arrays.stream(ids).max().getAsInt() + 1;
+	}
+
+	/**
+	 * Method expanding the frontier along the outgoing adjacencies, claiming every
+	 * unvisited neighbour with compare-and-set
+	 *
+	 * @param frontier  the vertexes at the current depth
+	 * @param levels    the level of every vertex, -1 if unvisited
+	 * @param depth     the current depth
+	 * @param nextEdges the counter of the adjacencies of the next frontier
+	 * @return the vertexes at the next depth
+	 */
+	private IntList topDownStep(IntList frontier, AtomicIntegerArray levels, int depth, AtomicLong nextEdges) {
+		ConcurrentLinkedQueue<IntList> found = new ConcurrentLinkedQueue<IntList>();
+		ParallelRange.run(pool, 0, frontier.size(), GRAIN, (from, to) -> {
+			IntList local = new IntList(16);
+			long edges = 0;
+			IndexedGraph.Cursor cursor = g.cursor();
+			for (int k = from; k < to; k++) {
+				cursor.reset(frontier.get(k));
+				while (cursor.next()) {
+					int w = cursor.target();
+					if (levels.get(w) < 0 && levels.compareAndSet(w, -1, depth + 1)) {
+						local.add(w);
+						edges += g.degree(w);
+					}
+				}
+			}
+			nextEdges.addAndGet(edges);
+			found.add(local);
+		});
+		return merge(found);
+	}
+
+	/**
+	 * Method letting every unvisited vertex look for a parent in the frontier
+	 * along its incoming adjacencies; every vertex only writes its own level
+	 *
+	 * @param levels    the level of every vertex, -1 if unvisited
+	 * @param depth     the current depth
+	 * @param nextEdges the counter of the adjacencies of the next frontier
+	 * @return the vertexes at the next depth
+	 */
+	private IntList bottomUpStep(AtomicIntegerArray levels, int depth, AtomicLong nextEdges) {
+		IndexedGraph<V> in = incoming();
+		ConcurrentLinkedQueue<IntList> found = new ConcurrentLinkedQueue<IntList>();
+		ParallelRange.run(pool, 0, g.vertexCount(), GRAIN, (from, to) -> {
+			IntList local = new IntList(16);
+			long edges = 0;
+			IndexedGraph.Cursor cursor = in.cursor();
+			for (int v = from; v < to; v++) {
+				if (levels.get(v) >= 0)
+					continue;
+				cursor.reset(v);
+				while (cursor.next()) {
+					if (levels.get(cursor.target()) == depth) {
+						levels.set(v, depth + 1);
+						local.add(v);
+						edges += g.degree(v);
+						break;
+					}
+				}
+			}
+			nextEdges.addAndGet(edges);
+			found.add(local);
+		});
+		return merge(found);
+	}
+
+	/**
+	 * Method returning the graph of incoming adjacencies, built on first use for
+	 * oriented graphs
+	 *
+	 * @return the graph itself if not oriented, its transpose if oriented
+	 */
+	private synchronized IndexedGraph<V> incoming() {
+		if (incoming == null)
+			incoming = g.isOriented() ? CsrGraph.transpose(g) : g;
+		return incoming;
+	}
+
+	/**
+	 * Method concatenating the vertexes found by the chunks of a step
+	 *
+	 * @param found the vertexes found by every chunk
+	 * @return a list with all of them
+	 */
+	private IntList merge(ConcurrentLinkedQueue<IntList> found) {
+		int size = 0;
+		for (IntList local : found) {
+			size += local.size();
+		}
+		IntList out = new IntList(size);
+		for (IntList local : found) {
+			for (int k = 0; k < local.size(); k++) {
+				out.add(local.get(k));
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Method returning the id of a vertex
+	 *
+	 * @param vertex the label of the vertex
+	 * @return the vertex id
+	 * @throws NoSuchElementException if the vertex is not contained in the graph
+	 */
+	private int idOf(V vertex) throws NoSuchElementException {
+		int id = g.indexOf(vertex);
+		if (id < 0)
+			throw new NoSuchElementException("Vertex " + vertex + " not found in graph");
+		return id;
+	}
+
+}
@@ -0,0 +1,115 @@
+package graphs.secondversion;
+
+import java.util.Arrays;
+
+/**
+ * Class implementing a disjoint-set (union-find) data structure over integer
+ * elements, with union by size and path halving
+ */
+public class UnionFind {
+
+	private int[] parent;
+	private int[] size;
+	private int sets;
+
+	/**
+	 * Constructor for a structure of singleton sets
+	 *
+	 * @param n the number of elements, identified by 0..n-1
+	 */
+	public UnionFind(int n) {
+		this.parent = new int[n];
+		this.size = new int[n];
+		for (int i = 0; i < n; i++) {
+			parent[i] = i;
+			size[i] = 1;
+		}
+		this.sets = n;
+	}
+
+	/**
+	 * Method growing the structure with new singleton sets
+	 *
+	 * @param n the new number of elements
+	 */
+	public void grow(int n) {
+		int old = parent.length;
+		if (n <= old)
+			return;
+		parent = Arrays.copyOf(parent, n);
+		size = Arrays.copyOf(size, n);
+		for (int i = old; i < n; i++) {
+			parent[i] = i;
+			size[i] = 1;
+		}
+		sets += n - old;
+	}
+
+	/**
+	 * Method finding the representative of the set containing an element
+	 *
+	 * @param x the element
+	 * @return the representative element of its set
+	 */
+	public int find(int x) {
+		while (parent[x] != x) {
+			parent[x] = parent[parent[x]];
+			x = parent[x];
+		}
+		return x;
+	}
+
+	/**
+	 * Method merging the sets containing two elements
+	 *
+	 * @param x the first element
+	 * @param y the second element
+	 * @return true if the two sets were distinct, false if they were already the
+	 *         same set
+	 */
+	public boolean union(int x, int y) {
+		int rx = find(x);
+		int ry = find(y);
+		if (rx == ry)
+			return false;
+		if (size[rx] < size[ry]) {
+			int temp = rx;
+			rx = ry;
+			ry = temp;
+		}
+		parent[ry] = rx;
+		size[rx] += size[ry];
+		sets--;
+		return true;
+	}
+
+	/**
+	 * Method telling if two elements belong to the same set
+	 *
+	 * @param x the first element
+	 * @param y the second element
+	 * @return true if they are in the same set, false if they are not
+	 */
+	public boolean connected(int x, int y) {
+		return find(x) == find(y);
+	}
+
+	/**
+	 * Method returning the number of disjoint sets
+	 *
+	 * @return an integer value of the sets count
+	 */
+	public int setCount() {
+		return sets;
+	}
+
+	/**
+	 * Method returning the number of elements
+	 *
+	 * @return an integer value of the elements count
+	 */
+	public int size() {
+		return parent.length;
+	}
+
+}
@@ -0,0 +1,75 @@
+package graphs.secondversion;
+
+/**
+ * Class representing an approximated value together with its confidence
+ * interval
+ */
+public class WeightEstimate {
+
+	private final double value;
+	private final double lowerBound;
+	private final double upperBound;
+	private final double confidence;
+
+	/**
+	 * Constructor accepting the estimated value and its confidence interval
+	 *
+	 * @param value      the estimated value
+	 * @param lowerBound the lower end of the confidence interval
+	 * @param upperBound the upper end of the confidence interval
+	 * @param confidence the confidence level of the interval, between 0 and 1
+	 */
+	public WeightEstimate(double value, double lowerBound, double upperBound, double confidence) {
+		this.value = value;
+		this.lowerBound = lowerBound;
+		this.upperBound = upperBound;
+		this.confidence = confidence;
+	}
+
+	/**
+	 * Method returning the estimated value
+	 *
+	 * @return a double value for the estimate
+	 */
+	public double value() {
+		return value;
+	}
+
+	/**
+	 * Method returning the lower end of the confidence interval
+	 *
+	 * @return a double value for the lower bound
+	 */
+	public double getLowerBound() {
+		return lowerBound;
+	}
+
+	/**
+	 * Method returning the upper end of the confidence interval
+	 *
+	 * @return a double value for the upper bound
+	 */
+	public double getUpperBound() {
+		return upperBound;
+	}
+
+	/**
+	 * Method returning the confidence level of the interval
+	 *
+	 * @return a double value between 0 and 1
+	 */
+	public double getConfidence() {
+		return confidence;
+	}
+
+	/**
+	 * Method returning a string representation of the estimate
+	 *
+	 * @return a string representing the estimate and its interval
+	 */
+	@Override
+	public String toString() {
+		return value + " [" + lowerBound + ", " + upperBound + "] at " + (confidence * 100) + "%";
+	}
+
+}
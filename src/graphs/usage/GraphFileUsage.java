@@ -0,0 +1,34 @@
+package graphs.usage;
+
+import graphs.io.EdgeListLoader;
+import graphs.io.MappedGraph;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+public class GraphFileUsage {
+
+	/**
+	 * 
+	 * @param args the command line arguments
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+
+		if (args.length < 2)
+			throw new Exception("GraphFileUsage needs two arguments");
+
+		System.out.println("Converting entries from " + args[0] + " file...");
+		long start = System.nanoTime();
+		MappedGraph.write(new EdgeListLoader(ForkJoinPool.commonPool()).load(Paths.get(args[0])).toIndexedGraph(false),
+				Paths.get(args[1]));
+		System.out.println("Graph written to " + args[1] + " in " + (System.nanoTime() - start) / 1000000 + " ms");
+
+		start = System.nanoTime();
+		MappedGraph g = MappedGraph.open(Paths.get(args[1]));
+		System.out.println("Graph opened in " + (System.nanoTime() - start) / 1000000 + " ms");
+		System.out.println("Vertex count: " + g.vertexCount());
+		System.out.println("Adjacency count: " + g.adjacencyCount());
+
+	}
+
+}
@@ -2,19 +2,15 @@ package graphs.usage;
 
 import graphs.firstversion.Graph;
 import graphs.firstversion.Prim;
-import java.io.BufferedReader;
+import graphs.io.EdgeList;
+import graphs.io.EdgeListLoader;
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.DecimalFormat;
+import java.util.concurrent.ForkJoinPool;
 
 public class PrimUsageV1 {
 
-	private static final Charset ENCODING = StandardCharsets.UTF_8;
-
 	/**
 	 * 
 	 * @param args the command line arguments
@@ -46,13 +42,10 @@ public class PrimUsageV1 {
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	private static void loadAllEntries(String filepath, Graph g) throws IOException {
 		System.out.println("Loading entries from " + filepath + " file...");
-		Path inputFilePath = Paths.get(filepath);
-		try (BufferedReader fileInputReader = Files.newBufferedReader(inputFilePath, ENCODING)) {
-			String line = null;
-			while ((line = fileInputReader.readLine()) != null) {
-				String[] content = line.split(",");
-				g.addEdgeForced(content[0], content[1], Double.parseDouble(content[2]));
-			}
+		EdgeList edges = new EdgeListLoader(ForkJoinPool.commonPool()).load(Paths.get(filepath));
+		String[] labels = edges.getLabels().toArray();
+		for (int i = 0; i < edges.size(); i++) {
+			g.addEdgeForced(labels[edges.getSource(i)], labels[edges.getDestination(i)], edges.getWeight(i));
 		}
 		System.out.println("All entries loaded");
 	}
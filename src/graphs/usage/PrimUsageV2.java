@@ -1,61 +1,101 @@
 package graphs.usage;
 
 import graphs.secondversion.Prim;
-import graphs.secondversion.Graph;
-import java.io.BufferedReader;
+import graphs.secondversion.IndexedGraph;
+import graphs.io.EdgeListLoader;
+import graphs.io.MappedGraph;
+import graphs.io.MstWriter;
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.DecimalFormat;
+import java.util.concurrent.ForkJoinPool;
 
+/**
+ * Usage of the second version Prim over an indexed graph, loaded from a csv
+ * file or opened from a memory mapped graph file. Every parallel edge of the
+ * input is kept, so the tree takes the lightest one: results may differ from
+ * those of the labelled Graph, whose addEdgeForced keeps the first edge read
+ * between two vertexes and ignores the later ones
+ */
 public class PrimUsageV2 {
 
-	private static final Charset ENCODING = StandardCharsets.UTF_8;
-
 	/**
 	 * 
 	 * @param args the command line arguments
 	 * @throws Exception
 	 */
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public static void main(String[] args) throws Exception {
 
 		if (args.length < 1)
 			throw new Exception("PrimUsageV2 needs an argument");
 
-		Graph g = new Graph(false);
-		loadAllEntries(args[0], g);
+		if (args.length > 1) {
+			exportMst(args[0], args[1]);
+			return;
+		}
+
+		IndexedGraph<String> g = loadAllEntries(args[0]);
 		System.out.println("Graph created");
+		printMst(g);
 
-		Graph mst = Prim.mstPrim(g, "A", new MinComparator());
-		System.out.println("Vertex count: " + mst.vertexCount());
-		System.out.println("Edge count: " + mst.edgeCount());
-		DecimalFormat formatter = new DecimalFormat("#0.000");
-		System.out.println("Total weight: " + formatter.format(mst.weight() / 1000) + " km");
+	}
 
+	/**
+	 * 
+	 * @param g
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static void printMst(IndexedGraph<String> g) {
+		long[] counts = new long[2];
+		double[] weight = new double[1];
+		Prim.mstPrim(g, "A", new MinComparator(), (vertex, parent, cost) -> {
+			counts[0]++;
+			if (parent >= 0) {
+				counts[1]++;
+				weight[0] += cost;
+			}
+		});
+		System.out.println("Vertex count: " + counts[0]);
+		System.out.println("Edge count: " + counts[1]);
+		DecimalFormat formatter = new DecimalFormat("#0.000");
+		System.out.println("Total weight: " + formatter.format(weight[0] / 1000) + " km");
 	}
 
 	/**
 	 * 
 	 * @param filepath
-	 * @param g
+	 * @param outputpath
 	 * @throws IOException
 	 */
 	@SuppressWarnings({ "rawtypes", "unchecked" })
-	private static void loadAllEntries(String filepath, Graph g) throws IOException {
+	private static void exportMst(String filepath, String outputpath) throws IOException {
+		IndexedGraph<String> g = loadAllEntries(filepath);
+
+		MstWriter.Format format = outputpath.endsWith(MstWriter.EXTENSION) ? MstWriter.Format.BINARY
+				: MstWriter.Format.CSV;
+		MstWriter<String> writer = MstWriter.export(g, "A", new MinComparator(), Paths.get(outputpath), format);
+		System.out.println("Vertex count: " + g.vertexCount());
+		System.out.println("Edge count: " + writer.getEdgeCount());
+		DecimalFormat formatter = new DecimalFormat("#0.000");
+		System.out.println("Total weight: " + formatter.format(writer.getWeight() / 1000) + " km");
+		System.out.println("Tree written to " + outputpath);
+	}
+
+	/**
+	 * 
+	 * @param filepath
+	 * @return the loaded graph
+	 * @throws IOException
+	 */
+	private static IndexedGraph<String> loadAllEntries(String filepath) throws IOException {
 		System.out.println("Loading entries from " + filepath + " file...");
-		Path inputFilePath = Paths.get(filepath);
-		try (BufferedReader fileInputReader = Files.newBufferedReader(inputFilePath, ENCODING)) {
-			String line = null;
-			while ((line = fileInputReader.readLine()) != null) {
-				String[] content = line.split(",");
-				g.addEdgeForced(content[0], content[1], Double.parseDouble(content[2]));
-			}
-		}
+		IndexedGraph<String> g;
+		if (filepath.endsWith(MappedGraph.EXTENSION))
+			g = MappedGraph.open(Paths.get(filepath));
+		else
+			g = new EdgeListLoader(ForkJoinPool.commonPool()).load(Paths.get(filepath)).toIndexedGraph(false);
 		System.out.println("All entries loaded");
+		return g;
 	}
 
 }
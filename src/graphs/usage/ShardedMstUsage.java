@@ -0,0 +1,56 @@
+package graphs.usage;
+
+import graphs.io.DistributedMst;
+import graphs.io.EdgeList;
+import graphs.io.EdgeListLoader;
+import graphs.io.GraphShard;
+import graphs.io.MappedGraph;
+import graphs.secondversion.GraphPartitioner;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.DecimalFormat;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class ShardedMstUsage {
+
+	/**
+	 *
+	 * @param args the command line arguments
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+
+		if (args.length < 3)
+			throw new Exception("ShardedMstUsage needs three arguments");
+
+		int k = Integer.parseInt(args[1]);
+		System.out.println("Partitioning entries from " + args[0] + " file into " + k + " shards...");
+		long start = System.nanoTime();
+		// partitioning reads the memory mapped graph, a csv file being converted first
+		Path graphFile = Paths.get(args[0]);
+		if (!args[0].endsWith(MappedGraph.EXTENSION)) {
+			graphFile = Paths.get(args[2]).resolve("graph" + MappedGraph.EXTENSION);
+			Files.createDirectories(graphFile.getParent());
+			MappedGraph.write(new EdgeListLoader(ForkJoinPool.commonPool()).load(Paths.get(args[0])).toIndexedGraph(false),
+					graphFile);
+		}
+		MappedGraph g = MappedGraph.open(graphFile);
+		GraphPartitioner<String> partitioner = new GraphPartitioner<String>(g);
+		int[] parts = partitioner.partition(k, GraphPartitioner.Strategy.FENNEL, 0.05);
+		List<Path> shards = GraphShard.write(g, parts, k, Paths.get(args[2]));
+		System.out.println("Shards written to " + args[2] + " in " + (System.nanoTime() - start) / 1000000 + " ms");
+		System.out.println("Edge cut: " + partitioner.edgeCut(parts) + " of " + g.adjacencyCount() / 2);
+
+		start = System.nanoTime();
+		EdgeList forest = new DistributedMst(600000).compute(shards);
+		System.out.println("Forest computed in " + (System.nanoTime() - start) / 1000000 + " ms");
+		System.out.println("Vertex count: " + forest.vertexCount());
+		System.out.println("Edge count: " + forest.size());
+		DecimalFormat formatter = new DecimalFormat("#0.000");
+		System.out.println("Total weight: " + formatter.format(forest.weight() / 1000) + " km");
+
+	}
+
+}
@@ -0,0 +1,87 @@
+package graphs.usage;
+
+import graphs.io.EdgeListLoader;
+import graphs.secondversion.CsrGraph;
+import graphs.secondversion.DeltaStepping;
+import graphs.secondversion.Dijkstra;
+import graphs.secondversion.Graph;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+public class ShortestPathBenchmark {
+
+	private static final int[] THREADS = { 1, 2, 4, 8, 16, 32, 64 };
+	private static final int WARMUP = 3;
+	private static final int RUNS = 5;
+
+	/**
+	 * 
+	 * @param args the command line arguments: the edge file, the source vertex
+	 *             and the delta-stepping bucket width
+	 * @throws Exception
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static void main(String[] args) throws Exception {
+
+		if (args.length < 3)
+			throw new Exception("ShortestPathBenchmark needs three arguments");
+
+		Graph g = loadAllEntries(args[0]);
+		System.out.println("Graph created");
+		String source = args[1];
+		double delta = Double.parseDouble(args[2]);
+
+		Dijkstra dijkstra = new Dijkstra(g, new MinComparator());
+		System.out.println("Dijkstra: " + median(() -> dijkstra.run(source)) + " ms");
+
+		CsrGraph csr = new CsrGraph(g);
+		for (int threads : THREADS) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				DeltaStepping engine = new DeltaStepping(csr, delta, pool);
+				System.out.println(
+						"Delta-stepping, " + threads + " threads: " + median(() -> engine.run(source)) + " ms");
+			} finally {
+				pool.shutdown();
+			}
+		}
+
+	}
+
+	/**
+	 * Method timing a computation after some untimed warm-up runs, so that the
+	 * figures do not measure the compilation of the code
+	 *
+	 * @param run the computation
+	 * @return the median time of the timed runs, in milliseconds
+	 */
+	private static long median(Runnable run) {
+		for (int i = 0; i < WARMUP; i++) {
+			run.run();
+		}
+		long[] times = new long[RUNS];
+		for (int i = 0; i < RUNS; i++) {
+			long start = System.nanoTime();
+			run.run();
+			times[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(times);
+		return times[RUNS / 2] / 1000000;
+	}
+
+	/**
+	 * 
+	 * @param filepath
+	 * @return the loaded graph
+	 * @throws IOException
+	 */
+	private static Graph<String> loadAllEntries(String filepath) throws IOException {
+		System.out.println("Loading entries from " + filepath + " file...");
+		Graph<String> g = new EdgeListLoader(ForkJoinPool.commonPool()).load(Paths.get(filepath)).toGraph(false);
+		System.out.println("All entries loaded");
+		return g;
+	}
+
+}
@@ -0,0 +1,33 @@
+package graphs.usage;
+
+import graphs.io.EdgeList;
+import graphs.io.StreamingMst;
+import java.nio.file.Paths;
+import java.text.DecimalFormat;
+
+public class StreamingMstUsage {
+
+	private static final int BATCH_SIZE = 1 << 20;
+
+	/**
+	 * 
+	 * @param args the command line arguments
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+
+		if (args.length < 1)
+			throw new Exception("StreamingMstUsage needs an argument");
+
+		System.out.println("Streaming entries from " + args[0] + " file...");
+		EdgeList mst = new StreamingMst(BATCH_SIZE).compute(Paths.get(args[0]));
+		System.out.println("All entries streamed");
+
+		System.out.println("Vertex count: " + mst.vertexCount());
+		System.out.println("Edge count: " + mst.size());
+		DecimalFormat formatter = new DecimalFormat("#0.000");
+		System.out.println("Total weight: " + formatter.format(mst.weight() / 1000) + " km");
+
+	}
+
+}
@@ -1,5 +1,6 @@
 package priorityqueue.source;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -183,6 +184,34 @@ public class PriorityQueue<T, P> {
 		return out;
 	}
 
+	/**
+	 * Method returning the first element of the priority queue without removing
+	 * it
+	 *
+	 * @return the first element of the queue
+	 * @throws UnsupportedOperationException when calling it on an empty queue
+	 */
+	public T peek() {
+		if (heap.isEmpty()) {
+			throw new UnsupportedOperationException("Cannot peek elements from an empty queue");
+		}
+		return heap.get(0).elem;
+	}
+
+	/**
+	 * Method returning the priority of the first element of the priority queue
+	 * without removing it
+	 *
+	 * @return the priority of the first element of the queue
+	 * @throws UnsupportedOperationException when calling it on an empty queue
+	 */
+	public P peekPriority() {
+		if (heap.isEmpty()) {
+			throw new UnsupportedOperationException("Cannot peek elements from an empty queue");
+		}
+		return heap.get(0).prior;
+	}
+
 	/**
 	 * A recursive implementation of a method building the heap structure of the
 	 * priority queue
@@ -300,6 +329,15 @@ public class PriorityQueue<T, P> {
 		return heap.isEmpty();
 	}
 
+	/**
+	 * Method removing every element from the priority queue, keeping the inner
+	 * structures allocated so that the queue can be reused
+	 */
+	public void clear() {
+		heap.clear();
+		shortcut.clear();
+	}
+
 	/**
 	 * Method telling if an element, passed as param, is contained in the priority
 	 * queue
@@ -321,6 +359,40 @@ public class PriorityQueue<T, P> {
 		return heap.toString();
 	}
 
+	/**
+	 * Method writing a bounded representation of the heap structure to an output,
+	 * one line per heap level starting from the root, so that the elements
+	 * closest to extraction come first; the count of the elements left out is
+	 * reported
+	 *
+	 * @param out         the output receiving the representation
+	 * @param maxElements the greatest number of elements written
+	 * @throws IllegalArgumentException when the output, passed as param, is null,
+	 *                                  or the limit is not positive
+	 * @throws IOException              if the output cannot be written
+	 */
+	public void dump(Appendable out, int maxElements) throws IllegalArgumentException, IOException {
+		if (out == null)
+			throw new IllegalArgumentException("Output must be not null");
+		if (maxElements < 1)
+			throw new IllegalArgumentException("Limit must be positive");
+		out.append("Size: ").append(String.valueOf(heap.size())).append('\n');
+		int count = Math.min(maxElements, heap.size());
+		int level = 0;
+		for (int first = 0; first < count; first = 2 * first + 1) {
+			out.append("Level ").append(String.valueOf(level++)).append(": ");
+			int last = Math.min(2 * first + 1, count);
+			for (int i = first; i < last; i++) {
+				if (i > first)
+					out.append(", ");
+				out.append(heap.get(i).toString());
+			}
+			out.append('\n');
+		}
+		if (count < heap.size())
+			out.append("... (").append(String.valueOf(heap.size() - count)).append(" more)\n");
+	}
+
 	/**
 	 * Inner class representing a generic type of elements accepted by the heap
 	 * structure of the priority queue
@@ -1,5 +1,6 @@
 package priorityqueue.source;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import static org.junit.Assert.assertArrayEquals;
@@ -294,4 +295,48 @@ public class PriorityQueueTests {
 		assertEquals(true, pqi.contains(s1));
 	}
 
+	@Test
+	public void testClear() {
+		pqi.insert(s1, i1);
+		pqi.insert(s4, i4);
+		pqi.clear();
+		assertEquals(true, pqi.isEmpty());
+		assertEquals(false, pqi.contains(s1));
+		pqi.insert(s1, i1);
+		assertEquals(s1, pqi.extract());
+	}
+
+	@Test
+	public void testDump() throws IOException {
+		pqi.insert(s3, i3);
+		pqi.insert(s2, i2);
+		pqi.insert(s4, i4);
+		pqi.insert(s5, i5);
+		pqi.insert(s1, i1);
+		StringBuilder out = new StringBuilder();
+		pqi.dump(out, 4);
+		assertEquals("Size: 5\nLevel 0: <elefante, 5>\nLevel 1: <delfino, 4>, <camaleonte, 3>\n"
+				+ "Level 2: <bradipo, 2>\n... (1 more)\n", out.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDump_Fail_Limit() throws IOException {
+		pqi.dump(new StringBuilder(), 0);
+	}
+
+	@Test
+	public void testPeek() {
+		pqi.insert(s3, i3);
+		pqi.insert(s6, i6);
+		pqi.insert(s1, i1);
+		assertEquals(s6, pqi.peek());
+		assertEquals(i6, pqi.peekPriority());
+		assertEquals(3, pqi.getHeap().size());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testPeek_EmptyQueue() throws UnsupportedOperationException {
+		pqi.peekPriority();
+	}
+
 }